@@ -10,22 +10,27 @@ import org.deeplearning4j.api.storage.StorageType;
 import org.nd4j.shade.jackson.databind.ObjectMapper;
 
 import javax.xml.bind.DatatypeConverter;
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
-import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Asynchronously post all updates to a remote UI that has remote listening enabled.<br>
  * Typically used with UIServer (don't forget to enable remote listener support - UIServer.getInstance().enableRemoteListener()
+ * <br><br>
+ * Records are queued, and posted by one or more background threads. Each request contains a batch of up to
+ * {@link Builder#maxBatchSize(int)} records, in the binary bulk format (see {@link #BULK_PATH}), optionally gzip
+ * compressed. If the remote UI doesn't support bulk posting, records are posted one per request instead.<br>
+ * The number of queued updates is bounded ({@link Builder#maxQueueSize(int)}): when the queue is full, updates are
+ * dropped according to the {@link OverflowPolicy}, so that a slow or unavailable UI doesn't make the heap of the
+ * training JVM grow without bound. Storage metadata and static info are never dropped.
  *
  * @author Alex Black
  */
@@ -48,22 +53,72 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
      * Default backoff multiplicative factor for retrying
      */
     public static final double DEFAULT_RETRY_BACKOFF_FACTOR = 2.0;
+    /**
+     * Default maximum number of queued updates
+     */
+    public static final int DEFAULT_MAX_QUEUE_SIZE = 500;
+    /**
+     * Default maximum number of records per request
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    /**
+     * Path of the bulk endpoint, relative to the posting path - i.e., http://localhost:9000/remoteReceive/bulk<br>
+     * Bulk request body: [byte format version][byte compression: 0 = none, 1 = gzip], then (compressed if
+     * applicable): [int number of records], and for each record: [UTF storage type name][UTF class name]
+     * [int number of bytes][encoded bytes]
+     */
+    public static final String BULK_PATH = "bulk";
+    public static final byte BULK_FORMAT_VERSION = 1;
+    public static final byte BULK_COMPRESSION_NONE = 0;
+    public static final byte BULK_COMPRESSION_GZIP = 1;
+
+    /**
+     * What to do with a new update when the queue already contains the maximum number of updates
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the new update
+         */
+        DROP_NEWEST,
+        /**
+         * Drop the oldest queued update
+         */
+        DROP_OLDEST,
+        /**
+         * Drop the oldest queued update of the same session, type and worker as the new update (i.e., replace
+         * old updates of a worker by its most recent ones), or the oldest queued update if there is none
+         */
+        COALESCE
+    }
+
+    private static final long DROPPED_WARN_INTERVAL = 1000;
 
     private static final long MAX_SHUTDOWN_WARN_COUNT = 5;
 
     private final String USER_AGENT = "Mozilla/5.0";
 
     private URL url;
+    private URL bulkUrl;
     private int maxRetryCount;
     private long retryDelayMS;
     private double retryBackoffFactor;
+    private int maxQueueSize;
+    private OverflowPolicy overflowPolicy;
+    private int maxBatchSize;
+    private boolean compress;
 
-    private LinkedBlockingDeque<ToPost> queue = new LinkedBlockingDeque<>();
+    //Queue of records to post; the number of updates in it is bounded. Guarded by queueLock
+    private final ArrayDeque<ToPost> queue = new ArrayDeque<>();
+    private int queuedUpdates;
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final Condition notEmpty = queueLock.newCondition();
 
-    private Thread postThread;
+    private Thread[] postThreads;
 
     private AtomicBoolean shutdown = new AtomicBoolean(false);
     private AtomicLong shutdownWarnCount = new AtomicLong(0);
+    private AtomicLong droppedCount = new AtomicLong(0);
+    private volatile boolean bulkSupported = true;
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -98,28 +153,61 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
      */
     public RemoteUIStatsStorageRouter(String address, String path, int maxRetryCount, long retryDelayMS,
                     double retryBackoffFactor) {
-        this.maxRetryCount = maxRetryCount;
-        this.retryDelayMS = retryDelayMS;
-        this.retryBackoffFactor = retryBackoffFactor;
+        this(new Builder(address).path(path).maxRetryCount(maxRetryCount).retryDelayMS(retryDelayMS)
+                        .retryBackoffFactor(retryBackoffFactor));
+    }
 
-        String url = address;
-        if (path != null) {
+    private RemoteUIStatsStorageRouter(Builder builder) {
+        this.maxRetryCount = builder.maxRetryCount;
+        this.retryDelayMS = builder.retryDelayMS;
+        this.retryBackoffFactor = builder.retryBackoffFactor;
+        this.maxQueueSize = builder.maxQueueSize;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.compress = builder.compress;
+        this.bulkSupported = builder.bulk;
+
+        String url = builder.address;
+        if (builder.path != null) {
             if (url.endsWith("/")) {
-                url = url + path;
+                url = url + builder.path;
             } else {
-                url = url + "/" + path;
+                url = url + "/" + builder.path;
             }
         }
 
         try {
             this.url = new URL(url);
+            this.bulkUrl = new URL(url.endsWith("/") ? url + BULK_PATH : url + "/" + BULK_PATH);
         } catch (MalformedURLException e) {
             throw new RuntimeException(e);
         }
 
-        postThread = new Thread(new PostRunnable());
-        postThread.setDaemon(true);
-        postThread.start();
+        postThreads = new Thread[builder.numPostThreads];
+        for (int i = 0; i < postThreads.length; i++) {
+            postThreads[i] = new Thread(new PostRunnable());
+            postThreads[i].setDaemon(true);
+            postThreads[i].start();
+        }
+    }
+
+    /**
+     * @return Number of updates dropped so far because the queue was full
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return Number of records currently queued for posting
+     */
+    public int getQueueSize() {
+        queueLock.lock();
+        try {
+            return queue.size();
+        } finally {
+            queueLock.unlock();
+        }
     }
 
     @Override
@@ -139,7 +227,7 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
             }
         } else {
             for (StorageMetaData m : storageMetaData) {
-                queue.add(new ToPost(m, null, null));
+                enqueue(new ToPost(m, null, null));
             }
         }
     }
@@ -161,7 +249,7 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
             }
         } else {
             for (Persistable p : staticInfo) {
-                queue.add(new ToPost(null, p, null));
+                enqueue(new ToPost(null, p, null));
             }
         }
     }
@@ -183,9 +271,148 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
             }
         } else {
             for (Persistable p : updates) {
-                queue.add(new ToPost(null, null, p));
+                enqueue(new ToPost(null, null, p));
+            }
+        }
+    }
+
+    private void enqueue(ToPost toPost) {
+        queueLock.lock();
+        try {
+            Persistable update = toPost.getUpdate();
+            if (update != null) {
+                while (queuedUpdates >= maxQueueSize) {
+                    boolean removed = false;
+                    if (overflowPolicy == OverflowPolicy.COALESCE) {
+                        removed = removeFirstUpdate(update);
+                    }
+                    if (!removed && overflowPolicy != OverflowPolicy.DROP_NEWEST) {
+                        removed = removeFirstUpdate(null);
+                    }
+                    if (!removed) {
+                        onDropped();
+                        return;
+                    }
+                }
+                queuedUpdates++;
+            }
+            queue.addLast(toPost);
+            notEmpty.signal();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    //Remove the oldest queued update (of the same session/type/worker, if specified). Guarded by queueLock
+    private boolean removeFirstUpdate(Persistable sameWorkerAs) {
+        Iterator<ToPost> iter = queue.iterator();
+        while (iter.hasNext()) {
+            Persistable p = iter.next().getUpdate();
+            if (p != null && (sameWorkerAs == null || (p.getSessionID().equals(sameWorkerAs.getSessionID())
+                            && p.getTypeID().equals(sameWorkerAs.getTypeID())
+                            && p.getWorkerID().equals(sameWorkerAs.getWorkerID())))) {
+                iter.remove();
+                queuedUpdates--;
+                onDropped();
+                return true;
             }
         }
+        return false;
+    }
+
+    private void onDropped() {
+        long count = droppedCount.incrementAndGet();
+        if (count == 1 || count % DROPPED_WARN_INTERVAL == 0) {
+            log.warn("RemoteUIStatsStorageRouter: queue full (max {} updates), {} updates dropped so far (policy: {})",
+                            maxQueueSize, count, overflowPolicy);
+        }
+    }
+
+    private List<ToPost> takeBatch() throws InterruptedException {
+        queueLock.lock();
+        try {
+            while (queue.isEmpty()) {
+                notEmpty.await();
+            }
+            List<ToPost> batch = new ArrayList<>(Math.min(queue.size(), maxBatchSize));
+            while (!queue.isEmpty() && batch.size() < maxBatchSize) {
+                ToPost t = queue.pollFirst();
+                if (t.getUpdate() != null)
+                    queuedUpdates--;
+                batch.add(t);
+            }
+            return batch;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    //Add records that could not be posted back to the front of the queue, in their original order. Updates queued
+    // while these were being posted may have filled the queue, hence the overflow policy is applied again
+    private void requeue(List<ToPost> list) {
+        queueLock.lock();
+        try {
+            for (int i = list.size() - 1; i >= 0; i--) {
+                ToPost t = list.get(i);
+                if (t.getUpdate() != null)
+                    queuedUpdates++;
+                queue.addFirst(t);
+            }
+            while (queuedUpdates > maxQueueSize) {
+                boolean removed;
+                if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+                    removed = removeLastUpdate();
+                } else {
+                    removed = (overflowPolicy == OverflowPolicy.COALESCE && removeFirstSupersededUpdate());
+                    if (!removed)
+                        removed = removeFirstUpdate(null);
+                }
+                if (!removed)
+                    break;
+            }
+            notEmpty.signal();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    //Remove the most recently queued update. Guarded by queueLock
+    private boolean removeLastUpdate() {
+        Iterator<ToPost> iter = queue.descendingIterator();
+        while (iter.hasNext()) {
+            if (iter.next().getUpdate() != null) {
+                iter.remove();
+                queuedUpdates--;
+                onDropped();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Remove the oldest queued update for which a more recent update of the same session/type/worker is queued.
+    // Guarded by queueLock
+    private boolean removeFirstSupersededUpdate() {
+        Map<List<String>, Integer> counts = new HashMap<>();
+        for (ToPost t : queue) {
+            Persistable p = t.getUpdate();
+            if (p != null) {
+                List<String> key = Arrays.asList(p.getSessionID(), p.getTypeID(), p.getWorkerID());
+                Integer c = counts.get(key);
+                counts.put(key, c == null ? 1 : c + 1);
+            }
+        }
+        Iterator<ToPost> iter = queue.iterator();
+        while (iter.hasNext()) {
+            Persistable p = iter.next().getUpdate();
+            if (p != null && counts.get(Arrays.asList(p.getSessionID(), p.getTypeID(), p.getWorkerID())) > 1) {
+                iter.remove();
+                queuedUpdates--;
+                onDropped();
+                return true;
+            }
+        }
+        return false;
     }
 
     @AllArgsConstructor
@@ -194,6 +421,22 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
         private final StorageMetaData meta;
         private final Persistable staticInfo;
         private final Persistable update;
+
+        private StorageType storageType() {
+            if (meta != null)
+                return StorageType.MetaData;
+            return staticInfo != null ? StorageType.StaticInfo : StorageType.Update;
+        }
+
+        private String className() {
+            return (meta != null ? meta : (staticInfo != null ? staticInfo : update)).getClass().getName();
+        }
+
+        private byte[] encode() {
+            if (meta != null)
+                return meta.encode();
+            return staticInfo != null ? staticInfo.encode() : update.encode();
+        }
     }
 
     //Runnable class for doing async posting
@@ -217,42 +460,74 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
 
             while (!shutdown.get()) {
 
-                List<ToPost> list = new ArrayList<>();
-                ToPost t;
+                List<ToPost> list;
                 try {
-                    t = queue.take(); //Blocking operation
+                    list = takeBatch(); //Blocking operation
                 } catch (InterruptedException e) {
                     continue;
                 }
-                list.add(t);
-                queue.drainTo(list); //Non-blocking
-
-                int successCount = 0;
-                for (ToPost toPost : list) {
-                    boolean success;
-                    try {
-                        success = tryPost(toPost);
-                    } catch (IOException e) {
-                        failureCount++;
-                        log.warn("Error posting to remote UI at {}, consecutive failure count = {}. Waiting {} ms before retrying",
-                                        url, failureCount, nextDelayMs, e);
-                        success = false;
-                    }
-                    if (!success) {
-                        for (int i = list.size() - 1; i > successCount; i--) {
-                            queue.addFirst(list.get(i)); //Add remaining back to be processed in original order
-                        }
-                        waitForRetry();
-                        break;
-                    } else {
-                        successCount++;
-                        failureCount = 0;
-                        nextDelayMs = retryDelayMS;
-                    }
+
+                int successCount;
+                if (bulkSupported) {
+                    successCount = postBulk(list);
+                } else {
+                    successCount = postIndividually(list);
+                }
+
+                if (successCount < list.size()) {
+                    requeue(list.subList(successCount, list.size()));
+                    waitForRetry();
+                } else {
+                    failureCount = 0;
+                    nextDelayMs = retryDelayMS;
                 }
             }
         }
 
+        //Returns the number of records posted: either all or none, unless falling back to individual posting
+        private int postBulk(List<ToPost> list) {
+            PostResult result;
+            try {
+                result = tryPostBulk(list);
+            } catch (IOException e) {
+                failureCount++;
+                log.warn("Error posting to remote UI at {}, consecutive failure count = {}. Waiting {} ms before "
+                                + "retrying", bulkUrl, failureCount, nextDelayMs, e);
+                return 0;
+            }
+            switch (result) {
+                case SUCCESS:
+                    return list.size();
+                case NOT_SUPPORTED:
+                    log.info("Remote UI at {} does not support bulk posting; posting one record per request", url);
+                    bulkSupported = false;
+                    return postIndividually(list);
+                default:
+                    failureCount++;
+                    return 0;
+            }
+        }
+
+        private int postIndividually(List<ToPost> list) {
+            int successCount = 0;
+            for (ToPost toPost : list) {
+                boolean success;
+                try {
+                    success = tryPost(toPost);
+                } catch (IOException e) {
+                    log.warn("Error posting to remote UI at {}, consecutive failure count = {}. Waiting {} ms before "
+                                    + "retrying", url, failureCount + 1, nextDelayMs, e);
+                    success = false;
+                }
+                if (!success) {
+                    failureCount++;
+                    break;
+                }
+                successCount++;
+            }
+            return successCount;
+        }
+
         private void waitForRetry() {
             if (maxRetryCount >= 0 && failureCount > maxRetryCount) {
                 throw new RuntimeException("RemoteUIStatsStorageRouter: hit maximum consecutive failures("
@@ -267,39 +542,81 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
         }
     }
 
+    private enum PostResult {
+        SUCCESS, FAILURE, NOT_SUPPORTED
+    }
 
-    private HttpURLConnection getConnection() throws IOException {
+    private HttpURLConnection getConnection(URL url, String contentType) throws IOException {
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
         connection.setRequestMethod("POST");
         connection.setRequestProperty("User-Agent", USER_AGENT);
-        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("Content-Type", contentType);
         connection.setDoOutput(true);
         return connection;
     }
 
-    private boolean tryPost(ToPost toPost) throws IOException {
+    private byte[] encodeBulk(List<ToPost> list) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write(BULK_FORMAT_VERSION);
+        baos.write(compress ? BULK_COMPRESSION_GZIP : BULK_COMPRESSION_NONE);
+        try (DataOutputStream dos = new DataOutputStream(
+                        compress ? new GZIPOutputStream(baos) : new BufferedOutputStream(baos))) {
+            dos.writeInt(list.size());
+            for (ToPost toPost : list) {
+                byte[] bytes = toPost.encode();
+                dos.writeUTF(toPost.storageType().name());
+                dos.writeUTF(toPost.className());
+                dos.writeInt(bytes.length);
+                dos.write(bytes);
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    private PostResult tryPostBulk(List<ToPost> list) throws IOException {
+        byte[] body = encodeBulk(list);
+
+        HttpURLConnection connection = getConnection(bulkUrl, "application/octet-stream");
+        connection.setFixedLengthStreamingMode(body.length);
+        try (OutputStream os = connection.getOutputStream()) {
+            os.write(body);
+        }
+
+        int responseCode = connection.getResponseCode();
+        if (responseCode == 200) {
+            return PostResult.SUCCESS;
+        }
+        if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+            return PostResult.NOT_SUPPORTED;
+        }
 
-        HttpURLConnection connection = getConnection();
-
-        String className;
-        byte[] asBytes;
-        StorageType type;
-        if (toPost.getMeta() != null) {
-            StorageMetaData smd = toPost.getMeta();
-            className = smd.getClass().getName();
-            asBytes = smd.encode();
-            type = StorageType.MetaData;
-        } else if (toPost.getStaticInfo() != null) {
-            Persistable p = toPost.getStaticInfo();
-            className = p.getClass().getName();
-            asBytes = p.encode();
-            type = StorageType.StaticInfo;
+        StringBuilder response = new StringBuilder();
+        InputStream errorStream = connection.getErrorStream();
+        if (errorStream != null) {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(errorStream))) {
+                String inputLine;
+                while ((inputLine = in.readLine()) != null) {
+                    response.append(inputLine);
+                }
+            }
+        }
+        if (responseCode == HttpURLConnection.HTTP_FORBIDDEN) {
+            log.warn("Error posting to remote UI at {} (Response code: 403). Remote listener support is not enabled?"
+                            + " use UIServer.getInstance().enableRemoteListener()", bulkUrl);
         } else {
-            Persistable p = toPost.getUpdate();
-            className = p.getClass().getName();
-            asBytes = p.encode();
-            type = StorageType.Update;
+            log.warn("Error posting to remote UI at {} - received response code {}\tContent: {}", bulkUrl,
+                            responseCode, response.toString());
         }
+        return PostResult.FAILURE;
+    }
+
+    private boolean tryPost(ToPost toPost) throws IOException {
+
+        HttpURLConnection connection = getConnection(url, "application/json");
+
+        String className = toPost.className();
+        byte[] asBytes = toPost.encode();
+        StorageType type = toPost.storageType();
 
         String base64 = DatatypeConverter.printBase64Binary(asBytes);
 
@@ -353,4 +670,119 @@ public class RemoteUIStatsStorageRouter implements StatsStorageRouter {
 
         return true;
     }
+
+    public static class Builder {
+        private String address;
+        private String path = DEFAULT_PATH;
+        private int maxRetryCount = DEFAULT_MAX_RETRIES;
+        private long retryDelayMS = DEFAULT_BASE_RETR_DELAY_MS;
+        private double retryBackoffFactor = DEFAULT_RETRY_BACKOFF_FACTOR;
+        private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.COALESCE;
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        private boolean compress = true;
+        private boolean bulk = true;
+        private int numPostThreads = 1;
+
+        /**
+         * @param address Address of the remote UI: for example, "http://localhost:9000"
+         */
+        public Builder(String address) {
+            this.address = address;
+        }
+
+        /**
+         * Path/endpoint to post to: for example "remoteReceive" -> added to path to become like
+         * "http://localhost:9000/remoteReceive". Default: {@link #DEFAULT_PATH}
+         */
+        public Builder path(String path) {
+            this.path = path;
+            return this;
+        }
+
+        /**
+         * Maximum number of consecutive retries before failing. Set to -1 to always retry
+         */
+        public Builder maxRetryCount(int maxRetryCount) {
+            this.maxRetryCount = maxRetryCount;
+            return this;
+        }
+
+        /**
+         * Base delay before retrying, in milliseconds
+         */
+        public Builder retryDelayMS(long retryDelayMS) {
+            this.retryDelayMS = retryDelayMS;
+            return this;
+        }
+
+        /**
+         * Backoff factor for retrying: 2.0 for example gives delays of 1000, 2000, 4000, 8000, etc milliseconds,
+         * with a base retry delay of 1000
+         */
+        public Builder retryBackoffFactor(double retryBackoffFactor) {
+            this.retryBackoffFactor = retryBackoffFactor;
+            return this;
+        }
+
+        /**
+         * Maximum number of updates waiting to be posted. Default: {@link #DEFAULT_MAX_QUEUE_SIZE}
+         */
+        public Builder maxQueueSize(int maxQueueSize) {
+            if (maxQueueSize <= 0)
+                throw new IllegalArgumentException("Max queue size must be positive: got " + maxQueueSize);
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        /**
+         * What to do with new updates when the queue is full. Default: {@link OverflowPolicy#COALESCE}
+         */
+        public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * Maximum number of records posted in one request. Default: {@link #DEFAULT_MAX_BATCH_SIZE}
+         */
+        public Builder maxBatchSize(int maxBatchSize) {
+            if (maxBatchSize <= 0)
+                throw new IllegalArgumentException("Max batch size must be positive: got " + maxBatchSize);
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Whether to gzip compress the bulk requests. Default: true
+         */
+        public Builder compress(boolean compress) {
+            this.compress = compress;
+            return this;
+        }
+
+        /**
+         * Whether to post batches of records to the bulk endpoint. If false (or if the remote UI doesn't support it),
+         * each record is posted in a separate request, as JSON. Default: true
+         */
+        public Builder bulk(boolean bulk) {
+            this.bulk = bulk;
+            return this;
+        }
+
+        /**
+         * Number of threads posting to the remote UI. Note that with more than one thread, records may be received
+         * in a different order than they were queued. Default: 1
+         */
+        public Builder numPostThreads(int numPostThreads) {
+            if (numPostThreads <= 0)
+                throw new IllegalArgumentException("Number of posting threads must be positive: got " + numPostThreads);
+            this.numPostThreads = numPostThreads;
+            return this;
+        }
+
+        public RemoteUIStatsStorageRouter build() {
+            return new RemoteUIStatsStorageRouter(this);
+        }
+    }
 }
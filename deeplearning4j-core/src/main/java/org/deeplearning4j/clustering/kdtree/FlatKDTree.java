@@ -0,0 +1,231 @@
+/*-
+ *
+ *  * Copyright 2017 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.clustering.kdtree;
+
+import org.deeplearning4j.clustering.util.BaseFlatTree;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Balanced KD tree over primitive arrays, using euclidean distance.<br>
+ * Unlike {@link KDTree}, the tree is built once from all points (split on the median of the dimension with the
+ * largest spread), distances are computed directly on a double[] holding all points, and the tree is stored
+ * implicitly: the node for range [lo, hi) of the point ordering is at position mid = (lo + hi) / 2, with subtrees
+ * [lo, mid) and [mid + 1, hi).<br>
+ * Subtrees are built in parallel. Batches of queries are answered in parallel with
+ * {@link #search(double[][], int, double[][])}.
+ */
+public class FlatKDTree extends BaseFlatTree {
+
+    // splitDimension[position]: dimension the node at this position splits on
+    private final int[] splitDimension;
+
+    public FlatKDTree(INDArray points) {
+        this(toArray(points));
+    }
+
+    public FlatKDTree(double[][] points) {
+        this(points, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param points  Points to build the tree from. Points are copied.
+     * @param workers Number of threads used to build the tree and for batch queries
+     */
+    public FlatKDTree(double[][] points, int workers) {
+        super(points, workers);
+        this.splitDimension = new int[size];
+
+        double[] scratch = new double[size];
+        ForkJoinPool pool = new ForkJoinPool(this.workers);
+        try {
+            pool.invoke(new BuildTask(scratch, 0, size));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void build(double[] scratch, int lo, int hi) {
+        if (hi - lo < 2)
+            return;
+
+        // split on the dimension with the largest spread
+        int best = 0;
+        double bestSpread = -1.0;
+        for (int d = 0; d < dims; d++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                double v = data[order[i] * dims + d];
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+            if (max - min > bestSpread) {
+                bestSpread = max - min;
+                best = d;
+            }
+        }
+
+        for (int i = lo; i < hi; i++)
+            scratch[i] = data[order[i] * dims + best];
+
+        int mid = (lo + hi) >>> 1;
+        select(scratch, lo, hi - 1, mid);
+        splitDimension[mid] = best;
+    }
+
+    private class BuildTask extends RecursiveAction {
+        private final double[] scratch;
+        private final int lo;
+        private final int hi;
+
+        private BuildTask(double[] scratch, int lo, int hi) {
+            this.scratch = scratch;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            build(scratch, lo, hi);
+            if (hi - lo < 2)
+                return;
+
+            int mid = (lo + hi) >>> 1;
+            if (hi - lo > PARALLEL_BUILD_THRESHOLD) {
+                invokeAll(new BuildTask(scratch, lo, mid), new BuildTask(scratch, mid + 1, hi));
+            } else {
+                new BuildTask(scratch, lo, mid).compute();
+                new BuildTask(scratch, mid + 1, hi).compute();
+            }
+        }
+    }
+
+    /**
+     * Nearest point to the query
+     *
+     * @return index of the nearest point, or -1 if the tree is empty
+     */
+    public int nn(double[] query) {
+        if (size == 0)
+            return -1;
+        return search(query, 1)[0];
+    }
+
+    /**
+     * All points within the specified distance of the query, nearest first
+     *
+     * @param query    Query point
+     * @param distance Max distance (inclusive)
+     * @return indices of the points
+     */
+    public int[] knn(double[] query, double distance) {
+        checkQuery(query);
+        int[] found = new int[16];
+        double[] foundDistances = new double[16];
+        int count = 0;
+
+        // iterative traversal over [lo, hi) ranges, using explicit stack
+        int[] stack = new int[128];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = size;
+        double maxSquared = distance * distance;
+        while (top > 0) {
+            int hi = stack[--top];
+            int lo = stack[--top];
+            if (hi <= lo)
+                continue;
+
+            int mid = (lo + hi) >>> 1;
+            int point = order[mid];
+            double d2 = squaredDistance(query, point);
+            if (d2 <= maxSquared) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                    foundDistances = Arrays.copyOf(foundDistances, count * 2);
+                }
+                found[count] = point;
+                foundDistances[count++] = d2;
+            }
+
+            if (hi - lo < 2)
+                continue;
+
+            if (top + 4 > stack.length)
+                stack = Arrays.copyOf(stack, stack.length * 2);
+
+            double diff = query[splitDimension[mid]] - data[point * dims + splitDimension[mid]];
+            if (diff <= 0 || diff * diff <= maxSquared) {
+                stack[top++] = lo;
+                stack[top++] = mid;
+            }
+            if (diff >= 0 || diff * diff <= maxSquared) {
+                stack[top++] = mid + 1;
+                stack[top++] = hi;
+            }
+        }
+
+        // sort by distance
+        NeighbourHeap heap = new NeighbourHeap(Math.max(1, count));
+        for (int i = 0; i < count; i++)
+            heap.offer(foundDistances[i], found[i]);
+        int[] result = new int[count];
+        heap.drain(result, null, this);
+        return result;
+    }
+
+    @Override
+    protected double outputDistance(double heapDistance) {
+        // heap holds squared distances
+        return Math.sqrt(heapDistance);
+    }
+
+    @Override
+    protected void search(double[] query, NeighbourHeap heap) {
+        search(query, heap, 0, size);
+    }
+
+    private void search(double[] query, NeighbourHeap heap, int lo, int hi) {
+        if (hi <= lo)
+            return;
+
+        int mid = (lo + hi) >>> 1;
+        int point = order[mid];
+        heap.offer(squaredDistance(query, point), point);
+
+        if (hi - lo < 2)
+            return;
+
+        int dim = splitDimension[mid];
+        double diff = query[dim] - data[point * dims + dim];
+        if (diff < 0) {
+            search(query, heap, lo, mid);
+            if (diff * diff <= heap.worst())
+                search(query, heap, mid + 1, hi);
+        } else {
+            search(query, heap, mid + 1, hi);
+            if (diff * diff <= heap.worst())
+                search(query, heap, lo, mid);
+        }
+    }
+}
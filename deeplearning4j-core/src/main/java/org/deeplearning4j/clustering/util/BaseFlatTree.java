@@ -0,0 +1,355 @@
+/*-
+ *
+ *  * Copyright 2017 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.clustering.util;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Base class for search trees over primitive arrays: points are stored as a single row-major double[], and nodes are
+ * implicit in a permutation of point indices, so neither build nor search allocate per-node or per-distance objects.
+ * Subtrees are built in parallel with fork/join, and batches of queries are split across fork/join workers, each
+ * worker reusing a single result heap.
+ */
+public abstract class BaseFlatTree {
+    // ranges smaller than this are built/searched in the current thread
+    protected static final int PARALLEL_BUILD_THRESHOLD = 8192;
+    protected static final int QUERIES_PER_TASK = 32;
+
+    protected final double[] data;
+    protected final int size;
+    protected final int dims;
+    protected final int workers;
+    // order[position] = index of the point at this position of the tree
+    protected final int[] order;
+
+    protected BaseFlatTree(double[][] points, int workers) {
+        this.size = points.length;
+        this.dims = size == 0 ? 0 : points[0].length;
+        if ((long) size * dims > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Too many values for a single array: " + size + " x " + dims);
+
+        this.data = new double[size * dims];
+        for (int i = 0; i < size; i++) {
+            if (points[i].length != dims)
+                throw new IllegalArgumentException("All points should have the same length");
+            System.arraycopy(points[i], 0, data, i * dims, dims);
+        }
+        this.workers = Math.max(1, workers);
+        this.order = new int[size];
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+    }
+
+    protected static double[][] toArray(INDArray points) {
+        double[][] result = new double[points.rows()][points.columns()];
+        for (int i = 0; i < result.length; i++)
+            for (int j = 0; j < result[i].length; j++)
+                result[i][j] = points.getDouble(i, j);
+        return result;
+    }
+
+    /**
+     * Number of points in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getDimensions() {
+        return dims;
+    }
+
+    /**
+     * Copy of the point with the specified index
+     */
+    public double[] getPoint(int index) {
+        double[] result = new double[dims];
+        System.arraycopy(data, index * dims, result, 0, dims);
+        return result;
+    }
+
+    /**
+     * Fill the heap with the k nearest points to the query
+     */
+    protected abstract void search(double[] query, NeighbourHeap heap);
+
+    /**
+     * Distance as reported to the user, from the distance kept in the heap. By default they're the same.
+     */
+    protected double outputDistance(double heapDistance) {
+        return heapDistance;
+    }
+
+    /**
+     * Indices of the k nearest points to the query, nearest first
+     */
+    public int[] search(double[] query, int k) {
+        int[] indices = new int[Math.min(k, size)];
+        search(query, k, indices, null);
+        return indices;
+    }
+
+    /**
+     * Find the k nearest points to the query
+     *
+     * @param query     Query point
+     * @param k         Number of neighbours
+     * @param indices   Output: indices of the nearest points, nearest first. Length should be at least min(k, size)
+     * @param distances Output: distances of the nearest points. May be null
+     * @return Number of neighbours found: min(k, size)
+     */
+    public int search(double[] query, int k, int[] indices, double[] distances) {
+        checkQuery(query);
+        NeighbourHeap heap = new NeighbourHeap(k);
+        search(query, heap);
+        return heap.drain(indices, distances, this);
+    }
+
+    /**
+     * Find the k nearest points for each of the queries, in parallel
+     *
+     * @param queries   Query points
+     * @param k         Number of neighbours
+     * @param distances Output: distances of the nearest points for each query. May be null, otherwise length should
+     *                  be the number of queries
+     * @return indices of the nearest points for each query, nearest first
+     */
+    public int[][] search(double[][] queries, int k, double[][] distances) {
+        for (double[] query : queries)
+            checkQuery(query);
+
+        int[][] indices = new int[queries.length][];
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try {
+            pool.invoke(new BatchSearchTask(queries, k, indices, distances, 0, queries.length));
+        } finally {
+            pool.shutdown();
+        }
+        return indices;
+    }
+
+    protected void checkQuery(double[] query) {
+        if (query.length != dims)
+            throw new IllegalArgumentException(
+                            "Query length [" + query.length + "] doesn't match tree dimensions [" + dims + "]");
+    }
+
+    protected final double squaredDistance(double[] query, int pointIndex) {
+        int offset = pointIndex * dims;
+        double sum = 0.0;
+        for (int i = 0; i < dims; i++) {
+            double d = query[i] - data[offset + i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    protected final double squaredDistance(int point1, int point2) {
+        int o1 = point1 * dims;
+        int o2 = point2 * dims;
+        double sum = 0.0;
+        for (int i = 0; i < dims; i++) {
+            double d = data[o1 + i] - data[o2 + i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    protected final void swap(double[] keys, int i, int j) {
+        double k = keys[i];
+        keys[i] = keys[j];
+        keys[j] = k;
+        int o = order[i];
+        order[i] = order[j];
+        order[j] = o;
+    }
+
+    /**
+     * Partially sort positions [lo, hi] (inclusive) of keys and order, so that position k holds the value it would
+     * have in sorted order, lower positions hold values &lt;= keys[k] and higher positions hold values &gt;= keys[k]
+     */
+    protected final void select(double[] keys, int lo, int hi, int k) {
+        while (hi > lo) {
+            double pivot = keys[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot)
+                    i++;
+                while (keys[j] > pivot)
+                    j--;
+                if (i <= j) {
+                    swap(keys, i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            if (k <= j)
+                hi = j;
+            else if (k >= i)
+                lo = i;
+            else
+                break;
+        }
+    }
+
+    /**
+     * Deterministic pseudo random value for the specified seed and key
+     */
+    protected static long mix(long seed, long key) {
+        long z = seed + (key + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private class BatchSearchTask extends RecursiveAction {
+        private final double[][] queries;
+        private final int k;
+        private final int[][] indices;
+        private final double[][] distances;
+        private final int from;
+        private final int to;
+
+        private BatchSearchTask(double[][] queries, int k, int[][] indices, double[][] distances, int from, int to) {
+            this.queries = queries;
+            this.k = k;
+            this.indices = indices;
+            this.distances = distances;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > QUERIES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BatchSearchTask(queries, k, indices, distances, from, mid),
+                                new BatchSearchTask(queries, k, indices, distances, mid, to));
+                return;
+            }
+
+            NeighbourHeap heap = new NeighbourHeap(k);
+            int n = Math.min(k, size);
+            for (int q = from; q < to; q++) {
+                heap.clear();
+                search(queries[q], heap);
+                indices[q] = new int[n];
+                double[] dist = null;
+                if (distances != null) {
+                    dist = new double[n];
+                    distances[q] = dist;
+                }
+                heap.drain(indices[q], dist, BaseFlatTree.this);
+            }
+        }
+    }
+
+    /**
+     * Bounded max-heap of (distance, point index) over primitive arrays, holding the k nearest points seen so far
+     */
+    protected static class NeighbourHeap {
+        private final int capacity;
+        private final double[] distances;
+        private final int[] indices;
+        private int size;
+
+        public NeighbourHeap(int capacity) {
+            if (capacity < 1)
+                throw new IllegalArgumentException("Number of neighbours should be positive");
+            this.capacity = capacity;
+            this.distances = new double[capacity];
+            this.indices = new int[capacity];
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Largest distance kept, or +infinity while the heap is not full: points further than this can't be
+         * in the result
+         */
+        public double worst() {
+            return size < capacity ? Double.POSITIVE_INFINITY : distances[0];
+        }
+
+        public void offer(double distance, int index) {
+            if (size < capacity) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (distances[parent] >= distance)
+                        break;
+                    distances[i] = distances[parent];
+                    indices[i] = indices[parent];
+                    i = parent;
+                }
+                distances[i] = distance;
+                indices[i] = index;
+            } else if (distance < distances[0]) {
+                siftDown(distance, index);
+            }
+        }
+
+        private void siftDown(double distance, int index) {
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && distances[child + 1] > distances[child])
+                    child++;
+                if (distance >= distances[child])
+                    break;
+                distances[i] = distances[child];
+                indices[i] = indices[child];
+                i = child;
+            }
+            distances[i] = distance;
+            indices[i] = index;
+        }
+
+        /**
+         * Move the content of the heap to the output arrays, nearest first. Heap is empty afterwards.
+         */
+        public int drain(int[] outIndices, double[] outDistances, BaseFlatTree tree) {
+            int n = size;
+            for (int pos = n - 1; pos >= 0; pos--) {
+                double d = distances[0];
+                int idx = indices[0];
+                size--;
+                if (size > 0)
+                    siftDown(distances[size], indices[size]);
+
+                outIndices[pos] = idx;
+                if (outDistances != null)
+                    outDistances[pos] = tree.outputDistance(d);
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*-
+ *
+ *  * Copyright 2017 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.clustering.vptree;
+
+import org.deeplearning4j.clustering.util.BaseFlatTree;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Vantage point tree over primitive arrays, using euclidean distance.<br>
+ * Unlike {@link VPTree}, distances are computed directly on a double[] holding all points, without DataPoint/INDArray
+ * objects or a pairwise distance cache, and the tree is stored implicitly: the node for range [lower, upper) of the
+ * point ordering is at position lower, its inside (left) subtree is [lower + 1, median) and its outside (right)
+ * subtree is [median, upper), with median = (lower + upper) / 2.<br>
+ * Subtrees are built in parallel. Batches of queries are answered in parallel with
+ * {@link #search(double[][], int, double[][])}.
+ */
+public class FlatVPTree extends BaseFlatTree {
+
+    // threshold[position]: distance from vantage point at position to its median point
+    private final double[] thresholds;
+    private final long seed;
+
+    public FlatVPTree(INDArray points) {
+        this(toArray(points));
+    }
+
+    public FlatVPTree(double[][] points) {
+        this(points, Runtime.getRuntime().availableProcessors(), 12345L);
+    }
+
+    /**
+     * @param points  Points to build the tree from. Points are copied.
+     * @param workers Number of threads used to build the tree and for batch queries
+     * @param seed    Random seed, for selection of vantage points
+     */
+    public FlatVPTree(double[][] points, int workers, long seed) {
+        super(points, workers);
+        this.seed = seed;
+        this.thresholds = new double[size];
+
+        // scratch distances, by position. Subtrees use disjoint ranges, so they can be built concurrently
+        double[] scratch = new double[size];
+        ForkJoinPool pool = new ForkJoinPool(this.workers);
+        try {
+            pool.invoke(new BuildTask(scratch, 0, size));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void build(double[] scratch, int lower, int upper) {
+        if (upper - lower < 2)
+            return;
+
+        // random vantage point, moved to the node position
+        int vp = lower + (int) ((mix(seed, lower) >>> 1) % (upper - lower));
+        swap(scratch, lower, vp);
+        int vantage = order[lower];
+
+        for (int i = lower + 1; i < upper; i++)
+            scratch[i] = Math.sqrt(squaredDistance(vantage, order[i]));
+
+        int median = (lower + upper) >>> 1;
+        select(scratch, lower + 1, upper - 1, median);
+        thresholds[lower] = scratch[median];
+    }
+
+    private class BuildTask extends RecursiveAction {
+        private final double[] scratch;
+        private final int lower;
+        private final int upper;
+
+        private BuildTask(double[] scratch, int lower, int upper) {
+            this.scratch = scratch;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        @Override
+        protected void compute() {
+            build(scratch, lower, upper);
+            if (upper - lower < 2)
+                return;
+
+            int median = (lower + upper) >>> 1;
+            if (upper - lower > PARALLEL_BUILD_THRESHOLD) {
+                invokeAll(new BuildTask(scratch, lower + 1, median), new BuildTask(scratch, median, upper));
+            } else {
+                new BuildTask(scratch, lower + 1, median).compute();
+                new BuildTask(scratch, median, upper).compute();
+            }
+        }
+    }
+
+    @Override
+    protected void search(double[] query, NeighbourHeap heap) {
+        search(query, heap, 0, size);
+    }
+
+    private void search(double[] query, NeighbourHeap heap, int lower, int upper) {
+        if (upper <= lower)
+            return;
+
+        int point = order[lower];
+        double distance = Math.sqrt(squaredDistance(query, point));
+        heap.offer(distance, point);
+
+        if (upper - lower < 2)
+            return;
+
+        int median = (lower + upper) >>> 1;
+        double threshold = thresholds[lower];
+        if (distance < threshold) {
+            // if there can still be neighbors inside the ball, search inside first
+            if (distance - heap.worst() <= threshold)
+                search(query, heap, lower + 1, median);
+            if (distance + heap.worst() >= threshold)
+                search(query, heap, median, upper);
+        } else {
+            if (distance + heap.worst() >= threshold)
+                search(query, heap, median, upper);
+            if (distance - heap.worst() <= threshold)
+                search(query, heap, lower + 1, median);
+        }
+    }
+}
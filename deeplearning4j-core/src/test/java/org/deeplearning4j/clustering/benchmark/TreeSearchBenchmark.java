@@ -0,0 +1,151 @@
+/*-
+ *
+ *  * Copyright 2017 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.clustering.benchmark;
+
+import org.deeplearning4j.clustering.kdtree.FlatKDTree;
+import org.deeplearning4j.clustering.kdtree.KDTree;
+import org.deeplearning4j.clustering.sptree.DataPoint;
+import org.deeplearning4j.clustering.vptree.FlatVPTree;
+import org.deeplearning4j.clustering.vptree.VPTree;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark: k-NN queries with {@link VPTree}/{@link KDTree} vs. the primitive array based
+ * {@link FlatVPTree}/{@link FlatKDTree}. Each benchmark invocation answers the whole batch of queries.<br>
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.deeplearning4j.clustering.benchmark.TreeSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TreeSearchBenchmark {
+
+    // VPTree computes all pairwise distances on construction, so the number of points is kept moderate
+    @Param({"2000"})
+    public int numPoints;
+
+    @Param({"10", "50"})
+    public int dimensions;
+
+    @Param({"10"})
+    public int k;
+
+    public int numQueries = 100;
+
+    private double[][] points;
+    private double[][] queries;
+
+    private VPTree vpTree;
+    private KDTree kdTree;
+    private FlatVPTree flatVPTree;
+    private FlatKDTree flatKDTree;
+    private List<DataPoint> queryPoints;
+    private List<INDArray> queryArrays;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(12345);
+        points = new double[numPoints][dimensions];
+        for (int i = 0; i < numPoints; i++)
+            for (int j = 0; j < dimensions; j++)
+                points[i][j] = random.nextGaussian();
+
+        queries = new double[numQueries][dimensions];
+        queryPoints = new ArrayList<>();
+        queryArrays = new ArrayList<>();
+        for (int i = 0; i < numQueries; i++) {
+            for (int j = 0; j < dimensions; j++)
+                queries[i][j] = random.nextGaussian();
+            INDArray arr = Nd4j.create(queries[i]);
+            queryArrays.add(arr);
+            queryPoints.add(new DataPoint(i, arr));
+        }
+
+        List<DataPoint> dataPoints = new ArrayList<>();
+        kdTree = new KDTree(dimensions);
+        for (int i = 0; i < numPoints; i++) {
+            INDArray arr = Nd4j.create(points[i]);
+            dataPoints.add(new DataPoint(i, arr));
+            kdTree.insert(arr);
+        }
+        vpTree = new VPTree(dataPoints);
+
+        flatVPTree = new FlatVPTree(points);
+        flatKDTree = new FlatKDTree(points);
+    }
+
+    @Benchmark
+    public void vpTree(Blackhole bh) {
+        List<DataPoint> results = new ArrayList<>();
+        List<Double> distances = new ArrayList<>();
+        for (DataPoint query : queryPoints) {
+            vpTree.search(query, k, results, distances);
+            bh.consume(results);
+        }
+    }
+
+    @Benchmark
+    public void flatVPTree(Blackhole bh) {
+        int[] indices = new int[k];
+        double[] distances = new double[k];
+        for (double[] query : queries) {
+            flatVPTree.search(query, k, indices, distances);
+            bh.consume(indices);
+        }
+    }
+
+    @Benchmark
+    public void flatVPTreeBatch(Blackhole bh) {
+        bh.consume(flatVPTree.search(queries, k, null));
+    }
+
+    @Benchmark
+    public void kdTreeNn(Blackhole bh) {
+        for (INDArray query : queryArrays)
+            bh.consume(kdTree.nn(query));
+    }
+
+    @Benchmark
+    public void flatKDTreeNn(Blackhole bh) {
+        for (double[] query : queries)
+            bh.consume(flatKDTree.nn(query));
+    }
+
+    @Benchmark
+    public void flatKDTreeBatch(Blackhole bh) {
+        bh.consume(flatKDTree.search(queries, k, null));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(TreeSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,108 @@
+/*-
+ *
+ *  * Copyright 2017 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.clustering.util;
+
+import org.deeplearning4j.clustering.kdtree.FlatKDTree;
+import org.deeplearning4j.clustering.vptree.FlatVPTree;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class FlatTreeTest {
+
+    private static double[][] randomPoints(int n, int dims, long seed) {
+        Random r = new Random(seed);
+        double[][] points = new double[n][dims];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < dims; j++)
+                points[i][j] = r.nextGaussian();
+        return points;
+    }
+
+    private static double[] bruteForceDistances(double[][] points, double[] query, int k) {
+        double[] d = new double[points.length];
+        for (int i = 0; i < points.length; i++) {
+            double sum = 0.0;
+            for (int j = 0; j < query.length; j++)
+                sum += (points[i][j] - query[j]) * (points[i][j] - query[j]);
+            d[i] = Math.sqrt(sum);
+        }
+        Arrays.sort(d);
+        return Arrays.copyOf(d, k);
+    }
+
+    private static void checkAgainstBruteForce(BaseFlatTree tree, double[][] points, double[][] queries, int k) {
+        double[][] distances = new double[queries.length][];
+        int[][] batch = tree.search(queries, k, distances);
+
+        for (int q = 0; q < queries.length; q++) {
+            int[] indices = new int[k];
+            double[] single = new double[k];
+            assertEquals(k, tree.search(queries[q], k, indices, single));
+
+            assertArrayEquals(bruteForceDistances(points, queries[q], k), single, 1e-9);
+            assertArrayEquals(indices, batch[q]);
+            assertArrayEquals(single, distances[q], 0.0);
+        }
+    }
+
+    @Test
+    public void testVPTreeMatchesBruteForce() {
+        double[][] points = randomPoints(20000, 5, 12345);
+        double[][] queries = randomPoints(100, 5, 42);
+
+        FlatVPTree tree = new FlatVPTree(points, 4, 12345);
+        assertEquals(20000, tree.size());
+        checkAgainstBruteForce(tree, points, queries, 7);
+    }
+
+    @Test
+    public void testKDTreeMatchesBruteForce() {
+        double[][] points = randomPoints(20000, 3, 12345);
+        double[][] queries = randomPoints(100, 3, 42);
+
+        FlatKDTree tree = new FlatKDTree(points, 4);
+        checkAgainstBruteForce(tree, points, queries, 7);
+
+        assertEquals(17, tree.nn(points[17]));
+
+        // radius search: all points within distance, nearest first
+        double[] query = queries[0];
+        double radius = bruteForceDistances(points, query, 10)[9];
+        int[] within = tree.knn(query, radius);
+        assertEquals(10, within.length);
+        assertArrayEquals(tree.search(query, 10), within);
+    }
+
+    @Test
+    public void testSmallTrees() {
+        double[][] points = {{55, 55}, {60, 60}, {65, 65}};
+        FlatVPTree vpTree = new FlatVPTree(points);
+        assertEquals(0, vpTree.search(new double[] {50, 50}, 1)[0]);
+        assertArrayEquals(new int[] {2, 1, 0}, vpTree.search(new double[] {70, 70}, 5));
+
+        FlatKDTree kdTree = new FlatKDTree(points);
+        assertEquals(0, kdTree.nn(new double[] {50, 50}));
+        assertEquals(1, kdTree.nn(new double[] {61, 59}));
+    }
+}
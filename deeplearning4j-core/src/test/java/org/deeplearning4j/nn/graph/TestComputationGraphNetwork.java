@@ -271,6 +271,100 @@ public class TestComputationGraphNetwork {
         }
     }
 
+    @Test
+    public void testOutputDoesNotStoreActivations() {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).graphBuilder()
+                        .addInputs("in")
+                        .addLayer("l0", new DenseLayer.Builder().nIn(4).nOut(5).activation(Activation.TANH).build(),
+                                        "in")
+                        .addLayer("l1", new DenseLayer.Builder().nIn(4).nOut(5).activation(Activation.RELU).build(),
+                                        "in")
+                        .addVertex("merge", new MergeVertex(), "l0", "l1")
+                        .addLayer("out", new OutputLayer.Builder().nIn(10).nOut(3).activation(Activation.SOFTMAX)
+                                        .lossFunction(LossFunctions.LossFunction.MCXENT).build(), "merge")
+                        .setOutputs("out").build();
+
+        ComputationGraph graph = new ComputationGraph(conf);
+        graph.init();
+
+        INDArray input = Nd4j.rand(6, 4);
+        INDArray expected = graph.feedForward(input, false).get("out");
+
+        for (org.deeplearning4j.nn.graph.vertex.GraphVertex gv : graph.getVertices())
+            gv.clear();
+
+        INDArray out = graph.outputSingle(input);
+        assertEquals(expected, out);
+
+        for (org.deeplearning4j.nn.graph.vertex.GraphVertex gv : graph.getVertices()) {
+            if (gv.isInputVertex())
+                continue;
+
+            for (INDArray in : gv.getInputs())
+                assertNull(in);
+
+            if (gv.hasLayer())
+                assertNull(gv.getLayer().input());
+        }
+
+        //Network should still be usable for training after inference
+        graph.fit(new DataSet(input, Nd4j.rand(6, 3)));
+    }
+
+    @Test
+    public void testActivationLivenessPlan() {
+        //in -> a -> b -> merge(a,c) -> out, with in -> c
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).graphBuilder()
+                        .addInputs("in")
+                        .addLayer("a", new DenseLayer.Builder().nIn(4).nOut(5).build(), "in")
+                        .addLayer("b", new DenseLayer.Builder().nIn(5).nOut(5).build(), "a")
+                        .addLayer("c", new DenseLayer.Builder().nIn(4).nOut(5).build(), "in")
+                        .addVertex("merge", new MergeVertex(), "a", "b", "c")
+                        .addLayer("out", new OutputLayer.Builder().nIn(15).nOut(3).activation(Activation.SOFTMAX)
+                                        .lossFunction(LossFunctions.LossFunction.MCXENT).build(), "merge")
+                        .setOutputs("out").build();
+
+        ComputationGraph graph = new ComputationGraph(conf);
+        graph.init();
+
+        org.deeplearning4j.nn.graph.util.ActivationLivenessPlan plan = graph.getActivationLivenessPlan();
+
+        int idxIn = graph.getVertex("in").getVertexIndex();
+        int idxA = graph.getVertex("a").getVertexIndex();
+        int idxB = graph.getVertex("b").getVertexIndex();
+        int idxC = graph.getVertex("c").getVertexIndex();
+        int idxMerge = graph.getVertex("merge").getVertexIndex();
+        int idxOut = graph.getVertex("out").getVertexIndex();
+
+        //Output of "in" is needed until both "a" and "c" are done
+        assertEquals(Math.max(plan.getStep(idxA), plan.getStep(idxC)), plan.getLastConsumerStep(idxIn));
+        //Output of "a" is needed until "merge" is done, even though "b" runs earlier
+        assertEquals(plan.getStep(idxMerge), plan.getLastConsumerStep(idxA));
+        assertEquals(plan.getStep(idxMerge), plan.getLastConsumerStep(idxB));
+        assertEquals(plan.getStep(idxOut), plan.getLastConsumerStep(idxMerge));
+        assertEquals(plan.getStep(idxOut), plan.getLastConsumerStep(idxOut));
+
+        //Every vertex output is released exactly once
+        int count = 0;
+        for (int step = 0; step < graph.getVertices().length; step++)
+            count += plan.getReleasableAfterStep(step).length;
+        assertEquals(graph.getVertices().length, count);
+        assertTrue(plan.getPeakLiveActivations() < graph.getVertices().length);
+
+        //Scoring at test time releases activations, but must give the same result as a full forward pass
+        INDArray in = Nd4j.rand(5, 4);
+        INDArray labels = Nd4j.rand(5, 3);
+        double scoreTest = graph.score(new DataSet(in, labels), false);
+        assertNull(graph.getVertex("b").getLayer().input());
+
+        graph.setInputs(in);
+        graph.setLabels(labels);
+        graph.feedForward(false);
+        double expScore = ((org.deeplearning4j.nn.api.layers.IOutputLayer) graph.getVertex("out").getLayer())
+                        .computeScore(graph.calcL1(), graph.calcL2(), false);
+        assertEquals(expScore, scoreTest, 1e-6);
+    }
+
     @Test
     public void testCloning() {
         Nd4j.getRandom().setSeed(12345);
@@ -318,4 +318,71 @@ public class EmbeddingLayerTest {
         }
     }
 
+
+    @Test
+    public void testSparseGradientsSameAsDense() {
+        //For SGD and AdaGrad, updating only the rows present in the minibatch should give exactly the dense result
+        int nClassesIn = 20;
+        int batchSize = 4;
+
+        for (Updater updater : new Updater[] {Updater.SGD, Updater.ADAGRAD}) {
+            MultiLayerNetwork dense = getEmbeddingNetwork(updater, false, nClassesIn);
+            MultiLayerNetwork sparse = getEmbeddingNetwork(updater, true, nClassesIn);
+            sparse.setParams(dense.params().dup());
+
+            Random r = new Random(12345);
+            for (int iter = 0; iter < 5; iter++) {
+                INDArray in = Nd4j.create(batchSize, 1);
+                INDArray labels = Nd4j.create(batchSize, 4);
+                for (int i = 0; i < batchSize; i++) {
+                    in.putScalar(i, r.nextInt(nClassesIn));
+                    labels.putScalar(new int[] {i, r.nextInt(4)}, 1.0);
+                }
+
+                dense.fit(in, labels);
+                sparse.fit(in, labels);
+
+                String msg = updater + " - iteration " + iter;
+                assertEquals(msg, dense.params(), sparse.params());
+            }
+        }
+    }
+
+    @Test
+    public void testSparseGradientsLazyAdam() {
+        //Lazy Adam: rows not present in the minibatch should not change
+        int nClassesIn = 20;
+        MultiLayerNetwork net = getEmbeddingNetwork(Updater.ADAM, true, nClassesIn);
+
+        INDArray in = Nd4j.create(new double[] {1, 3, 3, 7}, new int[] {4, 1});
+        INDArray labels = Nd4j.create(4, 4);
+        for (int i = 0; i < 4; i++) {
+            labels.putScalar(new int[] {i, i}, 1.0);
+        }
+
+        for (int iter = 0; iter < 3; iter++) {
+            INDArray before = net.getLayer(0).getParam(DefaultParamInitializer.WEIGHT_KEY).dup();
+            net.fit(in, labels);
+            INDArray after = net.getLayer(0).getParam(DefaultParamInitializer.WEIGHT_KEY);
+
+            for (int row = 0; row < nClassesIn; row++) {
+                boolean present = (row == 1 || row == 3 || row == 7);
+                assertEquals(present, !before.getRow(row).equals(after.getRow(row)));
+            }
+        }
+    }
+
+    private static MultiLayerNetwork getEmbeddingNetwork(Updater updater, boolean sparseGradients, int nClassesIn) {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().activation(Activation.TANH).seed(12345)
+                        .updater(updater).learningRate(0.1).list()
+                        .layer(0, new EmbeddingLayer.Builder().nIn(nClassesIn).nOut(5)
+                                        .sparseGradients(sparseGradients).build())
+                        .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(5).nOut(4)
+                                        .activation(Activation.SOFTMAX).build())
+                        .pretrain(false).backprop(true).build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        return net;
+    }
 }
@@ -411,6 +411,36 @@ public class MultiLayerTest {
         }
     }
 
+    @Test
+    public void testOutputDoesNotStoreActivations() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).list()
+                        .layer(0, new ConvolutionLayer.Builder().kernelSize(2, 2).stride(1, 1).nOut(3)
+                                        .activation(Activation.TANH).build())
+                        .layer(1, new DenseLayer.Builder().nOut(10).activation(Activation.RELU).build())
+                        .layer(2, new org.deeplearning4j.nn.conf.layers.OutputLayer.Builder(
+                                        LossFunctions.LossFunction.MCXENT).nOut(4).activation(Activation.SOFTMAX)
+                                                        .build())
+                        .setInputType(InputType.convolutionalFlat(5, 5, 1)).build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        INDArray input = Nd4j.rand(3, 25);
+        List<INDArray> activations = net.feedForward(input, false);
+        INDArray expected = activations.get(activations.size() - 1);
+
+        //Clear state left by feedForward
+        net.setInput(null);
+        for (Layer l : net.getLayers())
+            l.setInput(null);
+
+        INDArray out = net.output(input, false);
+        assertEquals(expected, out);
+
+        assertNull(net.getInput());
+        for (Layer l : net.getLayers())
+            assertNull(l.input());
+    }
 
     @Test
     public void testBackpropGradient() {
@@ -670,4 +670,65 @@ public class TestUpdaters {
         AdaGrad adaGrad = (AdaGrad) u3.updaterForVariable.get("W");
         assertEquals(e, adaGrad.getEpsilon(), 0.0);
     }
+
+    @Test
+    public void testMultiLayerUpdaterBlocks() {
+        //Updates applied in blocks (network's flattened gradient) should be the same as per-layer updates
+        MultiLayerNetwork net = getBlocksTestNetwork();
+        MultiLayerNetwork net2 = getBlocksTestNetwork();
+        net2.setParams(net.params().dup());
+
+        MultiLayerUpdater blocked = new MultiLayerUpdater(net);
+        MultiLayerUpdater perLayer = new MultiLayerUpdater(net2);
+
+        INDArray in = Nd4j.rand(5, 4);
+        INDArray labels = Nd4j.zeros(5, 3);
+        for (int i = 0; i < 5; i++) {
+            labels.putScalar(i, i % 3, 1.0);
+        }
+
+        for (int i = 0; i < 3; i++) {
+            net.setInput(in);
+            net.setLabels(labels);
+            net.computeGradientAndScore();
+            Gradient g = net.gradient();
+
+            //Copy: gradient not backed by the flattened gradient array -> per layer updates
+            Gradient expected = new DefaultGradient();
+            for (Map.Entry<String, INDArray> entry : g.gradientForVariable().entrySet()) {
+                expected.setGradientFor(entry.getKey(), entry.getValue().dup());
+            }
+
+            blocked.update(net, g, i, 5);
+            perLayer.update(net2, expected, i, 5);
+
+            for (String key : expected.gradientForVariable().keySet()) {
+                assertEquals(key, expected.getGradientFor(key), g.getGradientFor(key));
+            }
+            assertEquals(perLayer.getStateViewArray(), blocked.getStateViewArray());
+        }
+
+        //Layers 0 and 1 (SGD): one block. Layer 2 (AdaGrad): one block. Layer 3 (Adam): one block per parameter
+        assertEquals(4, blocked.getNumUpdaterBlocks());
+        assertEquals(0, perLayer.getNumUpdaterBlocks());
+    }
+
+    private static MultiLayerNetwork getBlocksTestNetwork() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().learningRate(0.1).biasLearningRate(0.1)
+                        .l2(0.01).regularization(true).seed(12345).list()
+                        .layer(0, new DenseLayer.Builder().nIn(4).nOut(5)
+                                        .updater(org.deeplearning4j.nn.conf.Updater.SGD).build())
+                        .layer(1, new DenseLayer.Builder().nIn(5).nOut(6)
+                                        .updater(org.deeplearning4j.nn.conf.Updater.SGD).build())
+                        .layer(2, new DenseLayer.Builder().nIn(6).nOut(7)
+                                        .updater(org.deeplearning4j.nn.conf.Updater.ADAGRAD).build())
+                        .layer(3, new OutputLayer.Builder().nIn(7).nOut(3).activation(Activation.SOFTMAX)
+                                        .lossFunction(LossFunctions.LossFunction.MCXENT)
+                                        .updater(org.deeplearning4j.nn.conf.Updater.ADAM).build())
+                        .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        return net;
+    }
 }
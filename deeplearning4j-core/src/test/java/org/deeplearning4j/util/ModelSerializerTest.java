@@ -5,6 +5,7 @@ import org.deeplearning4j.nn.api.OptimizationAlgorithm;
 import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.Updater;
 import org.deeplearning4j.nn.conf.layers.DenseLayer;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.graph.ComputationGraph;
@@ -12,8 +13,10 @@ import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.weights.WeightInit;
 import org.junit.Test;
 import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.dataset.api.preprocessor.NormalizerMinMaxScaler;
+import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
 import java.io.File;
@@ -153,4 +156,70 @@ public class ModelSerializerTest {
         assertEquals(cg.params(), network.params());
         assertEquals(cg.getUpdater(), network.getUpdater());
     }
+
+    @Test
+    public void testWriteMLNModelMapped() throws Exception {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).learningRate(0.1)
+                        .updater(Updater.ADAM).activation(Activation.TANH).weightInit(WeightInit.XAVIER).list()
+                        .layer(0, new DenseLayer.Builder().nIn(4).nOut(10).build())
+                        .layer(1, new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(10).nOut(3).build())
+                        .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        net.fit(new IrisDataSetIterator(150, 150));
+
+        File tempFile = File.createTempFile("tsfs", "fdfsdf");
+        tempFile.deleteOnExit();
+
+        ModelSerializer.writeModelMapped(net, tempFile, true);
+
+        MultiLayerNetwork network = ModelSerializer.restoreMultiLayerNetworkMapped(tempFile, true);
+        assertEquals(net.getLayerWiseConfigurations().toJson(), network.getLayerWiseConfigurations().toJson());
+        assertEquals(net.params(), network.params());
+        //Updater state is loaded when the updater is created
+        assertEquals(net.getUpdater().getStateViewArray(), network.getUpdater().getStateViewArray());
+
+        //Training the restored network must not modify the file
+        INDArray paramsBefore = net.params().dup();
+        network.fit(new IrisDataSetIterator(150, 150));
+        assertNotEquals(paramsBefore, network.params());
+
+        MultiLayerNetwork restoredAgain = ModelSerializer.restoreMultiLayerNetworkMapped(tempFile, false);
+        assertEquals(paramsBefore, restoredAgain.params());
+        assertEquals(net.output(Nd4j.ones(1, 4)), restoredAgain.output(Nd4j.ones(1, 4)));
+
+        //Overwriting the file must not affect networks already mapped from it
+        ModelSerializer.writeModelMapped(network, tempFile, true);
+        assertEquals(paramsBefore, restoredAgain.params());
+        assertEquals(network.params(), ModelSerializer.restoreMultiLayerNetworkMapped(tempFile, false).params());
+    }
+
+    @Test
+    public void testWriteCGModelMapped() throws Exception {
+        ComputationGraphConfiguration config = new NeuralNetConfiguration.Builder()
+                        .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT).learningRate(0.1)
+                        .updater(Updater.RMSPROP).graphBuilder().addInputs("in")
+                        .addLayer("dense", new DenseLayer.Builder().nIn(4).nOut(2).build(), "in").addLayer("out",
+                                        new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(2).nOut(3)
+                                                        .build(),
+                                        "dense")
+                        .setOutputs("out").pretrain(false).backprop(true).build();
+
+        ComputationGraph cg = new ComputationGraph(config);
+        cg.init();
+        cg.fit(new IrisDataSetIterator(150, 150));
+
+        File tempFile = File.createTempFile("tsfs", "fdfsdf");
+        tempFile.deleteOnExit();
+
+        ModelSerializer.writeModelMapped(cg, tempFile, true);
+
+        ComputationGraph network = ModelSerializer.restoreComputationGraphMapped(tempFile, true);
+
+        assertEquals(cg.getConfiguration().toJson(), network.getConfiguration().toJson());
+        assertEquals(cg.params(), network.params());
+        assertEquals(cg.getUpdater().getStateViewArray(), network.getUpdater().getStateViewArray());
+    }
 }
@@ -0,0 +1,406 @@
+package org.deeplearning4j.graph.data;
+
+import org.deeplearning4j.graph.api.Edge;
+import org.deeplearning4j.graph.data.impl.DelimitedEdgeLineProcessor;
+import org.deeplearning4j.graph.data.impl.WeightedEdgeLineProcessor;
+import org.deeplearning4j.graph.graph.CSRGraph;
+import org.deeplearning4j.graph.vertexfactory.StringVertexFactory;
+import org.deeplearning4j.graph.vertexfactory.VertexFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/** Utility methods for loading graphs from edge list files into {@link CSRGraph}.<br>
+ * Edge lines are read in chunks; chunks are parsed, sorted by (from, to) and written to temporary files in parallel,
+ * and sorted chunks are then merged directly into CSR arrays. Hence, no objects are kept per edge at any point
+ * and peak memory is bounded by the final CSR arrays plus a few chunks.
+ */
+public class CSRGraphLoader {
+    /** Default number of edge lines per sorted chunk */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 18;
+
+    private static final int IO_BUFFER = 1 << 16;
+
+    private CSRGraphLoader() {}
+
+    /** Load an unweighted graph from an edge list file, with edges of the form {@code i<delim>j}.
+     * Duplicate edges are kept (i.e., allowMultipleEdges = true)
+     * @param path Path to the edge list file
+     * @param numVertices number of vertices in the graph
+     * @param delim delimiter used in the file
+     * @param directed whether the edges should be treated as directed (true) or undirected (false)
+     * @return graph
+     * @throws IOException if file cannot be read
+     */
+    public static CSRGraph<String> loadEdgeListFile(String path, int numVertices, String delim, boolean directed)
+                    throws IOException {
+        return loadGraph(path, new DelimitedEdgeLineProcessor(delim, directed), new StringVertexFactory(),
+                        numVertices, false, true, DEFAULT_CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Load a weighted graph from an edge list file, with edges of the form {@code fromIndex<delim>toIndex<delim>edgeWeight}.
+     * Duplicate edges are kept (i.e., allowMultipleEdges = true)
+     * @param path Path to the edge list file
+     * @param numVertices number of vertices in the graph
+     * @param delim delimiter used in the file
+     * @param directed whether the edges should be treated as directed (true) or undirected (false)
+     * @param ignoreLinesStartingWith Starting characters for comment lines. May be null. For example: "//" or "#"
+     * @return graph
+     * @throws IOException if file cannot be read
+     */
+    public static CSRGraph<String> loadWeightedEdgeListFile(String path, int numVertices, String delim,
+                    boolean directed, String... ignoreLinesStartingWith) throws IOException {
+        return loadGraph(path, new WeightedEdgeLineProcessor(delim, directed, ignoreLinesStartingWith),
+                        new StringVertexFactory(), numVertices, true, true, DEFAULT_CHUNK_SIZE,
+                        Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Load a graph from an edge list file, using a given EdgeLineProcessor. Assumes one edge per line.
+     * @param path Path to the file containing the edges, one per line
+     * @param lineProcessor EdgeLineProcessor used to convert lines of text into edges (or null for comment lines etc).
+     *                      Lines are processed from multiple threads, so the processor must be thread safe
+     * @param vertexFactory Used to create vertices, on demand
+     * @param numVertices number of vertices in the graph
+     * @param weighted if true, edge values are stored as float weights; values must be of a {@link Number} type
+     * @param allowMultipleEdges If false, only one of any duplicate edges between two vertices is kept
+     * @param chunkSize number of lines per sorted chunk
+     * @param numThreads number of threads used for parsing and sorting chunks
+     * @return CSRGraph
+     */
+    public static <V, E> CSRGraph<V> loadGraph(String path, final EdgeLineProcessor<E> lineProcessor,
+                    VertexFactory<V> vertexFactory, final int numVertices, final boolean weighted,
+                    final boolean allowMultipleEdges, int chunkSize, int numThreads) throws IOException {
+        if (numVertices <= 0)
+            throw new IllegalArgumentException("Invalid number of vertices: " + numVertices);
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+
+        numThreads = Math.max(numThreads, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = Executors.defaultThreadFactory().newThread(r);
+                t.setName("CSRGraphLoader thread");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        //Bounds number of chunks held in memory at once: one being parsed by each thread, plus one waiting (in
+        // addition to the one being read)
+        final Semaphore inFlight = new Semaphore(numThreads + 1);
+        //All run files created so far, including those of chunks whose results are never retrieved due to an error
+        final Collection<File> runFiles = new ConcurrentLinkedQueue<>();
+        List<Future<SortedRun>> futures = new ArrayList<>();
+        List<SortedRun> runs = new ArrayList<>();
+        try {
+            try (BufferedReader br = new BufferedReader(new FileReader(new File(path)))) {
+                List<String> chunk = new ArrayList<>();
+                String line;
+                while ((line = br.readLine()) != null) {
+                    chunk.add(line);
+                    if (chunk.size() >= chunkSize) {
+                        futures.add(submitChunk(executor, inFlight, runFiles, chunk, lineProcessor, numVertices,
+                                        weighted, allowMultipleEdges));
+                        chunk = new ArrayList<>();
+                    }
+                }
+                if (!chunk.isEmpty())
+                    futures.add(submitChunk(executor, inFlight, runFiles, chunk, lineProcessor, numVertices,
+                                    weighted, allowMultipleEdges));
+            }
+
+            for (Future<SortedRun> future : futures)
+                runs.add(future.get());
+
+            return merge(runs, vertexFactory, numVertices, weighted, allowMultipleEdges);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        } finally {
+            //On error, chunks may still be being sorted: wait for them, so that their run files are deleted too
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (File file : runFiles)
+                file.delete();
+        }
+    }
+
+    private static <E> Future<SortedRun> submitChunk(ExecutorService executor, final Semaphore inFlight,
+                    final Collection<File> runFiles, final List<String> lines,
+                    final EdgeLineProcessor<E> lineProcessor, final int numVertices, final boolean weighted,
+                    final boolean allowMultipleEdges) throws InterruptedException {
+        inFlight.acquire();
+        return executor.submit(new Callable<SortedRun>() {
+            @Override
+            public SortedRun call() throws Exception {
+                try {
+                    return sortChunk(lines, runFiles, lineProcessor, numVertices, weighted, allowMultipleEdges);
+                } finally {
+                    inFlight.release();
+                }
+            }
+        });
+    }
+
+    private static <E> SortedRun sortChunk(List<String> lines, Collection<File> runFiles,
+                    EdgeLineProcessor<E> lineProcessor, int numVertices, boolean weighted, boolean allowMultipleEdges)
+                    throws IOException {
+        //Undirected edges are stored in both directions, so up to 2 entries per line
+        long[] keys = new long[lines.size() * 2];
+        float[] values = weighted ? new float[keys.length] : null;
+        int count = 0;
+        boolean allDirected = true;
+
+        for (String line : lines) {
+            Edge<E> edge = lineProcessor.processLine(line);
+            if (edge == null)
+                continue;
+
+            int from = edge.getFrom();
+            int to = edge.getTo();
+            if (from < 0 || to < 0 || from >= numVertices || to >= numVertices)
+                throw new IllegalArgumentException("Invalid edge: " + edge + ", from/to indexes out of range");
+
+            float value = 0.0f;
+            if (weighted) {
+                if (!(edge.getValue() instanceof Number))
+                    throw new IllegalArgumentException("Cannot load weighted graph: edge value is not a number: "
+                                    + edge);
+                value = ((Number) edge.getValue()).floatValue();
+            }
+
+            keys[count] = pack(from, to);
+            if (weighted)
+                values[count] = value;
+            count++;
+
+            if (!edge.isDirected()) {
+                allDirected = false;
+                if (from != to) {
+                    keys[count] = pack(to, from);
+                    if (weighted)
+                        values[count] = value;
+                    count++;
+                }
+            }
+        }
+
+        sort(keys, values, 0, count - 1);
+
+        File file = File.createTempFile("csrgraph", "run");
+        file.deleteOnExit();
+        runFiles.add(file);
+        int written = 0;
+        try (DataOutputStream dos = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(file), IO_BUFFER))) {
+            for (int i = 0; i < count; i++) {
+                if (!allowMultipleEdges && i > 0 && keys[i] == keys[i - 1])
+                    continue;
+                dos.writeLong(keys[i]);
+                if (weighted)
+                    dos.writeFloat(values[i]);
+                written++;
+            }
+        }
+
+        return new SortedRun(file, written, allDirected);
+    }
+
+    private static <V> CSRGraph<V> merge(List<SortedRun> runs, VertexFactory<V> vertexFactory, int numVertices,
+                    boolean weighted, boolean allowMultipleEdges) throws IOException {
+        long total = 0;
+        boolean directed = true;
+        for (SortedRun run : runs) {
+            total += run.count;
+            directed &= run.allDirected;
+        }
+        if (total > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Too many edges for CSRGraph: " + total);
+
+        int[] offsets = new int[numVertices + 1];
+        int[] neighbors = new int[(int) total];
+        float[] weights = weighted ? new float[(int) total] : null;
+
+        PriorityQueue<RunCursor> queue = new PriorityQueue<>(Math.max(runs.size(), 1));
+        try {
+            for (SortedRun run : runs) {
+                RunCursor cursor = new RunCursor(run, weighted);
+                if (cursor.advance())
+                    queue.add(cursor);
+                else
+                    cursor.close();
+            }
+
+            int n = 0;
+            long lastKey = -1;
+            while (!queue.isEmpty()) {
+                RunCursor cursor = queue.poll();
+                long key = cursor.key;
+                float weight = cursor.weight;
+                if (cursor.advance())
+                    queue.add(cursor);
+                else
+                    cursor.close();
+
+                if (!allowMultipleEdges && key == lastKey)
+                    continue;
+                lastKey = key;
+
+                int from = (int) (key >>> 32);
+                neighbors[n] = (int) key;
+                if (weighted)
+                    weights[n] = weight;
+                offsets[from + 1]++;
+                n++;
+            }
+
+            for (int i = 0; i < numVertices; i++)
+                offsets[i + 1] += offsets[i];
+
+            //Duplicates across chunks are only found during merge
+            if (n < neighbors.length) {
+                neighbors = Arrays.copyOf(neighbors, n);
+                if (weighted)
+                    weights = Arrays.copyOf(weights, n);
+            }
+        } finally {
+            for (RunCursor cursor : queue)
+                cursor.close();
+        }
+
+        return new CSRGraph<>(offsets, neighbors, weights, directed, vertexFactory);
+    }
+
+    private static long pack(int from, int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    /** Sorts keys in ascending order, moving values (if any) along with them. Indexes are non-negative,
+     * so signed order is fine */
+    private static void sort(long[] keys, float[] values, int lo, int hi) {
+        while (hi - lo > 16) {
+            long a = keys[lo];
+            long b = keys[(lo + hi) >>> 1];
+            long c = keys[hi];
+            long pivot = (a < b) ? (b < c ? b : (a < c ? c : a)) : (a < c ? a : (b < c ? c : b));
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot)
+                    i++;
+                while (keys[j] > pivot)
+                    j--;
+                if (i <= j) {
+                    swap(keys, values, i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            //Recurse into smaller half, iterate over the larger one
+            if (j - lo < hi - i) {
+                sort(keys, values, lo, j);
+                lo = i;
+            } else {
+                sort(keys, values, i, hi);
+                hi = j;
+            }
+        }
+
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && keys[j - 1] > keys[j]; j--)
+                swap(keys, values, j, j - 1);
+        }
+    }
+
+    private static void swap(long[] keys, float[] values, int i, int j) {
+        long k = keys[i];
+        keys[i] = keys[j];
+        keys[j] = k;
+        if (values != null) {
+            float v = values[i];
+            values[i] = values[j];
+            values[j] = v;
+        }
+    }
+
+    private static class SortedRun {
+        private final File file;
+        private final int count;
+        private final boolean allDirected;
+
+        private SortedRun(File file, int count, boolean allDirected) {
+            this.file = file;
+            this.count = count;
+            this.allDirected = allDirected;
+        }
+    }
+
+    private static class RunCursor implements Comparable<RunCursor> {
+        private final DataInputStream stream;
+        private final boolean weighted;
+        private int remaining;
+        private long key;
+        private float weight;
+
+        private RunCursor(SortedRun run, boolean weighted) throws IOException {
+            this.stream = new DataInputStream(new BufferedInputStream(new FileInputStream(run.file), IO_BUFFER));
+            this.remaining = run.count;
+            this.weighted = weighted;
+        }
+
+        private boolean advance() throws IOException {
+            if (remaining <= 0)
+                return false;
+            key = stream.readLong();
+            if (weighted)
+                weight = stream.readFloat();
+            remaining--;
+            return true;
+        }
+
+        private void close() {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                //Ignore
+            }
+        }
+
+        @Override
+        public int compareTo(RunCursor o) {
+            return key < o.key ? -1 : (key == o.key ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package org.deeplearning4j.graph.graph;
+
+import org.deeplearning4j.graph.api.BaseGraph;
+import org.deeplearning4j.graph.api.Edge;
+import org.deeplearning4j.graph.api.IGraph;
+import org.deeplearning4j.graph.api.Vertex;
+import org.deeplearning4j.graph.data.CSRGraphLoader;
+import org.deeplearning4j.graph.exception.NoEdgesException;
+import org.deeplearning4j.graph.vertexfactory.VertexFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/** Immutable graph, stored in compressed sparse row (CSR) format.<br>
+ * Neighbors of vertex i are stored in {@code neighbors[offsets[i]]} to {@code neighbors[offsets[i+1]-1]}, and optional
+ * edge weights are stored in a parallel float array. Unlike {@link Graph}, no objects are kept per edge (and,
+ * if a {@link VertexFactory} is used, none per vertex either), so memory use is 4 bytes per edge (8 bytes for weighted
+ * graphs) plus 4 bytes per vertex.<br>
+ * As with {@link Graph}, undirected edges are stored in both directions.<br>
+ * CSRGraph instances are usually created with {@link CSRGraphLoader}. Edges can't be added after creation.
+ * @param <V> Type parameter for vertices (type of objects attached to each vertex)
+ */
+public class CSRGraph<V> extends BaseGraph<V, Double> {
+    private final int[] offsets;
+    private final int[] neighbors;
+    private final float[] weights;
+    private final boolean directed;
+    private final VertexFactory<V> vertexFactory;
+    private final List<Vertex<V>> vertices;
+
+    //Alias tables for weighted sampling, built on first use. Parallel to neighbors array
+    private volatile float[] aliasProbabilities;
+    private volatile int[] aliases;
+
+    /**
+     * @param offsets offsets of the neighbor lists, of length numVertices+1
+     * @param neighbors neighbor indexes, sorted by source vertex
+     * @param weights edge weights, parallel to neighbors. May be null for unweighted graphs
+     * @param directed whether edges are directed (undirected edges should be present in both directions)
+     * @param vertexFactory used to create vertex objects on demand
+     */
+    public CSRGraph(int[] offsets, int[] neighbors, float[] weights, boolean directed,
+                    VertexFactory<V> vertexFactory) {
+        this(offsets, neighbors, weights, directed, vertexFactory, null);
+    }
+
+    /**
+     * @param offsets offsets of the neighbor lists, of length vertices.size()+1
+     * @param neighbors neighbor indexes, sorted by source vertex
+     * @param weights edge weights, parallel to neighbors. May be null for unweighted graphs
+     * @param directed whether edges are directed (undirected edges should be present in both directions)
+     * @param vertices vertex objects
+     */
+    public CSRGraph(int[] offsets, int[] neighbors, float[] weights, boolean directed, List<Vertex<V>> vertices) {
+        this(offsets, neighbors, weights, directed, null, new ArrayList<>(vertices));
+    }
+
+    private CSRGraph(int[] offsets, int[] neighbors, float[] weights, boolean directed,
+                    VertexFactory<V> vertexFactory, List<Vertex<V>> vertices) {
+        if (offsets.length < 2)
+            throw new IllegalArgumentException("Graph should have at least one vertex");
+        if (offsets[offsets.length - 1] != neighbors.length)
+            throw new IllegalArgumentException("Invalid offsets: last offset " + offsets[offsets.length - 1]
+                            + " does not match number of edges " + neighbors.length);
+        if (weights != null && weights.length != neighbors.length)
+            throw new IllegalArgumentException("Weights length " + weights.length
+                            + " does not match number of edges " + neighbors.length);
+        if (vertices != null && vertices.size() != offsets.length - 1)
+            throw new IllegalArgumentException("Number of vertices " + vertices.size()
+                            + " does not match offsets length " + offsets.length);
+
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.weights = weights;
+        this.directed = directed;
+        this.vertexFactory = vertexFactory;
+        this.vertices = vertices;
+    }
+
+    @Override
+    public int numVertices() {
+        return offsets.length - 1;
+    }
+
+    /** Total number of stored edges. Undirected edges are counted twice, once per direction */
+    public int numEdges() {
+        return neighbors.length;
+    }
+
+    public boolean isWeighted() {
+        return weights != null;
+    }
+
+    public boolean isDirected() {
+        return directed;
+    }
+
+    @Override
+    public Vertex<V> getVertex(int idx) {
+        if (idx < 0 || idx >= numVertices())
+            throw new IllegalArgumentException("Invalid index: " + idx);
+        if (vertices != null)
+            return vertices.get(idx);
+        return vertexFactory.create(idx);
+    }
+
+    @Override
+    public List<Vertex<V>> getVertices(int[] indexes) {
+        List<Vertex<V>> out = new ArrayList<>(indexes.length);
+        for (int i : indexes)
+            out.add(getVertex(i));
+        return out;
+    }
+
+    @Override
+    public List<Vertex<V>> getVertices(int from, int to) {
+        if (to < from || from < 0 || to >= numVertices())
+            throw new IllegalArgumentException("Invalid range: from=" + from + ", to=" + to);
+        List<Vertex<V>> out = new ArrayList<>(to - from + 1);
+        for (int i = from; i <= to; i++)
+            out.add(getVertex(i));
+        return out;
+    }
+
+    @Override
+    public void addEdge(Edge<Double> edge) {
+        throw new UnsupportedOperationException("CSRGraph is immutable: edges can't be added after creation");
+    }
+
+    @Override
+    public List<Edge<Double>> getEdgesOut(int vertex) {
+        checkVertex(vertex);
+        int start = offsets[vertex];
+        int end = offsets[vertex + 1];
+        if (start == end)
+            return Collections.emptyList();
+
+        List<Edge<Double>> out = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            Double value = (weights == null ? null : (double) weights[i]);
+            out.add(new Edge<>(vertex, neighbors[i], value, directed));
+        }
+        return out;
+    }
+
+    @Override
+    public int getVertexDegree(int vertex) {
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+    @Override
+    public Vertex<V> getRandomConnectedVertex(int vertex, Random rng) throws NoEdgesException {
+        int idx = getRandomConnectedVertexIndex(vertex, rng);
+        if (idx < 0)
+            throw new NoEdgesException("Cannot generate random connected vertex: vertex " + vertex
+                            + " has no outgoing/undirected edges");
+        return getVertex(idx);
+    }
+
+    /** Uniformly sample index of a vertex connected to the given vertex, without creating any objects
+     * @return index of connected vertex, or -1 if the vertex has no outgoing/undirected edges
+     */
+    public int getRandomConnectedVertexIndex(int vertex, Random rng) {
+        checkVertex(vertex);
+        int start = offsets[vertex];
+        int degree = offsets[vertex + 1] - start;
+        if (degree == 0)
+            return -1;
+        return neighbors[start + rng.nextInt(degree)];
+    }
+
+    /** Sample index of a vertex connected to the given vertex, with probability proportional to edge weight.<br>
+     * Sampling is O(1) per call, using alias tables (Walker's alias method), which are built for all vertices
+     * on the first call.
+     * @return index of connected vertex, or -1 if the vertex has no outgoing/undirected edges
+     */
+    public int getWeightedRandomConnectedVertexIndex(int vertex, Random rng) {
+        if (weights == null)
+            return getRandomConnectedVertexIndex(vertex, rng);
+
+        checkVertex(vertex);
+        int start = offsets[vertex];
+        int degree = offsets[vertex + 1] - start;
+        if (degree == 0)
+            return -1;
+
+        if (aliases == null)
+            buildAliasTables();
+
+        int k = start + rng.nextInt(degree);
+        if (rng.nextFloat() < aliasProbabilities[k])
+            return neighbors[k];
+        return neighbors[start + aliases[k]];
+    }
+
+    private synchronized void buildAliasTables() {
+        if (aliases != null)
+            return;
+
+        float[] probabilities = new float[neighbors.length];
+        int[] alias = new int[neighbors.length];
+        int maxDegree = 0;
+        for (int v = 0; v < numVertices(); v++)
+            maxDegree = Math.max(maxDegree, getVertexDegree(v));
+
+        double[] scaled = new double[maxDegree];
+        int[] small = new int[maxDegree];
+        int[] large = new int[maxDegree];
+
+        for (int v = 0; v < numVertices(); v++) {
+            int start = offsets[v];
+            int degree = offsets[v + 1] - start;
+            if (degree == 0)
+                continue;
+
+            double total = 0.0;
+            for (int i = 0; i < degree; i++)
+                total += weights[start + i];
+
+            int nSmall = 0;
+            int nLarge = 0;
+            for (int i = 0; i < degree; i++) {
+                //Zero total weight: fall back to uniform sampling
+                scaled[i] = (total > 0 ? weights[start + i] * degree / total : 1.0);
+                alias[start + i] = i;
+                if (scaled[i] < 1.0)
+                    small[nSmall++] = i;
+                else
+                    large[nLarge++] = i;
+            }
+
+            while (nSmall > 0 && nLarge > 0) {
+                int s = small[--nSmall];
+                int l = large[--nLarge];
+                probabilities[start + s] = (float) scaled[s];
+                alias[start + s] = l;
+                scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+                if (scaled[l] < 1.0)
+                    small[nSmall++] = l;
+                else
+                    large[nLarge++] = l;
+            }
+
+            //Remaining entries have probability 1 (up to floating point error)
+            while (nLarge > 0)
+                probabilities[start + large[--nLarge]] = 1.0f;
+            while (nSmall > 0)
+                probabilities[start + small[--nSmall]] = 1.0f;
+        }
+
+        aliasProbabilities = probabilities;
+        aliases = alias;
+    }
+
+    @Override
+    public List<Vertex<V>> getConnectedVertices(int vertex) {
+        checkVertex(vertex);
+        int start = offsets[vertex];
+        int end = offsets[vertex + 1];
+        List<Vertex<V>> list = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++)
+            list.add(getVertex(neighbors[i]));
+        return list;
+    }
+
+    @Override
+    public int[] getConnectedVertexIndices(int vertex) {
+        checkVertex(vertex);
+        return Arrays.copyOfRange(neighbors, offsets[vertex], offsets[vertex + 1]);
+    }
+
+    /** Weights of edges of the given vertex, in the same order as {@link #getConnectedVertexIndices(int)}
+     * @return edge weights, or null for unweighted graphs
+     */
+    public float[] getConnectedVertexWeights(int vertex) {
+        checkVertex(vertex);
+        if (weights == null)
+            return null;
+        return Arrays.copyOfRange(weights, offsets[vertex], offsets[vertex + 1]);
+    }
+
+    private void checkVertex(int vertex) {
+        if (vertex < 0 || vertex >= numVertices())
+            throw new IllegalArgumentException("Invalid vertex index: " + vertex);
+    }
+
+    @Override
+    public String toString() {
+        return "CSRGraph(numVertices=" + numVertices() + ", numEdges=" + numEdges() + ", directed=" + directed
+                        + ", weighted=" + isWeighted() + ")";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CSRGraph))
+            return false;
+        CSRGraph<?> g = (CSRGraph<?>) o;
+        return directed == g.directed && Arrays.equals(offsets, g.offsets) && Arrays.equals(neighbors, g.neighbors)
+                        && Arrays.equals(weights, g.weights);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 23;
+        result = 31 * result + (directed ? 1 : 0);
+        result = 31 * result + Arrays.hashCode(offsets);
+        result = 31 * result + Arrays.hashCode(neighbors);
+        result = 31 * result + Arrays.hashCode(weights);
+        return result;
+    }
+}
@@ -3,8 +3,8 @@ package org.deeplearning4j.graph.iterator;
 import org.deeplearning4j.graph.api.IGraph;
 import org.deeplearning4j.graph.api.IVertexSequence;
 import org.deeplearning4j.graph.api.NoEdgeHandling;
-import org.deeplearning4j.graph.api.Vertex;
 import org.deeplearning4j.graph.exception.NoEdgesException;
+import org.deeplearning4j.graph.graph.CSRGraph;
 import org.deeplearning4j.graph.graph.VertexSequence;
 
 import java.util.NoSuchElementException;
@@ -12,12 +12,14 @@ import java.util.Random;
 
 /**Given a graph, iterate through random walks on that graph of a specified length.
  * Random walks are generated starting at every node in the graph exactly once, though the order
- * of the starting nodes is randomized.
+ * of the starting nodes is randomized.<br>
+ * For {@link CSRGraph}, neighbors are sampled directly from the CSR arrays, without creating vertex objects.
  * @author Alex Black
  */
 public class RandomWalkIterator<V> implements GraphWalkIterator<V> {
 
     private final IGraph<V, ?> graph;
+    private final CSRGraph<V> csrGraph;
     private final int walkLength;
     private final NoEdgeHandling mode;
     private final int firstVertex;
@@ -60,9 +62,11 @@ public class RandomWalkIterator<V> implements GraphWalkIterator<V> {
      * @param firstVertex first vertex index (inclusive) to start random walks from
      * @param lastVertex last vertex index (exclusive) to start random walks from
      */
+    @SuppressWarnings("unchecked")
     public RandomWalkIterator(IGraph<V, ?> graph, int walkLength, long rngSeed, NoEdgeHandling mode, int firstVertex,
                     int lastVertex) {
         this.graph = graph;
+        this.csrGraph = (graph instanceof CSRGraph ? (CSRGraph<V>) graph : null);
         this.walkLength = walkLength;
         this.rng = new Random(rngSeed);
         this.mode = mode;
@@ -86,9 +90,9 @@ public class RandomWalkIterator<V> implements GraphWalkIterator<V> {
         if (walkLength == 0)
             return new VertexSequence<>(graph, indices);
 
-        Vertex<V> next;
+        int next;
         try {
-            next = graph.getRandomConnectedVertex(currVertexIdx, rng);
+            next = randomConnectedVertex(currVertexIdx);
         } catch (NoEdgesException e) {
             switch (mode) {
                 case SELF_LOOP_ON_DISCONNECTED:
@@ -101,17 +105,27 @@ public class RandomWalkIterator<V> implements GraphWalkIterator<V> {
                     throw new RuntimeException("Unknown/not implemented NoEdgeHandling mode: " + mode);
             }
         }
-        indices[1] = next.vertexID();
+        indices[1] = next;
         currVertexIdx = indices[1];
 
         for (int i = 2; i <= walkLength; i++) { //<= walk length: i.e., if walk length = 2, it contains 3 vertices etc
-            next = graph.getRandomConnectedVertex(currVertexIdx, rng);
-            currVertexIdx = next.vertexID();
+            currVertexIdx = randomConnectedVertex(currVertexIdx);
             indices[i] = currVertexIdx;
         }
         return new VertexSequence<>(graph, indices);
     }
 
+    private int randomConnectedVertex(int vertex) {
+        if (csrGraph == null)
+            return graph.getRandomConnectedVertex(vertex, rng).vertexID();
+
+        int next = csrGraph.getRandomConnectedVertexIndex(vertex, rng);
+        if (next < 0)
+            throw new NoEdgesException("Cannot generate random connected vertex: vertex " + vertex
+                            + " has no outgoing/undirected edges");
+        return next;
+    }
+
     @Override
     public boolean hasNext() {
         return position < order.length;
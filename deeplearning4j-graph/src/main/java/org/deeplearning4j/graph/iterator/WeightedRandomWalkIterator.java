@@ -5,6 +5,7 @@ import org.deeplearning4j.graph.api.IGraph;
 import org.deeplearning4j.graph.api.IVertexSequence;
 import org.deeplearning4j.graph.api.NoEdgeHandling;
 import org.deeplearning4j.graph.exception.NoEdgesException;
+import org.deeplearning4j.graph.graph.CSRGraph;
 import org.deeplearning4j.graph.graph.VertexSequence;
 
 import java.util.List;
@@ -17,12 +18,14 @@ import java.util.Random;
  * Because the edge values are used to determine the probabilities of selecting an edge, the {@code WeightedRandomWalkIterator}
  * can only be used on graphs with an edge type that extends the {@link java.lang.Number} class (i.e., Integer, Double, etc)<br>
  * Random walks are generated starting at every node in the graph exactly once, though the order of the starting nodes
- * is randomized.
+ * is randomized.<br>
+ * For {@link CSRGraph}, neighbors are sampled in O(1) per step using alias tables over the CSR weight array.
  * @author Alex Black
  */
 public class WeightedRandomWalkIterator<V> implements GraphWalkIterator<V> {
 
     private final IGraph<V, ? extends Number> graph;
+    private final CSRGraph<V> csrGraph;
     private final int walkLength;
     private final NoEdgeHandling mode;
     private final int firstVertex;
@@ -66,9 +69,11 @@ public class WeightedRandomWalkIterator<V> implements GraphWalkIterator<V> {
      * @param firstVertex first vertex index (inclusive) to start random walks from
      * @param lastVertex last vertex index (exclusive) to start random walks from
      */
+    @SuppressWarnings("unchecked")
     public WeightedRandomWalkIterator(IGraph<V, ? extends Number> graph, int walkLength, long rngSeed,
                     NoEdgeHandling mode, int firstVertex, int lastVertex) {
         this.graph = graph;
+        this.csrGraph = (graph instanceof CSRGraph ? (CSRGraph<V>) graph : null);
         this.walkLength = walkLength;
         this.rng = new Random(rngSeed);
         this.mode = mode;
@@ -93,6 +98,16 @@ public class WeightedRandomWalkIterator<V> implements GraphWalkIterator<V> {
             return new VertexSequence<>(graph, indices);
 
         for (int i = 1; i <= walkLength; i++) {
+            if (csrGraph != null) {
+                int next = csrGraph.getWeightedRandomConnectedVertexIndex(currVertexIdx, rng);
+                if (next >= 0) {
+                    currVertexIdx = next;
+                    indices[i] = currVertexIdx;
+                    continue;
+                }
+                //No edges: handled below
+            }
+
             List<? extends Edge<? extends Number>> edgeList = graph.getEdgesOut(currVertexIdx);
 
             //First: check if there are any outgoing edges from this vertex. If not: handle the situation
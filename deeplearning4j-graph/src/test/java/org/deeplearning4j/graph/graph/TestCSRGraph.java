@@ -0,0 +1,142 @@
+package org.deeplearning4j.graph.graph;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.deeplearning4j.graph.api.IGraph;
+import org.deeplearning4j.graph.api.IVertexSequence;
+import org.deeplearning4j.graph.api.NoEdgeHandling;
+import org.deeplearning4j.graph.data.CSRGraphLoader;
+import org.deeplearning4j.graph.data.GraphLoader;
+import org.deeplearning4j.graph.data.impl.WeightedEdgeLineProcessor;
+import org.deeplearning4j.graph.iterator.RandomWalkIterator;
+import org.deeplearning4j.graph.iterator.WeightedRandomWalkIterator;
+import org.deeplearning4j.graph.vertexfactory.StringVertexFactory;
+import org.junit.Test;
+import org.nd4j.linalg.io.ClassPathResource;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TestCSRGraph {
+
+    private static String weightedGraphPath() throws IOException {
+        return new ClassPathResource("WeightedGraph.txt").getTempFileFromArchive().getAbsolutePath();
+    }
+
+    @Test
+    public void testLoadMatchesGraph() throws IOException {
+        String path = weightedGraphPath();
+        int numVertices = 9;
+
+        for (boolean directed : new boolean[] {true, false}) {
+            IGraph<String, Double> graph = GraphLoader.loadWeightedEdgeListFile(path, numVertices, ",", directed, "//");
+            //Small chunk size: forces multiple sorted runs + merge
+            CSRGraph<String> csr = CSRGraphLoader.loadGraph(path, new WeightedEdgeLineProcessor(",", directed, "//"),
+                            new StringVertexFactory(), numVertices, true, true, 2, 2);
+
+            assertEquals(numVertices, csr.numVertices());
+            assertEquals(directed, csr.isDirected());
+            assertTrue(csr.isWeighted());
+            assertEquals(directed ? 13 : 26, csr.numEdges());
+
+            for (int i = 0; i < numVertices; i++) {
+                assertEquals(graph.getVertexDegree(i), csr.getVertexDegree(i));
+
+                int[] expected = graph.getConnectedVertexIndices(i);
+                int[] actual = csr.getConnectedVertexIndices(i);
+                float[] weights = csr.getConnectedVertexWeights(i);
+                Arrays.sort(expected);
+                assertArrayEquals(expected, actual); //CSR neighbors are sorted
+                assertEquals(String.valueOf(i), csr.getVertex(i).getValue());
+
+                for (int j = 0; j < actual.length; j++) {
+                    //Edge weights in this file are encoded in the vertex indexes, i.e., "from,to,fromto"
+                    int from = Math.min(i, actual[j]);
+                    int to = Math.max(i, actual[j]);
+                    double expWeight = (from == 0 && to == 8 ? 80 : Double.parseDouble(from + "" + to));
+                    assertEquals(expWeight, weights[j], 1e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMultipleEdges() throws IOException {
+        File f = File.createTempFile("csrgraph", ".txt");
+        f.deleteOnExit();
+        try (FileWriter fw = new FileWriter(f)) {
+            fw.write("0,1,1.0\n0,1,1.0\n1,2,2.0\n2,2,3.0\n0,1,1.0\n");
+        }
+        String path = f.getAbsolutePath();
+
+        CSRGraph<String> multi = CSRGraphLoader.loadGraph(path, new WeightedEdgeLineProcessor(",", false),
+                        new StringVertexFactory(), 3, true, true, 2, 2);
+        CSRGraph<String> single = CSRGraphLoader.loadGraph(path, new WeightedEdgeLineProcessor(",", false),
+                        new StringVertexFactory(), 3, true, false, 2, 2);
+
+        //Undirected: 3x 0-1 in both directions, 1-2 in both directions, self loop stored once
+        assertEquals(9, multi.numEdges());
+        assertArrayEquals(new int[] {1, 1, 1}, multi.getConnectedVertexIndices(0));
+        assertArrayEquals(new int[] {0, 2}, single.getConnectedVertexIndices(1));
+        assertArrayEquals(new int[] {1, 2}, single.getConnectedVertexIndices(2));
+        assertEquals(5, single.numEdges());
+    }
+
+    @Test
+    public void testAliasSampling() {
+        //Vertex 0 -> {1, 2, 3} with weights {1, 2, 7}; vertex 1 -> {0}; vertices 2, 3 have no edges
+        int[] offsets = {0, 3, 4, 4, 4};
+        int[] neighbors = {1, 2, 3, 0};
+        float[] weights = {1, 2, 7, 5};
+        CSRGraph<String> graph = new CSRGraph<>(offsets, neighbors, weights, true, new StringVertexFactory());
+
+        Random r = new Random(12345);
+        int n = 100000;
+        int[] counts = new int[4];
+        for (int i = 0; i < n; i++)
+            counts[graph.getWeightedRandomConnectedVertexIndex(0, r)]++;
+
+        assertEquals(0, counts[0]);
+        assertEquals(0.1, counts[1] / (double) n, 0.01);
+        assertEquals(0.2, counts[2] / (double) n, 0.01);
+        assertEquals(0.7, counts[3] / (double) n, 0.01);
+
+        assertEquals(0, graph.getWeightedRandomConnectedVertexIndex(1, r));
+        assertEquals(-1, graph.getWeightedRandomConnectedVertexIndex(2, r));
+        assertEquals(-1, graph.getRandomConnectedVertexIndex(3, r));
+    }
+
+    @Test
+    public void testRandomWalks() throws IOException {
+        int numVertices = 9;
+        int walkLength = 5;
+        CSRGraph<String> graph = CSRGraphLoader.loadWeightedEdgeListFile(weightedGraphPath(), numVertices, ",", false,
+                        "//");
+
+        RandomWalkIterator<String> iter = new RandomWalkIterator<>(graph, walkLength, 12345,
+                        NoEdgeHandling.EXCEPTION_ON_DISCONNECTED);
+        WeightedRandomWalkIterator<String> weightedIter = new WeightedRandomWalkIterator<>(graph, walkLength, 12345);
+
+        for (int k = 0; k < 2; k++) {
+            int walkCount = 0;
+            while (k == 0 ? iter.hasNext() : weightedIter.hasNext()) {
+                IVertexSequence<String> walk = (k == 0 ? iter.next() : weightedIter.next());
+                assertEquals(walkLength + 1, walk.sequenceLength());
+
+                int last = -1;
+                while (walk.hasNext()) {
+                    int curr = walk.next().vertexID();
+                    if (last != -1)
+                        assertTrue(ArrayUtils.contains(graph.getConnectedVertexIndices(last), curr));
+                    last = curr;
+                }
+                walkCount++;
+            }
+            assertEquals(numVertices, walkCount);
+        }
+    }
+}
@@ -7,7 +7,9 @@ import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.aggregates.Aggregate;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -46,6 +48,19 @@ public interface SequenceLearningAlgorithm<T extends SequenceElement> {
     INDArray inferSequence(Sequence<T> sequence, long nextRandom, double learningRate, double minLearningRate,
                     int iterations);
 
+    /**
+     * This method appends ops of single inference iteration over the sequence to the batch, without executing them.
+     * Used to infer vectors for many sequences at once: caller executes the batch.
+     *
+     * @param sequence
+     * @param nextRandom
+     * @param learningRate
+     * @param inferenceVector vector being inferred for this sequence
+     * @param batch
+     */
+    void inferenceIteration(Sequence<T> sequence, AtomicLong nextRandom, double learningRate,
+                    INDArray inferenceVector, List<Aggregate> batch);
+
     ElementsLearningAlgorithm<T> getElementsLearningAlgorithm();
 
     void finish();
@@ -20,6 +20,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -100,10 +101,7 @@ public class CBOW<T extends SequenceElement> implements ElementsLearningAlgorith
 
     @Override
     public void finish() {
-        if (batches != null && batches.get() != null && batches.get().size() > 0) {
-            Nd4j.getExecutioner().exec(batches.get());
-            batches.get().clear();
-        }
+        flushBatch(0);
     }
 
     @Override
@@ -118,15 +116,36 @@ public class CBOW<T extends SequenceElement> implements ElementsLearningAlgorith
             currentWindow = variableWindows[RandomUtils.nextInt(variableWindows.length)];
         }
 
-        for (int i = 0; i < tempSequence.getElements().size(); i++) {
+        // indexes are resolved once per sequence, and window buffer is shared by all positions
+        List<T> elements = tempSequence.getElements();
+        int[] indexes = new int[elements.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = elements.get(i).getIndex();
+        }
+        int[] windowBuffer = new int[window * 2 + 1];
+
+        for (int i = 0; i < indexes.length; i++) {
             nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
-            cbow(i, tempSequence.getElements(), (int) nextRandom.get() % currentWindow, nextRandom, learningRate,
-                            currentWindow);
+            cbow(i, elements, indexes, windowBuffer, (int) nextRandom.get() % currentWindow, nextRandom,
+                            learningRate, currentWindow);
         }
 
         return 0;
     }
 
+    /**
+     * This method executes current thread's batch of aggregates, if it has at least minSize ops.
+     * All ops of the batch are executed as single native call, and threads update weights without any
+     * synchronization (Hogwild-style).
+     */
+    protected void flushBatch(int minSize) {
+        List<Aggregate> batch = batches.get();
+        if (batch != null && !batch.isEmpty() && batch.size() >= minSize) {
+            Nd4j.getExecutioner().exec(batch);
+            batch.clear();
+        }
+    }
+
     @Override
     public boolean isEarlyTerminationHit() {
         return false;
@@ -134,6 +153,29 @@ public class CBOW<T extends SequenceElement> implements ElementsLearningAlgorith
 
     public void iterateSample(T currentWord, int[] windowWords, AtomicLong nextRandom, double alpha,
                     boolean isInference, int numLabels, boolean trainWords, INDArray inferenceVector) {
+        AggregateCBOW cbow = buildAggregate(currentWord, windowWords, nextRandom, alpha, numLabels, trainWords,
+                        inferenceVector);
+
+        if (!isInference) {
+            if (batches.get() == null)
+                batches.set(new ArrayList<Aggregate>());
+            batches.get().add(cbow);
+        } else
+            Nd4j.getExecutioner().exec(cbow);
+    }
+
+    /**
+     * This method appends inference op for the given element and its window to the batch, without executing it.
+     * Used for batched inference of multiple sequences.
+     */
+    public void addInferenceSample(T currentWord, int[] windowWords, AtomicLong nextRandom, double alpha,
+                    int numLabels, boolean trainWords, INDArray inferenceVector, List<Aggregate> batch) {
+        batch.add(buildAggregate(currentWord, windowWords, nextRandom, alpha, numLabels, trainWords,
+                        inferenceVector));
+    }
+
+    protected AggregateCBOW buildAggregate(T currentWord, int[] windowWords, AtomicLong nextRandom, double alpha,
+                    int numLabels, boolean trainWords, INDArray inferenceVector) {
         int[] idxSyn1 = null;
         int[] codes = null;
 
@@ -160,20 +202,13 @@ public class CBOW<T extends SequenceElement> implements ElementsLearningAlgorith
             }
         }
 
-        if (batches.get() == null)
-            batches.set(new ArrayList<Aggregate>());
-
         AggregateCBOW cbow = new AggregateCBOW(syn0.get(), syn1.get(), syn1Neg.get(), expTable.get(), table.get(),
                         currentWord.getIndex(), windowWords, idxSyn1, codes, (int) negative, currentWord.getIndex(),
                         lookupTable.layerSize(), alpha, nextRandom.get(), vocabCache.numWords(), numLabels, trainWords,
                         inferenceVector);
         nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
 
-        if (!isInference)
-            batches.get().add(cbow);
-        else
-            Nd4j.getExecutioner().exec(cbow);
-
+        return cbow;
     }
 
     public void cbow(int i, List<T> sentence, int b, AtomicLong nextRandom, double alpha, int currentWindow) {
@@ -201,10 +236,27 @@ public class CBOW<T extends SequenceElement> implements ElementsLearningAlgorith
         // we don't allow inference from main loop here
         iterateSample(currentWord, windowWords, nextRandom, alpha, false, 0, true, null);
 
-        if (batches != null && batches.get() != null && batches.get().size() >= configuration.getBatchSize()) {
-            Nd4j.getExecutioner().exec(batches.get());
-            batches.get().clear();
+        flushBatch(configuration.getBatchSize());
+    }
+
+    private void cbow(int i, List<T> sentence, int[] indexes, int[] windowBuffer, int b, AtomicLong nextRandom,
+                    double alpha, int currentWindow) {
+        int end = window * 2 + 1 - b;
+
+        int cnt = 0;
+        for (int a = b; a < end; a++) {
+            if (a != currentWindow) {
+                int c = i - currentWindow + a;
+                if (c >= 0 && c < indexes.length) {
+                    windowBuffer[cnt++] = indexes[c];
+                }
+            }
         }
+
+        // aggregate keeps reference to window array until batch is executed, so it gets its own copy
+        iterateSample(sentence.get(i), Arrays.copyOf(windowBuffer, cnt), nextRandom, alpha, false, 0, true, null);
+
+        flushBatch(configuration.getBatchSize());
     }
 
     public Sequence<T> applySubsampling(@NonNull Sequence<T> sequence, @NonNull AtomicLong nextRandom) {
@@ -256,11 +256,14 @@ public class GloVe<T extends SequenceElement> implements ElementsLearningAlgorit
             while (coList.hasNext()) {
 
                 // now we fetch pairs into batch
+                // iterator is shared between threads, so hasNext() and next() calls should be atomic
                 List<Pair<Pair<T, T>, Double>> pairs = new ArrayList<>();
                 int cnt = 0;
-                while (coList.hasNext() && cnt < batchSize) {
-                    pairs.add(coList.next());
-                    cnt++;
+                synchronized (coList) {
+                    while (coList.hasNext() && cnt < batchSize) {
+                        pairs.add(coList.next());
+                        cnt++;
+                    }
                 }
 
                 if (shuffle)
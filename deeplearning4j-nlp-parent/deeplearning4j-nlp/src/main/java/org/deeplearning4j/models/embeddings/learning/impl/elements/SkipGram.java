@@ -166,26 +166,46 @@ public class SkipGram<T extends SequenceElement> implements ElementsLearningAlgo
             currentWindow = variableWindows[RandomUtils.nextInt(variableWindows.length)];
         }
 
-        for (int i = 0; i < tempSequence.getElements().size(); i++) {
-            nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
-            score = skipGram(i, tempSequence.getElements(), (int) nextRandom.get() % currentWindow, nextRandom,
-                            learningRate, currentWindow);
+        List<T> elements = tempSequence.getElements();
+        int numWords = vocabCache.numWords();
+
+        // indexes are resolved once per sequence, elements that can't be trained are marked with -1
+        int[] indexes = new int[elements.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            T element = elements.get(i);
+            indexes[i] = isTrainable(element) ? element.getIndex() : -1;
         }
 
-        if (batches != null && batches.get() != null && batches.get().size() >= configuration.getBatchSize()) {
-            Nd4j.getExecutioner().exec(batches.get());
-            batches.get().clear();
+        for (int i = 0; i < indexes.length; i++) {
+            nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
+            score = skipGram(i, elements, indexes, (int) nextRandom.get() % currentWindow, nextRandom, learningRate,
+                            currentWindow, numWords);
         }
 
         return score;
     }
 
+    /**
+     * This method executes current thread's batch of aggregates, if it has at least minSize ops.
+     * All ops of the batch are executed as single native call, and threads update weights without any
+     * synchronization (Hogwild-style).
+     */
+    protected void flushBatch(int minSize) {
+        List<Aggregate> batch = batches.get();
+        if (batch != null && !batch.isEmpty() && batch.size() >= minSize) {
+            Nd4j.getExecutioner().exec(batch);
+            batch.clear();
+        }
+    }
+
+    protected boolean isTrainable(T element) {
+        return element != null && element.getIndex() >= 0 && !element.getLabel().equals("STOP")
+                        && !element.getLabel().equals("UNK");
+    }
+
     @Override
     public void finish() {
-        if (batches != null && batches.get() != null && batches.get().size() > 0) {
-            Nd4j.getExecutioner().exec(batches.get());
-            batches.get().clear();
-        }
+        flushBatch(0);
     }
 
     /**
@@ -198,60 +218,106 @@ public class SkipGram<T extends SequenceElement> implements ElementsLearningAlgo
         return false;
     }
 
-    private double skipGram(int i, List<T> sentence, int b, AtomicLong nextRandom, double alpha, int currentWindow) {
-        final T word = sentence.get(i);
-        if (word == null || sentence.isEmpty())
+    private double skipGram(int i, List<T> sentence, int[] indexes, int b, AtomicLong nextRandom, double alpha,
+                    int currentWindow, int numWords) {
+        int target = indexes[i];
+        if (target < 0)
             return 0.0;
 
-        double score = 0.0;
-        int cnt = 0;
+        // Huffman codes depend on target word only, so they're shared by all window pairs
+        int[][] huffman = huffmanArrays(sentence.get(i), numWords);
+
+        if (batches.get() == null) {
+            batches.set(new ArrayList<Aggregate>());
+        }
+        List<Aggregate> batch = batches.get();
 
         int end = currentWindow * 2 + 1 - b;
         for (int a = b; a < end; a++) {
             if (a != currentWindow) {
                 int c = i - currentWindow + a;
-                if (c >= 0 && c < sentence.size()) {
-                    T lastWord = sentence.get(c);
-                    score = iterateSample(word, lastWord, nextRandom, alpha, false, null);
-
+                if (c >= 0 && c < indexes.length && indexes[c] >= 0 && indexes[c] != target) {
+                    batch.add(new AggregateSkipGram(syn0.get(), syn1.get(), syn1Neg.get(), expTable.get(),
+                                    table.get(), indexes[c], huffman[0], huffman[1], (int) negative, target,
+                                    vectorLength, alpha, nextRandom.get(), numWords, null));
+                    nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
                 }
             }
         }
 
-        return score;
+        // batch is bounded even for very long sequences
+        flushBatch(configuration.getBatchSize());
+
+        return 0.0;
+    }
+
+    /**
+     * Returns points and codes of specified word, as {idxSyn1, codes} arrays. Both arrays are empty if hierarchic
+     * softmax isn't used
+     */
+    protected int[][] huffmanArrays(T w1, int numWords) {
+        if (!configuration.isUseHierarchicSoftmax())
+            return new int[][] {new int[0], new int[0]};
+
+        int[] idxSyn1 = new int[w1.getCodeLength()];
+        int[] codes = new int[w1.getCodeLength()];
+        for (int i = 0; i < w1.getCodeLength(); i++) {
+            int code = w1.getCodes().get(i);
+            int point = w1.getPoints().get(i);
+            if (point >= numWords || point < 0)
+                continue;
+
+            codes[i] = code;
+            idxSyn1[i] = point;
+        }
+
+        return new int[][] {idxSyn1, codes};
     }
 
     public double iterateSample(T w1, T lastWord, AtomicLong nextRandom, double alpha, boolean isInference,
                     INDArray inferenceVector) {
-        if (w1 == null || lastWord == null || (lastWord.getIndex() < 0 && !isInference)
-                        || w1.getIndex() == lastWord.getIndex() || w1.getLabel().equals("STOP")
-                        || lastWord.getLabel().equals("STOP") || w1.getLabel().equals("UNK")
-                        || lastWord.getLabel().equals("UNK")) {
+        AggregateSkipGram sg = buildAggregate(w1, lastWord, nextRandom, alpha, isInference, inferenceVector);
+        if (sg == null)
             return 0.0;
-        }
 
+        if (!isInference) {
+            if (batches.get() == null) {
+                batches.set(new ArrayList<Aggregate>());
+            }
+            batches.get().add(sg);
+        } else
+            Nd4j.getExecutioner().exec(sg);
 
-        double score = 0.0;
+        return 0.0;
+    }
 
-        int[] idxSyn1 = null;
-        int[] codes = null;
-        if (configuration.isUseHierarchicSoftmax()) {
-            idxSyn1 = new int[w1.getCodeLength()];
-            codes = new int[w1.getCodeLength()];
-            for (int i = 0; i < w1.getCodeLength(); i++) {
-                int code = w1.getCodes().get(i);
-                int point = w1.getPoints().get(i);
-                if (point >= vocabCache.numWords() || point < 0)
-                    continue;
+    /**
+     * This method appends inference op for the given pair of elements to the batch, without executing it.
+     * Used for batched inference of multiple sequences.
+     */
+    public void addInferenceSample(T w1, T lastWord, AtomicLong nextRandom, double alpha, INDArray inferenceVector,
+                    List<Aggregate> batch) {
+        AggregateSkipGram sg = buildAggregate(w1, lastWord, nextRandom, alpha, true, inferenceVector);
+        if (sg != null)
+            batch.add(sg);
+    }
 
-                codes[i] = code;
-                idxSyn1[i] = point;
-            }
-        } else {
-            idxSyn1 = new int[0];
-            codes = new int[0];
+    /**
+     * This method builds AggregateSkipGram op for the given pair of elements, or returns null if pair should be skipped
+     */
+    protected AggregateSkipGram buildAggregate(T w1, T lastWord, AtomicLong nextRandom, double alpha,
+                    boolean isInference, INDArray inferenceVector) {
+        if (w1 == null || lastWord == null || (lastWord.getIndex() < 0 && !isInference)
+                        || w1.getIndex() == lastWord.getIndex() || w1.getLabel().equals("STOP")
+                        || lastWord.getLabel().equals("STOP") || w1.getLabel().equals("UNK")
+                        || lastWord.getLabel().equals("UNK")) {
+            return null;
         }
 
+        int[][] huffman = huffmanArrays(w1, vocabCache.numWords());
+        int[] idxSyn1 = huffman[0];
+        int[] codes = huffman[1];
+
 
         int target = w1.getIndex();
         //negative sampling
@@ -262,10 +328,6 @@ public class SkipGram<T extends SequenceElement> implements ElementsLearningAlgo
             }
         }
 
-        if (batches.get() == null) {
-            batches.set(new ArrayList<Aggregate>());
-        }
-
         //log.info("VocabWords: {}; lastWordIndex: {}; syn1neg: {}", vocabCache.numWords(), lastWord.getIndex(), syn1Neg.get().rows());
 
         AggregateSkipGram sg = new AggregateSkipGram(syn0.get(), syn1.get(), syn1Neg.get(), expTable.get(), table.get(),
@@ -273,11 +335,6 @@ public class SkipGram<T extends SequenceElement> implements ElementsLearningAlgo
                         nextRandom.get(), vocabCache.numWords(), inferenceVector);
         nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
 
-        if (!isInference)
-            batches.get().add(sg);
-        else
-            Nd4j.getExecutioner().exec(sg);
-
-        return score;
+        return sg;
     }
 }
@@ -11,6 +11,7 @@ import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.aggregates.Aggregate;
 import org.nd4j.linalg.api.rng.Random;
 import org.nd4j.linalg.factory.Nd4j;
 import org.slf4j.Logger;
@@ -164,6 +165,25 @@ public class DBOW<T extends SequenceElement> implements SequenceLearningAlgorith
         return ret;
     }
 
+    @Override
+    public void inferenceIteration(Sequence<T> sequence, AtomicLong nextRandom, double learningRate,
+                    INDArray inferenceVector, List<Aggregate> batch) {
+        nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
+
+        if (sequence.getSequenceLabel() == null)
+            return;
+
+        List<T> sentence = skipGram.applySubsampling(sequence, nextRandom).getElements();
+        for (T lastWord : sequence.getSequenceLabels()) {
+            for (T word : sentence) {
+                if (word == null)
+                    continue;
+
+                skipGram.addInferenceSample(word, lastWord, nextRandom, learningRate, inferenceVector, batch);
+            }
+        }
+    }
+
     @Override
     public void finish() {
         if (skipGram != null && skipGram.getBatch() != null && skipGram.getBatch().size() > 0) {
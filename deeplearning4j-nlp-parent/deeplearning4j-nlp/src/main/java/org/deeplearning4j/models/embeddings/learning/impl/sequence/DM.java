@@ -13,6 +13,7 @@ import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.aggregates.Aggregate;
 import org.nd4j.linalg.api.rng.Random;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.ops.transforms.Transforms;
@@ -106,9 +107,24 @@ public class DM<T extends SequenceElement> implements SequenceLearningAlgorithm<
 
     public void dm(int i, Sequence<T> sequence, int b, AtomicLong nextRandom, double alpha, List<T> labels,
                     boolean isInference, INDArray inferenceVector) {
-        int end = window * 2 + 1 - b;
-
         T currentWord = sequence.getElementByIndex(i);
+        int[] windowWords = windowWords(i, sequence, b, labels);
+
+        // pass for underlying
+        cbow.iterateSample(currentWord, windowWords, nextRandom, alpha, isInference, labels == null ? 0 : labels.size(),
+                        configuration.isTrainElementsVectors(), inferenceVector);
+
+        if (cbow.getBatch() != null && cbow.getBatch().size() >= configuration.getBatchSize()) {
+            Nd4j.getExecutioner().exec(cbow.getBatch());
+            cbow.getBatch().clear();
+        }
+    }
+
+    /**
+     * This method returns indexes of elements within window around position i, followed by indexes of labels
+     */
+    protected int[] windowWords(int i, Sequence<T> sequence, int b, List<T> labels) {
+        int end = window * 2 + 1 - b;
 
         List<Integer> intsList = new ArrayList<>();
         for (int a = b; a < end; a++) {
@@ -133,13 +149,18 @@ public class DM<T extends SequenceElement> implements SequenceLearningAlgorithm<
             windowWords[x] = intsList.get(x);
         }
 
-        // pass for underlying
-        cbow.iterateSample(currentWord, windowWords, nextRandom, alpha, isInference, labels == null ? 0 : labels.size(),
-                        configuration.isTrainElementsVectors(), inferenceVector);
+        return windowWords;
+    }
 
-        if (cbow.getBatch() != null && cbow.getBatch().size() >= configuration.getBatchSize()) {
-            Nd4j.getExecutioner().exec(cbow.getBatch());
-            cbow.getBatch().clear();
+    @Override
+    public void inferenceIteration(Sequence<T> sequence, AtomicLong nextRandom, double learningRate,
+                    INDArray inferenceVector, List<Aggregate> batch) {
+        for (int i = 0; i < sequence.size(); i++) {
+            nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
+            int[] windowWords = windowWords(i, sequence, (int) nextRandom.get() % window, null);
+
+            cbow.addInferenceSample(sequence.getElementByIndex(i), windowWords, nextRandom, learningRate, 0,
+                            configuration.isTrainElementsVectors(), inferenceVector, batch);
         }
     }
 
@@ -21,7 +21,9 @@ package org.deeplearning4j.models.embeddings.loader;
 import org.deeplearning4j.exception.DL4JInvalidInputException;
 import org.deeplearning4j.models.embeddings.learning.impl.elements.CBOW;
 import org.deeplearning4j.models.embeddings.learning.impl.elements.SkipGram;
+import org.deeplearning4j.models.word2vec.MappedWord2Vec;
 import org.deeplearning4j.models.word2vec.StaticWord2Vec;
+import org.deeplearning4j.models.word2vec.wordstore.mapped.MappedVectorStore;
 import org.deeplearning4j.text.tokenization.tokenizer.TokenPreProcess;
 import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
 import org.nd4j.compression.impl.NoOp;
@@ -2665,6 +2667,103 @@ public class WordVectorSerializer {
         return word2Vec;
     }
 
+    /**
+     * This method saves vectors and vocabulary of given model into memory mapped word vectors file,
+     * suitable for {@link #loadMappedModel(File)}
+     *
+     * @param vectors model to be saved
+     * @param file    target file
+     * @throws IOException
+     */
+    public static void writeMappedModel(@NonNull WordVectors vectors, @NonNull File file) throws IOException {
+        VocabCache<VocabWord> vocabCache = vectors.vocab();
+        try (MappedVectorStore.Writer writer = new MappedVectorStore.Writer(file)) {
+            for (int i = 0; i < vocabCache.numWords(); i++) {
+                VocabWord word = vocabCache.elementAtIndex(i);
+                INDArray vector = vectors.getWordVectorMatrix(word.getLabel());
+
+                float[] array = new float[vector.length()];
+                for (int e = 0; e < array.length; e++)
+                    array[e] = vector.getFloat(e);
+
+                writer.add(word.getLabel(), word.getElementFrequency(), array);
+            }
+        }
+    }
+
+    /**
+     * This method converts model file, in any of formats supported by {@link #loadStaticModel(File)},
+     * into memory mapped word vectors file. Vectors are streamed from source to target one by one,
+     * so model doesn't have to fit into memory.
+     *
+     * @param source source model file
+     * @param target target file
+     */
+    public static void convertToMappedModel(@NonNull File source, @NonNull File target) {
+        if (!source.exists() || source.isDirectory())
+            throw new RuntimeException(
+                            new FileNotFoundException("File [" + source.getAbsolutePath() + "] was not found"));
+
+        // same format guessing as loadStaticModel: dl4j zip, then csv, then binary
+        try {
+            log.debug("Trying DL4j format...");
+            File tmpFileSyn0 = File.createTempFile("word2vec", "syn");
+            tmpFileSyn0.deleteOnExit();
+
+            try (ZipFile zipFile = new ZipFile(source)) {
+                ZipEntry syn0 = zipFile.getEntry("syn0.txt");
+                InputStream stream = zipFile.getInputStream(syn0);
+                Files.copy(stream, Paths.get(tmpFileSyn0.getAbsolutePath()), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            try (Reader reader = new CSVReader(tmpFileSyn0)) {
+                writeMapped(reader, target);
+            } finally {
+                tmpFileSyn0.delete();
+            }
+        } catch (Exception e) {
+            try {
+                log.debug("Trying CSVReader...");
+                try (Reader reader = new CSVReader(source)) {
+                    writeMapped(reader, target);
+                }
+            } catch (Exception ex) {
+                log.debug("Trying BinaryReader...");
+                try (Reader reader = new BinaryReader(source)) {
+                    writeMapped(reader, target);
+                } catch (Exception ez) {
+                    throw new RuntimeException("Unable to guess input file format");
+                }
+            }
+        }
+    }
+
+    protected static void writeMapped(Reader reader, File target) throws IOException {
+        try (MappedVectorStore.Writer writer = new MappedVectorStore.Writer(target)) {
+            while (reader.hasNext()) {
+                Pair<VocabWord, float[]> pair = reader.next();
+                VocabWord word = pair.getFirst();
+                writer.add(word.getLabel(), word.getElementFrequency(), pair.getSecond());
+            }
+        }
+    }
+
+    /**
+     * This method opens memory mapped word vectors file, created with {@link #writeMappedModel(WordVectors, File)}
+     * or {@link #convertToMappedModel(File, File)}.
+     * Nothing is loaded into memory: vectors and vocabulary are read from mapped pages on demand.
+     *
+     * @param file mapped word vectors file
+     * @return read-only WordVectors
+     */
+    public static MappedWord2Vec loadMappedModel(@NonNull File file) {
+        try {
+            return new MappedWord2Vec(MappedVectorStore.open(file));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
 
     protected interface Reader extends AutoCloseable {
         boolean hasNext();
@@ -0,0 +1,712 @@
+package org.deeplearning4j.models.embeddings.reader.impl;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hierarchical Navigable Small World graph (Malkov &amp; Yashunin), used as approximate nearest neighbours index over
+ * word vectors with cosine similarity.<br>
+ * Each element is inserted into layers 0..level, with level drawn from exponential distribution, and linked to
+ * up to M neighbours per layer (2 * M on layer 0). Search descends greedily through upper layers, and does best-first
+ * search with candidate list of size ef on layer 0.<br>
+ * Trade-offs:
+ * <ul>
+ *     <li>M: graph degree. Higher M means better recall on high-dimensional data, but more memory and slower build</li>
+ *     <li>efConstruction: candidate list size used during build. Higher value means better graph and slower build</li>
+ *     <li>efSearch: candidate list size used for queries. Higher value means better recall@k, but less queries/sec.
+ *     Can be changed at any time</li>
+ *     <li>workers: number of threads used for build</li>
+ * </ul>
+ * Index is immutable once built, so queries are thread-safe. Index can be saved and loaded with
+ * {@link #save(File)} and {@link #load(File)}.
+ */
+public class HnswIndex {
+    private static final Logger log = LoggerFactory.getLogger(HnswIndex.class);
+
+    public static final byte[] MAGIC = "DL4JHNSW".getBytes(StandardCharsets.US_ASCII);
+    public static final int VERSION = 1;
+    private static final int MAX_LEVEL = 31;
+    private static final int LOCK_STRIPES = 1024;
+
+    @Getter
+    private final int size;
+    @Getter
+    private final int dimension;
+    @Getter
+    private final int m;
+    @Getter
+    private final int efConstruction;
+    @Getter
+    private volatile int efSearch;
+
+    // normalized vectors, so cosine distance is 1 - dot
+    private final float[][] vectors;
+    private final int[] levels;
+    // links[node][level] = {count, neighbour 1, ..., neighbour count}
+    private final int[][][] links;
+    private volatile int entryPoint = -1;
+    private volatile int maxLevel = -1;
+
+    private final Object entryLock = new Object();
+    private final Object[] locks;
+    private volatile boolean building;
+
+    private final ThreadLocal<VisitedSet> visited = new ThreadLocal<VisitedSet>() {
+        @Override
+        protected VisitedSet initialValue() {
+            return new VisitedSet(size);
+        }
+    };
+
+    private HnswIndex(float[][] vectors, int[] levels, int[][][] links, int m, int efConstruction, int efSearch) {
+        this.size = vectors.length;
+        this.dimension = size == 0 ? 0 : vectors[0].length;
+        this.vectors = vectors;
+        this.levels = levels;
+        this.links = links;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+
+        this.locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++)
+            locks[i] = new Object();
+    }
+
+    /**
+     * This method changes size of candidate list used for queries: higher values give better recall, lower values
+     * give more queries per second
+     *
+     * @param efSearch
+     */
+    public void setEfSearch(int efSearch) {
+        if (efSearch < 1)
+            throw new IllegalArgumentException("efSearch should be positive value");
+        this.efSearch = efSearch;
+    }
+
+    /**
+     * This method returns indices of approximately nearest (by cosine similarity) k elements, most similar first
+     *
+     * @param query query vector, doesn't have to be normalized
+     * @param k     number of elements to return
+     * @return
+     */
+    public int[] search(@NonNull float[] query, int k) {
+        return search(query, k, efSearch);
+    }
+
+    /**
+     * This method returns indices of approximately nearest (by cosine similarity) k elements, most similar first,
+     * using specified candidate list size
+     *
+     * @param query query vector, doesn't have to be normalized
+     * @param k     number of elements to return
+     * @param ef    candidate list size, values below k are raised to k
+     * @return
+     */
+    public int[] search(@NonNull float[] query, int k, int ef) {
+        if (query.length != dimension)
+            throw new IllegalArgumentException("Query length [" + query.length + "] doesn't match index dimension ["
+                            + dimension + "]");
+        if (size == 0 || k < 1)
+            return new int[0];
+
+        float[] q = normalize(query.clone());
+        int ep = entryPoint;
+        for (int level = maxLevel; level > 0; level--)
+            ep = idOf(searchLayer(q, new int[] {ep}, 1, level)[0]);
+
+        long[] result = searchLayer(q, new int[] {ep}, Math.max(ef, k), 0);
+        int[] ids = new int[Math.min(k, result.length)];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = idOf(result[i]);
+
+        return ids;
+    }
+
+    /**
+     * This method estimates recall@k of the index with current efSearch, by comparing results for randomly
+     * sampled elements against exact (brute force) results. Useful for tuning M/efConstruction/efSearch.
+     *
+     * @param numQueries number of sampled queries
+     * @param k          number of nearest elements
+     * @param seed       random seed for sampling
+     * @return fraction of exact top-k results found by the index
+     */
+    public double measureRecall(int numQueries, int k, long seed) {
+        if (size == 0)
+            return 1.0;
+
+        Random random = new Random(seed);
+        long found = 0;
+        long total = 0;
+        for (int i = 0; i < numQueries; i++) {
+            float[] query = vectors[random.nextInt(size)];
+            int[] exact = exactSearch(query, k);
+            int[] approx = search(query, k);
+
+            Arrays.sort(approx);
+            for (int id : exact) {
+                if (Arrays.binarySearch(approx, id) >= 0)
+                    found++;
+            }
+            total += exact.length;
+        }
+
+        return total == 0 ? 1.0 : (double) found / total;
+    }
+
+    protected int[] exactSearch(float[] query, int k) {
+        float[] q = normalize(query.clone());
+        LongHeap heap = new LongHeap(k + 1);
+        for (int i = 0; i < size; i++) {
+            heap.push(-key(distance(q, vectors[i]), i));
+            if (heap.size() > k)
+                heap.pop();
+        }
+
+        int[] result = new int[heap.size()];
+        for (int i = result.length - 1; i >= 0; i--)
+            result[i] = idOf(-heap.pop());
+        return result;
+    }
+
+    /**
+     * Best-first search over single layer
+     *
+     * @return keys of up to ef nearest elements found, nearest first
+     */
+    private long[] searchLayer(float[] query, int[] entries, int ef, int level) {
+        VisitedSet visitedSet = visited.get();
+        visitedSet.reset();
+
+        // candidates: min-heap by distance. results: max-heap by distance, via negated keys
+        LongHeap candidates = new LongHeap(ef * 2);
+        LongHeap results = new LongHeap(ef + 1);
+        for (int ep : entries) {
+            if (!visitedSet.visit(ep))
+                continue;
+            long key = key(distance(query, vectors[ep]), ep);
+            candidates.push(key);
+            results.push(-key);
+            if (results.size() > ef)
+                results.pop();
+        }
+
+        while (candidates.size() > 0) {
+            long candidate = candidates.pop();
+            if (results.size() >= ef && candidate > -results.peek())
+                break;
+
+            int[] neighbours = neighbours(idOf(candidate), level);
+            int count = neighbours[0];
+            for (int i = 1; i <= count; i++) {
+                int n = neighbours[i];
+                if (!visitedSet.visit(n))
+                    continue;
+
+                long key = key(distance(query, vectors[n]), n);
+                if (results.size() < ef || key < -results.peek()) {
+                    candidates.push(key);
+                    results.push(-key);
+                    if (results.size() > ef)
+                        results.pop();
+                }
+            }
+        }
+
+        long[] sorted = new long[results.size()];
+        for (int i = sorted.length - 1; i >= 0; i--)
+            sorted[i] = -results.pop();
+        return sorted;
+    }
+
+    private int[] neighbours(int node, int level) {
+        int[] list = links[node][level];
+        if (!building)
+            return list;
+
+        // lists are modified in place during build, so we take a snapshot
+        synchronized (lock(node)) {
+            return Arrays.copyOf(list, list[0] + 1);
+        }
+    }
+
+    private void insert(int node) {
+        float[] q = vectors[node];
+        int level = levels[node];
+
+        int ep;
+        int top;
+        synchronized (entryLock) {
+            ep = entryPoint;
+            top = maxLevel;
+        }
+
+        for (int l = top; l > level; l--)
+            ep = idOf(searchLayer(q, new int[] {ep}, 1, l)[0]);
+
+        int[] entries = new int[] {ep};
+        for (int l = Math.min(level, top); l >= 0; l--) {
+            long[] candidates = searchLayer(q, entries, efConstruction, l);
+            int[] selected = selectNeighbours(q, candidates, m, node);
+            connect(node, l, selected);
+
+            entries = new int[candidates.length];
+            for (int i = 0; i < candidates.length; i++)
+                entries[i] = idOf(candidates[i]);
+        }
+
+        if (level > top) {
+            synchronized (entryLock) {
+                if (level > maxLevel) {
+                    maxLevel = level;
+                    entryPoint = node;
+                }
+            }
+        }
+    }
+
+    private void connect(int node, int level, int[] selected) {
+        int[] own = links[node][level];
+        synchronized (lock(node)) {
+            own[0] = selected.length;
+            System.arraycopy(selected, 0, own, 1, selected.length);
+        }
+
+        int capacity = level == 0 ? 2 * m : m;
+        for (int n : selected) {
+            synchronized (lock(n)) {
+                int[] list = links[n][level];
+                int count = list[0];
+                if (count < capacity) {
+                    list[count + 1] = node;
+                    list[0] = count + 1;
+                    continue;
+                }
+
+                // list is full: keep best neighbours out of existing ones and the new node
+                float[] base = vectors[n];
+                LongHeap heap = new LongHeap(count + 1);
+                for (int i = 1; i <= count; i++)
+                    heap.push(key(distance(base, vectors[list[i]]), list[i]));
+                heap.push(key(distance(base, vectors[node]), node));
+
+                long[] sorted = new long[heap.size()];
+                for (int i = 0; i < sorted.length; i++)
+                    sorted[i] = heap.pop();
+
+                int[] kept = selectNeighbours(base, sorted, capacity, n);
+                list[0] = kept.length;
+                System.arraycopy(kept, 0, list, 1, kept.length);
+            }
+        }
+    }
+
+    /**
+     * Neighbour selection heuristic: candidate is picked only if it's closer to the base element than to any of
+     * already picked neighbours, which keeps links spread in different directions. Remaining slots are filled with
+     * nearest skipped candidates.
+     *
+     * @param candidates keys of candidates, sorted by distance to base, nearest first
+     */
+    private int[] selectNeighbours(float[] base, long[] candidates, int max, int self) {
+        int[] selected = new int[Math.min(max, candidates.length)];
+        int cnt = 0;
+        boolean[] used = new boolean[candidates.length];
+        for (int i = 0; i < candidates.length && cnt < selected.length; i++) {
+            int c = idOf(candidates[i]);
+            if (c == self)
+                continue;
+
+            float distToBase = distanceOf(candidates[i]);
+            boolean good = true;
+            for (int j = 0; j < cnt; j++) {
+                if (distance(vectors[c], vectors[selected[j]]) < distToBase) {
+                    good = false;
+                    break;
+                }
+            }
+
+            if (good) {
+                selected[cnt++] = c;
+                used[i] = true;
+            }
+        }
+
+        for (int i = 0; i < candidates.length && cnt < selected.length; i++) {
+            int c = idOf(candidates[i]);
+            if (!used[i] && c != self)
+                selected[cnt++] = c;
+        }
+
+        return cnt == selected.length ? selected : Arrays.copyOf(selected, cnt);
+    }
+
+    private Object lock(int node) {
+        return locks[node & (LOCK_STRIPES - 1)];
+    }
+
+    private static float distance(float[] a, float[] b) {
+        float dot = 0.0f;
+        for (int i = 0; i < a.length; i++)
+            dot += a[i] * b[i];
+        // clamp, so distances are non-negative and their bits are ordered as values
+        return Math.max(0.0f, 1.0f - dot);
+    }
+
+    private static long key(float distance, int id) {
+        return ((long) Float.floatToIntBits(distance) << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    private static int idOf(long key) {
+        return (int) key;
+    }
+
+    private static float distanceOf(long key) {
+        return Float.intBitsToFloat((int) (key >>> 32));
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector)
+            norm += v * v;
+        norm = Math.sqrt(norm);
+        if (norm > 0.0) {
+            for (int i = 0; i < vector.length; i++)
+                vector[i] /= norm;
+        }
+        return vector;
+    }
+
+    /**
+     * Level for given element, drawn from exponential distribution. Depends on seed and element index only,
+     * so graph structure doesn't depend on the order in which build threads insert elements
+     */
+    private static int randomLevel(long seed, int id, double levelMultiplier) {
+        long z = seed + (id + 1L) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        double u = ((z >>> 11) + 1) * 0x1.0p-53;
+        return Math.min(MAX_LEVEL, (int) (-Math.log(u) * levelMultiplier));
+    }
+
+    private static int[][][] allocateLinks(int[] levels, int m) {
+        int[][][] links = new int[levels.length][][];
+        for (int i = 0; i < levels.length; i++) {
+            links[i] = new int[levels[i] + 1][];
+            for (int l = 0; l <= levels[i]; l++)
+                links[i][l] = new int[(l == 0 ? 2 * m : m) + 1];
+        }
+        return links;
+    }
+
+    /**
+     * This method saves index to the given file
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void save(@NonNull File file) throws IOException {
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            dos.write(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeInt(size);
+            dos.writeInt(dimension);
+            dos.writeInt(m);
+            dos.writeInt(efConstruction);
+            dos.writeInt(efSearch);
+            dos.writeInt(entryPoint);
+            dos.writeInt(maxLevel);
+
+            for (int i = 0; i < size; i++) {
+                for (float v : vectors[i])
+                    dos.writeFloat(v);
+
+                dos.writeInt(levels[i]);
+                for (int l = 0; l <= levels[i]; l++) {
+                    int[] list = links[i][l];
+                    dos.writeInt(list[0]);
+                    for (int j = 1; j <= list[0]; j++)
+                        dos.writeInt(list[j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method loads index previously saved with {@link #save(File)}
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static HnswIndex load(@NonNull File file) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] magic = new byte[MAGIC.length];
+            dis.readFully(magic);
+            if (!Arrays.equals(MAGIC, magic))
+                throw new IOException("Not a HNSW index file: " + file.getAbsolutePath());
+            int version = dis.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported HNSW index version: " + version);
+
+            int size = dis.readInt();
+            int dimension = dis.readInt();
+            int m = dis.readInt();
+            int efConstruction = dis.readInt();
+            int efSearch = dis.readInt();
+            int entryPoint = dis.readInt();
+            int maxLevel = dis.readInt();
+
+            float[][] vectors = new float[size][dimension];
+            int[] levels = new int[size];
+            int[][][] links = new int[size][][];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < dimension; j++)
+                    vectors[i][j] = dis.readFloat();
+
+                levels[i] = dis.readInt();
+                links[i] = new int[levels[i] + 1][];
+                for (int l = 0; l <= levels[i]; l++) {
+                    int count = dis.readInt();
+                    int[] list = new int[(l == 0 ? 2 * m : m) + 1];
+                    list[0] = count;
+                    for (int j = 1; j <= count; j++)
+                        list[j] = dis.readInt();
+                    links[i][l] = list;
+                }
+            }
+
+            HnswIndex index = new HnswIndex(vectors, levels, links, m, efConstruction, efSearch);
+            index.entryPoint = entryPoint;
+            index.maxLevel = maxLevel;
+            return index;
+        }
+    }
+
+
+    public static class Builder {
+        private int m = 16;
+        private int efConstruction = 200;
+        private int efSearch = 64;
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private long seed = 42L;
+
+        public Builder() {
+
+        }
+
+        /**
+         * Max number of links per element on upper layers (2 * M on layer 0). Default value: 16
+         *
+         * @param m
+         * @return
+         */
+        public Builder m(int m) {
+            if (m < 2)
+                throw new IllegalArgumentException("M should be >= 2");
+            this.m = m;
+            return this;
+        }
+
+        /**
+         * Candidate list size used during build. Default value: 200
+         *
+         * @param efConstruction
+         * @return
+         */
+        public Builder efConstruction(int efConstruction) {
+            if (efConstruction < 1)
+                throw new IllegalArgumentException("efConstruction should be positive value");
+            this.efConstruction = efConstruction;
+            return this;
+        }
+
+        /**
+         * Candidate list size used for queries. Default value: 64
+         *
+         * @param efSearch
+         * @return
+         */
+        public Builder efSearch(int efSearch) {
+            if (efSearch < 1)
+                throw new IllegalArgumentException("efSearch should be positive value");
+            this.efSearch = efSearch;
+            return this;
+        }
+
+        /**
+         * Number of threads used for build. Default value: number of available processors
+         *
+         * @param workers
+         * @return
+         */
+        public Builder workers(int workers) {
+            if (workers < 1)
+                throw new IllegalArgumentException("Number of workers should be positive value");
+            this.workers = workers;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * This method builds index over given vectors. Element indices in the index are row indices of the array.
+         * PLEASE NOTE: vectors are normalized in place, and referenced by the index.
+         *
+         * @param vectors array of vectors, all of the same length
+         * @return
+         */
+        public HnswIndex build(@NonNull float[][] vectors) {
+            double levelMultiplier = 1.0 / Math.log(m);
+            int[] levels = new int[vectors.length];
+            for (int i = 0; i < vectors.length; i++) {
+                if (vectors[i].length != vectors[0].length)
+                    throw new IllegalArgumentException("All vectors should have the same length");
+                normalize(vectors[i]);
+                levels[i] = randomLevel(seed, i, levelMultiplier);
+            }
+
+            final HnswIndex index =
+                            new HnswIndex(vectors, levels, allocateLinks(levels, m), m, efConstruction, efSearch);
+            if (vectors.length == 0)
+                return index;
+
+            long time = System.currentTimeMillis();
+            index.entryPoint = 0;
+            index.maxLevel = levels[0];
+            index.building = true;
+
+            final AtomicInteger next = new AtomicInteger(1);
+            final int size = vectors.length;
+            int threads = Math.max(1, Math.min(workers, size - 1));
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            int node;
+                            while ((node = next.getAndIncrement()) < size)
+                                index.insert(node);
+                        }
+                    }));
+                }
+
+                for (Future<?> future : futures)
+                    future.get();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            } finally {
+                executor.shutdown();
+                index.building = false;
+            }
+
+            log.info("HNSW index over {} elements built in {} ms", size, System.currentTimeMillis() - time);
+            return index;
+        }
+    }
+
+
+    /**
+     * Binary min-heap over primitive longs
+     */
+    private static class LongHeap {
+        private long[] heap;
+        private int size;
+
+        LongHeap(int capacity) {
+            heap = new long[Math.max(capacity, 4)];
+        }
+
+        int size() {
+            return size;
+        }
+
+        long peek() {
+            return heap[0];
+        }
+
+        void push(long value) {
+            if (size == heap.length)
+                heap = Arrays.copyOf(heap, size * 2);
+
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= value)
+                    break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        long pop() {
+            long result = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child])
+                    child++;
+                if (last <= heap[child])
+                    break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            if (size > 0)
+                heap[i] = last;
+            return result;
+        }
+    }
+
+
+    /**
+     * Visited marks, reset in O(1) by bumping the generation stamp
+     */
+    private static class VisitedSet {
+        private final int[] marks;
+        private int stamp = 0;
+
+        VisitedSet(int size) {
+            marks = new int[size];
+        }
+
+        void reset() {
+            stamp++;
+            if (stamp == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                stamp = 1;
+            }
+        }
+
+        boolean visit(int node) {
+            if (marks[node] == stamp)
+                return false;
+            marks[node] = stamp;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.deeplearning4j.models.embeddings.reader.impl;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.deeplearning4j.util.SetUtils;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * This is ANN-based implementation for wordsNearest methods, backed by {@link HnswIndex}.
+ * Suited for large vocabularies and multiple consequent calls: index is built once (upon first call, or explicitly
+ * via buildIndex()), and each query visits only a small part of the vocabulary.
+ * Index can be saved next to the model with saveIndex(), and loaded back with loadIndex() instead of being rebuilt.
+ *
+ * PLEASE NOTE: results are approximate. Use efSearch to trade queries/sec for recall, and
+ * {@link HnswIndex#measureRecall(int, int, long)} to check recall@k for your model.
+ * PLEASE NOTE: wordsNearestSum methods aren't affected by this implementation.
+ */
+public class HnswModelUtils<T extends SequenceElement> extends BasicModelUtils<T> {
+    private static final Logger log = LoggerFactory.getLogger(HnswModelUtils.class);
+
+    protected HnswIndex.Builder indexBuilder;
+    protected volatile HnswIndex index;
+
+    public HnswModelUtils() {
+        this(new HnswIndex.Builder());
+    }
+
+    /**
+     * @param indexBuilder builder holding build configuration (M, efConstruction, efSearch, workers)
+     */
+    public HnswModelUtils(@NonNull HnswIndex.Builder indexBuilder) {
+        this.indexBuilder = indexBuilder;
+    }
+
+    @Override
+    public void init(@NonNull WeightLookupTable<T> lookupTable) {
+        super.init(lookupTable);
+
+        // index loaded before init is kept, if it matches the model
+        if (index != null && (index.getSize() != vocabCache.numWords()
+                        || index.getDimension() != lookupTable.layerSize())) {
+            log.warn("HNSW index doesn't match model: {} x {} vs {} x {}, it will be rebuilt", index.getSize(),
+                            index.getDimension(), vocabCache.numWords(), lookupTable.layerSize());
+            index = null;
+        }
+    }
+
+    /**
+     * This method builds index over current lookup table, if it wasn't built or loaded before
+     *
+     * @return index
+     */
+    public synchronized HnswIndex buildIndex() {
+        if (index == null) {
+            float[][] vectors = new float[vocabCache.numWords()][];
+            for (int i = 0; i < vectors.length; i++) {
+                INDArray vector = lookupTable.vector(vocabCache.wordAtIndex(i));
+                vectors[i] = vector.dup().data().asFloat();
+            }
+
+            index = indexBuilder.build(vectors);
+        }
+
+        return index;
+    }
+
+    /**
+     * This method returns current index, building it if necessary
+     */
+    public HnswIndex getIndex() {
+        HnswIndex current = index;
+        return current != null ? current : buildIndex();
+    }
+
+    /**
+     * This method saves index to the given file, so it can be loaded later with {@link #loadIndex(File)}
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void saveIndex(@NonNull File file) throws IOException {
+        getIndex().save(file);
+    }
+
+    /**
+     * This method loads index from the given file. Index has to be built for the same model.
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void loadIndex(@NonNull File file) throws IOException {
+        HnswIndex loaded = HnswIndex.load(file);
+        if (vocabCache != null && loaded.getSize() != vocabCache.numWords())
+            throw new IllegalStateException("HNSW index size [" + loaded.getSize()
+                            + "] doesn't match vocabulary size [" + vocabCache.numWords() + "]");
+
+        index = loaded;
+    }
+
+    /**
+     * This method returns nearest words for target word, based on index.
+     *
+     * @param label label of element we're looking nearest words to
+     * @param n number of nearest elements to return
+     * @return
+     */
+    @Override
+    public Collection<String> wordsNearest(String label, int n) {
+        if (!vocabCache.hasToken(label))
+            return new ArrayList<>();
+
+        return wordsNearest(Arrays.asList(label), new ArrayList<String>(), n);
+    }
+
+    @Override
+    public Collection<String> wordsNearest(@NonNull Collection<String> positive, @NonNull Collection<String> negative,
+                    int top) {
+        // Check every word is in the model
+        for (String p : SetUtils.union(new HashSet<>(positive), new HashSet<>(negative))) {
+            if (!vocabCache.containsWord(p)) {
+                return new ArrayList<>();
+            }
+        }
+
+        INDArray words = Nd4j.create(positive.size() + negative.size(), lookupTable.layerSize());
+        int row = 0;
+        for (String s : positive) {
+            words.putRow(row++, lookupTable.vector(s));
+        }
+
+        for (String s : negative) {
+            words.putRow(row++, lookupTable.vector(s).mul(-1));
+        }
+
+        INDArray mean = words.isMatrix() ? words.mean(0) : words;
+
+        int[] ids = getIndex().search(toFloats(mean), top + positive.size() + negative.size());
+        List<String> result = new ArrayList<>();
+        for (int id : ids) {
+            String word = vocabCache.wordAtIndex(id);
+            if (!positive.contains(word) && !negative.contains(word) && result.size() < top)
+                result.add(word);
+        }
+
+        return result;
+    }
+
+    @Override
+    public Collection<String> wordsNearest(INDArray words, int top) {
+        int[] ids = getIndex().search(toFloats(words), top);
+
+        List<String> result = new ArrayList<>();
+        for (int id : ids)
+            result.add(vocabCache.wordAtIndex(id));
+
+        return result;
+    }
+
+    protected static float[] toFloats(INDArray vector) {
+        INDArray flat = vector.isRowVector() ? vector : vector.reshape(1, vector.length());
+        float[] result = new float[flat.length()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = flat.getFloat(i);
+        return result;
+    }
+}
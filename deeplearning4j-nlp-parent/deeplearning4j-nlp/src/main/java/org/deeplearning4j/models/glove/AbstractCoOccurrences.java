@@ -9,28 +9,27 @@ import org.deeplearning4j.models.sequencevectors.iterators.SynchronizedSequenceI
 import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
-import org.deeplearning4j.text.sentenceiterator.BasicLineIterator;
-import org.deeplearning4j.text.sentenceiterator.PrefetchingSentenceIterator;
-import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
-import org.deeplearning4j.text.sentenceiterator.SynchronizedSentenceIterator;
 import org.nd4j.linalg.factory.Nd4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This class implements building cooccurrence map for abstract training corpus.
- * However it's performance rather low, due to exsessive IO that happens in ShadowCopyThread
  *
- * PLEASE NOTE: Current implementation involves massive IO, and it should be rewritter as soon as ND4j gets sparse arrays support
+ * Each worker thread accumulates weights in its own primitive {@link PairCountMap}. As soon as map reaches its share
+ * of memory budget, it's written out as a sorted run, and cleared. After all sequences were processed, runs are k-way
+ * merged into targetFile, so memory use doesn't depend on corpus size.
  *
  * @author raver119@gmail.com
  */
@@ -41,24 +40,22 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
     protected VocabCache<T> vocabCache;
     protected SequenceIterator<T> sequenceIterator;
 
-    // please note, we need enough room for ShadowCopy thread, that's why -1 there
-    protected int workers = Math.max(Runtime.getRuntime().availableProcessors() - 1, 1);
+    protected int workers = Runtime.getRuntime().availableProcessors();
 
-    // target file, where text with cooccurrencies should be saved
+    // target file, where binary cooccurrence pairs, sorted by elements indexes, should be saved
     protected File targetFile;
 
-    protected ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-
     protected long memory_threshold = 0;
 
-    private ShadowCopyThread shadowThread;
+    // maximum number of runs merged at once
+    protected int mergeFanIn = 64;
+
+    // IO buffer size for each run, used both for spilling and merging
+    protected int ioBufferSize = 1024 * 1024;
 
-    //    private Counter<Integer> sentenceOccurrences = Util.parallelCounter();
-    //private CounterMap<T, T> coOccurrenceCounts = Util.parallelCounterMap();
-    private volatile CountMap<T> coOccurrenceCounts = new CountMap<>();
-    //private Counter<Integer> occurrenceAllocations = Util.parallelCounter();
-    //private List<Pair<T, T>> coOccurrences;
+    private final List<File> runs = Collections.synchronizedList(new ArrayList<File>());
     private AtomicLong processedSequences = new AtomicLong(0);
+    private AtomicLong numberOfPairs = new AtomicLong(0);
 
 
     protected static final Logger logger = LoggerFactory.getLogger(AbstractCoOccurrences.class);
@@ -67,28 +64,48 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
     private AbstractCoOccurrences() {}
 
     /**
-     * This method returns cooccurrence distance weights for two SequenceElements
+     * This method returns cooccurrence distance weights for two SequenceElements.
+     * Please note: this method looks up pair in targetFile, so it's available only after fit() call
      *
      * @param element1
      * @param element2
      * @return distance weight
      */
     public double getCoOccurrenceCount(@NonNull T element1, @NonNull T element2) {
-        return coOccurrenceCounts.getCount(element1, element2);
+        int idx1 = element1.getIndex();
+        int idx2 = element2.getIndex();
+
+        try (RandomAccessFile file = new RandomAccessFile(targetFile, "r")) {
+            // merged pairs are sorted by (element1, element2), so we can use binary search here
+            long lo = 0;
+            long hi = file.length() / CoOccurrenceRunMerger.RECORD_BYTES - 1;
+            while (lo <= hi) {
+                long mid = (lo + hi) >>> 1;
+                file.seek(mid * CoOccurrenceRunMerger.RECORD_BYTES);
+                int e1 = file.readInt();
+                int e2 = file.readInt();
+
+                if (e1 == idx1 && e2 == idx2)
+                    return file.readDouble();
+
+                if (e1 < idx1 || (e1 == idx1 && e2 < idx2)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return 0;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     /**
-     * This method returns estimated memory footrpint, based on current CountMap content
+     * This method returns number of distinct pairs found during last fit() call
      * @return
      */
-    protected long getMemoryFootprint() {
-        // TODO: implement this method. It should return approx. memory used by appropriate CountMap
-        try {
-            lock.readLock().lock();
-            return ((long) coOccurrenceCounts.size()) * 24L * 5L;
-        } finally {
-            lock.readLock().unlock();
-        }
+    public long getNumberOfPairs() {
+        return numberOfPairs.get();
     }
 
     /**
@@ -100,16 +117,18 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
     }
 
     public void fit() {
-        shadowThread = new ShadowCopyThread();
-        shadowThread.start();
-
         // we should reset iterator before counting cooccurrences
         sequenceIterator.reset();
+        runs.clear();
+
+        // memory budget is split evenly between workers, so total memory use stays predictable
+        long budget = getMemoryThreshold() / workers;
 
         List<CoOccurrencesCalculatorThread> threads = new ArrayList<>();
         for (int x = 0; x < workers; x++) {
             threads.add(x, new CoOccurrencesCalculatorThread(x, new FilteredSequenceIterator<>(
-                            new SynchronizedSequenceIterator<>(sequenceIterator), vocabCache), processedSequences));
+                            new SynchronizedSequenceIterator<>(sequenceIterator), vocabCache), processedSequences,
+                            budget));
             threads.get(x).start();
         }
 
@@ -119,51 +138,63 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
+
+            if (threads.get(x).getException() != null)
+                throw new RuntimeException(threads.get(x).getException());
+        }
+
+        logger.info("Merging [" + runs.size() + "] cooccurrence runs...");
+        try {
+            numberOfPairs.set(new CoOccurrenceRunMerger(mergeFanIn, ioBufferSize).merge(runs, targetFile));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            runs.clear();
         }
 
-        shadowThread.finish();
-        logger.info("CoOccurrences map was built.");
+        logger.info("CoOccurrences map was built: [" + numberOfPairs.get() + "] pairs.");
     }
 
     /**
      *
      *  This method returns iterator with elements pairs and their weights. Resulting iterator is safe to use in multi-threaded environment.
      *
-     * Developer's note: thread safety on received iterator is delegated to PrefetchedSentenceIterator
+     * Developer's note: thread safety on received iterator is provided by synchronized lookahead over BinaryCoOccurrenceReader.
+     * Since hasNext() and next() can't be called atomically, concurrent consumers should synchronize on iterator itself.
      * @return
      */
     public Iterator<Pair<Pair<T, T>, Double>> iterator() {
-        final SentenceIterator iterator;
-
+        final CoOccurenceReader<T> reader;
         try {
-            iterator = new SynchronizedSentenceIterator(
-                            new PrefetchingSentenceIterator.Builder(new BasicLineIterator(targetFile))
-                                            .setFetchSize(500000).build());
-
+            reader = new BinaryCoOccurrenceReader<>(targetFile, vocabCache, null);
         } catch (Exception e) {
             logger.error("Target file was not found on last stage!");
             throw new RuntimeException(e);
         }
+
         return new Iterator<Pair<Pair<T, T>, Double>>() {
-            /*
-                    iterator should be built on top of current text file with all pairs
-             */
+            private CoOccurrenceWeight<T> next;
 
             @Override
-            public boolean hasNext() {
-                return iterator.hasNext();
+            public synchronized boolean hasNext() {
+                while (next == null && reader.hasMoreObjects()) {
+                    next = reader.nextObject();
+                }
+
+                if (next == null)
+                    reader.finish();
+
+                return next != null;
             }
 
             @Override
-            public Pair<Pair<T, T>, Double> next() {
-                String line = iterator.nextSentence();
-                String[] strings = line.split(" ");
+            public synchronized Pair<Pair<T, T>, Double> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
 
-                T element1 = vocabCache.elementAtIndex(Integer.valueOf(strings[0]));
-                T element2 = vocabCache.elementAtIndex(Integer.valueOf(strings[1]));
-                Double weight = Double.valueOf(strings[2]);
-
-                return new Pair<>(new Pair<>(element1, element2), weight);
+                CoOccurrenceWeight<T> object = next;
+                next = null;
+                return new Pair<>(new Pair<>(object.getElement1(), object.getElement2()), object.getWeight());
             }
 
             @Override
@@ -182,6 +213,7 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
         protected int workers = Runtime.getRuntime().availableProcessors();
         protected File target;
         protected long maxmemory = Runtime.getRuntime().maxMemory();
+        protected int mergeFanIn = 64;
 
         public Builder() {
 
@@ -229,6 +261,38 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
             return this;
         }
 
+        /**
+         * This method allows you to specify maximum memory available for CoOccurrence map builder, in bytes.
+         * Half of this memory is split between workers for in-memory counts, and counts are spilled to disk once it's exhausted.
+         *
+         * @param bytes memory available, in bytes
+         * @return
+         */
+        public Builder<T> maxMemoryBytes(long bytes) {
+            if (bytes > 0) {
+                this.maxmemory = bytes;
+            }
+
+            return this;
+        }
+
+        /**
+         * This method allows you to specify maximum number of spilled runs merged at once.
+         * If there's more runs, they'll be merged in multiple passes.
+         *
+         * Default value: 64
+         *
+         * @param fanIn
+         * @return
+         */
+        public Builder<T> mergeFanIn(int fanIn) {
+            if (fanIn < 2)
+                throw new IllegalArgumentException("mergeFanIn should be at least 2");
+
+            this.mergeFanIn = fanIn;
+            return this;
+        }
+
         /**
          * Path to save cooccurrence map after construction.
          * If targetFile is not specified, temporary file will be used.
@@ -259,7 +323,8 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
             ret.windowSize = this.windowSize;
             ret.vocabCache = this.vocabCache;
             ret.symmetric = this.symmetric;
-            ret.workers = this.workers;
+            ret.workers = Math.max(this.workers, 1);
+            ret.mergeFanIn = this.mergeFanIn;
 
             if (this.maxmemory < 1) {
                 this.maxmemory = Runtime.getRuntime().maxMemory();
@@ -289,358 +354,100 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
 
         private final SequenceIterator<T> iterator;
         private final AtomicLong sequenceCounter;
+        private final PairCountMap counts;
         private int threadId;
+        private volatile Exception exception;
 
         public CoOccurrencesCalculatorThread(int threadId, @NonNull SequenceIterator<T> iterator,
-                        @NonNull AtomicLong sequenceCounter) {
+                        @NonNull AtomicLong sequenceCounter, long memoryBudget) {
             this.iterator = iterator;
             this.sequenceCounter = sequenceCounter;
             this.threadId = threadId;
+            this.counts = new PairCountMap(memoryBudget);
 
             this.setName("CoOccurrencesCalculatorThread " + threadId);
         }
 
+        public Exception getException() {
+            return exception;
+        }
+
         @Override
         public void run() {
-            while (iterator.hasMoreSequences()) {
-                Sequence<T> sequence = iterator.nextSequence();
-
-                List<String> tokens = new ArrayList<>(sequence.asLabels());
-                //            logger.info("Tokens size: " + tokens.size());
-                for (int x = 0; x < sequence.getElements().size(); x++) {
-                    int wordIdx = vocabCache.indexOf(tokens.get(x));
-                    if (wordIdx < 0) {
-                        continue;
+            try {
+                while (iterator.hasMoreSequences()) {
+                    Sequence<T> sequence = iterator.nextSequence();
+
+                    // resolve vocab indexes once per sequence, UNK and missing elements are marked with -1
+                    List<String> tokens = sequence.asLabels();
+                    int[] indexes = new int[tokens.size()];
+                    for (int x = 0; x < indexes.length; x++) {
+                        String label = tokens.get(x);
+                        indexes[x] = Glove.DEFAULT_UNK.equals(label) ? -1 : vocabCache.indexOf(label);
                     }
-                    String w1 = vocabCache.wordFor(tokens.get(x)).getLabel();
-
-                    // THIS iS SAFE TO REMOVE, NO CHANCE WE'll HAVE UNK WORD INSIDE SEQUENCE
-                    /*if(w1.equals(Glove.UNK))
-                        continue;
-                    */
 
-                    int windowStop = Math.min(x + windowSize + 1, tokens.size());
-                    for (int j = x; j < windowStop; j++) {
-                        int otherWord = vocabCache.indexOf(tokens.get(j));
-                        if (otherWord < 0) {
+                    for (int x = 0; x < indexes.length; x++) {
+                        int wordIdx = indexes[x];
+                        if (wordIdx < 0) {
                             continue;
                         }
-                        String w2 = vocabCache.wordFor(tokens.get(j)).getLabel();
-
-                        if (w2.equals(Glove.DEFAULT_UNK) || otherWord == wordIdx) {
-                            continue;
-                        }
-
-
-                        T tokenX = vocabCache.wordFor(tokens.get(x));
-                        T tokenJ = vocabCache.wordFor(tokens.get(j));
-                        double nWeight = 1.0 / (j - x + Nd4j.EPS_THRESHOLD);
-
-                        while (getMemoryFootprint() >= getMemoryThreshold()) {
-                            try {
-                                shadowThread.invoke();
-                                /*lock.readLock().lock();
-                                int size = coOccurrenceCounts.size();
-                                lock.readLock().unlock();
-                                */
-                                if (threadId == 0) {
-                                    logger.debug("Memory consuimption > threshold: {footrpint: [" + getMemoryFootprint()
-                                                    + "], threshold: [" + getMemoryThreshold() + "] }");
-                                }
-                                Thread.sleep(10000);
-                            } catch (Exception e) {
-                                throw new RuntimeException(e);
-                            } finally {
 
+                        int windowStop = Math.min(x + windowSize + 1, indexes.length);
+                        for (int j = x; j < windowStop; j++) {
+                            int otherWord = indexes[j];
+                            if (otherWord < 0 || otherWord == wordIdx) {
+                                continue;
                             }
-                        }
-                        /*
-                        if (getMemoryFootprint() == 0) {
-                            logger.info("Zero size!");
-                        }
-                        */
 
-                        try {
-                            lock.readLock().lock();
+                            double nWeight = 1.0 / (j - x + Nd4j.EPS_THRESHOLD);
+
                             if (wordIdx < otherWord) {
-                                coOccurrenceCounts.incrementCount(tokenX, tokenJ, nWeight);
+                                counts.increment(wordIdx, otherWord, nWeight);
                                 if (symmetric) {
-                                    coOccurrenceCounts.incrementCount(tokenJ, tokenX, nWeight);
+                                    counts.increment(otherWord, wordIdx, nWeight);
                                 }
                             } else {
-                                coOccurrenceCounts.incrementCount(tokenJ, tokenX, nWeight);
-
+                                counts.increment(otherWord, wordIdx, nWeight);
                                 if (symmetric) {
-                                    coOccurrenceCounts.incrementCount(tokenX, tokenJ, nWeight);
+                                    counts.increment(wordIdx, otherWord, nWeight);
                                 }
                             }
-                        } finally {
-                            lock.readLock().unlock();
+
+                            if (counts.isFull()) {
+                                spill();
+                            }
                         }
                     }
-                }
-
-                sequenceCounter.incrementAndGet();
-            }
-        }
-    }
-
-    /**
-     * This class is designed to provide shadow copy functionality for CoOccurence maps, since with proper corpus size you can't fit such a map into memory
-     *
-     */
-    private class ShadowCopyThread extends Thread implements Runnable {
-
-        private AtomicBoolean isFinished = new AtomicBoolean(false);
-        private AtomicBoolean isTerminate = new AtomicBoolean(false);
-        private AtomicBoolean isInvoked = new AtomicBoolean(false);
-        private AtomicBoolean shouldInvoke = new AtomicBoolean(false);
-
-        // file that contains resuts from previous runs
-        private File[] tempFiles;
-        private RoundCount counter;
-
-        public ShadowCopyThread() {
-            try {
 
-                counter = new RoundCount(1);
-                tempFiles = new File[2];
-
-                tempFiles[0] = File.createTempFile("aco", "tmp");
-                tempFiles[1] = File.createTempFile("aco", "tmp");
-
-                tempFiles[0].deleteOnExit();
-                tempFiles[1].deleteOnExit();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-
-            this.setName("ACO ShadowCopy thread");
-        }
+                    sequenceCounter.incrementAndGet();
+                }
 
-        @Override
-        public void run() {
-            /*
-                  Basic idea is pretty simple: run quetly, untill memory gets filled up to some high volume.
-                  As soon as this happens - execute shadow copy.
-            */
-            while (!isFinished.get() && !isTerminate.get()) {
-                // check used memory. if memory use below threshold - sleep for a while. if above threshold - invoke copier
-
-                if (getMemoryFootprint() > getMemoryThreshold() || (shouldInvoke.get() && !isInvoked.get())) {
-                    // we'll just invoke copier, nothing else
-                    shouldInvoke.compareAndSet(true, false);
-                    invokeBlocking();
-                } else {
-                    try {
-                        /*
-                               commented and left here for future debugging purposes, if needed
-                        
-                                //lock.readLock().lock();
-                                //int size = coOccurrenceCounts.size();
-                                //lock.readLock().unlock();
-                                //logger.info("Current memory situation: {size: [" +size+ "], footprint: [" + getMemoryFootprint()+"], threshold: ["+ getMemoryThreshold() +"]}");
-                         */
-                        Thread.sleep(1000);
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
+                if (!counts.isEmpty()) {
+                    spill();
                 }
+            } catch (Exception e) {
+                exception = e;
             }
         }
 
         /**
-         * This methods advises shadow copy process to start
-         */
-        public void invoke() {
-            shouldInvoke.compareAndSet(false, true);
-        }
-
-        /**
-         * This methods dumps cooccurrence map into save file.
-         * Please note: this method is synchronized and will block, until complete
+         * This method writes out current counts as sorted run, and clears them
          */
-        public synchronized void invokeBlocking() {
-            if (getMemoryFootprint() < getMemoryThreshold() && !isFinished.get()) {
-                return;
-            }
-
-            int numberOfLinesSaved = 0;
-
-            isInvoked.set(true);
-
-            logger.debug("Memory purge started.");
+        private void spill() throws IOException {
+            File run = File.createTempFile("aco", "run");
+            run.deleteOnExit();
 
-            /*
-                Basic plan:
-                    1. Open temp file
-                    2. Read that file line by line
-                    3. For each read line do synchronization in memory > new file direction
-             */
-
-            counter.tick();
-
-            CountMap<T> localMap;
+            BinaryCoOccurrenceWriter<T> writer = new BinaryCoOccurrenceWriter<>(run, ioBufferSize);
+            int cnt;
             try {
-                // in any given moment there's going to be only 1 WriteLock, due to invokeBlocking() being synchronized call
-                lock.writeLock().lock();
-
-
-
-                // obtain local copy of CountMap
-                localMap = coOccurrenceCounts;
-
-                // set new CountMap, and release write lock
-                coOccurrenceCounts = new CountMap<>();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+                cnt = counts.writeSorted(writer);
             } finally {
-                lock.writeLock().unlock();
-            }
-
-            try {
-
-                File file = null;
-                if (!isFinished.get()) {
-                    file = tempFiles[counter.previous()];
-                } else
-                    file = targetFile;
-
-
-                //    PrintWriter pw = new PrintWriter(file);
-
-                int linesRead = 0;
-
-                logger.debug("Saving to: [" + counter.get() + "], Reading from: [" + counter.previous() + "]");
-                CoOccurenceReader<T> reader =
-                                new BinaryCoOccurrenceReader<>(tempFiles[counter.previous()], vocabCache, localMap);
-                CoOccurrenceWriter<T> writer = (isFinished.get()) ? new ASCIICoOccurrenceWriter<T>(targetFile)
-                                : new BinaryCoOccurrenceWriter<T>(tempFiles[counter.get()]);
-                while (reader.hasMoreObjects()) {
-                    CoOccurrenceWeight<T> line = reader.nextObject();
-
-                    if (line != null) {
-                        writer.writeObject(line);
-                        numberOfLinesSaved++;
-                        linesRead++;
-                    }
-                }
-                reader.finish();
-
-                logger.debug("Lines read: [" + linesRead + "]");
-
-                //now, we can dump the rest of elements, which were not presented in existing dump
-                Iterator<Pair<T, T>> iterator = localMap.getPairIterator();
-                while (iterator.hasNext()) {
-                    Pair<T, T> pair = iterator.next();
-                    double mWeight = localMap.getCount(pair);
-                    CoOccurrenceWeight<T> object = new CoOccurrenceWeight<>();
-                    object.setElement1(pair.getFirst());
-                    object.setElement2(pair.getSecond());
-                    object.setWeight(mWeight);
-
-                    writer.writeObject(object);
-
-                    numberOfLinesSaved++;
-                    //      if (numberOfLinesSaved % 100000 == 0) logger.info("Lines saved: [" + numberOfLinesSaved +"]");
-                }
-
                 writer.finish();
-
-                /*
-                SentenceIterator sIterator =  new PrefetchingSentenceIterator.Builder(new BasicLineIterator(tempFiles[counter.get()]))
-                        .setFetchSize(500000)
-                        .build();
-                
-                
-                int linesRead = 0;
-                while (sIterator.hasNext()) {
-                    //List<Writable> list = new ArrayList<>(reader.next());
-                    String sentence = sIterator.nextSentence();
-                    if (sentence == null || sentence.isEmpty()) continue;
-                    String[] strings = sentence.split(" ");
-                
-                
-                    // first two elements are integers - vocab indexes
-                    //T element1 = vocabCache.wordFor(vocabCache.wordAtIndex(list.get(0).toInt()));
-                    //T element2 = vocabCache.wordFor(vocabCache.wordAtIndex(list.get(1).toInt()));
-                    T element1 = vocabCache.elementAtIndex(Integer.valueOf(strings[0]));
-                    T element2 = vocabCache.elementAtIndex(Integer.valueOf(strings[1]));
-                
-                    // getting third element, previously stored weight
-                    double sWeight = Double.valueOf(strings[2]);  // list.get(2).toDouble();
-                
-                    // now, since we have both elements ready, we can check this pair against inmemory map
-                        double mWeight = localMap.getCount(element1, element2);
-                        if (mWeight <= 0) {
-                            // this means we have no such pair in memory, so we'll do nothing to sWeight
-                        } else {
-                            // since we have new weight value in memory, we should update sWeight value before moving it off memory
-                            sWeight += mWeight;
-                
-                            // original pair can be safely removed from CountMap
-                            localMap.removePair(element1,element2);
-                        }
-                
-                        StringBuilder builder = new StringBuilder().append(element1.getIndex()).append(" ").append(element2.getIndex()).append(" ").append(sWeight);
-                        pw.println(builder.toString());
-                        numberOfLinesSaved++;
-                        linesRead++;
-                
-                   // if (numberOfLinesSaved % 100000 == 0) logger.info("Lines saved: [" + numberOfLinesSaved +"]");
-                  //  if (linesRead % 100000 == 0) logger.info("Lines read: [" + linesRead +"]");
-                }
-                */
-                /*
-                logger.info("Lines read: [" + linesRead + "]");
-                
-                //now, we can dump the rest of elements, which were not presented in existing dump
-                Iterator<Pair<T, T>> iterator = localMap.getPairIterator();
-                while (iterator.hasNext()) {
-                    Pair<T, T> pair = iterator.next();
-                    double mWeight = localMap.getCount(pair);
-                
-                    StringBuilder builder = new StringBuilder().append(pair.getFirst().getIndex()).append(" ").append(pair.getFirst().getIndex()).append(" ").append(mWeight);
-                    pw.println(builder.toString());
-                    numberOfLinesSaved++;
-                
-                              //      if (numberOfLinesSaved % 100000 == 0) logger.info("Lines saved: [" + numberOfLinesSaved +"]");
-                }
-                
-                pw.flush();
-                pw.close();
-                
-                */
-
-                // just a hint for gc
-                localMap = null;
-                //sIterator.finish();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-
-            logger.info("Number of word pairs saved so far: [" + numberOfLinesSaved + "]");
-            isInvoked.set(false);
-        }
-
-        /**
-         * This method provides soft finish ability for shadow copy process.
-         * Please note: it's blocking call, since it requires for final merge.
-         */
-        public void finish() {
-            if (this.isFinished.get()) {
-                return;
             }
+            counts.clear();
+            runs.add(run);
 
-            this.isFinished.set(true);
-            invokeBlocking();
-        }
-
-        /**
-         * This method provides hard fiinish ability for shadow copy process
-         */
-        public void terminate() {
-            this.isTerminate.set(true);
+            logger.debug("Thread [" + threadId + "] spilled run of [" + cnt + "] pairs");
         }
     }
 }
@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -112,7 +113,8 @@ public class BinaryCoOccurrenceReader<T extends SequenceElement> implements CoOc
 
         public StreamReaderThread(@NonNull InputStream stream) {
             this.stream = stream;
-            isReading.set(false);
+            // we're reading until the end of stream is reached, so consumers won't see a gap between two chunks
+            isReading.set(true);
         }
 
         @Override
@@ -121,10 +123,9 @@ public class BinaryCoOccurrenceReader<T extends SequenceElement> implements CoOc
                 // we read pre-defined number of objects as byte array
                 byte[] array = new byte[16 * 500000];
                 while (true) {
-                    int count = stream.read(array);
+                    int count = readFully(array);
 
-                    isReading.set(true);
-                    if (count == 0)
+                    if (count <= 0)
                         break;
 
                     // now we deserialize them in separate threads to gain some speedup, if possible
@@ -145,15 +146,29 @@ public class BinaryCoOccurrenceReader<T extends SequenceElement> implements CoOc
                         }
                     }
 
-                    isReading.set(false);
                     if (count < array.length)
                         break;
                 }
 
             } catch (Exception e) {
-                isReading.set(false);
                 throw new RuntimeException(e);
+            } finally {
+                isReading.set(false);
+            }
+        }
+
+        /**
+         * Reads as many bytes as possible into array, so records never get split between two chunks
+         */
+        private int readFully(byte[] array) throws IOException {
+            int total = 0;
+            while (total < array.length) {
+                int count = stream.read(array, total, array.length - total);
+                if (count < 0)
+                    break;
+                total += count;
             }
+            return total;
         }
 
         public boolean hasMoreObjects() {
@@ -20,11 +20,18 @@ public class BinaryCoOccurrenceWriter<T extends SequenceElement> implements CoOc
     private static final Logger log = LoggerFactory.getLogger(BinaryCoOccurrenceWriter.class);
 
     public BinaryCoOccurrenceWriter(@NonNull File file) {
+        this(file, 100 * 1024 * 1024);
+    }
+
+    /**
+     * @param file target file
+     * @param bufferSize size of output buffer, in bytes
+     */
+    public BinaryCoOccurrenceWriter(@NonNull File file, int bufferSize) {
         this.file = file;
 
         try {
-            outputStream = new DataOutputStream(
-                            new BufferedOutputStream(new FileOutputStream(file), 100 * 1024 * 1024));
+            outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), bufferSize));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -42,6 +49,19 @@ public class BinaryCoOccurrenceWriter<T extends SequenceElement> implements CoOc
         }
     }
 
+    /**
+     * This method writes out pair of element indexes and their weight, in the same format as writeObject() does
+     */
+    public void writePair(int element1, int element2, double weight) {
+        try {
+            outputStream.writeInt(element1);
+            outputStream.writeInt(element2);
+            outputStream.writeDouble(weight);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public void queueObject(CoOccurrenceWeight<T> object) {
         throw new UnsupportedOperationException();
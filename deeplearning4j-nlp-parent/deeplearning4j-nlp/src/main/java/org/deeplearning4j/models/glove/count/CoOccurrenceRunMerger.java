@@ -0,0 +1,167 @@
+package org.deeplearning4j.models.glove.count;
+
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * This class merges sorted runs, written by {@link PairCountMap#writeSorted(BinaryCoOccurrenceWriter)}, into single
+ * sorted file, summing up weights of pairs present in more than one run. Output format is the same as input format,
+ * so it can be read with {@link BinaryCoOccurrenceReader}.
+ *
+ * If there are more runs than fanIn, runs are merged in multiple passes, so number of files open at once stays bounded.
+ */
+public class CoOccurrenceRunMerger {
+    public static final int RECORD_BYTES = 16;
+
+    protected static final Logger logger = LoggerFactory.getLogger(CoOccurrenceRunMerger.class);
+
+    private final int fanIn;
+    private final int bufferSize;
+
+    /**
+     * @param fanIn maximum number of runs merged at once
+     * @param bufferSize size of IO buffer used for each run, in bytes
+     */
+    public CoOccurrenceRunMerger(int fanIn, int bufferSize) {
+        if (fanIn < 2)
+            throw new IllegalArgumentException("fanIn should be at least 2");
+        this.fanIn = fanIn;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * This method merges all runs into target file. Run files are deleted afterwards.
+     *
+     * @param runs sorted runs
+     * @param target file to write merged pairs into
+     * @return number of distinct pairs written
+     */
+    public long merge(@NonNull List<File> runs, @NonNull File target) throws IOException {
+        List<File> current = new ArrayList<>(runs);
+        while (current.size() > fanIn) {
+            List<File> next = new ArrayList<>();
+            for (int i = 0; i < current.size(); i += fanIn) {
+                List<File> group = current.subList(i, Math.min(i + fanIn, current.size()));
+                if (group.size() == 1) {
+                    next.add(group.get(0));
+                    continue;
+                }
+
+                File intermediate = File.createTempFile("aco", "run");
+                intermediate.deleteOnExit();
+                mergeGroup(group, intermediate);
+                next.add(intermediate);
+            }
+
+            logger.debug("Merged [" + current.size() + "] runs into [" + next.size() + "] runs");
+            current = next;
+        }
+
+        return mergeGroup(current, target);
+    }
+
+    private long mergeGroup(List<File> group, File target) throws IOException {
+        PriorityQueue<RunCursor> queue = new PriorityQueue<>(Math.max(group.size(), 1));
+        BinaryCoOccurrenceWriter<?> writer = new BinaryCoOccurrenceWriter<>(target, bufferSize);
+        long written = 0;
+        try {
+            for (File run : group) {
+                RunCursor cursor = new RunCursor(run, bufferSize);
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                } else {
+                    cursor.close();
+                }
+            }
+
+            while (!queue.isEmpty()) {
+                RunCursor cursor = queue.poll();
+                int element1 = cursor.element1;
+                int element2 = cursor.element2;
+                double weight = cursor.weight;
+                pushBack(queue, cursor);
+
+                // all other runs holding the same pair are at the head of the queue now
+                while (!queue.isEmpty() && queue.peek().element1 == element1 && queue.peek().element2 == element2) {
+                    RunCursor same = queue.poll();
+                    weight += same.weight;
+                    pushBack(queue, same);
+                }
+
+                writer.writePair(element1, element2, weight);
+                written++;
+            }
+        } finally {
+            for (RunCursor cursor : queue)
+                cursor.close();
+            writer.finish();
+        }
+
+        for (File run : group)
+            run.delete();
+
+        return written;
+    }
+
+    private static void pushBack(PriorityQueue<RunCursor> queue, RunCursor cursor) throws IOException {
+        if (cursor.advance()) {
+            queue.add(cursor);
+        } else {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Sequential reader over single sorted run
+     */
+    private static class RunCursor implements Comparable<RunCursor> {
+        private final DataInputStream stream;
+        private long remaining;
+        private int element1;
+        private int element2;
+        private double weight;
+
+        private RunCursor(File file, int bufferSize) throws IOException {
+            this.remaining = file.length() / RECORD_BYTES;
+            this.stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file), bufferSize));
+        }
+
+        private boolean advance() throws IOException {
+            if (remaining <= 0)
+                return false;
+
+            element1 = stream.readInt();
+            element2 = stream.readInt();
+            weight = stream.readDouble();
+            remaining--;
+            return true;
+        }
+
+        private void close() {
+            try {
+                stream.close();
+            } catch (Exception e) {
+                //
+            }
+        }
+
+        @Override
+        public int compareTo(RunCursor o) {
+            if (element1 != o.element1)
+                return element1 < o.element1 ? -1 : 1;
+            if (element2 != o.element2)
+                return element2 < o.element2 ? -1 : 1;
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package org.deeplearning4j.models.glove.count;
+
+import java.util.Arrays;
+
+/**
+ * Primitive open addressing (int, int) -> double map, used to accumulate cooccurrence weights of element index pairs
+ * within a single thread, without boxing and Pair allocations.
+ *
+ * The table grows up to maxCapacity slots; once it's full, the caller is expected to spill it with
+ * {@link #writeSorted(BinaryCoOccurrenceWriter)} and {@link #clear()} it.
+ *
+ * PLEASE NOTE: this class is NOT thread safe.
+ */
+public class PairCountMap {
+    // every slot holds long key + double value
+    public static final int BYTES_PER_SLOT = 16;
+
+    private static final long EMPTY = -1L;
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final int maxCapacity;
+    private long[] keys;
+    private double[] values;
+    private int size;
+    private int threshold;
+
+    /**
+     * @param memoryBudget approximate number of bytes this map is allowed to use
+     */
+    public PairCountMap(long memoryBudget) {
+        long slots = Math.max(memoryBudget / BYTES_PER_SLOT, MIN_CAPACITY);
+        this.maxCapacity = Integer.highestOneBit((int) Math.min(slots, 1 << 30));
+
+        allocate(Math.min(MIN_CAPACITY, maxCapacity));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new double[capacity];
+        Arrays.fill(keys, EMPTY);
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static long pack(int element1, int element2) {
+        return ((long) element1 << 32) | (element2 & 0xFFFFFFFFL);
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * This method adds weight to the given pair of element indexes
+     */
+    public void increment(int element1, int element2, double weight) {
+        long key = pack(element1, element2);
+        int mask = keys.length - 1;
+        int idx = mix(key) & mask;
+        while (keys[idx] != EMPTY) {
+            if (keys[idx] == key) {
+                values[idx] += weight;
+                return;
+            }
+            idx = (idx + 1) & mask;
+        }
+
+        keys[idx] = key;
+        values[idx] = weight;
+        size++;
+
+        if (size >= threshold && keys.length < maxCapacity)
+            rehash(keys.length << 1);
+    }
+
+    /**
+     * Returns weight accumulated for the given pair of element indexes, or 0 if there's no such pair
+     */
+    public double get(int element1, int element2) {
+        long key = pack(element1, element2);
+        int mask = keys.length - 1;
+        int idx = mix(key) & mask;
+        while (keys[idx] != EMPTY) {
+            if (keys[idx] == key)
+                return values[idx];
+            idx = (idx + 1) & mask;
+        }
+        return 0.0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        allocate(capacity);
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY)
+                continue;
+            int idx = mix(oldKeys[i]) & mask;
+            while (keys[idx] != EMPTY)
+                idx = (idx + 1) & mask;
+            keys[idx] = oldKeys[i];
+            values[idx] = oldValues[i];
+        }
+    }
+
+    /**
+     * @return True, if map has reached its memory budget and should be spilled
+     */
+    public boolean isFull() {
+        return size >= threshold && keys.length >= maxCapacity;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method writes out all pairs, sorted by (element1, element2) indexes.
+     * Please note: sorting is done in place, so map contents are destroyed, and {@link #clear()} must be called
+     * before reuse.
+     *
+     * @return number of pairs written
+     */
+    public int writeSorted(BinaryCoOccurrenceWriter<?> writer) {
+        // compact all pairs to the head of arrays
+        int cnt = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                keys[cnt] = keys[i];
+                values[cnt] = values[i];
+                cnt++;
+            }
+        }
+
+        sort(keys, values, 0, cnt - 1);
+
+        for (int i = 0; i < cnt; i++) {
+            writer.writePair((int) (keys[i] >>> 32), (int) keys[i], values[i]);
+        }
+
+        return cnt;
+    }
+
+    /**
+     * This method removes all pairs, keeping currently allocated table
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Sorts keys in ascending order, moving values along with them. Indexes are non-negative, so signed order is fine.
+     */
+    private static void sort(long[] keys, double[] values, int lo, int hi) {
+        while (hi - lo > 16) {
+            long pivot = median(keys[lo], keys[(lo + hi) >>> 1], keys[hi]);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot)
+                    i++;
+                while (keys[j] > pivot)
+                    j--;
+                if (i <= j) {
+                    swap(keys, values, i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            // recurse into smaller half, iterate over the larger one
+            if (j - lo < hi - i) {
+                sort(keys, values, lo, j);
+                lo = i;
+            } else {
+                sort(keys, values, i, hi);
+                hi = j;
+            }
+        }
+
+        for (int i = lo + 1; i <= hi; i++) {
+            long key = keys[i];
+            double value = values[i];
+            int j = i - 1;
+            while (j >= lo && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            values[j + 1] = value;
+        }
+    }
+
+    private static long median(long a, long b, long c) {
+        if (a < b) {
+            return b < c ? b : (a < c ? c : a);
+        } else {
+            return a < c ? a : (b < c ? c : b);
+        }
+    }
+
+    private static void swap(long[] keys, double[] values, int i, int j) {
+        long k = keys[i];
+        keys[i] = keys[j];
+        keys[j] = k;
+
+        double v = values[i];
+        values[i] = values[j];
+        values[j] = v;
+    }
+}
@@ -31,6 +31,7 @@ import org.deeplearning4j.text.sentenceiterator.interoperability.SentenceIterato
 import org.deeplearning4j.text.sentenceiterator.labelaware.LabelAwareSentenceIterator;
 import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.aggregates.Aggregate;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.ops.transforms.Transforms;
@@ -213,38 +214,204 @@ public class ParagraphVectors extends Word2Vec {
     public INDArray inferVector(@NonNull List<VocabWord> document, double learningRate, double minLearningRate,
                     int iterations) {
 
-        SequenceLearningAlgorithm<VocabWord> learner = sequenceLearningAlgorithm;
+        SequenceLearningAlgorithm<VocabWord> learner = getInferenceLearner();
 
-        if (learner == null) {
+        if (document.isEmpty())
+            throw new ND4JIllegalStateException("Impossible to apply inference to empty list of words");
+
+
+        Sequence<VocabWord> sequence = new Sequence<>();
+        sequence.addElements(document);
+        sequence.setSequenceLabel(new VocabWord(1.0, String.valueOf(new Random().nextInt())));
+
+        initLearners();
+
+        INDArray inf = learner.inferSequence(sequence, seed, learningRate, minLearningRate, iterations);
+
+        return inf;
+    }
+
+    protected SequenceLearningAlgorithm<VocabWord> getInferenceLearner() {
+        if (sequenceLearningAlgorithm == null) {
             synchronized (this) {
                 if (sequenceLearningAlgorithm == null) {
                     log.info("Creating new PV-DM learner...");
-                    learner = new DM<VocabWord>();
+                    SequenceLearningAlgorithm<VocabWord> learner = new DM<VocabWord>();
                     learner.configure(vocab, lookupTable, configuration);
                     sequenceLearningAlgorithm = learner;
-                } else {
-                    learner = sequenceLearningAlgorithm;
                 }
             }
         }
 
-        learner = sequenceLearningAlgorithm;
+        return sequenceLearningAlgorithm;
+    }
+
+    /**
+     * This method calculates inferred vectors for multiple texts at once.
+     *
+     * Texts are tokenized in parallel, and then inference iterations of many documents are executed together,
+     * as batches of native ops against frozen model weights, instead of one op per native call.
+     * Every document keeps its own learning rate schedule, and its initial vector and random state depend only
+     * on document contents and model seed.
+     *
+     * @param documents
+     * @return inferred vectors in the same order as input texts, or null for texts without matches in model vocabulary
+     */
+    public List<INDArray> inferVectors(@NonNull List<String> documents, double learningRate, double minLearningRate,
+                    int iterations) {
+        if (tokenizerFactory == null)
+            throw new IllegalStateException("TokenizerFactory should be defined, prior to predict() call");
 
+        if (this.vocab == null || this.vocab.numWords() == 0)
+            reassignExistingModel();
 
+        initInference();
 
-        if (document.isEmpty())
-            throw new ND4JIllegalStateException("Impossible to apply inference to empty list of words");
+        // tokenization goes in parallel
+        List<Future<List<VocabWord>>> tokenized = new ArrayList<>();
+        for (final String document : documents) {
+            tokenized.add(inferenceExecutor.submit(new Callable<List<VocabWord>>() {
+                @Override
+                public List<VocabWord> call() throws Exception {
+                    return tokenize(document);
+                }
+            }));
+        }
 
+        List<List<VocabWord>> sequences = new ArrayList<>();
+        for (Future<List<VocabWord>> future : tokenized) {
+            sequences.add(getUninterruptibly(future));
+        }
 
-        Sequence<VocabWord> sequence = new Sequence<>();
-        sequence.addElements(document);
-        sequence.setSequenceLabel(new VocabWord(1.0, String.valueOf(new Random().nextInt())));
+        return inferVectorsTokenized(sequences, learningRate, minLearningRate, iterations);
+    }
 
+    /**
+     * This method calculates inferred vectors for multiple texts at once, with default parameters for learning rate
+     * and iterations
+     *
+     * @param documents
+     * @return inferred vectors in the same order as input texts, or null for texts without matches in model vocabulary
+     */
+    public List<INDArray> inferVectors(@NonNull List<String> documents) {
+        return inferVectors(documents, this.learningRate.get(), this.minLearningRate,
+                        this.numEpochs * this.numIterations);
+    }
+
+    protected List<VocabWord> tokenize(String text) {
+        List<String> tokens = tokenizerFactory.create(text).getTokens();
+        List<VocabWord> document = new ArrayList<>();
+        for (String token : tokens) {
+            if (vocab.containsWord(token)) {
+                document.add(vocab.wordFor(token));
+            }
+        }
+        return document;
+    }
+
+    protected List<INDArray> inferVectorsTokenized(final List<List<VocabWord>> documents,
+                    final double learningRate, final double minLearningRate, final int iterations) {
+        final SequenceLearningAlgorithm<VocabWord> learner = getInferenceLearner();
         initLearners();
 
-        INDArray inf = learner.inferSequence(sequence, seed, learningRate, minLearningRate, iterations);
+        final INDArray[] results = new INDArray[documents.size()];
+        if (documents.isEmpty())
+            return Arrays.asList(results);
+
+        // documents are split into contiguous chunks, one chunk per inference thread
+        int numThreads = Math.max(Runtime.getRuntime().availableProcessors() - 2, 2);
+        int chunkSize = (documents.size() + numThreads - 1) / numThreads;
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int start = 0; start < documents.size(); start += chunkSize) {
+            final int from = start;
+            final int to = Math.min(start + chunkSize, documents.size());
+            futures.add(inferenceExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    inferChunk(learner, documents, from, to, results, learningRate, minLearningRate, iterations);
+                }
+            }));
+        }
 
-        return inf;
+        for (Future<?> future : futures) {
+            getUninterruptibly(future);
+        }
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * This method runs inference for documents [from, to), iteration by iteration.
+     * Ops of all documents within one iteration share batches, and each iteration is flushed before the next one,
+     * so every document sees its own updates from the previous iteration.
+     */
+    protected void inferChunk(SequenceLearningAlgorithm<VocabWord> learner, List<List<VocabWord>> documents, int from,
+                    int to, INDArray[] results, double learningRate, double minLearningRate, int iterations) {
+        List<Sequence<VocabWord>> sequences = new ArrayList<>();
+        List<AtomicLong> randoms = new ArrayList<>();
+        List<INDArray> vectors = new ArrayList<>();
+        for (int d = from; d < to; d++) {
+            List<VocabWord> document = documents.get(d);
+            if (document == null || document.isEmpty())
+                continue;
+
+            Sequence<VocabWord> sequence = new Sequence<>();
+            sequence.addElements(document);
+            sequence.setSequenceLabel(new VocabWord(1.0, "PV_INFERENCE_" + d));
+
+            INDArray vector = initialInferenceVector(sequence);
+            results[d] = vector;
+
+            sequences.add(sequence);
+            randoms.add(new AtomicLong(seed));
+            vectors.add(vector);
+        }
+
+        double[] rates = new double[sequences.size()];
+        Arrays.fill(rates, learningRate);
+
+        int batchSize = configuration.getBatchSize();
+        List<Aggregate> batch = new ArrayList<>();
+        for (int iter = 0; iter < iterations; iter++) {
+            for (int k = 0; k < sequences.size(); k++) {
+                learner.inferenceIteration(sequences.get(k), randoms.get(k), rates[k], vectors.get(k), batch);
+                rates[k] = ((rates[k] - minLearningRate) / (iterations - iter)) + minLearningRate;
+
+                if (batch.size() >= batchSize) {
+                    Nd4j.getExecutioner().exec(batch);
+                    batch.clear();
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                Nd4j.getExecutioner().exec(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * This method returns initial vector for inference, the same way SequenceLearningAlgorithm implementations do it
+     */
+    protected INDArray initialInferenceVector(Sequence<VocabWord> sequence) {
+        int layerSize = lookupTable.layerSize();
+        org.nd4j.linalg.api.rng.Random random = Nd4j.getRandomFactory()
+                        .getNewRandomInstance(configuration.getSeed() * sequence.hashCode(), layerSize + 1);
+        return Nd4j.rand(new int[] {1, layerSize}, random).subi(0.5).divi(layerSize);
+    }
+
+    private static <V> V getUninterruptibly(Future<V> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
     }
 
     /**
@@ -341,41 +508,17 @@ public class ParagraphVectors extends Word2Vec {
 
     /**
      * This method does inference on a given List&lt;String&gt;
+     *
+     * PLEASE NOTE: all texts are processed together, as described in {@link #inferVectors(List, double, double, int)}
+     *
      * @param documents
      * @return INDArrays in the same order as input texts
      */
     public List<INDArray> inferVectorBatched(@NonNull List<String> documents) {
-        if (countSubmitted == null)
-            initInference();
-
-        if (this.vocab == null || this.vocab.numWords() == 0)
-            reassignExistingModel();
-
-        List<Future<INDArray>> futuresList = new ArrayList<>();
-        List<INDArray> results = new ArrayList<>();
-
-        final AtomicLong flag = new AtomicLong(0);
-
-        for (int i = 0; i < documents.size(); i++) {
-            BlindInferenceCallable callable =
-                            new BlindInferenceCallable(vocab, tokenizerFactory, documents.get(i), flag);
-
-            futuresList.add(inferenceExecutor.submit(callable));
-        }
-
-        for (int i = 0; i < documents.size(); i++) {
-            Future<INDArray> future = futuresList.get(i);
-            while (!future.isDone()) {
-                try {
-                    Thread.sleep(1);
-                } catch (Exception e) {
-                }
-            }
-            try {
-                results.add(future.get());
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+        List<INDArray> results = inferVectors(documents);
+        for (INDArray result : results) {
+            if (result == null)
+                throw new ND4JIllegalStateException("Text passed for inference has no matches in model vocabulary.");
         }
 
         return results;
@@ -546,17 +689,83 @@ public class ParagraphVectors extends Word2Vec {
      * @return
      */
     public Collection<String> nearestLabels(INDArray labelVector, int topN) {
-        if (labelsMatrix == null || labelsList == null || labelsList.isEmpty())
-            extractLabels();
+        // if list is empty - return empty collection
+        if (!prepareLabels()) {
+            log.warn("Labels list is empty!");
+            return new ArrayList<>();
+        }
 
-        List<BasicModelUtils.WordSimilarity> result = new ArrayList<>();
+        INDArray similarity = Transforms.unitVec(labelVector).mmul(labelsMatrix.transpose());
+        return nearestLabels(labelVector, similarity, topN);
+    }
+
+    /**
+     * This method returns top N labels nearest to each of specified texts.
+     * Inference is done with {@link #inferVectors(List)}, and similarities to all labels are calculated
+     * with single matrix multiplication.
+     *
+     * @param documents
+     * @param topN
+     * @return collections of labels in the same order as input texts. Empty collection is returned for texts without matches in model vocabulary
+     */
+    public List<Collection<String>> nearestLabelsBatched(@NonNull List<String> documents, int topN) {
+        List<INDArray> vectors = inferVectors(documents);
 
-        // if list still empty - return empty collection
-        if (labelsMatrix == null || labelsList == null || labelsList.isEmpty()) {
+        List<Collection<String>> result = new ArrayList<>();
+        if (!prepareLabels()) {
             log.warn("Labels list is empty!");
-            return new ArrayList<>();
+            for (int i = 0; i < vectors.size(); i++)
+                result.add(new ArrayList<String>());
+            return result;
+        }
+
+        List<INDArray> units = new ArrayList<>();
+        for (INDArray vector : vectors) {
+            if (vector != null)
+                units.add(Transforms.unitVec(vector));
+        }
+
+        INDArray similarities = units.isEmpty() ? null : Nd4j.vstack(units).mmul(labelsMatrix.transpose());
+
+        int row = 0;
+        for (INDArray vector : vectors) {
+            if (vector == null) {
+                result.add(new ArrayList<String>());
+            } else {
+                result.add(nearestLabels(vector, similarities.getRow(row), topN));
+                row++;
+            }
         }
 
+        return result;
+    }
+
+    /**
+     * This method returns most probable label for each of specified texts, using {@link #nearestLabelsBatched(List, int)}
+     *
+     * @param documents
+     * @return labels in the same order as input texts. Null is returned for texts without matches in model vocabulary
+     */
+    public List<String> predictBatched(@NonNull List<String> documents) {
+        List<String> result = new ArrayList<>();
+        for (Collection<String> labels : nearestLabelsBatched(documents, 1)) {
+            result.add(labels.isEmpty() ? null : labels.iterator().next());
+        }
+        return result;
+    }
+
+    /**
+     * This method extracts and normalizes labels matrix, if that wasn't done yet
+     *
+     * @return false if model has no labels
+     */
+    protected boolean prepareLabels() {
+        if (labelsMatrix == null || labelsList == null || labelsList.isEmpty())
+            extractLabels();
+
+        if (labelsMatrix == null || labelsList == null || labelsList.isEmpty())
+            return false;
+
         if (!normalizedLabels) {
             synchronized (this) {
                 if (!normalizedLabels) {
@@ -566,7 +775,12 @@ public class ParagraphVectors extends Word2Vec {
             }
         }
 
-        INDArray similarity = Transforms.unitVec(labelVector).mmul(labelsMatrix.transpose());
+        return true;
+    }
+
+    private Collection<String> nearestLabels(INDArray labelVector, INDArray similarity, int topN) {
+        List<BasicModelUtils.WordSimilarity> result = new ArrayList<>();
+
         List<Double> highToLowSimList = getTopN(similarity, topN + 20);
 
         for (int i = 0; i < highToLowSimList.size(); i++) {
@@ -874,6 +1088,20 @@ public class ParagraphVectors extends Word2Vec {
             return this;
         }
 
+        /**
+         * This method enables/disables two-pass vocabulary construction with approximate counting of rare elements
+         *
+         * Default value: disabled
+         *
+         * @param reallyUse
+         * @return
+         */
+        @Override
+        public Builder useApproximateVocabCounting(boolean reallyUse) {
+            super.useApproximateVocabCounting(reallyUse);
+            return this;
+        }
+
         @Override
         public ParagraphVectors build() {
             presetTables();
@@ -945,6 +1173,7 @@ public class ParagraphVectors extends Word2Vec {
             ret.unknownElement = this.unknownElement;
             ret.seed = this.seed;
             ret.enableScavenger = this.enableScavenger;
+            ret.approximateVocabCounting = this.approximateVocabCounting;
 
             ret.trainElementsVectors = this.trainElementsVectors;
             ret.trainSequenceVectors = this.trainSequenceVectors;
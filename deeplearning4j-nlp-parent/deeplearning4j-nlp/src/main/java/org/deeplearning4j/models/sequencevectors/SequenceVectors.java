@@ -70,6 +70,7 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
     protected transient boolean configured = false;
 
     protected boolean enableScavenger = false;
+    protected boolean approximateVocabCounting = false;
 
 
     @Setter
@@ -105,7 +106,7 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
 
         VocabConstructor<T> constructor = new VocabConstructor.Builder<T>().addSource(iterator, minWordFrequency)
                         .setTargetVocabCache(vocab).fetchLabels(trainSequenceVectors).setStopWords(stopWords)
-                        .enableScavenger(enableScavenger)
+                        .enableScavenger(enableScavenger).useApproximateCounting(approximateVocabCounting)
                         .setUnk(useUnknown && unknownElement != null ? unknownElement : null).build();
 
         if (existingModel != null && lookupTable instanceof InMemoryLookupTable
@@ -400,6 +401,7 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
         protected String STOP = configuration.getSTOP();
 
         protected boolean enableScavenger = false;
+        protected boolean approximateVocabCounting = false;
 
         // defaults values for learning algorithms are set here
         protected ElementsLearningAlgorithm<T> elementsLearningAlgorithm = new SkipGram<>();
@@ -911,6 +913,23 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
             return this;
         }
 
+        /**
+         * This method enables/disables two-pass vocabulary construction, where exact counts are kept only for elements
+         * that can reach minWordFrequency according to CountMinSketch built on the first pass.
+         * Useful for huge corpora with long tail of rare elements.
+         *
+         * PLEASE NOTE: iterator will be read one extra time during vocabulary construction.
+         *
+         * Default value: disabled
+         *
+         * @param reallyUse
+         * @return
+         */
+        public Builder<T> useApproximateVocabCounting(boolean reallyUse) {
+            this.approximateVocabCounting = reallyUse;
+            return this;
+        }
+
         /**
          * Build SequenceVectors instance with defined settings/options
          * @return
@@ -958,6 +977,7 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
 
             vectors.existingModel = this.existingVectors;
             vectors.enableScavenger = this.enableScavenger;
+            vectors.approximateVocabCounting = this.approximateVocabCounting;
 
             this.configuration.setLearningRate(this.learningRate);
             this.configuration.setLayersSize(layerSize);
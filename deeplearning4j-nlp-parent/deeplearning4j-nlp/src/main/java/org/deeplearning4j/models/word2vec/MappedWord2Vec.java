@@ -0,0 +1,376 @@
+package org.deeplearning4j.models.word2vec;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.reader.ModelUtils;
+import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.models.word2vec.wordstore.mapped.MappedVectorStore;
+import org.deeplearning4j.models.word2vec.wordstore.mapped.MappedVocabCache;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.util.*;
+
+/**
+ * This is special limited Word2Vec implementation, suited for serving huge embeddings.
+ * Vectors and dictionary are kept off-heap, in memory mapped file (see {@link MappedVectorStore}), so model is opened
+ * without loading anything into memory, and multiple JVMs serving the same model share the same OS page cache.
+ * Lookups and similarity are computed straight from mapped pages, wordsNearest is done via single scan over all vectors.
+ * This implementation DOES NOT provide lookupTable(), accuracy() or similarWordsInVocabTo() methods.
+ *
+ * Use WordVectorSerializer.writeMappedModel() or WordVectorSerializer.convertToMappedModel() to create model file,
+ * and WordVectorSerializer.loadMappedModel() to open it.
+ */
+@Slf4j
+public class MappedWord2Vec implements WordVectors {
+    @Getter
+    protected final MappedVectorStore store;
+    protected final MappedVocabCache vocabCache;
+    protected String unk = null;
+
+    public MappedWord2Vec(@NonNull MappedVectorStore store) {
+        this.store = store;
+        this.vocabCache = new MappedVocabCache(store);
+    }
+
+    @Override
+    public String getUNK() {
+        return unk;
+    }
+
+    @Override
+    public void setUNK(String newUNK) {
+        this.unk = newUNK;
+    }
+
+    /**
+     * Returns true if the model has this word in the vocab
+     *
+     * @param word the word to test for
+     * @return true if the model has the word in the vocab
+     */
+    @Override
+    public boolean hasWord(String word) {
+        return store.indexOf(word) >= 0;
+    }
+
+    /**
+     * Returns index of given word, or index of UNK word if it's defined, or -1
+     */
+    protected int indexWithUnk(String word) {
+        int idx = store.indexOf(word);
+        if (idx < 0 && unk != null)
+            idx = store.indexOf(unk);
+        return idx;
+    }
+
+    protected float[] toFloats(INDArray vector) {
+        INDArray flat = vector.isRowVector() ? vector : vector.reshape(1, vector.length());
+        float[] result = new float[flat.length()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = flat.getFloat(i);
+        return result;
+    }
+
+    protected List<String> labels(int[] indices, Collection<String> excluded, int top) {
+        List<String> result = new ArrayList<>();
+        for (int idx : indices) {
+            String word = store.wordAt(idx);
+            if (excluded != null && excluded.contains(word))
+                continue;
+            if (result.size() >= top)
+                break;
+            result.add(word);
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<String> wordsNearest(INDArray words, int top) {
+        return labels(store.nearest(toFloats(words), top, true, null), null, top);
+    }
+
+    @Override
+    public Collection<String> wordsNearestSum(INDArray words, int top) {
+        return labels(store.nearest(toFloats(words), top, false, null), null, top);
+    }
+
+    /**
+     * Get the top n words most similar to the given word, using dot product
+     *
+     * @param word the word to compare
+     * @param n    the n to get
+     * @return the top n words
+     */
+    @Override
+    public Collection<String> wordsNearestSum(String word, int n) {
+        return wordsNearestSum(Arrays.asList(word), new ArrayList<String>(), n);
+    }
+
+    /**
+     * Words nearest based on positive and negative words, using dot product
+     *
+     * @param positive the positive words
+     * @param negative the negative words
+     * @param top      the top n words
+     * @return the words nearest the sum of the words
+     */
+    @Override
+    public Collection<String> wordsNearestSum(Collection<String> positive, Collection<String> negative, int top) {
+        float[] query = combine(positive, negative, false);
+        if (query == null)
+            return new ArrayList<>();
+
+        Set<Integer> exclude = excludedIndices(positive, negative);
+        return labels(store.nearest(query, top, false, exclude), null, top);
+    }
+
+    /**
+     * Accuracy based on questions which are a space separated list of strings
+     * where the first word is the query word, the next 2 words are negative,
+     * and the last word is the predicted word to be nearest
+     * PLEASE NOTE: This method is not available in this implementation.
+     *
+     * @param questions the questions to ask
+     * @return the accuracy based on these questions
+     */
+    @Override
+    public Map<String, Double> accuracy(List<String> questions) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    @Override
+    public int indexOf(String word) {
+        return store.indexOf(word);
+    }
+
+    /**
+     * Find all words with a similar characters
+     * in the vocab
+     * PLEASE NOTE: This method is not available in this implementation.
+     *
+     * @param word     the word to compare
+     * @param accuracy the accuracy: 0 to 1
+     * @return the list of words that are similar in the vocab
+     */
+    @Override
+    public List<String> similarWordsInVocabTo(String word, double accuracy) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * Get the word vector for a given matrix
+     *
+     * @param word the word to get the matrix for
+     * @return the ndarray for this word
+     */
+    @Override
+    public double[] getWordVector(String word) {
+        int idx = indexWithUnk(word);
+        if (idx < 0)
+            return null;
+
+        float[] vector = store.getVector(idx);
+        double[] result = new double[vector.length];
+        for (int i = 0; i < vector.length; i++)
+            result[i] = vector[i];
+        return result;
+    }
+
+    /**
+     * Returns the word vector divided by the norm2 of the array
+     *
+     * @param word the word to get the matrix for
+     * @return the looked up matrix
+     */
+    @Override
+    public INDArray getWordVectorMatrixNormalized(String word) {
+        INDArray vector = getWordVectorMatrix(word);
+        return vector == null ? null : Transforms.unitVec(vector);
+    }
+
+    /**
+     * Get the word vector for a given matrix. Returned array is a copy of the mapped vector.
+     *
+     * @param word the word to get the matrix for
+     * @return the ndarray for this word
+     */
+    @Override
+    public INDArray getWordVectorMatrix(String word) {
+        int idx = indexWithUnk(word);
+        if (idx < 0)
+            return null;
+
+        return Nd4j.create(store.getVector(idx));
+    }
+
+    /**
+     * This method returns 2D array, where each row represents corresponding word/label
+     *
+     * @param labels
+     * @return
+     */
+    @Override
+    public INDArray getWordVectors(Collection<String> labels) {
+        List<float[]> rows = new ArrayList<>();
+        for (String label : labels) {
+            int idx = indexWithUnk(label);
+            if (idx >= 0)
+                rows.add(store.getVector(idx));
+        }
+
+        INDArray result = Nd4j.create(rows.size(), store.getVectorLength());
+        for (int i = 0; i < rows.size(); i++)
+            result.putRow(i, Nd4j.create(rows.get(i)));
+
+        return result;
+    }
+
+    /**
+     * This method returns mean vector, built from words/labels passed in
+     *
+     * @param labels
+     * @return
+     */
+    @Override
+    public INDArray getWordVectorsMean(Collection<String> labels) {
+        INDArray matrix = getWordVectors(labels);
+
+        return matrix.mean(0);
+    }
+
+    /**
+     * Words nearest based on positive and negative words
+     *
+     * @param positive the positive words
+     * @param negative the negative words
+     * @param top      the top n words
+     * @return the words nearest the mean of the words
+     */
+    @Override
+    public Collection<String> wordsNearest(Collection<String> positive, Collection<String> negative, int top) {
+        float[] query = combine(positive, negative, true);
+        if (query == null)
+            return new ArrayList<>();
+
+        Set<Integer> exclude = excludedIndices(positive, negative);
+        return labels(store.nearest(query, top, true, exclude), null, top);
+    }
+
+    /**
+     * Get the top n words most similar to the given word
+     *
+     * @param word the word to compare
+     * @param n    the n to get
+     * @return the top n words
+     */
+    @Override
+    public Collection<String> wordsNearest(String word, int n) {
+        return wordsNearest(Arrays.asList(word), new ArrayList<String>(), n);
+    }
+
+    /**
+     * Builds query vector: mean (or sum) of positive vectors minus negative vectors
+     *
+     * @return query vector, or null if any of words isn't in vocab
+     */
+    protected float[] combine(Collection<String> positive, Collection<String> negative, boolean mean) {
+        float[] query = new float[store.getVectorLength()];
+        float[] buffer = new float[store.getVectorLength()];
+        int cnt = 0;
+        for (int sign = 1; sign >= -1; sign -= 2) {
+            for (String word : sign > 0 ? positive : negative) {
+                int idx = store.indexOf(word);
+                if (idx < 0)
+                    return null;
+
+                store.getVector(idx, buffer);
+                for (int i = 0; i < query.length; i++)
+                    query[i] += sign * buffer[i];
+                cnt++;
+            }
+        }
+
+        if (mean && cnt > 0) {
+            for (int i = 0; i < query.length; i++)
+                query[i] /= cnt;
+        }
+
+        return query;
+    }
+
+    protected Set<Integer> excludedIndices(Collection<String> positive, Collection<String> negative) {
+        Set<Integer> exclude = new HashSet<>();
+        for (String word : positive)
+            exclude.add(store.indexOf(word));
+        for (String word : negative)
+            exclude.add(store.indexOf(word));
+        return exclude;
+    }
+
+    /**
+     * Returns the similarity of 2 words. Computed straight from mapped vectors, without any copies.
+     *
+     * @param label1 the first word
+     * @param label2 the second word
+     * @return a normalized similarity (cosine similarity)
+     */
+    @Override
+    public double similarity(String label1, String label2) {
+        if (label1 == null || label2 == null) {
+            log.debug("LABELS: " + label1 + ": " + (label1 == null ? "null" : "exists") + ";" + label2 + " vec2:"
+                            + (label2 == null ? "null" : "exists"));
+            return Double.NaN;
+        }
+
+        int idx1 = indexWithUnk(label1);
+        int idx2 = indexWithUnk(label2);
+
+        if (idx1 < 0 || idx2 < 0) {
+            log.debug(label1 + ": " + (idx1 < 0 ? "null" : "exists") + ";" + label2 + " vec2:"
+                            + (idx2 < 0 ? "null" : "exists"));
+            return Double.NaN;
+        }
+
+        if (label1.equals(label2))
+            return 1.0;
+
+        return store.cosine(idx1, idx2);
+    }
+
+    /**
+     * Vocab for the vectors
+     *
+     * @return
+     */
+    @Override
+    public VocabCache vocab() {
+        return vocabCache;
+    }
+
+    /**
+     * Lookup table for the vectors
+     * PLEASE NOTE: This method is not available in this implementation.
+     *
+     * @return
+     */
+    @Override
+    public WeightLookupTable lookupTable() {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * Specifies ModelUtils to be used to access model
+     * PLEASE NOTE: This method has no effect in this implementation.
+     *
+     * @param utils
+     */
+    @Override
+    public void setModelUtils(ModelUtils utils) {
+        // no-op
+    }
+}
@@ -496,6 +496,20 @@ public class Word2Vec extends SequenceVectors<VocabWord> {
             return this;
         }
 
+        /**
+         * This method enables/disables two-pass vocabulary construction with approximate counting of rare elements
+         *
+         * Default value: disabled
+         *
+         * @param reallyUse
+         * @return
+         */
+        @Override
+        public Builder useApproximateVocabCounting(boolean reallyUse) {
+            super.useApproximateVocabCounting(reallyUse);
+            return this;
+        }
+
         @Override
         public Builder useHierarchicSoftmax(boolean reallyUse) {
             super.useHierarchicSoftmax(reallyUse);
@@ -554,6 +568,7 @@ public class Word2Vec extends SequenceVectors<VocabWord> {
             ret.variableWindows = this.variableWindows;
             ret.seed = this.seed;
             ret.enableScavenger = this.enableScavenger;
+            ret.approximateVocabCounting = this.approximateVocabCounting;
 
 
             ret.iterator = this.iterator;
@@ -0,0 +1,100 @@
+package org.deeplearning4j.models.word2vec.wordstore;
+
+import lombok.NonNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min sketch over String tokens. It uses fixed amount of memory (depth x width counters), regardless of number
+ * of distinct tokens seen, and never underestimates: {@link #estimate(String)} is always greater than or equal to
+ * the exact number of {@link #add(String)} calls for the same token.
+ *
+ * That makes it suitable as a pre-filter for vocabulary construction: any token with estimate below minWordFrequency
+ * can't possibly pass minWordFrequency check, so it doesn't have to be counted exactly.
+ *
+ * PLEASE NOTE: this class is thread safe.
+ */
+public class CountMinSketch {
+    public static final int DEFAULT_WIDTH = 1 << 20;
+    public static final int DEFAULT_DEPTH = 4;
+
+    private final int width;
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray counters;
+
+    public CountMinSketch() {
+        this(DEFAULT_WIDTH, DEFAULT_DEPTH);
+    }
+
+    /**
+     * @param width number of counters per row, rounded up to power of 2. Larger width gives fewer overestimations
+     * @param depth number of rows, i.e. number of independent hashes per token
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1)
+            throw new IllegalArgumentException("Width and depth should be positive values");
+
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.mask = this.width - 1;
+        this.counters = new AtomicLongArray(this.width * depth);
+    }
+
+    private static long hash(String token) {
+        // 64-bit FNV-1a over chars, so rows don't inherit collisions of String.hashCode()
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            h ^= token.charAt(i);
+            h *= 0x100000001b3L;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private int position(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return row * width + ((h1 + row * h2) & mask);
+    }
+
+    /**
+     * This method increments counters of the given token by 1
+     */
+    public void add(@NonNull String token) {
+        add(token, 1);
+    }
+
+    /**
+     * This method increments counters of the given token by count
+     */
+    public void add(@NonNull String token, long count) {
+        long hash = hash(token);
+        for (int row = 0; row < depth; row++) {
+            counters.addAndGet(position(hash, row), count);
+        }
+    }
+
+    /**
+     * This method returns upper bound of number of occurrences for the given token
+     */
+    public long estimate(@NonNull String token) {
+        long hash = hash(token);
+        long result = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            result = Math.min(result, counters.get(position(hash, row)));
+        }
+        return result;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+}
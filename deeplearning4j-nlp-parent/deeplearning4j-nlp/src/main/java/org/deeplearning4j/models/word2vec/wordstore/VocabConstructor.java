@@ -10,6 +10,7 @@ import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.Huffman;
 import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.CompactVocabCache;
 import org.deeplearning4j.text.invertedindex.InvertedIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,7 +18,6 @@ import org.slf4j.LoggerFactory;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.LockSupport;
 
 /**
  *
@@ -41,6 +41,9 @@ public class VocabConstructor<T extends SequenceElement> {
     private boolean enableScavenger = false;
     private T unk;
     private boolean allowParallelBuilder = true;
+    private boolean approximateCounting = false;
+    private int sketchWidth = CountMinSketch.DEFAULT_WIDTH;
+    private int sketchDepth = CountMinSketch.DEFAULT_DEPTH;
 
     protected static final Logger log = LoggerFactory.getLogger(VocabConstructor.class);
 
@@ -162,6 +165,10 @@ public class VocabConstructor<T extends SequenceElement> {
      * This method scans all sources passed through builder, and returns all words as vocab.
      * If TargetVocabCache was set during instance creation, it'll be filled too.
      *
+     * If approximate counting is enabled, every source with minWordFrequency above 1 is read twice: first pass
+     * feeds CountMinSketch, and second pass counts exactly only elements that could possibly reach minWordFrequency.
+     * Since sketch never underestimates, resulting vocabulary is the same, but memory used for counting is
+     * proportional to resulting vocabulary instead of number of distinct elements in corpus.
      *
      * @return
      */
@@ -185,10 +192,13 @@ public class VocabConstructor<T extends SequenceElement> {
         int cnt = 0;
         int numProc = Runtime.getRuntime().availableProcessors();
         int numThreads = Math.max(numProc / 2, 2);
+
+        // back-pressure: iterator thread blocks once maxInFlight sequences are queued or being processed,
+        // so executor queue never grows beyond maxInFlight
+        final int maxInFlight = Math.max(numProc, numThreads) * 2;
+        final Semaphore inFlight = new Semaphore(maxInFlight);
         ExecutorService executorService = new ThreadPoolExecutor(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS,
-                        new LinkedTransferQueue<Runnable>());
-        final AtomicLong execCounter = new AtomicLong(0);
-        final AtomicLong finCounter = new AtomicLong(0);
+                        new ArrayBlockingQueue<Runnable>(maxInFlight));
 
         for (VocabSource<T> source : sources) {
             SequenceIterator<T> iterator = source.getIterator();
@@ -198,44 +208,30 @@ public class VocabConstructor<T extends SequenceElement> {
             log.debug("Target vocab size before building: [" + cache.numWords() + "]");
             cnt++;
 
-            AbstractCache<T> tempHolder = new AbstractCache.Builder<T>().build();
-
+            CountMinSketch sketch = null;
+            if (approximateCounting && source.getMinWordFrequency() > 1) {
+                sketch = buildSketch(iterator, executorService, inFlight, maxInFlight);
+                iterator.reset();
+            }
 
+            AbstractCache<T> tempHolder = new AbstractCache.Builder<T>().build();
 
-            List<Long> timesHasNext = new ArrayList<>();
-            List<Long> timesNext = new ArrayList<>();
-            int sequences = 0;
-            long time3 = 0;
             while (iterator.hasMoreSequences()) {
                 Sequence<T> document = iterator.nextSequence();
 
                 seqCount.incrementAndGet();
                 parsedCount.addAndGet(document.size());
                 tempHolder.incrementTotalDocCount();
-                execCounter.incrementAndGet();
-                VocabRunnable runnable = new VocabRunnable(tempHolder, document, finCounter, loopCounter);
+                VocabRunnable runnable = new VocabRunnable(tempHolder, document, inFlight, loopCounter, sketch,
+                                source.getMinWordFrequency());
 
+                inFlight.acquireUninterruptibly();
                 executorService.execute(runnable);
 
                 // if we're not in parallel mode - wait till this runnable finishes
-                if (!allowParallelBuilder) {
-                    while (execCounter.get() != finCounter.get())
-                        LockSupport.parkNanos(1000);
-                }
-
-                // as we see in profiler, this lock isn't really happen too often
-                // we don't want too much left in tail
+                if (!allowParallelBuilder)
+                    waitForCompletion(inFlight, maxInFlight);
 
-                while (execCounter.get() - finCounter.get() > numProc) {
-                    try {
-                        Thread.sleep(1);
-                    } catch (Exception e) {
-                    }
-                }
-
-
-
-                sequences++;
                 if (seqCount.get() % 100000 == 0) {
                     long currentTime = System.currentTimeMillis();
                     long currentSequences = seqCount.get();
@@ -265,12 +261,7 @@ public class VocabConstructor<T extends SequenceElement> {
                  */
                 if (enableScavenger && loopCounter.get() >= 2000000 && tempHolder.numWords() > 10000000) {
                     log.info("Starting scavenger...");
-                    while (execCounter.get() != finCounter.get()) {
-                        try {
-                            Thread.sleep(2);
-                        } catch (Exception e) {
-                        }
-                    }
+                    waitForCompletion(inFlight, maxInFlight);
 
                     filterVocab(tempHolder, Math.max(1, source.getMinWordFrequency() / 2));
                     loopCounter.set(0);
@@ -284,12 +275,7 @@ public class VocabConstructor<T extends SequenceElement> {
 
             // block untill all threads are finished
             log.debug("Wating till all processes stop...");
-            while (execCounter.get() != finCounter.get()) {
-                try {
-                    Thread.sleep(2);
-                } catch (Exception e) {
-                }
-            }
+            waitForCompletion(inFlight, maxInFlight);
 
 
             // apply minWordFrequency set for this source
@@ -330,17 +316,26 @@ public class VocabConstructor<T extends SequenceElement> {
             cache.addToken(unk);
         }
 
+        // CompactVocabCache returns elements as views, so they should be updated via cache itself
         if (resetCounters) {
-            for (T element : cache.vocabWords()) {
-                element.setElementFrequency(0);
+            if (cache instanceof CompactVocabCache) {
+                ((CompactVocabCache) cache).resetCounters();
+            } else {
+                for (T element : cache.vocabWords()) {
+                    element.setElementFrequency(0);
+                }
             }
             cache.updateWordsOccurencies();
         }
 
         if (buildHuffmanTree) {
-            Huffman huffman = new Huffman(cache.vocabWords());
-            huffman.build();
-            huffman.applyIndexes(cache);
+            if (cache instanceof CompactVocabCache) {
+                ((CompactVocabCache) cache).buildHuffmanTree();
+            } else {
+                Huffman huffman = new Huffman(cache.vocabWords());
+                huffman.build();
+                huffman.applyIndexes(cache);
+            }
             //topHolder.updateHuffmanCodes();
 
             if (limit > 0) {
@@ -374,6 +369,53 @@ public class VocabConstructor<T extends SequenceElement> {
         return cache;
     }
 
+    /**
+     * This method blocks until all submitted runnables are finished
+     */
+    private static void waitForCompletion(Semaphore inFlight, int maxInFlight) {
+        inFlight.acquireUninterruptibly(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+
+    /**
+     * This method does first pass over source, and returns CountMinSketch holding upper bounds of element frequencies
+     */
+    protected CountMinSketch buildSketch(SequenceIterator<T> iterator, ExecutorService executorService,
+                    final Semaphore inFlight, int maxInFlight) {
+        final CountMinSketch sketch = new CountMinSketch(sketchWidth, sketchDepth);
+        long sequences = 0;
+        while (iterator.hasMoreSequences()) {
+            final Sequence<T> document = iterator.nextSequence();
+            sequences++;
+
+            inFlight.acquireUninterruptibly();
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (String token : document.asLabels()) {
+                            if (isCountable(token))
+                                sketch.add(token);
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                }
+            });
+        }
+        waitForCompletion(inFlight, maxInFlight);
+
+        log.debug("Frequency sketch built over [" + sequences + "] sequences");
+        return sketch;
+    }
+
+    protected boolean isCountable(String token) {
+        if (token == null || token.isEmpty())
+            return false;
+
+        return stopWords == null || !stopWords.contains(token);
+    }
+
     protected void filterVocab(AbstractCache<T> cache, int minWordFrequency) {
         int numWords = cache.numWords();
         LinkedBlockingQueue<String> labelsToRemove = new LinkedBlockingQueue<>();
@@ -400,6 +442,9 @@ public class VocabConstructor<T extends SequenceElement> {
         private boolean enableScavenger = false;
         private T unk;
         private boolean allowParallelBuilder = true;
+        private boolean approximateCounting = false;
+        private int sketchWidth = CountMinSketch.DEFAULT_WIDTH;
+        private int sketchDepth = CountMinSketch.DEFAULT_DEPTH;
 
         public Builder() {
 
@@ -507,6 +552,39 @@ public class VocabConstructor<T extends SequenceElement> {
             return this;
         }
 
+        /**
+         * This method enables two-pass vocabulary construction: first pass estimates element frequencies with
+         * CountMinSketch, and second pass counts exactly only elements that can reach minElementFrequency.
+         * Sources with minElementFrequency of 1 or less are always read once.
+         *
+         * PLEASE NOTE: source iterators are reset and read twice, so they should be resettable.
+         *
+         * Default value: disabled
+         *
+         * @param reallyUse
+         * @return
+         */
+        public Builder<T> useApproximateCounting(boolean reallyUse) {
+            this.approximateCounting = reallyUse;
+            return this;
+        }
+
+        /**
+         * This method defines size of CountMinSketch used for approximate counting.
+         * Memory used is width * depth * 8 bytes, regardless of corpus size.
+         *
+         * Default values: width 1048576, depth 4
+         *
+         * @param width
+         * @param depth
+         * @return
+         */
+        public Builder<T> setSketchSize(int width, int depth) {
+            this.sketchWidth = width;
+            this.sketchDepth = depth;
+            return this;
+        }
+
         public VocabConstructor<T> build() {
             VocabConstructor<T> constructor = new VocabConstructor<>();
             constructor.sources = this.sources;
@@ -519,6 +597,9 @@ public class VocabConstructor<T extends SequenceElement> {
             constructor.enableScavenger = this.enableScavenger;
             constructor.unk = this.unk;
             constructor.allowParallelBuilder = this.allowParallelBuilder;
+            constructor.approximateCounting = this.approximateCounting;
+            constructor.sketchWidth = this.sketchWidth;
+            constructor.sketchDepth = this.sketchDepth;
 
             return constructor;
         }
@@ -534,21 +615,37 @@ public class VocabConstructor<T extends SequenceElement> {
 
 
     protected class VocabRunnable implements Runnable {
-        private final AtomicLong finalCounter;
+        private final Semaphore inFlight;
         private final Sequence<T> document;
         private final AbstractCache<T> targetVocab;
         private final AtomicLong loopCounter;
+        private final CountMinSketch sketch;
+        private final long minFrequency;
 
+        /**
+         * @param sketch optional frequency sketch; elements with estimated frequency below minFrequency are skipped
+         */
         public VocabRunnable(@NonNull AbstractCache<T> targetVocab, @NonNull Sequence<T> sequence,
-                        @NonNull AtomicLong finalCounter, @NonNull AtomicLong loopCounter) {
-            this.finalCounter = finalCounter;
+                        @NonNull Semaphore inFlight, @NonNull AtomicLong loopCounter, CountMinSketch sketch,
+                        long minFrequency) {
+            this.inFlight = inFlight;
             this.document = sequence;
             this.targetVocab = targetVocab;
             this.loopCounter = loopCounter;
+            this.sketch = sketch;
+            this.minFrequency = minFrequency;
         }
 
         @Override
         public void run() {
+            try {
+                count();
+            } finally {
+                inFlight.release();
+            }
+        }
+
+        protected void count() {
             Map<String, AtomicLong> seqMap = new HashMap<>();
             //  log.info("Sequence length: ["+ document.getElements().size()+"]");
 
@@ -566,9 +663,11 @@ public class VocabConstructor<T extends SequenceElement> {
 
             List<String> tokens = document.asLabels();
             for (String token : tokens) {
-                if (stopWords != null && stopWords.contains(token))
+                if (!isCountable(token))
                     continue;
-                if (token == null || token.isEmpty())
+
+                // this element can't pass minWordFrequency, so there's no sense to count it
+                if (sketch != null && sketch.estimate(token) < minFrequency)
                     continue;
 
                 if (!targetVocab.containsWord(token)) {
@@ -601,8 +700,6 @@ public class VocabConstructor<T extends SequenceElement> {
                     }
                 }
             }
-
-            finalCounter.incrementAndGet();
         }
     }
 }
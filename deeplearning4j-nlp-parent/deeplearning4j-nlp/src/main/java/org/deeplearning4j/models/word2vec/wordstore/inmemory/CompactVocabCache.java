@@ -0,0 +1,800 @@
+package org.deeplearning4j.models.word2vec.wordstore.inmemory;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * VocabCache implementation designed for very large vocabularies.
+ *
+ * Instead of keeping VocabWord objects in three maps, every element is stored as a slot in parallel primitive arrays:
+ * labels are kept as UTF-8 bytes in single contiguous arena, and are found with open addressing hash tables over slots.
+ * Huffman tree is kept as parent/binary node arrays, so codes and points are never stored per element.
+ * VocabWord instances returned by this cache are views, materialized on demand.
+ *
+ * PLEASE NOTE: Views are snapshots, changes made to them are NOT reflected in the cache. Use methods of this class
+ * (i.e. {@link #buildHuffmanTree()} or {@link #resetCounters()}) instead.
+ * PLEASE NOTE: Modifications are synchronized, lookups aren't. So lookups are safe as long as vocabulary isn't
+ * modified at the same time, which is the case for training.
+ */
+public class CompactVocabCache implements VocabCache<VocabWord> {
+    public static final int MAX_CODE_LENGTH = 40;
+
+    private static final byte FLAG_SPECIAL = 1;
+    private static final byte FLAG_LABEL = 2;
+    private static final byte FLAG_REMOVED = 4;
+
+    // hash table markers, any other value is slot + 1
+    private static final int FREE = 0;
+    private static final int DELETED = -1;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    // UTF-8 labels of all slots, label of slot X is located between labelOffsets[X] and labelOffsets[X + 1]
+    private byte[] arena;
+    private int[] labelOffsets;
+    private int[] labelHashes;
+
+    private double[] frequencies;
+    private long[] sequencesCounts;
+    private long[] storageIds;
+    private byte[] flags;
+
+    // Huffman index of each slot, and slot of each Huffman index
+    private int[] indexes;
+    private int[] slotsByIndex;
+
+    // Huffman tree: parent node and binary code of each node, and code length of each Huffman index
+    private int[] treeParents;
+    private byte[] treeBinary;
+    private byte[] codeLengths;
+    private int treeSize;
+
+    // label -> slot and storageId -> slot tables
+    private int[] labelTable;
+    private int[] idTable;
+    private int usedTableCells;
+
+    // number of slots ever allocated, and number of slots still present in vocabulary
+    private int slots;
+    private int numWords;
+
+    private long totalWordCount;
+    private long documentsCounter;
+
+    protected static final Logger logger = LoggerFactory.getLogger(CompactVocabCache.class);
+
+    protected CompactVocabCache(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        arena = new byte[capacity * 8];
+        labelOffsets = new int[capacity + 1];
+        labelHashes = new int[capacity];
+        frequencies = new double[capacity];
+        sequencesCounts = new long[capacity];
+        storageIds = new long[capacity];
+        flags = new byte[capacity];
+        indexes = new int[capacity];
+        slotsByIndex = new int[0];
+        treeParents = new int[0];
+        treeBinary = new byte[0];
+        codeLengths = new byte[0];
+
+        int tableSize = Integer.highestOneBit(capacity) << 2;
+        labelTable = new int[tableSize];
+        idTable = new int[tableSize];
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    private static int mix(long id) {
+        return mix((int) (id ^ (id >>> 32)));
+    }
+
+    /**
+     * Returns slot for specified label, or -1 if there's no such label
+     */
+    protected int slotOf(String label) {
+        int hash = label.hashCode();
+        int[] table = labelTable;
+        int mask = table.length - 1;
+        int idx = mix(hash) & mask;
+        int cell;
+        while ((cell = table[idx]) != FREE) {
+            if (cell != DELETED && labelHashes[cell - 1] == hash && labelEquals(cell - 1, label))
+                return cell - 1;
+            idx = (idx + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns slot for specified storageId, or -1 if there's no such element
+     */
+    protected int slotOf(long storageId) {
+        int[] table = idTable;
+        int mask = table.length - 1;
+        int idx = mix(storageId) & mask;
+        int cell;
+        while ((cell = table[idx]) != FREE) {
+            if (cell != DELETED && storageIds[cell - 1] == storageId)
+                return cell - 1;
+            idx = (idx + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean labelEquals(int slot, String label) {
+        int start = labelOffsets[slot];
+        int length = labelOffsets[slot + 1] - start;
+        int chars = label.length();
+
+        // UTF-8 representation is never shorter than number of chars
+        if (length < chars)
+            return false;
+
+        // ASCII labels are compared without decoding
+        int i = 0;
+        for (; i < chars; i++) {
+            char c = label.charAt(i);
+            byte b = arena[start + i];
+            if (c >= 0x80 || b < 0)
+                break;
+            if (c != b)
+                return false;
+        }
+
+        if (i == chars)
+            return length == chars;
+
+        return label.equals(new String(arena, start, length, StandardCharsets.UTF_8));
+    }
+
+    protected String labelAt(int slot) {
+        int start = labelOffsets[slot];
+        return new String(arena, start, labelOffsets[slot + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    protected int slotAtIndex(int index) {
+        if (index < 0 || index >= slotsByIndex.length)
+            return -1;
+        return slotsByIndex[index];
+    }
+
+    protected boolean isPresent(int slot) {
+        return slot >= 0 && (flags[slot] & FLAG_REMOVED) == 0;
+    }
+
+    /**
+     * This method materializes VocabWord view of specified slot
+     */
+    protected VocabWord elementAt(int slot) {
+        VocabWord word = new VocabWord(frequencies[slot], labelAt(slot), storageIds[slot]);
+        word.setSequencesCount(sequencesCounts[slot]);
+        word.setSpecial((flags[slot] & FLAG_SPECIAL) != 0);
+        word.markAsLabel((flags[slot] & FLAG_LABEL) != 0);
+
+        int index = indexes[slot];
+        word.setIndex(index);
+        if (index >= 0 && index < treeSize) {
+            int[] codes = new int[MAX_CODE_LENGTH];
+            int[] points = new int[MAX_CODE_LENGTH + 1];
+            int length = huffmanPath(index, codes, points);
+
+            List<Byte> codesList = new ArrayList<>(length);
+            List<Integer> pointsList = new ArrayList<>(length + 1);
+            for (int i = 0; i < length; i++) {
+                codesList.add((byte) codes[i]);
+                pointsList.add(points[i]);
+            }
+            pointsList.add(points[length]);
+
+            word.setCodes(codesList);
+            word.setPoints(pointsList);
+            word.setCodeLength((short) length);
+        }
+
+        return word;
+    }
+
+    /**
+     * This method fills Huffman codes and points of element with specified index, in the same layout as
+     * {@link org.deeplearning4j.models.word2vec.Huffman} uses for VocabWord codes/points, without creating any objects.
+     *
+     * @param index Huffman index of element
+     * @param codes array of at least MAX_CODE_LENGTH elements
+     * @param points array of at least MAX_CODE_LENGTH + 1 elements
+     * @return code length, or -1 if Huffman tree wasn't built for this element
+     */
+    public int huffmanPath(int index, int[] codes, int[] points) {
+        int n = treeSize;
+        if (index < 0 || index >= n)
+            return -1;
+
+        // walking from leaf to root, and writing path in reverse order
+        int length = codeLengths[index];
+        int b = index;
+        int i = 0;
+        do {
+            codes[length - i - 1] = treeBinary[b];
+            points[length - i] = b - n;
+            i++;
+            b = treeParents[b];
+        } while (b != n * 2 - 2 && i < length);
+        points[0] = 0;
+
+        return length;
+    }
+
+    /**
+     * Returns Huffman code length of element with specified index, or -1 if Huffman tree wasn't built for it
+     */
+    public int codeLengthAt(int index) {
+        return index < 0 || index >= treeSize ? -1 : codeLengths[index];
+    }
+
+    /**
+     * Returns frequency of element with specified Huffman index, or 0 if there's no such element
+     */
+    public double frequencyAt(int index) {
+        int slot = slotAtIndex(index);
+        return isPresent(slot) ? frequencies[slot] : 0.0;
+    }
+
+    /**
+     * This method builds Huffman tree over all elements, ordered by descending frequency, and assigns their indexes.
+     * Codes and points are the same as {@link org.deeplearning4j.models.word2vec.Huffman} would produce for
+     * VocabWords in the same order.
+     */
+    public synchronized void buildHuffmanTree() {
+        int n = numWords;
+        int[] order = new int[n];
+        int cnt = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (isPresent(slot))
+                order[cnt++] = slot;
+        }
+
+        // primitive sort, so no per-element objects are created for large vocabularies.
+        // ties are broken by slot, so elements with equal frequency keep insertion order
+        sortByFrequency(order, 0, n - 1);
+
+        long[] count = new long[n * 2 + 1];
+        byte[] binary = new byte[n * 2 + 1];
+        int[] parentNode = new int[n * 2 + 1];
+
+        for (int a = 0; a < n; a++)
+            count[a] = (long) frequencies[order[a]];
+        for (int a = n; a < n * 2; a++)
+            count[a] = Integer.MAX_VALUE;
+
+        int pos1 = n - 1;
+        int pos2 = n;
+        int min1i;
+        int min2i;
+
+        // Following algorithm constructs the Huffman tree by adding one node at a time
+        for (int a = 0; a < n - 1; a++) {
+            if (pos1 >= 0 && count[pos1] < count[pos2]) {
+                min1i = pos1--;
+            } else {
+                min1i = pos2++;
+            }
+
+            if (pos1 >= 0 && count[pos1] < count[pos2]) {
+                min2i = pos1--;
+            } else {
+                min2i = pos2++;
+            }
+
+            count[n + a] = count[min1i] + count[min2i];
+            parentNode[min1i] = n + a;
+            parentNode[min2i] = n + a;
+            binary[min2i] = 1;
+        }
+
+        // old indexes aren't valid anymore
+        Arrays.fill(indexes, 0, slots, -1);
+        int[] newSlotsByIndex = new int[n];
+        byte[] newCodeLengths = new byte[n];
+        for (int a = 0; a < n; a++) {
+            int slot = order[a];
+            newSlotsByIndex[a] = slot;
+            indexes[slot] = a;
+
+            int i = 0;
+            int b = a;
+            do {
+                i++;
+                b = parentNode[b];
+            } while (b != n * 2 - 2 && i < MAX_CODE_LENGTH - 1);
+            newCodeLengths[a] = (byte) i;
+        }
+
+        treeParents = parentNode;
+        treeBinary = binary;
+        codeLengths = newCodeLengths;
+        slotsByIndex = newSlotsByIndex;
+        treeSize = n;
+    }
+
+    /**
+     * Returns true if slot1 goes before slot2: descending frequency, then ascending slot
+     */
+    private boolean before(int slot1, int slot2) {
+        double f1 = frequencies[slot1];
+        double f2 = frequencies[slot2];
+        return f1 > f2 || (f1 == f2 && slot1 < slot2);
+    }
+
+    /**
+     * Sorts slots in place by descending frequency, then ascending slot
+     */
+    private void sortByFrequency(int[] order, int lo, int hi) {
+        while (hi - lo > 16) {
+            int pivot = order[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (before(order[i], pivot))
+                    i++;
+                while (before(pivot, order[j]))
+                    j--;
+                if (i <= j) {
+                    int t = order[i];
+                    order[i] = order[j];
+                    order[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+
+            // recurse into smaller half, iterate over the larger one
+            if (j - lo < hi - i) {
+                sortByFrequency(order, lo, j);
+                lo = i;
+            } else {
+                sortByFrequency(order, i, hi);
+                hi = j;
+            }
+        }
+
+        for (int i = lo + 1; i <= hi; i++) {
+            int slot = order[i];
+            int j = i - 1;
+            while (j >= lo && before(slot, order[j])) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = slot;
+        }
+    }
+
+    /**
+     * This method sets frequencies of all elements to 0, and updates total number of occurrences
+     */
+    public synchronized void resetCounters() {
+        Arrays.fill(frequencies, 0, slots, 0.0);
+        totalWordCount = 0;
+    }
+
+    @Override
+    public void loadVocab() {
+        // TODO: this method should be static and accept path
+    }
+
+    @Override
+    public boolean vocabExists() {
+        return numWords > 0;
+    }
+
+    @Override
+    public void saveVocab() {
+        // TODO: this method should be static and accept path
+    }
+
+    @Override
+    public Collection<String> words() {
+        return new SlotCollection<String>() {
+            @Override
+            protected String get(int slot) {
+                return labelAt(slot);
+            }
+        };
+    }
+
+    @Override
+    public void incrementWordCount(String word) {
+        incrementWordCount(word, 1);
+    }
+
+    @Override
+    public synchronized void incrementWordCount(String word, int increment) {
+        int slot = slotOf(word);
+        if (slot >= 0) {
+            frequencies[slot] += increment;
+            totalWordCount += increment;
+        }
+    }
+
+    @Override
+    public int wordFrequency(@NonNull String word) {
+        int slot = slotOf(word);
+        return slot < 0 ? 0 : (int) frequencies[slot];
+    }
+
+    @Override
+    public boolean containsWord(String word) {
+        return slotOf(word) >= 0;
+    }
+
+    @Override
+    public String wordAtIndex(int index) {
+        int slot = slotAtIndex(index);
+        return isPresent(slot) ? labelAt(slot) : null;
+    }
+
+    @Override
+    public VocabWord elementAtIndex(int index) {
+        int slot = slotAtIndex(index);
+        return isPresent(slot) ? elementAt(slot) : null;
+    }
+
+    /**
+     * Returns Huffman index for specified label
+     *
+     * @param label the label to get index for
+     * @return >=0 if label exists, -1 if Huffman tree wasn't built yet, -2 if specified label wasn't found
+     */
+    @Override
+    public int indexOf(String label) {
+        int slot = slotOf(label);
+        return slot < 0 ? -2 : indexes[slot];
+    }
+
+    @Override
+    public Collection<VocabWord> vocabWords() {
+        return new SlotCollection<VocabWord>() {
+            @Override
+            protected VocabWord get(int slot) {
+                return elementAt(slot);
+            }
+        };
+    }
+
+    @Override
+    public long totalWordOccurrences() {
+        return totalWordCount;
+    }
+
+    @Override
+    public VocabWord wordFor(@NonNull String word) {
+        int slot = slotOf(word);
+        return slot < 0 ? null : elementAt(slot);
+    }
+
+    @Override
+    public VocabWord wordFor(long id) {
+        int slot = slotOf(id);
+        return slot < 0 ? null : elementAt(slot);
+    }
+
+    @Override
+    public synchronized void addWordToIndex(int index, String word) {
+        setIndex(index, slotOf(word));
+    }
+
+    @Override
+    public synchronized void addWordToIndex(int index, long elementId) {
+        setIndex(index, slotOf(elementId));
+    }
+
+    private void setIndex(int index, int slot) {
+        if (index < 0 || slot < 0)
+            return;
+
+        // indexes assigned from outside don't match Huffman tree built by this cache anymore
+        treeSize = 0;
+
+        if (index >= slotsByIndex.length) {
+            int oldLength = slotsByIndex.length;
+            slotsByIndex = Arrays.copyOf(slotsByIndex, Math.max(index + 1, oldLength + (oldLength >> 1)));
+            Arrays.fill(slotsByIndex, oldLength, slotsByIndex.length, -1);
+        }
+
+        slotsByIndex[index] = slot;
+        indexes[slot] = index;
+    }
+
+    @Override
+    @Deprecated
+    public void putVocabWord(String word) {
+        if (!containsWord(word))
+            throw new IllegalStateException("Specified label is not present in vocabulary");
+    }
+
+    @Override
+    public int numWords() {
+        return numWords;
+    }
+
+    @Override
+    public int docAppearedIn(String word) {
+        int slot = slotOf(word);
+        return slot < 0 ? -1 : (int) sequencesCounts[slot];
+    }
+
+    @Override
+    public synchronized void incrementDocCount(String word, long howMuch) {
+        int slot = slotOf(word);
+        if (slot >= 0)
+            sequencesCounts[slot] += howMuch;
+    }
+
+    @Override
+    public synchronized void setCountForDoc(String word, long count) {
+        int slot = slotOf(word);
+        if (slot >= 0)
+            sequencesCounts[slot] = count;
+    }
+
+    @Override
+    public long totalNumberOfDocs() {
+        return documentsCounter;
+    }
+
+    @Override
+    public synchronized void incrementTotalDocCount() {
+        documentsCounter++;
+    }
+
+    @Override
+    public synchronized void incrementTotalDocCount(long by) {
+        documentsCounter += by;
+    }
+
+    @Override
+    public Collection<VocabWord> tokens() {
+        return vocabWords();
+    }
+
+    /**
+     * This method adds specified element to vocabulary. If element with the same label already exists,
+     * its frequency and sequences count are increased instead.
+     * Please note: only label, frequency, sequences count, storageId and special/label flags are stored.
+     *
+     * @param element the word to add
+     */
+    @Override
+    public synchronized void addToken(@NonNull VocabWord element) {
+        String label = element.getLabel();
+        if (label == null)
+            throw new IllegalArgumentException("CompactVocabCache can't hold elements without label");
+
+        int slot = slotOf(label);
+        if (slot >= 0) {
+            sequencesCounts[slot] += element.getSequencesCount();
+            frequencies[slot] += element.getElementFrequency();
+        } else {
+            slot = allocateSlot(label, element.getStorageId() == null ? SequenceElement.getLongHash(label)
+                            : element.getStorageId());
+            frequencies[slot] = element.getElementFrequency();
+            sequencesCounts[slot] = element.getSequencesCount();
+            flags[slot] = (byte) ((element.isSpecial() ? FLAG_SPECIAL : 0) | (element.isLabel() ? FLAG_LABEL : 0));
+        }
+
+        totalWordCount += (long) element.getElementFrequency();
+    }
+
+    private int allocateSlot(String label, long storageId) {
+        byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+
+        if (slots == frequencies.length)
+            growSlots();
+
+        int start = labelOffsets[slots];
+        if (start + bytes.length > arena.length)
+            arena = Arrays.copyOf(arena, (int) Math.min(Integer.MAX_VALUE - 8,
+                            Math.max((long) arena.length * 3 / 2, (long) start + bytes.length)));
+        System.arraycopy(bytes, 0, arena, start, bytes.length);
+
+        int slot = slots++;
+        labelOffsets[slot + 1] = start + bytes.length;
+        labelHashes[slot] = label.hashCode();
+        storageIds[slot] = storageId;
+        indexes[slot] = -1;
+        numWords++;
+
+        if (usedTableCells + 1 > labelTable.length * LOAD_FACTOR)
+            rebuildTables(labelTable.length << 1);
+
+        insert(labelTable, mix(labelHashes[slot]), slot);
+        insert(idTable, mix(storageId), slot);
+        usedTableCells++;
+
+        return slot;
+    }
+
+    private static void insert(int[] table, int hash, int slot) {
+        int mask = table.length - 1;
+        int idx = hash & mask;
+        while (table[idx] != FREE)
+            idx = (idx + 1) & mask;
+        table[idx] = slot + 1;
+    }
+
+    private void growSlots() {
+        int capacity = frequencies.length + (frequencies.length >> 1) + 1;
+        labelOffsets = Arrays.copyOf(labelOffsets, capacity + 1);
+        labelHashes = Arrays.copyOf(labelHashes, capacity);
+        frequencies = Arrays.copyOf(frequencies, capacity);
+        sequencesCounts = Arrays.copyOf(sequencesCounts, capacity);
+        storageIds = Arrays.copyOf(storageIds, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        indexes = Arrays.copyOf(indexes, capacity);
+    }
+
+    /**
+     * Rebuilds hash tables from present slots, dropping DELETED markers
+     */
+    private void rebuildTables(int tableSize) {
+        // removed elements don't need space in tables
+        while (tableSize > 16 && numWords + 1 <= (tableSize >> 1) * LOAD_FACTOR)
+            tableSize >>= 1;
+
+        labelTable = new int[tableSize];
+        idTable = new int[tableSize];
+        usedTableCells = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (!isPresent(slot))
+                continue;
+            insert(labelTable, mix(labelHashes[slot]), slot);
+            insert(idTable, mix(storageIds[slot]), slot);
+            usedTableCells++;
+        }
+    }
+
+    @Override
+    public VocabWord tokenFor(String word) {
+        return wordFor(word);
+    }
+
+    @Override
+    public VocabWord tokenFor(long id) {
+        return wordFor(id);
+    }
+
+    @Override
+    public boolean hasToken(String token) {
+        return containsWord(token);
+    }
+
+    @Override
+    public synchronized void importVocabulary(@NonNull VocabCache<VocabWord> vocabCache) {
+        for (VocabWord element : vocabCache.vocabWords()) {
+            addToken(element);
+        }
+        documentsCounter += vocabCache.totalNumberOfDocs();
+    }
+
+    @Override
+    public synchronized void updateWordsOccurencies() {
+        totalWordCount = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (isPresent(slot) && frequencies[slot] > 0)
+                totalWordCount += (long) frequencies[slot];
+        }
+        logger.info("Updated counter: [" + totalWordCount + "]");
+    }
+
+    /**
+     * Removes element from vocabulary. Please note: space used by removed element isn't reclaimed.
+     */
+    @Override
+    public synchronized void removeElement(String label) {
+        int slot = slotOf(label);
+        if (slot < 0)
+            throw new IllegalStateException("Can't get label: '" + label + "'");
+
+        totalWordCount -= (long) frequencies[slot];
+        remove(labelTable, mix(labelHashes[slot]), slot);
+        remove(idTable, mix(storageIds[slot]), slot);
+        flags[slot] |= FLAG_REMOVED;
+        numWords--;
+
+        int index = indexes[slot];
+        if (index >= 0 && index < slotsByIndex.length)
+            slotsByIndex[index] = -1;
+    }
+
+    private static void remove(int[] table, int hash, int slot) {
+        int mask = table.length - 1;
+        int idx = hash & mask;
+        while (table[idx] != FREE) {
+            if (table[idx] == slot + 1) {
+                table[idx] = DELETED;
+                return;
+            }
+            idx = (idx + 1) & mask;
+        }
+    }
+
+    @Override
+    public void removeElement(VocabWord element) {
+        removeElement(element.getLabel());
+    }
+
+    /**
+     * Lazy collection over present slots
+     */
+    private abstract class SlotCollection<E> extends AbstractCollection<E> {
+        protected abstract E get(int slot);
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int next = advance(0);
+
+                private int advance(int from) {
+                    while (from < slots && !isPresent(from))
+                        from++;
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < slots;
+                }
+
+                @Override
+                public E next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    E element = get(next);
+                    next = advance(next + 1);
+                    return element;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return numWords;
+        }
+    }
+
+    public static class Builder {
+        protected int initialCapacity = 1024;
+
+        /**
+         * Number of elements this vocabulary is expected to hold. Arrays grow as needed, but setting this value
+         * avoids copying for large vocabularies.
+         *
+         * @param capacity
+         * @return
+         */
+        public Builder initialCapacity(int capacity) {
+            this.initialCapacity = capacity;
+            return this;
+        }
+
+        public CompactVocabCache build() {
+            return new CompactVocabCache(initialCapacity);
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package org.deeplearning4j.models.word2vec.wordstore.mapped;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Read-only word vector store, backed by a memory mapped file.<br>
+ * Vectors, norms, word counts and the word dictionary (UTF-8 string arena + open addressing hash table) all live in
+ * the mapped file, so nothing is kept on heap per word: opening a store is almost free, pages are only read from disk
+ * when used, and several JVMs serving the same file share a single copy in the OS page cache.<br>
+ * All lookups use absolute reads only, so a store can be used by any number of threads concurrently.<br>
+ * Files are created with {@link Writer}. Layout (little endian): 128 byte header, then vectors
+ * ([numWords, vectorLength] float32, row major), norm2 of each vector (float32), counts (float32), string offsets
+ * (int32, numWords+1 values), string arena (UTF-8) and hash table (int32, word index + 1, 0 for empty slots).
+ * Each section starts at a 64 byte aligned offset.
+ */
+@Slf4j
+public class MappedVectorStore {
+    public static final byte[] MAGIC = "DL4JW2VM".getBytes(StandardCharsets.US_ASCII);
+    public static final int VERSION = 1;
+    protected static final int HEADER_SIZE = 128;
+    protected static final int ALIGNMENT = 64;
+    // vectors are mapped in segments of whole rows, each segment at most this size
+    protected static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    @Getter
+    protected final int numWords;
+    @Getter
+    protected final int vectorLength;
+    @Getter
+    protected final long totalWordOccurrences;
+
+    protected final int rowsPerSegment;
+    protected final FloatBuffer[] vectorSegments;
+    protected final FloatBuffer norms;
+    protected final FloatBuffer counts;
+    protected final IntBuffer stringOffsets;
+    protected final ByteBuffer arena;
+    protected final IntBuffer table;
+    protected final int tableMask;
+
+    protected MappedVectorStore(@NonNull File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            ByteBuffer header = map(channel, 0, HEADER_SIZE);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(MAGIC, magic))
+                throw new IOException("Not a mapped word vectors file: " + file.getAbsolutePath());
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported mapped word vectors version: " + version);
+
+            numWords = header.getInt();
+            vectorLength = header.getInt();
+            int tableCapacity = header.getInt();
+            long vectorsOffset = header.getLong();
+            long normsOffset = header.getLong();
+            long countsOffset = header.getLong();
+            long stringOffsetsOffset = header.getLong();
+            long arenaOffset = header.getLong();
+            long arenaLength = header.getLong();
+            long tableOffset = header.getLong();
+
+            // mappings stay valid after the channel is closed
+            long rowBytes = 4L * Math.max(vectorLength, 1);
+            rowsPerSegment = (int) Math.max(1, Math.min(Integer.MAX_VALUE, MAX_SEGMENT_BYTES / rowBytes));
+            int numSegments = (numWords + rowsPerSegment - 1) / rowsPerSegment;
+            vectorSegments = new FloatBuffer[numSegments];
+            for (int i = 0; i < numSegments; i++) {
+                int rows = Math.min(rowsPerSegment, numWords - i * rowsPerSegment);
+                long segmentOffset = vectorsOffset + (long) i * rowsPerSegment * rowBytes;
+                vectorSegments[i] = map(channel, segmentOffset, rows * rowBytes).asFloatBuffer();
+            }
+
+            norms = map(channel, normsOffset, 4L * numWords).asFloatBuffer();
+            counts = map(channel, countsOffset, 4L * numWords).asFloatBuffer();
+            stringOffsets = map(channel, stringOffsetsOffset, 4L * (numWords + 1)).asIntBuffer();
+            arena = map(channel, arenaOffset, arenaLength);
+            table = map(channel, tableOffset, 4L * tableCapacity).asIntBuffer();
+            tableMask = tableCapacity - 1;
+        }
+
+        long total = 0;
+        for (int i = 0; i < numWords; i++)
+            total += (long) counts.get(i);
+        totalWordOccurrences = total;
+    }
+
+    /**
+     * Open a store previously written with {@link Writer}
+     *
+     * @param file mapped word vectors file
+     * @return store instance
+     * @throws IOException
+     */
+    public static MappedVectorStore open(@NonNull File file) throws IOException {
+        return new MappedVectorStore(file);
+    }
+
+    protected static ByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * This method returns index of given word, or -1 if there's no such word
+     *
+     * @param word
+     * @return
+     */
+    public int indexOf(String word) {
+        if (word == null)
+            return -1;
+
+        byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+        int slot = hash(bytes) & tableMask;
+        int value;
+        while ((value = table.get(slot)) != 0) {
+            int idx = value - 1;
+            if (equalsAt(idx, bytes))
+                return idx;
+            slot = (slot + 1) & tableMask;
+        }
+        return -1;
+    }
+
+    /**
+     * This method returns word at given index
+     *
+     * @param index
+     * @return
+     */
+    public String wordAt(int index) {
+        int start = stringOffsets.get(index);
+        int end = stringOffsets.get(index + 1);
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = arena.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * This method returns number of occurrences for word at given index, as stored in source model
+     */
+    public double countAt(int index) {
+        return counts.get(index);
+    }
+
+    /**
+     * This method returns norm2 of vector at given index
+     */
+    public float normAt(int index) {
+        return norms.get(index);
+    }
+
+    /**
+     * This method copies vector at given index into provided array
+     *
+     * @param index  word index
+     * @param target array of at least vectorLength elements
+     */
+    public void getVector(int index, float[] target) {
+        FloatBuffer segment = vectorSegments[index / rowsPerSegment];
+        int offset = (index % rowsPerSegment) * vectorLength;
+        for (int i = 0; i < vectorLength; i++)
+            target[i] = segment.get(offset + i);
+    }
+
+    /**
+     * This method returns copy of vector at given index
+     */
+    public float[] getVector(int index) {
+        float[] result = new float[vectorLength];
+        getVector(index, result);
+        return result;
+    }
+
+    /**
+     * This method returns dot product of vector at given index and query vector
+     */
+    public double dot(int index, float[] query) {
+        FloatBuffer segment = vectorSegments[index / rowsPerSegment];
+        int offset = (index % rowsPerSegment) * vectorLength;
+        double sum = 0.0;
+        for (int i = 0; i < vectorLength; i++)
+            sum += segment.get(offset + i) * query[i];
+        return sum;
+    }
+
+    /**
+     * This method returns cosine similarity of vectors at given indices, reading straight from mapped pages
+     */
+    public double cosine(int index1, int index2) {
+        FloatBuffer s1 = vectorSegments[index1 / rowsPerSegment];
+        FloatBuffer s2 = vectorSegments[index2 / rowsPerSegment];
+        int o1 = (index1 % rowsPerSegment) * vectorLength;
+        int o2 = (index2 % rowsPerSegment) * vectorLength;
+        double sum = 0.0;
+        for (int i = 0; i < vectorLength; i++)
+            sum += s1.get(o1 + i) * s2.get(o2 + i);
+
+        double denom = (double) norms.get(index1) * norms.get(index2);
+        return denom == 0.0 ? 0.0 : sum / denom;
+    }
+
+    /**
+     * This method scans all stored vectors, and returns indices of top N vectors nearest to query vector,
+     * most similar first
+     *
+     * @param query      query vector
+     * @param top        number of results
+     * @param normalized if true, cosine similarity is used, dot product otherwise
+     * @param exclude    indices to be excluded from results, may be null
+     * @return
+     */
+    public int[] nearest(final float[] query, int top, boolean normalized, Set<Integer> exclude) {
+        double queryNorm = 0.0;
+        for (float v : query)
+            queryNorm += v * v;
+        queryNorm = Math.sqrt(queryNorm);
+
+        // min-heap over scores, holding current top N
+        PriorityQueue<double[]> heap = new PriorityQueue<>(Math.max(top, 1), new Comparator<double[]>() {
+            @Override
+            public int compare(double[] o1, double[] o2) {
+                return Double.compare(o1[0], o2[0]);
+            }
+        });
+
+        for (int i = 0; i < numWords; i++) {
+            if (exclude != null && exclude.contains(i))
+                continue;
+
+            double score = dot(i, query);
+            if (normalized) {
+                double denom = norms.get(i) * queryNorm;
+                score = denom == 0.0 ? 0.0 : score / denom;
+            }
+
+            if (heap.size() < top) {
+                heap.add(new double[] {score, i});
+            } else if (top > 0 && heap.peek()[0] < score) {
+                heap.poll();
+                heap.add(new double[] {score, i});
+            }
+        }
+
+        int[] result = new int[heap.size()];
+        for (int i = result.length - 1; i >= 0; i--)
+            result[i] = (int) heap.poll()[1];
+
+        return result;
+    }
+
+    protected boolean equalsAt(int index, byte[] bytes) {
+        int start = stringOffsets.get(index);
+        int end = stringOffsets.get(index + 1);
+        if (end - start != bytes.length)
+            return false;
+        for (int i = 0; i < bytes.length; i++) {
+            if (arena.get(start + i) != bytes[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * FNV-1a hash over UTF-8 bytes
+     */
+    protected static int hash(byte[] bytes) {
+        int h = 0x811C9DC5;
+        for (byte b : bytes) {
+            h ^= (b & 0xFF);
+            h *= 0x01000193;
+        }
+        // final mix, since low bits are used for slot index
+        h ^= (h >>> 16);
+        return h;
+    }
+
+    protected static long align(long offset) {
+        long rem = offset % ALIGNMENT;
+        return rem == 0 ? offset : offset + ALIGNMENT - rem;
+    }
+
+
+    /**
+     * Streaming writer for mapped word vectors files: vectors are written to disk as they're added,
+     * dictionary and header are written on close.
+     * Words must be unique, and are indexed in order of addition.
+     */
+    public static class Writer implements AutoCloseable {
+        protected final File file;
+        protected final RandomAccessFile raf;
+        protected final FileChannel channel;
+        protected final DataOutputStream vectorsStream;
+        protected int vectorLength = -1;
+        protected int numWords = 0;
+
+        protected final ByteArrayOutputStream arenaStream = new ByteArrayOutputStream();
+        protected final List<Integer> offsets = new ArrayList<>();
+        protected float[] norms = new float[1024];
+        protected float[] counts = new float[1024];
+        protected final ByteBuffer rowBuffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        public Writer(@NonNull File file) throws IOException {
+            this.file = file;
+            this.raf = new RandomAccessFile(file, "rw");
+            raf.setLength(0);
+            this.channel = raf.getChannel();
+            channel.position(HEADER_SIZE);
+            this.vectorsStream = new DataOutputStream(
+                            new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 20));
+            offsets.add(0);
+        }
+
+        /**
+         * Add next word with its vector
+         *
+         * @param word   word label
+         * @param count  number of occurrences of the word
+         * @param vector word vector
+         */
+        public void add(@NonNull String word, double count, @NonNull float[] vector) throws IOException {
+            if (vectorLength < 0)
+                vectorLength = vector.length;
+            else if (vector.length != vectorLength)
+                throw new IllegalArgumentException("Vector length mismatch for word [" + word + "]: expected "
+                                + vectorLength + ", got " + vector.length);
+
+            double norm = 0.0;
+            for (int i = 0; i < vector.length; i++) {
+                norm += vector[i] * vector[i];
+                if (rowBuffer.remaining() < 4)
+                    flushRow();
+                rowBuffer.putFloat(vector[i]);
+            }
+            flushRow();
+
+            if (numWords == norms.length) {
+                norms = Arrays.copyOf(norms, norms.length * 2);
+                counts = Arrays.copyOf(counts, counts.length * 2);
+            }
+            norms[numWords] = (float) Math.sqrt(norm);
+            counts[numWords] = (float) count;
+
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            arenaStream.write(bytes);
+            offsets.add(arenaStream.size());
+            numWords++;
+        }
+
+        protected void flushRow() throws IOException {
+            vectorsStream.write(rowBuffer.array(), 0, rowBuffer.position());
+            rowBuffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                vectorsStream.flush();
+                long vectorsOffset = HEADER_SIZE;
+                long position = align(vectorsOffset + 4L * numWords * Math.max(vectorLength, 0));
+
+                long normsOffset = position;
+                position = writeFloats(norms, normsOffset);
+                long countsOffset = position;
+                position = writeFloats(counts, countsOffset);
+
+                long stringOffsetsOffset = position;
+                ByteBuffer buffer = ByteBuffer.allocate(4 * offsets.size()).order(ByteOrder.LITTLE_ENDIAN);
+                for (Integer o : offsets)
+                    buffer.putInt(o);
+                position = align(writeFully(buffer, stringOffsetsOffset));
+
+                long arenaOffset = position;
+                byte[] arenaBytes = arenaStream.toByteArray();
+                position = align(writeFully(ByteBuffer.wrap(arenaBytes), arenaOffset));
+
+                // open addressing table, load factor <= 0.5
+                int capacity = Integer.highestOneBit(Math.max(2, numWords) * 2 - 1) << 1;
+                int mask = capacity - 1;
+                int[] table = new int[capacity];
+                for (int i = 0; i < numWords; i++) {
+                    byte[] bytes = Arrays.copyOfRange(arenaBytes, offsets.get(i), offsets.get(i + 1));
+                    int slot = hash(bytes) & mask;
+                    while (table[slot] != 0)
+                        slot = (slot + 1) & mask;
+                    table[slot] = i + 1;
+                }
+                long tableOffset = position;
+                buffer = ByteBuffer.allocate(4 * capacity).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.asIntBuffer().put(table);
+                writeFully(buffer, tableOffset);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.put(MAGIC);
+                header.putInt(VERSION);
+                header.putInt(numWords);
+                header.putInt(Math.max(vectorLength, 0));
+                header.putInt(capacity);
+                header.putLong(vectorsOffset);
+                header.putLong(normsOffset);
+                header.putLong(countsOffset);
+                header.putLong(stringOffsetsOffset);
+                header.putLong(arenaOffset);
+                header.putLong(arenaBytes.length);
+                header.putLong(tableOffset);
+                header.position(0);
+                writeFully(header, 0);
+            } finally {
+                vectorsStream.close();
+                raf.close();
+            }
+        }
+
+        protected long writeFloats(float[] values, long offset) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(4 * numWords).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.asFloatBuffer().put(values, 0, numWords);
+            return align(writeFully(buffer, offset));
+        }
+
+        protected long writeFully(ByteBuffer buffer, long offset) throws IOException {
+            long position = offset;
+            while (buffer.hasRemaining())
+                position += channel.write(buffer, position);
+            return position;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package org.deeplearning4j.models.word2vec.wordstore.mapped;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+
+import java.util.AbstractList;
+import java.util.Collection;
+
+/**
+ * Read-only VocabCache view over {@link MappedVectorStore} dictionary.
+ * Nothing is held on heap per word: VocabWord instances are created on demand, and
+ * collections returned by words()/vocabWords() are lazy views.
+ * PLEASE NOTE: All methods that modify vocabulary throw UnsupportedOperationException.
+ */
+public class MappedVocabCache implements VocabCache<VocabWord> {
+    private static final String READ_ONLY = "Mapped vocabulary is read-only";
+
+    protected final transient MappedVectorStore store;
+
+    public MappedVocabCache(@NonNull MappedVectorStore store) {
+        this.store = store;
+    }
+
+    protected VocabWord elementAt(int index) {
+        VocabWord word = new VocabWord(store.countAt(index), store.wordAt(index));
+        word.setIndex(index);
+        return word;
+    }
+
+    @Override
+    public void loadVocab() {
+        // no-op, vocab lives in mapped file
+    }
+
+    @Override
+    public boolean vocabExists() {
+        return true;
+    }
+
+    @Override
+    public void saveVocab() {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public Collection<String> words() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return store.wordAt(index);
+            }
+
+            @Override
+            public int size() {
+                return store.getNumWords();
+            }
+        };
+    }
+
+    @Override
+    public void incrementWordCount(String word) {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public void incrementWordCount(String word, int increment) {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public int wordFrequency(String word) {
+        int idx = store.indexOf(word);
+        return idx < 0 ? 0 : (int) store.countAt(idx);
+    }
+
+    @Override
+    public boolean containsWord(String word) {
+        return store.indexOf(word) >= 0;
+    }
+
+    @Override
+    public String wordAtIndex(int index) {
+        if (index < 0 || index >= store.getNumWords())
+            return null;
+        return store.wordAt(index);
+    }
+
+    @Override
+    public VocabWord elementAtIndex(int index) {
+        if (index < 0 || index >= store.getNumWords())
+            return null;
+        return elementAt(index);
+    }
+
+    @Override
+    public int indexOf(String word) {
+        return store.indexOf(word);
+    }
+
+    @Override
+    public Collection<VocabWord> vocabWords() {
+        return new AbstractList<VocabWord>() {
+            @Override
+            public VocabWord get(int index) {
+                return elementAt(index);
+            }
+
+            @Override
+            public int size() {
+                return store.getNumWords();
+            }
+        };
+    }
+
+    @Override
+    public long totalWordOccurrences() {
+        return store.getTotalWordOccurrences();
+    }
+
+    @Override
+    public VocabWord wordFor(String word) {
+        int idx = store.indexOf(word);
+        return idx < 0 ? null : elementAt(idx);
+    }
+
+    @Override
+    public VocabWord wordFor(long id) {
+        throw new UnsupportedOperationException("Lookup by storageId isn't supported by mapped vocabulary");
+    }
+
+    @Override
+    public void addWordToIndex(int index, String word) {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public void addWordToIndex(int index, long elementId) {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public void putVocabWord(String word) {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public int numWords() {
+        return store.getNumWords();
+    }
+
+    @Override
+    public int docAppearedIn(String word) {
+        return -1;
+    }
+
+    @Override
+    public void incrementDocCount(String word, long howMuch) {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public void setCountForDoc(String word, long count) {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public long totalNumberOfDocs() {
+        return 0;
+    }
+
+    @Override
+    public void incrementTotalDocCount() {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public void incrementTotalDocCount(long by) {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public Collection<VocabWord> tokens() {
+        return vocabWords();
+    }
+
+    @Override
+    public void addToken(VocabWord element) {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public VocabWord tokenFor(String word) {
+        return wordFor(word);
+    }
+
+    @Override
+    public VocabWord tokenFor(long id) {
+        throw new UnsupportedOperationException("Lookup by storageId isn't supported by mapped vocabulary");
+    }
+
+    @Override
+    public boolean hasToken(String token) {
+        return containsWord(token);
+    }
+
+    @Override
+    public void importVocabulary(VocabCache<VocabWord> vocabCache) {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public void updateWordsOccurencies() {
+        // no-op, counts are fixed
+    }
+
+    @Override
+    public void removeElement(String label) {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public void removeElement(VocabWord element) {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+}
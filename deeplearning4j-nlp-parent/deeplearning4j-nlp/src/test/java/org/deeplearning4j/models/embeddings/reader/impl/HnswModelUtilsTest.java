@@ -0,0 +1,81 @@
+package org.deeplearning4j.models.embeddings.reader.impl;
+
+import org.datavec.api.util.ClassPathResource;
+import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.Word2Vec;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HnswModelUtilsTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    private static float[][] randomVectors(int n, int dimension, long seed) {
+        Random random = new Random(seed);
+        float[][] vectors = new float[n][dimension];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < dimension; j++)
+                vectors[i][j] = (float) random.nextGaussian();
+        return vectors;
+    }
+
+    @Test
+    public void testIndexRecall() throws Exception {
+        HnswIndex index = new HnswIndex.Builder().m(16).efConstruction(100).efSearch(100).workers(4).seed(12345)
+                        .build(randomVectors(3000, 24, 12345));
+
+        assertEquals(3000, index.getSize());
+        assertEquals(24, index.getDimension());
+        assertTrue(index.measureRecall(100, 10, 119) > 0.9);
+
+        // element itself should be the nearest one
+        float[] query = randomVectors(3000, 24, 12345)[17];
+        assertEquals(17, index.search(query, 1)[0]);
+    }
+
+    @Test
+    public void testIndexSaveLoad() throws Exception {
+        HnswIndex index = new HnswIndex.Builder().m(8).efConstruction(50).workers(2)
+                        .build(randomVectors(500, 16, 42));
+
+        File file = testDir.newFile("index.hnsw");
+        index.save(file);
+        HnswIndex restored = HnswIndex.load(file);
+
+        assertEquals(index.getSize(), restored.getSize());
+        assertEquals(index.getEfSearch(), restored.getEfSearch());
+
+        float[][] queries = randomVectors(20, 16, 7);
+        for (float[] query : queries)
+            assertArrayEquals(index.search(query, 5), restored.search(query, 5));
+    }
+
+    @Test
+    public void testWordsNearestMatchesBasic() throws Exception {
+        Word2Vec vec = WordVectorSerializer.loadGoogleModel(new ClassPathResource("vec.bin").getFile(), true, true);
+
+        List<String> expected = new ArrayList<>(vec.wordsNearest("Adam", 3));
+
+        HnswModelUtils<VocabWord> utils = new HnswModelUtils<>(new HnswIndex.Builder().efSearch(200));
+        vec.setModelUtils(utils);
+        assertEquals(expected, new ArrayList<>(vec.wordsNearest("Adam", 3)));
+
+        File file = testDir.newFile("vec.hnsw");
+        utils.saveIndex(file);
+
+        HnswModelUtils<VocabWord> restored = new HnswModelUtils<>();
+        vec.setModelUtils(restored);
+        restored.loadIndex(file);
+        assertEquals(expected, new ArrayList<>(vec.wordsNearest("Adam", 3)));
+    }
+}
@@ -23,6 +23,7 @@ import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author raver119@gmail.com
@@ -81,4 +82,53 @@ public class AbstractCoOccurrencesTest {
         assertEquals(16, list.size());
         assertEquals(16, cnt);
     }
+
+    @Test
+    public void testFitWithSpilling() throws Exception {
+        ClassPathResource resource = new ClassPathResource("big/raw_sentences.txt");
+        File file = resource.getFile();
+
+        AbstractCache<VocabWord> vocabCache = new AbstractCache.Builder<VocabWord>().build();
+        BasicLineIterator underlyingIterator = new BasicLineIterator(file);
+
+        TokenizerFactory t = new DefaultTokenizerFactory();
+        t.setTokenPreProcessor(new CommonPreprocessor());
+
+        SentenceTransformer transformer =
+                        new SentenceTransformer.Builder().iterator(underlyingIterator).tokenizerFactory(t).build();
+
+        AbstractSequenceIterator<VocabWord> sequenceIterator =
+                        new AbstractSequenceIterator.Builder<>(transformer).build();
+
+        VocabConstructor<VocabWord> constructor = new VocabConstructor.Builder<VocabWord>()
+                        .addSource(sequenceIterator, 1).setTargetVocabCache(vocabCache).build();
+
+        constructor.buildJointVocabulary(false, true);
+
+        AbstractCoOccurrences<VocabWord> inMemory = new AbstractCoOccurrences.Builder<VocabWord>()
+                        .iterate(sequenceIterator).vocabCache(vocabCache).symmetric(false).windowSize(5).build();
+        inMemory.fit();
+
+        // smallest possible budget: every worker spills lots of runs, and they're merged in multiple passes
+        AbstractCoOccurrences<VocabWord> spilled = new AbstractCoOccurrences.Builder<VocabWord>()
+                        .iterate(sequenceIterator).vocabCache(vocabCache).symmetric(false).windowSize(5).workers(4)
+                        .maxMemoryBytes(1).mergeFanIn(2).build();
+        spilled.fit();
+
+        assertTrue(inMemory.getNumberOfPairs() > 0);
+        assertEquals(inMemory.getNumberOfPairs(), spilled.getNumberOfPairs());
+
+        Iterator<Pair<Pair<VocabWord, VocabWord>, Double>> iterator = spilled.iterator();
+        int cnt = 0;
+        while (iterator.hasNext()) {
+            Pair<Pair<VocabWord, VocabWord>, Double> pair = iterator.next();
+            if (cnt++ % 100 == 0) {
+                double expected = inMemory.getCoOccurrenceCount(pair.getFirst().getFirst(),
+                                pair.getFirst().getSecond());
+                assertEquals(expected, pair.getSecond(), expected * 1e-3);
+            }
+        }
+
+        assertEquals(spilled.getNumberOfPairs(), cnt);
+    }
 }
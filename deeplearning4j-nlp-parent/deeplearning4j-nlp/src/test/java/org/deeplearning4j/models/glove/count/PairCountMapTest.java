@@ -0,0 +1,39 @@
+package org.deeplearning4j.models.glove.count;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PairCountMapTest {
+
+    @Test
+    public void testLargeCountsKeepIncrements() {
+        PairCountMap map = new PairCountMap(1 << 20);
+
+        //float accumulators stop registering increments of 1.0 at 2^24
+        int n = (1 << 24) + 1000;
+        for (int i = 0; i < n; i++) {
+            map.increment(1, 2, 1.0);
+        }
+        map.increment(2, 1, 0.1);
+
+        assertEquals(n, map.get(1, 2), 0.0);
+        assertEquals(0.1, map.get(2, 1), 0.0);
+        assertEquals(0.0, map.get(3, 4), 0.0);
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void testGrowKeepsValues() {
+        PairCountMap map = new PairCountMap(1 << 20);
+        for (int i = 0; i < 5000; i++) {
+            map.increment(i, i + 1, i + 0.5);
+            map.increment(i, i + 1, 1e-9);
+        }
+
+        assertEquals(5000, map.size());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i + 0.5 + 1e-9, map.get(i, i + 1), 1e-12);
+        }
+    }
+}
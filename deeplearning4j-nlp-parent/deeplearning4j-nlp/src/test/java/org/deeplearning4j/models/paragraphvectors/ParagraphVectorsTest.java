@@ -482,6 +482,22 @@ public class ParagraphVectorsTest {
         log.info("Cos A/C: {}", cosAC1);
         log.info("Cos C/D: {}", cosCD1);
 
+        // batched inference should give the same vectors as inference of single documents
+        List<String> texts = Arrays.asList("This is my work", "qwertyuiop", "This is my day");
+        List<INDArray> batched = vec.inferVectors(texts);
+        assertEquals(3, batched.size());
+        assertNull(batched.get(1));
+        assertTrue(Transforms.cosineSim(inferredA1.dup(), batched.get(0).dup()) > 0.9);
+        assertTrue(Transforms.cosineSim(inferredC1.dup(), batched.get(2).dup()) > 0.9);
+
+        List<Collection<String>> nearest = vec.nearestLabelsBatched(texts, 3);
+        assertEquals(3, nearest.size());
+        assertEquals(3, nearest.get(0).size());
+        assertTrue(nearest.get(1).isEmpty());
+
+        List<String> predicted = vec.predictBatched(texts);
+        assertEquals(nearest.get(2).iterator().next(), predicted.get(2));
+        assertNull(predicted.get(1));
     }
 
     @Test
@@ -0,0 +1,68 @@
+package org.deeplearning4j.models.word2vec;
+
+import org.datavec.api.util.ClassPathResource;
+import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
+import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
+import org.deeplearning4j.models.word2vec.wordstore.mapped.MappedVectorStore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class MappedWord2VecTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testConvertedModelMatchesOriginal() throws Exception {
+        File source = new ClassPathResource("vec.bin").getFile();
+        WordVectors original = WordVectorSerializer.loadGoogleModel(source, true, true);
+
+        File mapped = testDir.newFile("vec.mapped");
+        WordVectorSerializer.convertToMappedModel(source, mapped);
+        MappedWord2Vec vectors = WordVectorSerializer.loadMappedModel(mapped);
+
+        assertEquals(original.vocab().numWords(), vectors.vocab().numWords());
+        for (Object w : original.vocab().words()) {
+            String word = (String) w;
+            assertTrue(vectors.hasWord(word));
+            assertEquals(original.getWordVectorMatrix(word), vectors.getWordVectorMatrix(word));
+        }
+
+        assertEquals(original.similarity("Adam", "is"), vectors.similarity("Adam", "is"), 1e-5);
+        assertEquals(original.wordsNearest("Adam", 1).iterator().next(),
+                        vectors.wordsNearest("Adam", 1).iterator().next());
+        assertFalse(vectors.hasWord("no-such-word"));
+        assertNull(vectors.getWordVectorMatrix("no-such-word"));
+    }
+
+    @Test
+    public void testStoreLookups() throws Exception {
+        File file = testDir.newFile("store.mapped");
+        String[] words = {"alpha", "beta", "gamma", "\u03b4\u03ad\u03bb\u03c4\u03b1", "\u03b5"};
+        try (MappedVectorStore.Writer writer = new MappedVectorStore.Writer(file)) {
+            for (int i = 0; i < words.length; i++)
+                writer.add(words[i], i + 1, new float[] {i, 1.0f, -i});
+        }
+
+        MappedVectorStore store = MappedVectorStore.open(file);
+        assertEquals(words.length, store.getNumWords());
+        assertEquals(3, store.getVectorLength());
+        assertEquals(15, store.getTotalWordOccurrences());
+
+        for (int i = 0; i < words.length; i++) {
+            assertEquals(i, store.indexOf(words[i]));
+            assertEquals(words[i], store.wordAt(i));
+            assertEquals(i + 1, store.countAt(i), 0.0);
+            assertArrayEquals(new float[] {i, 1.0f, -i}, store.getVector(i), 0.0f);
+        }
+        assertEquals(-1, store.indexOf("delta"));
+
+        int[] nearest = store.nearest(new float[] {4.0f, 1.0f, -4.0f}, 2, true, null);
+        assertArrayEquals(new int[] {4, 3}, nearest);
+    }
+}
@@ -0,0 +1,61 @@
+package org.deeplearning4j.models.word2vec;
+
+import org.datavec.api.util.ClassPathResource;
+import org.deeplearning4j.models.embeddings.learning.ElementsLearningAlgorithm;
+import org.deeplearning4j.models.embeddings.learning.impl.elements.CBOW;
+import org.deeplearning4j.models.embeddings.learning.impl.elements.SkipGram;
+import org.deeplearning4j.text.sentenceiterator.BasicLineIterator;
+import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
+import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.CommonPreprocessor;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+
+/**
+ * Manual throughput benchmark: reports words/sec and words/sec per core for SkipGram and CBOW,
+ * with single worker and with all available cores.
+ */
+@Ignore
+public class Word2VecThroughputTest {
+    private static final Logger log = LoggerFactory.getLogger(Word2VecThroughputTest.class);
+
+    @Test
+    public void benchmarkSkipGram() throws Exception {
+        benchmark(new SkipGram<VocabWord>(), 1);
+        benchmark(new SkipGram<VocabWord>(), Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test
+    public void benchmarkCBOW() throws Exception {
+        benchmark(new CBOW<VocabWord>(), 1);
+        benchmark(new CBOW<VocabWord>(), Runtime.getRuntime().availableProcessors());
+    }
+
+    private void benchmark(ElementsLearningAlgorithm<VocabWord> algorithm, int workers) throws Exception {
+        File inputFile = new ClassPathResource("big/raw_sentences.txt").getFile();
+        SentenceIterator iter = new BasicLineIterator(inputFile);
+
+        TokenizerFactory t = new DefaultTokenizerFactory();
+        t.setTokenPreProcessor(new CommonPreprocessor());
+
+        int epochs = 1;
+        Word2Vec vec = new Word2Vec.Builder().minWordFrequency(5).iterations(1).epochs(epochs).layerSize(100)
+                        .seed(42).windowSize(5).learningRate(0.025).sampling(0).negativeSample(0)
+                        .useHierarchicSoftmax(true).elementsLearningAlgorithm(algorithm).workers(workers)
+                        .iterate(iter).tokenizerFactory(t).build();
+
+        long time1 = System.currentTimeMillis();
+        vec.fit();
+        long time2 = System.currentTimeMillis();
+
+        double seconds = Math.max(time2 - time1, 1) / 1000.0;
+        double wordsPerSecond = vec.getVocab().totalWordOccurrences() * epochs / seconds;
+        log.info("{} with {} workers: {} words/sec; {} words/sec per core", algorithm.getCodeName(), workers,
+                        (long) wordsPerSecond, (long) (wordsPerSecond / workers));
+    }
+}
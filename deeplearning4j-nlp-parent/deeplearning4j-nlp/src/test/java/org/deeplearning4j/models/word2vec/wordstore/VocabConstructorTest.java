@@ -125,6 +125,62 @@ public class VocabConstructorTest {
         assertEquals(634303, cache.totalWordOccurrences());
     }
 
+    @Test
+    public void testBuildJointVocabularyApproximate() throws Exception {
+        File inputFile = new ClassPathResource("big/raw_sentences.txt").getFile();
+
+        SentenceTransformer transformer = new SentenceTransformer.Builder().iterator(new BasicLineIterator(inputFile))
+                        .tokenizerFactory(t).build();
+        AbstractSequenceIterator<VocabWord> sequenceIterator =
+                        new AbstractSequenceIterator.Builder<>(transformer).build();
+
+        VocabCache<VocabWord> exact = new AbstractCache.Builder<VocabWord>().build();
+        VocabConstructor<VocabWord> reference = new VocabConstructor.Builder<VocabWord>()
+                        .addSource(sequenceIterator, 5).setTargetVocabCache(exact).build();
+        reference.buildJointVocabulary(false, true);
+
+        // tiny sketch, so there are plenty of collisions: they should never drop frequent elements
+        VocabCache<VocabWord> approximate = new AbstractCache.Builder<VocabWord>().build();
+        VocabConstructor<VocabWord> constructor = new VocabConstructor.Builder<VocabWord>()
+                        .addSource(sequenceIterator, 5).setTargetVocabCache(approximate).useApproximateCounting(true)
+                        .setSketchSize(512, 3).build();
+        constructor.buildJointVocabulary(false, true);
+
+        assertEquals(242, approximate.numWords());
+        assertEquals(634303, approximate.totalWordOccurrences());
+        assertEquals(reference.getNumberOfSequences(), constructor.getNumberOfSequences());
+
+        for (VocabWord word : exact.vocabWords()) {
+            assertEquals(word.getElementFrequency(), approximate.wordFrequency(word.getLabel()), 1e-5);
+        }
+    }
+
+    @Test
+    public void testCountMinSketch() throws Exception {
+        CountMinSketch sketch = new CountMinSketch(64, 4);
+        assertEquals(64, sketch.getWidth());
+
+        Map<String, Integer> counts = new HashMap<>();
+        Random random = new Random(119);
+        for (int i = 0; i < 10000; i++) {
+            String token = "token" + random.nextInt(500);
+            sketch.add(token);
+            Integer count = counts.get(token);
+            counts.put(token, count == null ? 1 : count + 1);
+        }
+
+        // sketch may overestimate, but never underestimates
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            assertTrue(sketch.estimate(entry.getKey()) >= entry.getValue());
+        }
+
+        CountMinSketch wide = new CountMinSketch(100, 4);
+        assertEquals(128, wide.getWidth());
+        wide.add("word", 5);
+        assertEquals(5, wide.estimate("word"));
+        assertEquals(0, new CountMinSketch().estimate("word"));
+    }
+
     @Test
     public void testCounter1() throws Exception {
         VocabCache<VocabWord> vocabCache = new AbstractCache.Builder<VocabWord>().build();
@@ -0,0 +1,156 @@
+package org.deeplearning4j.models.word2vec.wordstore.inmemory;
+
+import org.datavec.api.util.ClassPathResource;
+import org.deeplearning4j.models.sequencevectors.iterators.AbstractSequenceIterator;
+import org.deeplearning4j.models.sequencevectors.transformers.impl.SentenceTransformer;
+import org.deeplearning4j.models.word2vec.Huffman;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabConstructor;
+import org.deeplearning4j.text.sentenceiterator.BasicLineIterator;
+import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.CommonPreprocessor;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompactVocabCacheTest {
+
+    @Test
+    public void testLookups() throws Exception {
+        CompactVocabCache cache = new CompactVocabCache.Builder().initialCapacity(2).build();
+
+        cache.addToken(new VocabWord(1.0, "word"));
+        cache.addToken(new VocabWord(2.0, "test"));
+        cache.addToken(new VocabWord(3.0, "тест"));
+        cache.addToken(new VocabWord(2.0, "word"));
+
+        assertEquals(3, cache.numWords());
+        assertEquals(8, cache.totalWordOccurrences());
+        assertEquals(3, cache.wordFrequency("word"));
+        assertEquals(3, cache.wordFrequency("тест"));
+        assertTrue(cache.containsWord("тест"));
+        assertFalse(cache.containsWord("tes"));
+        assertEquals(-1, cache.indexOf("test"));
+        assertEquals(-2, cache.indexOf("missing"));
+
+        VocabWord word = cache.wordFor("test");
+        assertEquals("test", word.getLabel());
+        assertEquals("test", cache.wordFor(word.getStorageId()).getLabel());
+
+        cache.removeElement("test");
+        assertEquals(2, cache.numWords());
+        assertEquals(6, cache.totalWordOccurrences());
+        assertFalse(cache.containsWord("test"));
+        assertEquals(2, cache.vocabWords().size());
+
+        // fractional frequencies are kept when merging into an existing element
+        cache.addToken(new VocabWord(0.5, "half"));
+        cache.addToken(new VocabWord(0.75, "half"));
+        assertEquals(1.25, cache.wordFor("half").getElementFrequency(), 1e-9);
+        cache.removeElement("half");
+
+        // arrays and tables are growing past initial capacity
+        for (int i = 0; i < 10000; i++) {
+            cache.addToken(new VocabWord(1.0, "word" + i));
+        }
+        assertEquals(10002, cache.numWords());
+        assertTrue(cache.containsWord("word9999"));
+        assertTrue(cache.containsWord("тест"));
+    }
+
+    @Test
+    public void testHuffmanTree() throws Exception {
+        AbstractCache<VocabWord> reference = new AbstractCache.Builder<VocabWord>().build();
+        CompactVocabCache cache = new CompactVocabCache.Builder().build();
+
+        // distinct frequencies, so elements order doesn't depend on iteration order of AbstractCache
+        Random random = new Random(119);
+        for (int i = 0; i < 1000; i++) {
+            double frequency = i * 1000 + random.nextInt(1000);
+            reference.addToken(new VocabWord(frequency, "word" + i));
+            cache.addToken(new VocabWord(frequency, "word" + i));
+        }
+
+        Huffman huffman = new Huffman(reference.vocabWords());
+        huffman.build();
+        huffman.applyIndexes(reference);
+
+        cache.buildHuffmanTree();
+
+        int[] codes = new int[CompactVocabCache.MAX_CODE_LENGTH];
+        int[] points = new int[CompactVocabCache.MAX_CODE_LENGTH + 1];
+        for (VocabWord expected : reference.vocabWords()) {
+            VocabWord word = cache.wordFor(expected.getLabel());
+
+            assertEquals(expected.getIndex(), word.getIndex());
+            assertEquals(expected.getCodeLength(), word.getCodeLength());
+            assertEquals(expected.getCodes(), word.getCodes());
+            assertEquals(expected.getPoints(), word.getPoints());
+            assertEquals(expected.getLabel(), cache.wordAtIndex(expected.getIndex()));
+
+            int length = cache.huffmanPath(expected.getIndex(), codes, points);
+            assertEquals(expected.getCodeLength(), length);
+            for (int i = 0; i < length; i++) {
+                assertEquals((int) expected.getCodes().get(i), codes[i]);
+                assertEquals((int) expected.getPoints().get(i), points[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testHuffmanOrderWithEqualFrequencies() throws Exception {
+        CompactVocabCache cache = new CompactVocabCache.Builder().build();
+
+        // few distinct frequencies: elements with equal frequency must keep insertion order
+        for (int i = 0; i < 500; i++) {
+            cache.addToken(new VocabWord(i % 5, "word" + i));
+        }
+
+        cache.buildHuffmanTree();
+
+        int index = 0;
+        for (int f = 4; f >= 0; f--) {
+            for (int i = f; i < 500; i += 5) {
+                assertEquals("word" + i, cache.wordAtIndex(index));
+                assertEquals(f, cache.frequencyAt(index), 0.0);
+                index++;
+            }
+        }
+    }
+
+    @Test
+    public void testVocabConstructor() throws Exception {
+        File inputFile = new ClassPathResource("big/raw_sentences.txt").getFile();
+
+        TokenizerFactory t = new DefaultTokenizerFactory();
+        t.setTokenPreProcessor(new CommonPreprocessor());
+
+        SentenceTransformer transformer = new SentenceTransformer.Builder().iterator(new BasicLineIterator(inputFile))
+                        .tokenizerFactory(t).build();
+        AbstractSequenceIterator<VocabWord> sequenceIterator =
+                        new AbstractSequenceIterator.Builder<>(transformer).build();
+
+        AbstractCache<VocabWord> reference = new AbstractCache.Builder<VocabWord>().build();
+        new VocabConstructor.Builder<VocabWord>().addSource(sequenceIterator, 5).setTargetVocabCache(reference)
+                        .build().buildJointVocabulary(false, true);
+
+        CompactVocabCache cache = new CompactVocabCache.Builder().build();
+        new VocabConstructor.Builder<VocabWord>().addSource(sequenceIterator, 5).setTargetVocabCache(cache).build()
+                        .buildJointVocabulary(false, true);
+
+        assertEquals(reference.numWords(), cache.numWords());
+        assertEquals(reference.totalWordOccurrences(), cache.totalWordOccurrences());
+
+        for (VocabWord expected : reference.vocabWords()) {
+            VocabWord word = cache.wordFor(expected.getLabel());
+            assertNotNull(word);
+            assertEquals(expected.getElementFrequency(), word.getElementFrequency(), 1e-5);
+            assertTrue(word.getCodeLength() > 0);
+            assertEquals(word.getLabel(), cache.wordAtIndex(word.getIndex()));
+        }
+    }
+}
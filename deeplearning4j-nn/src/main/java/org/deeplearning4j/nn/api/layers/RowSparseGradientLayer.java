@@ -0,0 +1,37 @@
+/*-
+ *  * Copyright 2017 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.deeplearning4j.nn.api.layers;
+
+import org.deeplearning4j.nn.api.Layer;
+
+/**
+ * Interface for layers where the gradient of some parameters is non-zero for only a few rows of the parameter array.
+ * For example, the weight gradient of an embedding layer is non-zero only for the rows of the indices present in the
+ * current minibatch.<br>
+ * For these parameters, the updater can apply the update to the listed rows only, instead of the full array.
+ */
+public interface RowSparseGradientLayer extends Layer {
+
+    /**
+     * Get the rows of the gradient for the specified parameter that may be non-zero, as of the last backprop.
+     * All other rows of the gradient are zero, and the updater must leave them zero.
+     *
+     * @param paramName Name of the parameter
+     * @return Sorted, unique row indices; or null if the gradient for this parameter should be treated as dense
+     */
+    int[] getGradientRows(String paramName);
+}
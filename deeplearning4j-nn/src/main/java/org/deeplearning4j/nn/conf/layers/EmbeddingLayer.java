@@ -18,7 +18,9 @@ import java.util.Map;
  * with all but one value being zero).<br>
  * <b>Note</b>: can only be used as the first layer for a network<br>
  * <b>Note 2</b>: For a given example index i, the output is activationFunction(weights.getRow(i) + bias), hence the
- * weight rows can be considered a vector/embedding for each example.
+ * weight rows can be considered a vector/embedding for each example.<br>
+ * <b>Note 3</b>: With {@link Builder#sparseGradients(boolean)}, the weight updates are applied only to the rows of the
+ * indices present in each minibatch, instead of the full weight matrix.
  * @author Alex Black
  */
 @Data
@@ -27,8 +29,11 @@ import java.util.Map;
 @EqualsAndHashCode(callSuper = true)
 public class EmbeddingLayer extends FeedForwardLayer {
 
+    protected boolean sparseGradients = false;
+
     private EmbeddingLayer(Builder builder) {
         super(builder);
+        this.sparseGradients = builder.sparseGradients;
     }
 
     @Override
@@ -50,8 +55,26 @@ public class EmbeddingLayer extends FeedForwardLayer {
         return DefaultParamInitializer.getInstance();
     }
 
-    @AllArgsConstructor
+    @NoArgsConstructor
     public static class Builder extends FeedForwardLayer.Builder<Builder> {
+        protected boolean sparseGradients = false;
+
+        /**
+         * If true: the weight gradient is treated as row-sparse, and the updater is applied only to the rows of the
+         * indices present in the minibatch. This avoids work proportional to the size of the full weight matrix on
+         * each iteration, which is the dominant cost for large vocabularies.<br>
+         * Only used with SGD, AdaGrad, RMSProp, Adam or no updater, and without L1/L2 regularization on the weights;
+         * the layer falls back to dense updates otherwise. For SGD and AdaGrad the results are identical to dense
+         * updates. For RMSProp and Adam the updates are "lazy": the state for rows not present in the minibatch is
+         * not decayed, and these rows are not changed.<br>
+         * Default: false
+         *
+         * @param sparseGradients Whether to apply weight updates only to the rows present in each minibatch
+         */
+        public Builder sparseGradients(boolean sparseGradients) {
+            this.sparseGradients = sparseGradients;
+            return this;
+        }
 
         @Override
         @SuppressWarnings("unchecked")
@@ -97,6 +97,15 @@ public class DefaultGradient implements Gradient {
         }
     }
 
+    /**
+     * Get the flattened gradient array, if one was set on construction or already computed, without computing it.
+     *
+     * @return Flattened gradient array, or null if not available
+     */
+    public INDArray getFlattenedGradient() {
+        return flattenedGradient;
+    }
+
     @Override
     public INDArray gradient() {
         if (flattenedGradient != null)
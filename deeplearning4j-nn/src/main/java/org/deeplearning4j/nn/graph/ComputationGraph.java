@@ -38,6 +38,7 @@ import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.FeedForwardLayer;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.graph.util.ActivationLivenessPlan;
 import org.deeplearning4j.nn.graph.util.ComputationGraphUtil;
 import org.deeplearning4j.nn.graph.vertex.GraphVertex;
 import org.deeplearning4j.nn.graph.vertex.VertexIndices;
@@ -69,6 +70,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * A ComputationGraph network is a neural network with arbitrary (directed acyclic graph) connection structure.
@@ -83,6 +85,8 @@ public class ComputationGraph implements Serializable, Model {
     protected ComputationGraphConfiguration configuration;
     protected boolean initCalled = false;
     protected transient Solver solver; //Used to call optimizers during backprop
+    //Loads the updater state when the updater is first created; set by lazy model restore, null otherwise
+    protected transient Callable<INDArray> updaterStateLoader;
     protected INDArray flattenedParams; //Params for all layers are a view/subset of this array
     protected transient INDArray flattenedGradients; //Gradients for all layers are a view/subset of this array
     protected Gradient gradient;
@@ -103,6 +107,11 @@ public class ComputationGraph implements Serializable, Model {
      * (and hence also backward pass, which is the opposite to this) is conducted in the network.
      */
     protected int[] topologicalOrder;
+    /**
+     * Liveness of vertex outputs, based on the topological order. Used to release activations early when they aren't
+     * needed for backprop. Built lazily, see {@link #getActivationLivenessPlan()}
+     */
+    protected transient ActivationLivenessPlan livenessPlan;
     /**
      * A list of layers. Each of these layers is present in a GraphVertex, but are here for easy reference.
      * This array also defines the order in which the getLayer(int) method returns layers.
@@ -1087,7 +1096,19 @@ public class ComputationGraph implements Serializable, Model {
     }
 
     private Map<String, INDArray> feedForward(boolean train, boolean excludeOutputLayers) {
+        return feedForward(train, excludeOutputLayers, false);
+    }
+
+    /**
+     * @param releaseActivations If true: activations aren't needed after the pass (no backprop, and no activations
+     *                           map required by the caller). Each vertex output is released as soon as its last
+     *                           consumer has done its forward pass; only the inputs of the output layers are kept
+     *                           (for scoring), and the returned map contains the network outputs only
+     */
+    private Map<String, INDArray> feedForward(boolean train, boolean excludeOutputLayers,
+                    boolean releaseActivations) {
         Map<String, INDArray> layerActivations = new HashMap<>();
+        List<String> networkOutputs = configuration.getNetworkOutputs();
 
         //Do forward pass according to the topological ordering of the network
         for (int i = 0; i < topologicalOrder.length; i++) {
@@ -1096,7 +1117,8 @@ public class ComputationGraph implements Serializable, Model {
                 VertexIndices[] inputsTo = current.getOutputVertices();
                 INDArray input = inputs[current.getVertexIndex()];
 
-                layerActivations.put(current.getVertexName(), input);
+                if (!releaseActivations)
+                    layerActivations.put(current.getVertexName(), input);
 
                 for (VertexIndices v : inputsTo) {
                     int vIdx = v.getVertexIndex();
@@ -1115,7 +1137,7 @@ public class ComputationGraph implements Serializable, Model {
                 }
                 INDArray out = current.doForward(train);
 
-                if (current.hasLayer()) {
+                if (current.hasLayer() && (!releaseActivations || networkOutputs.contains(current.getVertexName()))) {
                     layerActivations.put(current.getVertexName(), out);
                 }
 
@@ -1130,11 +1152,51 @@ public class ComputationGraph implements Serializable, Model {
                     }
                 }
             }
+
+            if (releaseActivations)
+                releaseActivations(i, true);
         }
 
         return layerActivations;
     }
 
+    /**
+     * Get the liveness plan for the vertex outputs of this network, computed once from the topological order.
+     * Releasing according to this plan only clears the inputs stored in consumer vertices: arrays returned to the
+     * caller (such as network outputs) remain valid.
+     */
+    public ActivationLivenessPlan getActivationLivenessPlan() {
+        if (livenessPlan == null) {
+            livenessPlan = new ActivationLivenessPlan(vertices, topologicalOrder);
+        }
+        return livenessPlan;
+    }
+
+    /**
+     * Release the outputs of all vertices whose last consumer is the vertex at the specified step of the topological
+     * order. Outputs are referenced only by the inputs of the consumers (and their layers), so these are cleared.
+     *
+     * @param step                  Position in the topological order of the vertex that just did its forward pass
+     * @param keepOutputLayerInputs If true: don't clear inputs of output vertices, as these are needed for scoring
+     */
+    private void releaseActivations(int step, boolean keepOutputLayerInputs) {
+        for (int vIdx : getActivationLivenessPlan().getReleasableAfterStep(step)) {
+            VertexIndices[] outputsTo = vertices[vIdx].getOutputVertices();
+            if (outputsTo == null)
+                continue;
+
+            for (VertexIndices v : outputsTo) {
+                GraphVertex consumer = vertices[v.getVertexIndex()];
+                if (keepOutputLayerInputs && consumer.isOutputVertex())
+                    continue;
+
+                consumer.clear();
+                if (consumer.hasLayer())
+                    consumer.getLayer().setInput(null);
+            }
+        }
+    }
+
     /**
      * Return an array of network outputs (predictions) at test time, given the specified network inputs
      * Network outputs are for output layers only.
@@ -1167,6 +1229,9 @@ public class ComputationGraph implements Serializable, Model {
      * @return Output activations (order: same as defined in network configuration)
      */
     public INDArray[] output(boolean train, INDArray... input) {
+        if (!train)
+            return silentOutput(input);
+
         setInputs(input);
         Map<String, INDArray> activations = feedForward(train);
         INDArray[] outputs = new INDArray[numOutputArrays];
@@ -1177,6 +1242,52 @@ public class ComputationGraph implements Serializable, Model {
         return outputs;
     }
 
+    /**
+     * Inference-only forward pass, used by output() at test time.<br>
+     * Unlike {@link #feedForward(INDArray[], boolean)}, activations are not collected for all layers: only the
+     * network outputs are kept. Each vertex output is released once all of its consumers are done, according to
+     * {@link #getActivationLivenessPlan()}.
+     *
+     * @param input Inputs to the network
+     * @return Output activations (order: same as defined in network configuration)
+     */
+    protected INDArray[] silentOutput(INDArray... input) {
+        //Network inputs are required during the pass: LayerVertex preprocessors rely on batchSize()
+        setInputs(input);
+
+        List<String> networkOutputs = configuration.getNetworkOutputs();
+        INDArray[] outputs = new INDArray[numOutputArrays];
+        try {
+            for (int i = 0; i < topologicalOrder.length; i++) {
+                GraphVertex current = vertices[topologicalOrder[i]];
+
+                INDArray out;
+                if (current.isInputVertex()) {
+                    out = inputs[current.getVertexIndex()].dup();
+                } else {
+                    out = current.doForward(false);
+                }
+
+                int outputIdx = networkOutputs.indexOf(current.getVertexName());
+                if (outputIdx >= 0)
+                    outputs[outputIdx] = out;
+
+                VertexIndices[] outputsTo = current.getOutputVertices();
+                if (outputsTo != null) {
+                    for (VertexIndices v : outputsTo) {
+                        vertices[v.getVertexIndex()].setInput(v.getVertexEdgeNumber(), out);
+                    }
+                }
+
+                releaseActivations(i, false);
+            }
+        } finally {
+            this.inputs = new INDArray[numInputArrays];
+        }
+
+        return outputs;
+    }
+
     /**
      * A convenience method that returns a single INDArray, instead of an INDArray[].
      * Useful for ComputationGraphs that have only a single output.
@@ -1409,6 +1520,35 @@ public class ComputationGraph implements Serializable, Model {
         return solver.getOptimizer().getComputationGraphUpdater();
     }
 
+    /**
+     * Set a loader for the updater state, called once when the updater is first created (i.e., when training or
+     * saving the updater). Used to restore the updater state lazily, see
+     * {@link org.deeplearning4j.util.ModelSerializer}.
+     *
+     * @param updaterStateLoader Loader for the updater state, or null to clear
+     */
+    public void setUpdaterStateLoader(Callable<INDArray> updaterStateLoader) {
+        this.updaterStateLoader = updaterStateLoader;
+    }
+
+    /**
+     * Load the updater state set with {@link #setUpdaterStateLoader(Callable)}, if any, and clear the loader.
+     * Called by the ComputationGraphUpdater when it is created.
+     *
+     * @return Updater state, or null if no loader was set
+     */
+    public INDArray loadPendingUpdaterState() {
+        Callable<INDArray> loader = updaterStateLoader;
+        if (loader == null)
+            return null;
+        updaterStateLoader = null;
+        try {
+            return loader.call();
+        } catch (Exception e) {
+            throw new RuntimeException("Error loading updater state", e);
+        }
+    }
+
     /**
      * Set the computationGraphUpdater for the network
      */
@@ -1502,7 +1642,9 @@ public class ComputationGraph implements Serializable, Model {
         if (hasMaskArrays) {
             setLayerMaskArrays(dataSet.getFeaturesMaskArrays(), dataSet.getLabelsMaskArrays());
         }
-        feedForward(dataSet.getFeatures(), training);
+        setInputs(dataSet.getFeatures());
+        //No backprop after scoring: at test time, activations can be released as soon as they have been consumed
+        feedForward(training, false, !training);
         INDArray[] labels = dataSet.getLabels();
         setLabels(labels);
 
@@ -1567,7 +1709,8 @@ public class ComputationGraph implements Serializable, Model {
         boolean hasMaskArray = data.hasMaskArrays();
         if (hasMaskArray)
             setLayerMaskArrays(data.getFeaturesMaskArrays(), data.getLabelsMaskArrays());
-        feedForward(data.getFeatures(), false);
+        setInputs(data.getFeatures());
+        feedForward(false, false, true);
         setLabels(data.getLabels());
 
         INDArray out = null;
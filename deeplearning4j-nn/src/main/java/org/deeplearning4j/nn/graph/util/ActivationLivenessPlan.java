@@ -0,0 +1,128 @@
+/*-
+ *
+ *  * Copyright 2017 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.nn.graph.util;
+
+import org.deeplearning4j.nn.graph.vertex.GraphVertex;
+import org.deeplearning4j.nn.graph.vertex.VertexIndices;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Liveness analysis for the activations of a ComputationGraph, computed once from the topological ordering and the
+ * vertex connection structure.<br>
+ * The output of a vertex is live from the step (position in the topological order) at which the vertex does its
+ * forward pass, until the step of its last consumer. After that step nothing downstream needs it, and a forward pass
+ * that doesn't need to keep activations for backprop can release it, by clearing the inputs of all of its consumers.
+ * Releasing never affects arrays held elsewhere (such as network outputs returned to the caller).
+ */
+public class ActivationLivenessPlan {
+
+    private final int[] stepOfVertex;
+    private final int[] lastConsumerStep;
+    private final int[][] releasableAfterStep;
+    private final int peakLiveActivations;
+
+    /**
+     * @param vertices         Vertices of the graph, indexed by vertex index
+     * @param topologicalOrder Topological ordering of the vertex indices, as used for the forward pass
+     */
+    public ActivationLivenessPlan(GraphVertex[] vertices, int[] topologicalOrder) {
+        int nVertices = vertices.length;
+        stepOfVertex = new int[nVertices];
+        for (int step = 0; step < topologicalOrder.length; step++) {
+            stepOfVertex[topologicalOrder[step]] = step;
+        }
+
+        //Last consumer of each output: max step over all vertices this vertex is an input to
+        lastConsumerStep = new int[nVertices];
+        for (int i = 0; i < nVertices; i++) {
+            int last = stepOfVertex[i];
+            VertexIndices[] outputsTo = vertices[i].getOutputVertices();
+            if (outputsTo != null) {
+                for (VertexIndices v : outputsTo) {
+                    last = Math.max(last, stepOfVertex[v.getVertexIndex()]);
+                }
+            }
+            lastConsumerStep[i] = last;
+        }
+
+        List<List<Integer>> temp = new ArrayList<>(topologicalOrder.length);
+        for (int step = 0; step < topologicalOrder.length; step++) {
+            temp.add(new ArrayList<Integer>());
+        }
+        for (int i = 0; i < nVertices; i++) {
+            temp.get(lastConsumerStep[i]).add(i);
+        }
+
+        releasableAfterStep = new int[topologicalOrder.length][0];
+        int live = 0;
+        int peak = 0;
+        for (int step = 0; step < topologicalOrder.length; step++) {
+            //Output of the current vertex becomes live
+            live++;
+            peak = Math.max(peak, live);
+
+            List<Integer> list = temp.get(step);
+            releasableAfterStep[step] = new int[list.size()];
+            for (int j = 0; j < list.size(); j++) {
+                releasableAfterStep[step][j] = list.get(j);
+            }
+            live -= list.size();
+        }
+        peakLiveActivations = peak;
+    }
+
+    /**
+     * Get the vertex indices whose outputs are no longer needed by any other vertex, once the vertex at the specified
+     * step of the topological order has done its forward pass
+     *
+     * @param step Position in the topological order
+     */
+    public int[] getReleasableAfterStep(int step) {
+        return releasableAfterStep[step];
+    }
+
+    /**
+     * Get the position in the topological order of the last vertex that consumes the output of the specified vertex.
+     * For vertices without consumers, this is the position of the vertex itself.
+     *
+     * @param vertexIdx Index of the vertex
+     */
+    public int getLastConsumerStep(int vertexIdx) {
+        return lastConsumerStep[vertexIdx];
+    }
+
+    /**
+     * Get the position of the specified vertex in the topological order
+     *
+     * @param vertexIdx Index of the vertex
+     */
+    public int getStep(int vertexIdx) {
+        return stepOfVertex[vertexIdx];
+    }
+
+    /**
+     * Get the maximum number of vertex outputs that are live at the same time, during a forward pass that releases
+     * activations according to this plan. Without releasing, all vertex outputs are live at the end of the pass.
+     */
+    public int getPeakLiveActivations() {
+        return peakLiveActivations;
+    }
+}
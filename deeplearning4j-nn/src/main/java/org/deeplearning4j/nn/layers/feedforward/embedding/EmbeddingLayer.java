@@ -20,14 +20,18 @@ package org.deeplearning4j.nn.layers.feedforward.embedding;
 
 import org.deeplearning4j.berkeley.Pair;
 import org.deeplearning4j.exception.DL4JInvalidInputException;
+import org.deeplearning4j.nn.api.layers.RowSparseGradientLayer;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
 import org.deeplearning4j.nn.layers.BaseLayer;
 import org.deeplearning4j.nn.params.DefaultParamInitializer;
+import org.deeplearning4j.nn.updater.LayerUpdater;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 
+import java.util.Arrays;
+
 /**Embedding layer: feed-forward layer that expects single integers per example as input (class numbers, in range 0 to numClass-1)
  * as input. This input has shape [numExamples,1] instead of [numExamples,numClasses] for the equivalent one-hot representation.
  * Mathematically, EmbeddingLayer is equivalent to using a DenseLayer with a one-hot representation for the input; however,
@@ -38,7 +42,12 @@ import org.nd4j.linalg.factory.Nd4j;
  * weight rows can be considered a vector/embedding for each example.
  * @author Alex Black
  */
-public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.EmbeddingLayer> {
+public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.EmbeddingLayer>
+                implements RowSparseGradientLayer {
+
+    //Rows of the weight gradient that may be non-zero after the last backprop; null if the gradient is dense
+    private int[] weightGradientRows;
+
     public EmbeddingLayer(NeuralNetConfiguration conf) {
         super(conf);
     }
@@ -59,7 +68,16 @@ public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.
 
         INDArray weights = getParam(DefaultParamInitializer.WEIGHT_KEY);
         INDArray weightGradients = gradientViews.get(DefaultParamInitializer.WEIGHT_KEY);
-        weightGradients.assign(0);
+        boolean sparse = layerConf().isSparseGradients()
+                        && LayerUpdater.supportsRowSparseUpdates(this, DefaultParamInitializer.WEIGHT_KEY);
+        if (sparse && weightGradientRows != null) {
+            //Only the rows touched in the last iteration can be non-zero: the updater leaves all other rows at zero
+            for (int row : weightGradientRows) {
+                weightGradients.getRow(row).assign(0);
+            }
+        } else {
+            weightGradients.assign(0);
+        }
 
         int[] indexes = new int[input.length()];
         for (int i = 0; i < indexes.length; i++) {
@@ -67,6 +85,7 @@ public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.
 
             weightGradients.getRow(indexes[i]).addi(delta.getRow(i));
         }
+        weightGradientRows = (sparse ? uniqueSorted(indexes) : null);
 
         INDArray biasGradientsView = gradientViews.get(DefaultParamInitializer.BIAS_KEY);
         INDArray biasGradients = delta.sum(0);
@@ -79,6 +98,31 @@ public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.
         return new Pair<>(ret, null); //Don't bother returning epsilons: no layer below this one...
     }
 
+    @Override
+    public int[] getGradientRows(String paramName) {
+        if (DefaultParamInitializer.WEIGHT_KEY.equals(paramName))
+            return weightGradientRows;
+        return null;
+    }
+
+    @Override
+    public void setBackpropGradientsViewArray(INDArray gradients) {
+        super.setBackpropGradientsViewArray(gradients);
+        //New gradient view: contents unknown, so the next backprop needs to clear all of it
+        weightGradientRows = null;
+    }
+
+    private static int[] uniqueSorted(int[] indexes) {
+        int[] sorted = Arrays.copyOf(indexes, indexes.length);
+        Arrays.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (n == 0 || sorted[i] != sorted[n - 1])
+                sorted[n++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, n);
+    }
+
     @Override
     public INDArray preOutput(boolean training) {
         if (input.columns() != 1) {
@@ -62,6 +62,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 
 /**
@@ -104,6 +105,8 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
     protected int layerIndex; //For Layer.get/setIndex()
 
     protected transient Solver solver; //Used to call optimizers during backprop
+    //Loads the updater state when the updater is first created; set by lazy model restore, null otherwise
+    protected transient Callable<INDArray> updaterStateLoader;
 
 
     public MultiLayerNetwork(MultiLayerConfiguration conf) {
@@ -858,6 +861,15 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
         return flattenedParams;
     }
 
+    /**
+     * Get the flattened gradients array for the network: the backprop gradients of all layers are views of this array.
+     *
+     * @return Flattened gradients, or null if not yet initialized
+     */
+    public INDArray getFlattenedGradients() {
+        return flattenedGradients;
+    }
+
     /**
      * Set the parameters for this model.
      * This expects a linear ndarray
@@ -1529,11 +1541,47 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
      * [0.5, 0.5] or some other probability distribution summing to one
      */
     public INDArray output(INDArray input, boolean train) {
+        if (!train && layers != null)
+            return silentOutput(input);
+
         List<INDArray> activations = feedForward(input, train);
         //last activation is output
         return activations.get(activations.size() - 1);
     }
 
+    /**
+     * Inference-only forward pass, used by output() at test time.<br>
+     * Unlike {@link #feedForward(INDArray, boolean)}, activations of intermediate layers are not collected, and
+     * input fields of the network and its layers are not set, so each activation can be released as soon as
+     * the next layer has consumed it. As a result, output() doesn't keep O(depth) arrays alive per call.
+     *
+     * @param input the input to label
+     * @return output of the last layer
+     */
+    protected INDArray silentOutput(INDArray input) {
+        if (input == null)
+            throw new IllegalStateException("Unable to perform feed forward; no input found");
+        if (input.length() == 0)
+            throw new IllegalArgumentException("Invalid input: length 0 (shape: " + Arrays.toString(input.shape()) + ")");
+
+        int miniBatchSize = input.size(0);
+        setInputMiniBatchSize(miniBatchSize);
+
+        INDArray currInput = input;
+        for (int i = 0; i < layers.length; i++) {
+            InputPreProcessor preProcessor = getLayerWiseConfigurations().getInputPreProcess(i);
+            if (preProcessor != null)
+                currInput = preProcessor.preProcess(currInput, miniBatchSize);
+
+            currInput = layers[i].activate(currInput, false);
+
+            //Layer input isn't needed for backprop here, so we don't keep a reference to it
+            layers[i].setInput(null);
+        }
+
+        return currInput;
+    }
+
     /** Calculate the output of the network, with masking arrays. The masking arrays are used in situations such
      * as one-to-many and many-to-one recurrent neural network (RNN) designs, as well as for supporting time series
      * of varying lengths within the same minibatch.
@@ -2340,6 +2388,35 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
         return solver.getOptimizer().getUpdater();
     }
 
+    /**
+     * Set a loader for the updater state, called once when the updater is first created (i.e., when training or
+     * saving the updater). Used to restore the updater state lazily, see
+     * {@link org.deeplearning4j.util.ModelSerializer}.
+     *
+     * @param updaterStateLoader Loader for the updater state, or null to clear
+     */
+    public void setUpdaterStateLoader(Callable<INDArray> updaterStateLoader) {
+        this.updaterStateLoader = updaterStateLoader;
+    }
+
+    /**
+     * Load the updater state set with {@link #setUpdaterStateLoader(Callable)}, if any, and clear the loader.
+     * Called by the MultiLayerUpdater when it is created.
+     *
+     * @return Updater state, or null if no loader was set
+     */
+    public INDArray loadPendingUpdaterState() {
+        Callable<INDArray> loader = updaterStateLoader;
+        if (loader == null)
+            return null;
+        updaterStateLoader = null;
+        try {
+            return loader.call();
+        } catch (Exception e) {
+            throw new RuntimeException("Error loading updater state", e);
+        }
+    }
+
     /** Set the updater for the MultiLayerNetwork */
     public void setUpdater(Updater updater) {
         if (solver == null) {
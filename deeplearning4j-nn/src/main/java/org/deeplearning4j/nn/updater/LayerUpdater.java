@@ -4,6 +4,7 @@ import com.google.common.base.Preconditions;
 import org.apache.commons.math3.util.FastMath;
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.api.Updater;
+import org.deeplearning4j.nn.api.layers.RowSparseGradientLayer;
 import org.deeplearning4j.nn.conf.GradientNormalization;
 import org.deeplearning4j.nn.conf.LearningRatePolicy;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
@@ -12,6 +13,7 @@ import org.deeplearning4j.nn.layers.FrozenLayer;
 import org.deeplearning4j.nn.params.PretrainParamInitializer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.impl.accum.Norm2;
+import org.nd4j.linalg.api.shape.Shape;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.indexing.BooleanIndexing;
 import org.nd4j.linalg.indexing.NDArrayIndex;
@@ -29,6 +31,7 @@ import java.util.Map;
  */
 public class LayerUpdater implements Updater {
     protected Map<String, GradientUpdater> updaterForVariable = new LinkedHashMap<>();
+    protected Map<String, INDArray> stateViewForVariable = new HashMap<>();
     protected INDArray viewArray;
 
     @Override
@@ -45,6 +48,7 @@ public class LayerUpdater implements Updater {
                 continue;
             INDArray subset = viewArray.get(NDArrayIndex.point(0), NDArrayIndex.interval(count, count + thisSize));
             gu.setStateViewArray(subset, paramsArray.shape(), paramsArray.ordering(), initialize);
+            stateViewForVariable.put(entry.getKey(), subset);
             count += thisSize;
         }
     }
@@ -90,12 +94,133 @@ public class LayerUpdater implements Updater {
                             || layer.conf().getLayer().getUpdater() == org.deeplearning4j.nn.conf.Updater.NESTEROVS)
                 applyLrDecayPolicy(decay, layer, iteration, paramName);
             updater = init(paramName, layer);
+            if (layer instanceof RowSparseGradientLayer) {
+                int[] rows = ((RowSparseGradientLayer) layer).getGradientRows(paramName);
+                if (rows != null) {
+                    applyRowSparse(layer, gradientOrig, paramName, rows, iteration, miniBatchSize);
+                    continue;
+                }
+            }
             gradient2 = updater.getGradient(gradientOrig, iteration);
             postApply(layer, gradient2, paramName, miniBatchSize);
             gradient.setGradientFor(paramName, gradient2);
         }
     }
 
+    /**
+     * Whether the update for the specified parameter can be applied to the rows with non-zero gradient only, as per
+     * {@link RowSparseGradientLayer}. This requires an updater where a zero gradient gives a zero update (or where
+     * skipping the state decay for these rows is acceptable: RMSProp and Adam are then applied "lazily"), and no
+     * L1/L2 regularization for the parameter, as that gives non-zero gradients for all rows.
+     *
+     * @param layer Layer the parameter belongs to
+     * @param param Name of the parameter
+     */
+    public static boolean supportsRowSparseUpdates(Layer layer, String param) {
+        NeuralNetConfiguration conf = layer.conf();
+        if (conf.isPretrain())
+            return false;
+        if (conf.isUseRegularization() && (conf.getL1ByParam(param) > 0 || conf.getL2ByParam(param) > 0))
+            return false;
+        switch (conf.getLayer().getUpdaterByParam(param)) {
+            case SGD:
+            case NONE:
+            case ADAGRAD:
+            case RMSPROP:
+            case ADAM:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Apply the updater and {@link #postApply(Layer, INDArray, String, int)} to the specified rows of the gradient
+     * only, in place. Updater state is read and written for these rows only; all other rows of the gradient must be
+     * zero, and are left unchanged.
+     */
+    protected void applyRowSparse(Layer layer, INDArray gradient, String param, int[] rows, int iteration,
+                    int miniBatchSize) {
+        if (rows.length == 0)
+            return;
+
+        NeuralNetConfiguration conf = layer.conf();
+        org.deeplearning4j.nn.conf.layers.Layer l = conf.getLayer();
+        double lr = conf.getLearningRateByParam(param);
+        double eps = l.getEpsilon();
+        INDArray g = Nd4j.pullRows(gradient, 1, rows);
+
+        switch (l.getUpdaterByParam(param)) {
+            case NONE:
+                break;
+            case SGD:
+                g.muli(lr);
+                break;
+            case ADAGRAD: {
+                INDArray history = stateMatrix(param, gradient, 0, 1);
+                INDArray h = Nd4j.pullRows(history, 1, rows).addi(g.mul(g));
+                putRows(history, h, rows);
+                g.muli(Transforms.sqrt(h, true).addi(eps).rdivi(lr));
+                break;
+            }
+            case RMSPROP: {
+                double decay = l.getRmsDecay();
+                INDArray cache = stateMatrix(param, gradient, 0, 1);
+                INDArray r = Nd4j.pullRows(cache, 1, rows).muli(decay).addi(g.mul(g).muli(1 - decay));
+                putRows(cache, r, rows);
+                g.muli(lr).divi(Transforms.sqrt(r, true).addi(eps));
+                break;
+            }
+            case ADAM: {
+                double beta1 = l.getAdamMeanDecay();
+                double beta2 = l.getAdamVarDecay();
+                INDArray mState = stateMatrix(param, gradient, 0, 2);
+                INDArray vState = stateMatrix(param, gradient, 1, 2);
+                INDArray m = Nd4j.pullRows(mState, 1, rows).muli(beta1).addi(g.mul(1 - beta1));
+                INDArray v = Nd4j.pullRows(vState, 1, rows).muli(beta2).addi(g.mul(g).muli(1 - beta2));
+                putRows(mState, m, rows);
+                putRows(vState, v, rows);
+
+                double beta1t = FastMath.pow(beta1, iteration + 1);
+                double beta2t = FastMath.pow(beta2, iteration + 1);
+                double alphat = lr * FastMath.sqrt(1 - beta2t) / (1 - beta1t);
+                if (Double.isNaN(alphat) || alphat == 0.0)
+                    alphat = eps;
+                g.assign(m.mul(alphat).divi(Transforms.sqrt(v, true).addi(eps)));
+                break;
+            }
+            default:
+                throw new IllegalStateException("Row sparse updates not supported for updater "
+                                + l.getUpdaterByParam(param) + " (parameter: " + param + ")");
+        }
+
+        if (conf.isMiniBatch())
+            g.divi(miniBatchSize);
+        putRows(gradient, g, rows);
+    }
+
+    /**
+     * Get part of the updater state for the specified parameter, as a matrix with the same shape and order as the
+     * parameter. Part i of n: state is split into n equal consecutive blocks (for example: Adam's m and v)
+     */
+    private INDArray stateMatrix(String param, INDArray paramShaped, int part, int numParts) {
+        INDArray view = stateViewForVariable.get(param);
+        if (view == null)
+            throw new IllegalStateException("No updater state view set for parameter " + param);
+        int length = view.length() / numParts;
+        INDArray subset = view.get(NDArrayIndex.point(0), NDArrayIndex.interval(part * length, (part + 1) * length));
+        INDArray reshaped = Shape.newShapeNoCopy(subset, paramShaped.shape(), paramShaped.ordering() == 'f');
+        if (reshaped == null)
+            throw new IllegalStateException("Could not reshape updater state for parameter " + param);
+        return reshaped;
+    }
+
+    private static void putRows(INDArray target, INDArray source, int[] rows) {
+        for (int i = 0; i < rows.length; i++) {
+            target.getRow(rows[i]).assign(source.getRow(i));
+        }
+    }
+
     /**
      * Apply the regularization
      *
@@ -105,16 +230,30 @@ public class LayerUpdater implements Updater {
      */
     public void postApply(Layer layer, INDArray gradient, String param, int miniBatchSize) {
         NeuralNetConfiguration conf = layer.conf();
-        INDArray params = layer.getParam(param);
-        if (conf.isUseRegularization() && conf.getL2ByParam(param) > 0)
-            gradient.addi(params.mul(conf.getL2ByParam(param))); //dC/dw = dC0/dw + lambda/n * w where C0 is pre-l2 cost function
-        if (conf.isUseRegularization() && conf.getL1ByParam(param) > 0)
-            gradient.addi(Transforms.sign(params).muli(conf.getL1ByParam(param)));
+        applyRegularization(layer, gradient, param);
         if (conf.isMiniBatch())
             gradient.divi(miniBatchSize);
 
     }
 
+    /**
+     * Apply L1 and L2 regularization (if any) for the specified parameter, in place
+     *
+     * @param layer
+     * @param gradient
+     * @param param
+     */
+    public void applyRegularization(Layer layer, INDArray gradient, String param) {
+        NeuralNetConfiguration conf = layer.conf();
+        if (!conf.isUseRegularization())
+            return;
+        INDArray params = layer.getParam(param);
+        if (conf.getL2ByParam(param) > 0)
+            gradient.addi(params.mul(conf.getL2ByParam(param))); //dC/dw = dC0/dw + lambda/n * w where C0 is pre-l2 cost function
+        if (conf.getL1ByParam(param) > 0)
+            gradient.addi(Transforms.sign(params).muli(conf.getL1ByParam(param)));
+    }
+
     /**
      *  Update momentum if schedule exist
      */
@@ -1,29 +1,46 @@
 package org.deeplearning4j.nn.updater;
 
 import com.google.common.base.Preconditions;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.api.Updater;
+import org.deeplearning4j.nn.api.layers.RowSparseGradientLayer;
+import org.deeplearning4j.nn.conf.LearningRatePolicy;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.layers.FrozenLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.params.PretrainParamInitializer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.learning.GradientUpdater;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
  * MultiLayerUpdater: Gradient updater for MultiLayerNetworks.
  * Expects backprop gradients for all layers to be in single Gradient object,
- * keyed by "0_b", "1_w" etc., as per MultiLayerNetwork.backward()
+ * keyed by "0_b", "1_w" etc., as per MultiLayerNetwork.backward()<br>
+ * When the gradient is the network's own flattened gradient array, parameters with identical updater configuration
+ * in consecutive positions are grouped into {@link UpdaterBlock}s, and each block is updated with a single op instead
+ * of one op per parameter. Layers that need per-layer handling (frozen, row-sparse or pretrain layers) and gradients
+ * not backed by the network's flattened gradient array use the per-layer updaters.
  */
 @EqualsAndHashCode
 @Getter
 public class MultiLayerUpdater implements Updater {
     private final Updater[] layerUpdaters;
     private INDArray viewArray;
+    @Getter(AccessLevel.NONE)
+    private transient List<UpdaterBlock> updaterBlocks;
+    @Getter(AccessLevel.NONE)
+    private transient boolean[] layerInBlocks;
 
     public MultiLayerUpdater(MultiLayerNetwork network) {
         Layer[] layers = network.getLayers();
@@ -55,6 +72,11 @@ public class MultiLayerUpdater implements Updater {
             layerUpdaters[i].setStateViewArray(layers[i], view, true);
             soFar += thisSize;
         }
+
+        //Saved updater state, when the network was restored with lazy updater loading
+        INDArray pendingState = network.loadPendingUpdaterState();
+        if (pendingState != null)
+            setStateViewArray(network, pendingState, false);
     }
 
     public MultiLayerUpdater(MultiLayerNetwork network, INDArray updaterState) {
@@ -115,6 +137,21 @@ public class MultiLayerUpdater implements Updater {
     public void update(Layer layer, Gradient gradient, int iteration, int batchSize) {
         MultiLayerNetwork mln = (MultiLayerNetwork) layer;
 
+        Gradient[] layerGradients = splitGradient(gradient);
+
+        INDArray flattenedGradients = mln.getFlattenedGradients();
+        if (flattenedGradients != null && gradient instanceof DefaultGradient
+                        && ((DefaultGradient) gradient).getFlattenedGradient() == flattenedGradients) {
+            updateBlocks(mln, flattenedGradients, layerGradients, iteration, batchSize);
+            return;
+        }
+
+        for (int i = 0; i < layerUpdaters.length; i++) {
+            layerUpdaters[i].update(mln.getLayer(i), layerGradients[i], iteration, batchSize);
+        }
+    }
+
+    private Gradient[] splitGradient(Gradient gradient) {
         Gradient[] layerGradients = new Gradient[layerUpdaters.length];
         for (int i = 0; i < layerGradients.length; i++)
             layerGradients[i] = new DefaultGradient();
@@ -131,12 +168,137 @@ public class MultiLayerUpdater implements Updater {
             String newKey = key.substring(idx + 1);
             layerGradients[layerIdx].gradientForVariable().put(newKey, gradientPair.getValue());
         }
+        return layerGradients;
+    }
+
+    private void updateBlocks(MultiLayerNetwork mln, INDArray flattenedGradients, Gradient[] layerGradients,
+                    int iteration, int batchSize) {
+        if (updaterBlocks == null)
+            initBlocks(mln);
 
+        //Per layer: gradient normalization and learning rate/momentum schedules (which update the configuration),
+        // or the full update for layers that aren't part of any block
         for (int i = 0; i < layerUpdaters.length; i++) {
-            layerUpdaters[i].update(mln.getLayer(i), layerGradients[i], iteration, batchSize);
+            Layer l = mln.getLayer(i);
+            if (!layerInBlocks[i]) {
+                layerUpdaters[i].update(l, layerGradients[i], iteration, batchSize);
+                continue;
+            }
+
+            LayerUpdater lu = (LayerUpdater) layerUpdaters[i];
+            lu.preApply(l, layerGradients[i], iteration);
+            LearningRatePolicy decay = l.conf().getLearningRatePolicy();
+            if (decay != LearningRatePolicy.None
+                            || l.conf().getLayer().getUpdater() == org.deeplearning4j.nn.conf.Updater.NESTEROVS) {
+                for (String paramName : layerGradients[i].gradientForVariable().keySet()) {
+                    lu.applyLrDecayPolicy(decay, l, iteration, paramName);
+                }
+            }
+        }
+
+        for (UpdaterBlock block : updaterBlocks) {
+            UpdaterBlock.ParamState first = block.getParams().get(0);
+            Layer l = mln.getLayer(first.getLayerIdx());
+            NeuralNetConfiguration conf = l.conf();
+            GradientUpdater gu = block.getGradientUpdater();
+
+            //All parameters in the block have the same configuration, hence the same learning rate after decay
+            double lr = conf.getLearningRateByParam(first.getParamName());
+            if (conf.getLayer().getUpdater() == org.deeplearning4j.nn.conf.Updater.NESTEROVS) {
+                gu.update(lr, conf.getLayer().getMomentum());
+            } else if (conf.getLearningRatePolicy() != LearningRatePolicy.None) {
+                gu.update(lr);
+            }
+
+            INDArray blockGradient = block.gradientView(flattenedGradients);
+            INDArray updated = gu.getGradient(blockGradient, iteration);
+            if (updated != blockGradient)
+                blockGradient.assign(updated);
+
+            for (UpdaterBlock.ParamState p : block.getParams()) {
+                LayerUpdater lu = (LayerUpdater) layerUpdaters[p.getLayerIdx()];
+                INDArray paramGradient = layerGradients[p.getLayerIdx()].getGradientFor(p.getParamName());
+                lu.applyRegularization(mln.getLayer(p.getLayerIdx()), paramGradient, p.getParamName());
+            }
+            if (conf.isMiniBatch())
+                blockGradient.divi(batchSize);
         }
     }
 
+    private void initBlocks(MultiLayerNetwork mln) {
+        Layer[] layers = mln.getLayers();
+        List<UpdaterBlock> blocks = new ArrayList<>();
+        boolean[] inBlocks = new boolean[layers.length];
+
+        for (Updater u : layerUpdaters) {
+            if (!(u instanceof LayerUpdater)) {
+                //Can't work out the updater state layout: use per-layer updates only
+                updaterBlocks = blocks;
+                layerInBlocks = inBlocks;
+                return;
+            }
+        }
+
+        int paramOffset = 0;
+        int stateOffset = 0;
+        UpdaterBlock current = null;
+        List<Object> currentKey = null;
+        for (int i = 0; i < layers.length; i++) {
+            Layer l = layers[i];
+            LayerUpdater lu = (LayerUpdater) layerUpdaters[i];
+            inBlocks[i] = isBlockable(l);
+
+            for (Map.Entry<String, INDArray> entry : l.paramTable().entrySet()) {
+                String paramName = entry.getKey();
+                int length = entry.getValue().length();
+                GradientUpdater gu = lu.init(paramName, l);
+                int stateSize = gu.stateSizeForInputSize(length);
+
+                if (inBlocks[i]) {
+                    List<Object> key = UpdaterBlock.updaterConfigKey(l, paramName);
+                    boolean mergeable = UpdaterBlock.isMergeable(gu);
+                    if (current == null || !mergeable || !key.equals(currentKey)) {
+                        current = new UpdaterBlock(paramOffset, stateOffset);
+                        currentKey = key;
+                        blocks.add(current);
+                    }
+                    current.add(i, paramName, length, stateSize);
+                    if (!mergeable)
+                        current = null;
+                } else {
+                    current = null;
+                }
+
+                paramOffset += length;
+                stateOffset += stateSize;
+            }
+        }
+
+        for (UpdaterBlock block : blocks) {
+            block.init(layers[block.getParams().get(0).getLayerIdx()], viewArray);
+        }
+        updaterBlocks = blocks;
+        layerInBlocks = inBlocks;
+    }
+
+    private static boolean isBlockable(Layer layer) {
+        if (layer instanceof FrozenLayer || layer instanceof RowSparseGradientLayer || layer.conf().isPretrain())
+            return false;
+        for (String paramName : layer.paramTable().keySet()) {
+            if (PretrainParamInitializer.VISIBLE_BIAS_KEY.equals(paramName.split("_")[0]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of {@link UpdaterBlock}s, i.e. the number of updater ops for all layers that are updated in
+     * blocks. Blocks are created on the first update with the network's flattened gradient array; returns 0 before that.
+     */
+    public int getNumUpdaterBlocks() {
+        return updaterBlocks == null ? 0 : updaterBlocks.size();
+    }
+
     @Override
     public Updater clone() {
         throw new UnsupportedOperationException("Not yet implemented");
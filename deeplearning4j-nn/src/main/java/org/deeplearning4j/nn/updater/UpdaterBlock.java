@@ -0,0 +1,109 @@
+package org.deeplearning4j.nn.updater;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.conf.LearningRatePolicy;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.learning.GradientUpdater;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A contiguous range of parameters (possibly spanning multiple layers) that share the same updater configuration.
+ * As both the gradients and the updater state of these parameters are contiguous subsets of the flattened gradient
+ * and updater state arrays, the whole block can be updated with a single {@link GradientUpdater} operation, instead
+ * of one operation per parameter.<br>
+ * Blocks are only formed over updaters with at most one state value per parameter (SGD, Nesterovs, AdaGrad, RMSProp,
+ * none): for these, the updater state layout of a block is identical to the per-parameter layout. Updaters with
+ * multiple state values per parameter (Adam, AdaDelta) store them per parameter ([m|v] for each parameter), hence
+ * a block for these is a single parameter.
+ */
+@Getter
+public class UpdaterBlock {
+
+    @AllArgsConstructor
+    @Data
+    public static class ParamState {
+        private final int layerIdx;
+        private final String paramName;
+        private final int paramOffset;
+        private final int paramLength;
+    }
+
+    private final int paramOffsetStart;
+    private final int stateOffsetStart;
+    private int paramOffsetEnd;
+    private int stateOffsetEnd;
+    private final List<ParamState> params = new ArrayList<>();
+    private GradientUpdater gradientUpdater;
+
+    public UpdaterBlock(int paramOffsetStart, int stateOffsetStart) {
+        this.paramOffsetStart = paramOffsetStart;
+        this.paramOffsetEnd = paramOffsetStart;
+        this.stateOffsetStart = stateOffsetStart;
+        this.stateOffsetEnd = stateOffsetStart;
+    }
+
+    /**
+     * Add the next parameter to this block. Parameters must be added in flattened order.
+     */
+    public void add(int layerIdx, String paramName, int paramLength, int stateLength) {
+        params.add(new ParamState(layerIdx, paramName, paramOffsetEnd, paramLength));
+        paramOffsetEnd += paramLength;
+        stateOffsetEnd += stateLength;
+    }
+
+    /**
+     * Set up the (single) GradientUpdater for the block, using the updater state as already initialized by the
+     * per-layer updaters
+     *
+     * @param layer          Layer of the first parameter of the block
+     * @param updaterState   Flattened updater state for the whole network. May be null if no updater has state
+     */
+    public void init(Layer layer, INDArray updaterState) {
+        ParamState first = params.get(0);
+        gradientUpdater = new LayerUpdater().init(first.getParamName(), layer);
+        if (stateOffsetEnd > stateOffsetStart) {
+            INDArray stateView = updaterState.get(NDArrayIndex.point(0),
+                            NDArrayIndex.interval(stateOffsetStart, stateOffsetEnd));
+            gradientUpdater.setStateViewArray(stateView, new int[] {1, paramOffsetEnd - paramOffsetStart}, 'f',
+                            false);
+        }
+    }
+
+    /**
+     * Get the subset of the flattened gradient array for this block
+     */
+    public INDArray gradientView(INDArray flattenedGradients) {
+        return flattenedGradients.get(NDArrayIndex.point(0), NDArrayIndex.interval(paramOffsetStart, paramOffsetEnd));
+    }
+
+    /**
+     * Whether parameters with the specified updater state size can be merged into a block with other parameters,
+     * keeping the updater state layout unchanged
+     */
+    public static boolean isMergeable(GradientUpdater updater) {
+        return updater.stateSizeForInputSize(1) <= 1;
+    }
+
+    /**
+     * Get the configuration values that determine the update for a parameter: parameters can only be in the same
+     * block if these are equal
+     */
+    public static List<Object> updaterConfigKey(Layer layer, String paramName) {
+        NeuralNetConfiguration conf = layer.conf();
+        org.deeplearning4j.nn.conf.layers.Layer l = conf.getLayer();
+        LearningRatePolicy policy = conf.getLearningRatePolicy();
+        return Arrays.<Object>asList(l.getUpdaterByParam(paramName), conf.getLearningRateByParam(paramName),
+                        l.getMomentum(), l.getMomentumSchedule(), l.getLearningRateSchedule(), l.getEpsilon(),
+                        l.getRho(), l.getRmsDecay(), l.getAdamMeanDecay(), l.getAdamVarDecay(), policy,
+                        conf.getLrPolicyDecayRate(), conf.getLrPolicySteps(), conf.getLrPolicyPower(),
+                        conf.getNumIterations(), conf.isMiniBatch());
+    }
+}
@@ -58,6 +58,11 @@ public class ComputationGraphUpdater implements Serializable, Cloneable {
             layerUpdaters[i++].setStateViewArray(layer, view, true);
             soFar += thisSize;
         }
+
+        //Saved updater state, when the graph was restored with lazy updater loading
+        INDArray pendingState = graph.loadPendingUpdaterState();
+        if (pendingState != null)
+            setStateViewArray(pendingState);
     }
 
     public ComputationGraphUpdater(ComputationGraph graph, INDArray updaterState) {
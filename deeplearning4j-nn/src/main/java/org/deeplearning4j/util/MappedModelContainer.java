@@ -0,0 +1,288 @@
+package org.deeplearning4j.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NonNull;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uncompressed model container, designed to be memory mapped: used by
+ * {@link ModelSerializer#writeModelMapped(org.deeplearning4j.nn.api.Model, File, boolean)} and the corresponding
+ * restore methods.<br>
+ * Unlike the zip format, the parameters (and updater state) are stored as raw, aligned arrays. On restore, the
+ * parameters are mapped straight from the file (copy-on-write: the file is never modified) instead of being read
+ * into a heap stream first. Pages are only read from disk when used, and shared between processes using the same
+ * file.<br>
+ * Layout: magic, version, byte order, number of entries, then (name, type, offset, length in bytes) for each entry.
+ * Entry data follows the header, each entry aligned to {@link #ALIGNMENT} bytes.
+ */
+public class MappedModelContainer {
+
+    public static final byte[] MAGIC = "DL4JMMAP".getBytes(StandardCharsets.US_ASCII);
+    public static final int VERSION = 1;
+    public static final int ALIGNMENT = 64;
+
+    public static final byte TYPE_BYTES = 0;
+    public static final byte TYPE_FLOAT = 1;
+    public static final byte TYPE_DOUBLE = 2;
+
+    //Largest array that can be mapped as a single buffer; larger arrays are copied in chunks
+    private static final int MAX_MAPPED_BYTES = Integer.MAX_VALUE - ALIGNMENT;
+    private static final int CHUNK_BYTES = 1 << 26;
+
+    @AllArgsConstructor
+    @Data
+    public static class Entry {
+        private final String name;
+        private final byte type;
+        private final long offset;
+        private final long length;
+    }
+
+    private final File file;
+    private final ByteOrder byteOrder;
+    private final Map<String, Entry> entries;
+
+    private MappedModelContainer(File file, ByteOrder byteOrder, Map<String, Entry> entries) {
+        this.file = file;
+        this.byteOrder = byteOrder;
+        this.entries = entries;
+    }
+
+    /**
+     * Whether the file starts with the magic bytes of this container format
+     */
+    public static boolean isMappedContainer(@NonNull File file) throws IOException {
+        if (!file.isFile() || file.length() < MAGIC.length)
+            return false;
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
+            byte[] magic = new byte[MAGIC.length];
+            dis.readFully(magic);
+            return Arrays.equals(MAGIC, magic);
+        }
+    }
+
+    /**
+     * Write a container with the specified entries. Values may be byte[] (stored as is) or INDArray (stored as a raw
+     * flattened array, in native byte order).<br>
+     * An existing file is replaced, not overwritten: containers already mapped from it remain valid.
+     *
+     * @param file    File to write to
+     * @param entries Entries to write, in order
+     */
+    public static void write(@NonNull File file, @NonNull Map<String, Object> entries) throws IOException {
+        //First: work out the header size, to get the entry offsets
+        long headerSize = MAGIC.length + 4 + 1 + 4;
+        for (String name : entries.keySet()) {
+            headerSize += 2 + name.getBytes(StandardCharsets.UTF_8).length + 1 + 8 + 8;
+        }
+
+        List<Entry> list = new ArrayList<>();
+        long offset = align(headerSize);
+        for (Map.Entry<String, Object> e : entries.entrySet()) {
+            Object value = e.getValue();
+            byte type;
+            long length;
+            if (value instanceof byte[]) {
+                type = TYPE_BYTES;
+                length = ((byte[]) value).length;
+            } else if (value instanceof INDArray) {
+                INDArray arr = (INDArray) value;
+                type = (arr.data().dataType() == DataBuffer.Type.DOUBLE ? TYPE_DOUBLE : TYPE_FLOAT);
+                length = (long) arr.length() * (type == TYPE_DOUBLE ? 8 : 4);
+            } else {
+                throw new IllegalArgumentException("Unsupported entry type for \"" + e.getKey() + "\": "
+                                + (value == null ? null : value.getClass()));
+            }
+            list.add(new Entry(e.getKey(), type, offset, length));
+            offset = align(offset + length);
+        }
+
+        //Never modify an existing file in place: readers may have it mapped, and accessing a mapping of a truncated
+        //file crashes the JVM (SIGBUS). Instead, write to a temporary file and replace the existing file atomically
+        File dir = file.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile(file.getName(), ".tmp", dir);
+        boolean success = false;
+        try {
+            writeTo(temp, entries, list);
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                                StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            success = true;
+        } finally {
+            if (!success)
+                temp.delete();
+        }
+    }
+
+    private static void writeTo(File file, Map<String, Object> entries, List<Entry> list) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            DataOutputStream header = new DataOutputStream(baos);
+            header.write(MAGIC);
+            header.writeInt(VERSION);
+            header.writeByte(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 0 : 1);
+            header.writeInt(list.size());
+            for (Entry e : list) {
+                header.writeUTF(e.getName());
+                header.writeByte(e.getType());
+                header.writeLong(e.getOffset());
+                header.writeLong(e.getLength());
+            }
+            header.flush();
+            writeFully(channel, ByteBuffer.wrap(baos.toByteArray()), 0);
+
+            for (Entry e : list) {
+                Object value = entries.get(e.getName());
+                if (value instanceof byte[]) {
+                    writeFully(channel, ByteBuffer.wrap((byte[]) value), e.getOffset());
+                } else {
+                    writeArray(channel, (INDArray) value, e);
+                }
+            }
+        }
+    }
+
+    private static void writeArray(FileChannel channel, INDArray arr, Entry e) throws IOException {
+        //Write in chunks: views need to be copied, and this bounds the size of the copies
+        int bytesPerElement = (e.getType() == TYPE_DOUBLE ? 8 : 4);
+        int chunkElements = CHUNK_BYTES / bytesPerElement;
+        INDArray flat = (arr.isRowVector() ? arr : arr.reshape(1, arr.length()));
+        long position = e.getOffset();
+        for (int start = 0; start < flat.length(); start += chunkElements) {
+            int end = (int) Math.min((long) start + chunkElements, flat.length());
+            INDArray chunk = flat.get(NDArrayIndex.point(0), NDArrayIndex.interval(start, end)).dup();
+            ByteBuffer bb = chunk.data().asNio();
+            bb.position(0);
+            bb.limit((end - start) * bytesPerElement);
+            writeFully(channel, bb, position);
+            position += (long) (end - start) * bytesPerElement;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static long align(long offset) {
+        long rem = offset % ALIGNMENT;
+        return rem == 0 ? offset : offset + ALIGNMENT - rem;
+    }
+
+    /**
+     * Open a container, reading its header only
+     */
+    public static MappedModelContainer open(@NonNull File file) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] magic = new byte[MAGIC.length];
+            dis.readFully(magic);
+            if (!Arrays.equals(MAGIC, magic))
+                throw new IOException("Not a mapped model container: " + file.getAbsolutePath());
+            int version = dis.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported mapped model container version: " + version);
+            ByteOrder order = (dis.readByte() == 0 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+            int n = dis.readInt();
+            Map<String, Entry> entries = new LinkedHashMap<>();
+            for (int i = 0; i < n; i++) {
+                Entry e = new Entry(dis.readUTF(), dis.readByte(), dis.readLong(), dis.readLong());
+                entries.put(e.getName(), e);
+            }
+            return new MappedModelContainer(file, order, entries);
+        }
+    }
+
+    public boolean hasEntry(String name) {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * Read an entry fully into a byte array. Intended for small entries, such as the configuration.
+     */
+    public byte[] readBytes(String name) throws IOException {
+        Entry e = getEntry(name);
+        byte[] bytes = new byte[(int) e.getLength()];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(e.getOffset());
+            raf.readFully(bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * Get an array entry as a row vector. If the stored array has the current data type and native byte order, the
+     * returned array is backed by a private (copy-on-write) memory mapping of the file: no data is read until used,
+     * and changes to the array are not written to the file. Otherwise, the array is read and converted in chunks.
+     */
+    public INDArray mapArray(String name) throws IOException {
+        Entry e = getEntry(name);
+        if (e.getType() == TYPE_BYTES)
+            throw new IllegalStateException("Entry \"" + name + "\" is not an array");
+        int bytesPerElement = (e.getType() == TYPE_DOUBLE ? 8 : 4);
+        int length = (int) (e.getLength() / bytesPerElement);
+        DataBuffer.Type storedType = (e.getType() == TYPE_DOUBLE ? DataBuffer.Type.DOUBLE : DataBuffer.Type.FLOAT);
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (storedType == Nd4j.dataType() && byteOrder == ByteOrder.nativeOrder()
+                            && e.getLength() <= MAX_MAPPED_BYTES) {
+                //Mapping stays valid after the channel is closed
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.PRIVATE, e.getOffset(), e.getLength());
+                mapped.order(byteOrder);
+                DataBuffer buffer = Nd4j.createBuffer(mapped, storedType, length);
+                return Nd4j.create(buffer, new int[] {1, length});
+            }
+
+            //Different data type or byte order, or too large for a single mapping: copy in chunks
+            INDArray out = Nd4j.create(1, length);
+            int chunkElements = CHUNK_BYTES / bytesPerElement;
+            for (int start = 0; start < length; start += chunkElements) {
+                int end = Math.min(start + chunkElements, length);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY,
+                                e.getOffset() + (long) start * bytesPerElement, (long) (end - start) * bytesPerElement);
+                mapped.order(byteOrder);
+                INDArray chunk;
+                if (storedType == DataBuffer.Type.DOUBLE) {
+                    double[] d = new double[end - start];
+                    mapped.asDoubleBuffer().get(d);
+                    chunk = Nd4j.create(d);
+                } else {
+                    float[] f = new float[end - start];
+                    mapped.asFloatBuffer().get(f);
+                    chunk = Nd4j.create(f);
+                }
+                out.get(NDArrayIndex.point(0), NDArrayIndex.interval(start, end)).assign(chunk);
+            }
+            return out;
+        }
+    }
+
+    private Entry getEntry(String name) {
+        Entry e = entries.get(name);
+        if (e == null)
+            throw new IllegalStateException("No entry \"" + name + "\" in mapped model container " + file);
+        return e;
+    }
+}
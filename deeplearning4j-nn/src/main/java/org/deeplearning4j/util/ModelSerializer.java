@@ -23,7 +23,11 @@ import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.heartbeat.reports.Task;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -469,6 +473,98 @@ public class ModelSerializer {
                             + "], gotCoefficients: [" + gotCoefficients + "], gotUpdater: [" + gotUpdaterState + "]");
     }
 
+    /**
+     * Write a model to a file, using the uncompressed {@link MappedModelContainer} format instead of a zip file.
+     * Models written this way can be restored with {@link #restoreMultiLayerNetworkMapped(File, boolean)} or
+     * {@link #restoreComputationGraphMapped(File, boolean)}, which memory map the parameters instead of reading them.
+     *
+     * @param model       the model to write
+     * @param file        the file to write to
+     * @param saveUpdater whether to save the updater state or not
+     * @throws IOException
+     */
+    public static void writeModelMapped(@NonNull Model model, @NonNull File file, boolean saveUpdater)
+                    throws IOException {
+        String json;
+        INDArray updaterState = null;
+        if (model instanceof MultiLayerNetwork) {
+            MultiLayerNetwork net = (MultiLayerNetwork) model;
+            json = net.getLayerWiseConfigurations().toJson();
+            if (saveUpdater)
+                updaterState = net.getUpdater().getStateViewArray();
+        } else if (model instanceof ComputationGraph) {
+            ComputationGraph graph = (ComputationGraph) model;
+            json = graph.getConfiguration().toJson();
+            if (saveUpdater)
+                updaterState = graph.getUpdater().getStateViewArray();
+        } else {
+            throw new IllegalArgumentException("Unsupported model type: " + model.getClass());
+        }
+
+        Map<String, Object> entries = new LinkedHashMap<>();
+        entries.put("configuration.json", json.getBytes(StandardCharsets.UTF_8));
+        entries.put("coefficients.bin", model.params());
+        if (updaterState != null && updaterState.length() > 0)
+            entries.put(UPDATER_BIN, updaterState);
+
+        MappedModelContainer.write(file, entries);
+    }
+
+    /**
+     * Load a multi layer network from a file written with {@link #writeModelMapped(Model, File, boolean)}.<br>
+     * The parameters are memory mapped from the file (copy-on-write) instead of being read into memory; the updater
+     * state (if loadUpdater is true) is only loaded when the updater is first created, i.e., when training.
+     *
+     * @param file        the file to load from
+     * @param loadUpdater whether to load the updater state (when training) or not
+     * @return the loaded multi layer network
+     * @throws IOException
+     */
+    public static MultiLayerNetwork restoreMultiLayerNetworkMapped(@NonNull File file, boolean loadUpdater)
+                    throws IOException {
+        MappedModelContainer container = MappedModelContainer.open(file);
+        String json = new String(container.readBytes("configuration.json"), StandardCharsets.UTF_8);
+        INDArray params = container.mapArray("coefficients.bin");
+
+        MultiLayerNetwork network = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(json));
+        network.init(params, false);
+        if (loadUpdater && container.hasEntry(UPDATER_BIN))
+            network.setUpdaterStateLoader(updaterStateLoader(container));
+        return network;
+    }
+
+    /**
+     * Load a computation graph from a file written with {@link #writeModelMapped(Model, File, boolean)}.<br>
+     * The parameters are memory mapped from the file (copy-on-write) instead of being read into memory; the updater
+     * state (if loadUpdater is true) is only loaded when the updater is first created, i.e., when training.
+     *
+     * @param file        the file to load from
+     * @param loadUpdater whether to load the updater state (when training) or not
+     * @return the loaded computation graph
+     * @throws IOException
+     */
+    public static ComputationGraph restoreComputationGraphMapped(@NonNull File file, boolean loadUpdater)
+                    throws IOException {
+        MappedModelContainer container = MappedModelContainer.open(file);
+        String json = new String(container.readBytes("configuration.json"), StandardCharsets.UTF_8);
+        INDArray params = container.mapArray("coefficients.bin");
+
+        ComputationGraph cg = new ComputationGraph(ComputationGraphConfiguration.fromJson(json));
+        cg.init(params, false);
+        if (loadUpdater && container.hasEntry(UPDATER_BIN))
+            cg.setUpdaterStateLoader(updaterStateLoader(container));
+        return cg;
+    }
+
+    private static Callable<INDArray> updaterStateLoader(final MappedModelContainer container) {
+        return new Callable<INDArray>() {
+            @Override
+            public INDArray call() throws Exception {
+                return container.mapArray(UPDATER_BIN);
+            }
+        };
+    }
+
     /**
      *
      * @param model
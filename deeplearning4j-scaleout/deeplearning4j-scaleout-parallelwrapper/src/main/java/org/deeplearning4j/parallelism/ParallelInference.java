@@ -0,0 +1,650 @@
+package org.deeplearning4j.parallelism;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.parallelism.inference.InferenceMode;
+import org.deeplearning4j.parallelism.inference.InferenceStats;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.executioner.GridExecutioner;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.INDArrayIndex;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * This class is simple wrapper for concurrent inference, suitable for multi-cpu/multi-gpu environments.
+ *
+ * Model is replicated once per worker thread, and each worker thread is attached to its own device,
+ * the same way ParallelWrapper does it for training. Concurrent output() calls are pushed into a
+ * bounded queue, and picked up by the first available replica.
+ *
+ * In BATCHED mode, each replica additionally drains compatible requests from the queue, up to batchLimit examples
+ * or maxWait time, and does single feed-forward pass for all of them. Results are split back into per-request arrays.
+ *
+ * PLEASE NOTE: Replicas are never trained, use updateModel() to propagate new parameters.
+ */
+@Slf4j
+public class ParallelInference implements AutoCloseable {
+    protected Model model;
+    protected int workers = 2;
+    protected int queueLimit = 64;
+    protected InferenceMode inferenceMode = InferenceMode.SEQUENTIAL;
+    protected int batchLimit = 32;
+    protected long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(1);
+    @Getter
+    protected InferenceStats stats;
+    protected BlockingQueue<InferenceRequest> queue;
+    protected InferenceWorker zoo[];
+    protected AtomicBoolean isShutdown = new AtomicBoolean(false);
+    // number of workers that haven't failed to create their replica
+    protected AtomicInteger liveWorkers = new AtomicInteger(0);
+    // cause of failure, if no worker managed to create its replica
+    protected volatile Throwable failure;
+
+    // log uncaught exceptions
+    Thread.UncaughtExceptionHandler handler = new Thread.UncaughtExceptionHandler() {
+        public void uncaughtException(Thread th, Throwable ex) {
+            log.error("Uncaught exception: " + ex);
+        }
+    };
+
+    protected ParallelInference(@NonNull Model model, int workers, int queueLimit, InferenceMode inferenceMode,
+                    int batchLimit, long maxWaitNanos) {
+        if (!(model instanceof MultiLayerNetwork) && !(model instanceof ComputationGraph))
+            throw new ND4JIllegalStateException("ParallelInference supports MultiLayerNetwork and ComputationGraph only");
+
+        this.model = model;
+        this.workers = workers;
+        this.queueLimit = queueLimit;
+        this.inferenceMode = inferenceMode;
+        this.batchLimit = batchLimit;
+        this.maxWaitNanos = maxWaitNanos;
+        this.stats = new InferenceStats(batchLimit);
+    }
+
+    protected void init() {
+        queue = new ArrayBlockingQueue<>(queueLimit);
+
+        zoo = new InferenceWorker[workers];
+        liveWorkers.set(workers);
+        for (int cnt = 0; cnt < workers; cnt++) {
+            zoo[cnt] = new InferenceWorker(cnt, model);
+
+            // each replica is pinned to its own device, so params & activations stay local
+            Nd4j.getAffinityManager().attachThreadToDevice(zoo[cnt], cnt % Nd4j.getAffinityManager().getNumberOfDevices());
+
+            zoo[cnt].setUncaughtExceptionHandler(handler);
+            zoo[cnt].start();
+        }
+    }
+
+    /**
+     * This method does forward pass for MultiLayerNetwork, or single-input ComputationGraph,
+     * blocking till result is available
+     *
+     * @param input
+     * @return
+     */
+    public INDArray output(INDArray input) {
+        return output(new INDArray[] {input})[0];
+    }
+
+    /**
+     * This method does forward pass, blocking till result is available
+     *
+     * @param input
+     * @return
+     */
+    public INDArray[] output(INDArray... input) {
+        return waitFor(outputAsync(input));
+    }
+
+    /**
+     * This method enqueues forward pass, and returns Future for its result.
+     * If queue is full, this method blocks till there's room in queue.
+     *
+     * @param input
+     * @return
+     */
+    public Future<INDArray[]> outputAsync(@NonNull INDArray... input) {
+        return enqueue(new InferenceRequest(input, null, null));
+    }
+
+    /**
+     * This method does forward pass for MultiLayerNetwork, or single-input ComputationGraph, with masking arrays.
+     * Masks are used for RNN inputs with varying time series lengths, or one-to-many/many-to-one designs.
+     *
+     * @param input
+     * @param featuresMask features mask, may be null
+     * @param labelsMask labels mask, may be null
+     * @return
+     */
+    public INDArray output(INDArray input, INDArray featuresMask, INDArray labelsMask) {
+        return waitFor(outputAsync(new INDArray[] {input}, featuresMask == null ? null : new INDArray[] {featuresMask},
+                        labelsMask == null ? null : new INDArray[] {labelsMask}))[0];
+    }
+
+    /**
+     * This method enqueues forward pass with masking arrays, and returns Future for its result.
+     * If queue is full, this method blocks till there's room in queue.
+     *
+     * @param inputs
+     * @param featuresMasks features masks, may be null
+     * @param labelsMasks labels masks, may be null
+     * @return
+     */
+    public Future<INDArray[]> outputAsync(@NonNull INDArray[] inputs, INDArray[] featuresMasks,
+                    INDArray[] labelsMasks) {
+        return enqueue(new InferenceRequest(inputs, featuresMasks, labelsMasks));
+    }
+
+    protected Future<INDArray[]> enqueue(@NonNull InferenceRequest request) {
+        if (failure != null)
+            throw new IllegalStateException("ParallelInference workers failed to initialize", failure);
+
+        if (isShutdown.get())
+            throw new ND4JIllegalStateException("ParallelInference was shut down");
+
+        if (model instanceof MultiLayerNetwork && request.getInputs().length != 1)
+            throw new ND4JIllegalStateException("MultiLayerNetwork accepts exactly 1 input, got "
+                            + request.getInputs().length + " instead");
+
+        if (model instanceof MultiLayerNetwork && ((request.getFeaturesMasks() != null
+                        && request.getFeaturesMasks().length != 1)
+                        || (request.getLabelsMasks() != null && request.getLabelsMasks().length != 1)))
+            throw new ND4JIllegalStateException("MultiLayerNetwork accepts at most 1 features mask and 1 labels mask");
+
+        try {
+            queue.put(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        // all workers may have failed, or shutdown() may have drained the queue, while we were adding this
+        // request: nobody would pick it up
+        if (failure != null)
+            failPending(failure);
+        else if (isShutdown.get())
+            failPending(new ND4JIllegalStateException("ParallelInference was shut down"));
+
+        return request.getFuture();
+    }
+
+    protected static INDArray[] waitFor(Future<INDArray[]> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * This method propagates parameters of given model to all replicas.
+     * Replicas pick new parameters up before processing their next request.
+     *
+     * @param model
+     */
+    public void updateModel(@NonNull Model model) {
+        if (zoo != null) {
+            for (InferenceWorker worker : zoo)
+                worker.updateModel(model);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        shutdown();
+    }
+
+    /**
+     * This method causes all threads used for parallel inference to stop.
+     * Requests still present in queue are failed.
+     */
+    public synchronized void shutdown() {
+        if (isShutdown.getAndSet(true))
+            return;
+
+        if (zoo != null) {
+            for (int i = 0; i < zoo.length; i++) {
+                if (zoo[i] != null)
+                    zoo[i].shutdown();
+            }
+            zoo = null;
+        }
+
+        failPending(new ND4JIllegalStateException("ParallelInference was shut down"));
+    }
+
+    /**
+     * This method fails all requests still present in queue with given cause
+     */
+    protected void failPending(Throwable cause) {
+        InferenceRequest request;
+        while ((request = queue.poll()) != null)
+            request.getFuture().completeExceptionally(cause);
+    }
+
+    /**
+     * This method is called by workers that failed to create their replica. Once no worker is left,
+     * pending and future requests are failed with the cause, instead of waiting forever.
+     */
+    protected void workerFailed(Throwable cause) {
+        if (liveWorkers.decrementAndGet() > 0)
+            return;
+
+        failure = cause;
+        isShutdown.set(true);
+        failPending(cause);
+    }
+
+
+    public static class Builder {
+        protected Model model;
+        protected int workers = Nd4j.getAffinityManager().getNumberOfDevices();
+        protected int queueLimit = 64;
+        protected InferenceMode inferenceMode = InferenceMode.SEQUENTIAL;
+        protected int batchLimit = 32;
+        protected long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(1);
+
+        /**
+         * Build ParallelInference for MultiLayerNetwork or ComputationGraph
+         *
+         * @param model
+         */
+        public Builder(@NonNull Model model) {
+            this.model = model;
+        }
+
+        /**
+         * This method allows to configure number of model replicas that'll be used for parallel inference.
+         * On CPU backend it's usually better to keep this value close to number of physical cores.
+         *
+         * Default value: number of available devices
+         *
+         * @param num
+         * @return
+         */
+        public Builder workers(int num) {
+            if (num < 1)
+                throw new IllegalStateException("Number of workers should be positive value");
+
+            this.workers = num;
+            return this;
+        }
+
+        /**
+         * This method defines max number of requests waiting in queue.
+         * Once limit is reached, output() calls will block till workers catch up.
+         *
+         * Default value: 64
+         *
+         * @param limit
+         * @return
+         */
+        public Builder queueLimit(int limit) {
+            if (limit < 1)
+                throw new IllegalStateException("Queue limit should be positive value");
+
+            this.queueLimit = limit;
+            return this;
+        }
+
+        /**
+         * This method defines the way requests are dispatched to replicas
+         *
+         * Default value: SEQUENTIAL
+         *
+         * @param mode
+         * @return
+         */
+        public Builder inferenceMode(@NonNull InferenceMode mode) {
+            this.inferenceMode = mode;
+            return this;
+        }
+
+        /**
+         * This method defines max number of examples merged into single feed-forward pass. Used in BATCHED mode only.
+         * Single request bigger than this limit is still processed, on its own.
+         *
+         * Default value: 32
+         *
+         * @param limit
+         * @return
+         */
+        public Builder batchLimit(int limit) {
+            if (limit < 1)
+                throw new IllegalStateException("Batch limit should be positive value");
+
+            this.batchLimit = limit;
+            return this;
+        }
+
+        /**
+         * This method defines max time replica waits for more requests after the first one arrived,
+         * before doing feed-forward pass with what it has. Used in BATCHED mode only.
+         *
+         * Default value: 1 millisecond
+         *
+         * @param time
+         * @param timeUnit
+         * @return
+         */
+        public Builder maxWait(long time, @NonNull TimeUnit timeUnit) {
+            if (time < 0)
+                throw new IllegalStateException("Max wait time can't be negative");
+
+            this.maxWaitNanos = timeUnit.toNanos(time);
+            return this;
+        }
+
+        /**
+         * This method returns ParallelInference instance, with all workers started
+         *
+         * @return
+         */
+        public ParallelInference build() {
+            ParallelInference inference = new ParallelInference(model, workers, queueLimit, inferenceMode, batchLimit,
+                            maxWaitNanos);
+            inference.init();
+
+            return inference;
+        }
+    }
+
+
+    /**
+     * Single inference request, along with Future that will hold its result
+     */
+    protected static class InferenceRequest {
+        @Getter
+        private final INDArray[] inputs;
+        @Getter
+        private final INDArray[] featuresMasks;
+        @Getter
+        private final INDArray[] labelsMasks;
+        @Getter
+        private final long createdNanos = System.nanoTime();
+        @Getter
+        private final CompletableFuture<INDArray[]> future = new CompletableFuture<>();
+
+        protected InferenceRequest(INDArray[] inputs, INDArray[] featuresMasks, INDArray[] labelsMasks) {
+            this.inputs = inputs;
+            this.featuresMasks = featuresMasks;
+            this.labelsMasks = labelsMasks;
+        }
+
+        /**
+         * @return number of examples in this request
+         */
+        public int size() {
+            return inputs[0].size(0);
+        }
+
+        /**
+         * This method checks, if both requests can be merged along dimension 0
+         */
+        public boolean isCompatible(@NonNull InferenceRequest other) {
+            return sameShapes(inputs, other.inputs) && sameShapes(featuresMasks, other.featuresMasks)
+                            && sameShapes(labelsMasks, other.labelsMasks);
+        }
+
+        private static boolean sameShapes(INDArray[] first, INDArray[] second) {
+            if (first == null || second == null)
+                return first == second;
+
+            if (first.length != second.length)
+                return false;
+
+            for (int i = 0; i < first.length; i++) {
+                if ((first[i] == null) != (second[i] == null))
+                    return false;
+
+                if (first[i] == null)
+                    continue;
+
+                int[] shapeA = first[i].shape();
+                int[] shapeB = second[i].shape();
+                if (shapeA.length != shapeB.length)
+                    return false;
+
+                // dimension 0 is minibatch, everything else must match
+                for (int e = 1; e < shapeA.length; e++)
+                    if (shapeA[e] != shapeB[e])
+                        return false;
+            }
+
+            return true;
+        }
+    }
+
+
+    private class InferenceWorker extends Thread implements Runnable {
+        private Model originalModel;
+        private Model replicatedModel;
+        private volatile Model pendingModel;
+        private AtomicBoolean shouldStop = new AtomicBoolean(false);
+
+        public InferenceWorker(int threadId, @NonNull Model model) {
+            this.setDaemon(true);
+            this.setName("ParallelInference worker " + threadId);
+
+            this.originalModel = model;
+        }
+
+        public void updateModel(@NonNull Model model) {
+            this.pendingModel = model;
+        }
+
+        public void shutdown() {
+            shouldStop.set(true);
+        }
+
+        protected void initReplica() {
+            // we create fresh network with the same configuration, and params duplicated on this thread's device
+            if (originalModel instanceof MultiLayerNetwork) {
+                MultiLayerConfiguration conf = MultiLayerConfiguration
+                                .fromJson(((MultiLayerNetwork) originalModel).getLayerWiseConfigurations().toJson());
+
+                this.replicatedModel = new MultiLayerNetwork(conf);
+                ((MultiLayerNetwork) replicatedModel).init(originalModel.params().dup(), false);
+            } else if (originalModel instanceof ComputationGraph) {
+                ComputationGraphConfiguration conf = ComputationGraphConfiguration
+                                .fromJson(((ComputationGraph) originalModel).getConfiguration().toJson());
+
+                this.replicatedModel = new ComputationGraph(conf);
+                ((ComputationGraph) replicatedModel).init(originalModel.params().dup(), false);
+            }
+
+            if (Nd4j.getExecutioner() instanceof GridExecutioner)
+                ((GridExecutioner) Nd4j.getExecutioner()).flushQueueBlocking();
+        }
+
+        protected INDArray[] doOutput(INDArray[] inputs, INDArray[] featuresMasks, INDArray[] labelsMasks) {
+            if (replicatedModel instanceof MultiLayerNetwork) {
+                MultiLayerNetwork network = (MultiLayerNetwork) replicatedModel;
+                if (featuresMasks == null && labelsMasks == null)
+                    return new INDArray[] {network.output(inputs[0], false)};
+
+                return new INDArray[] {network.output(inputs[0], false,
+                                featuresMasks == null ? null : featuresMasks[0],
+                                labelsMasks == null ? null : labelsMasks[0])};
+            } else {
+                ComputationGraph graph = (ComputationGraph) replicatedModel;
+                if (featuresMasks == null && labelsMasks == null)
+                    return graph.output(false, inputs);
+
+                graph.setLayerMaskArrays(featuresMasks, labelsMasks);
+                try {
+                    return graph.output(false, inputs);
+                } finally {
+                    graph.clearLayerMaskArrays();
+                }
+            }
+        }
+
+        /**
+         * This method does single feed-forward pass for all given requests, and completes their futures
+         */
+        protected void process(List<InferenceRequest> batch) {
+            try {
+                INDArray[] output;
+                int numExamples = 0;
+                if (batch.size() == 1) {
+                    InferenceRequest request = batch.get(0);
+                    numExamples = request.size();
+                    output = doOutput(request.getInputs(), request.getFeaturesMasks(), request.getLabelsMasks());
+                } else {
+                    for (InferenceRequest request : batch)
+                        numExamples += request.size();
+
+                    InferenceRequest first = batch.get(0);
+                    output = doOutput(merge(batch, first.getInputs().length, InferenceRequest::getInputs),
+                                    first.getFeaturesMasks() == null ? null
+                                                    : merge(batch, first.getFeaturesMasks().length,
+                                                                    InferenceRequest::getFeaturesMasks),
+                                    first.getLabelsMasks() == null ? null
+                                                    : merge(batch, first.getLabelsMasks().length,
+                                                                    InferenceRequest::getLabelsMasks));
+                }
+
+                if (Nd4j.getExecutioner() instanceof GridExecutioner)
+                    ((GridExecutioner) Nd4j.getExecutioner()).flushQueueBlocking();
+
+                stats.recordBatch(numExamples);
+
+                if (batch.size() == 1) {
+                    complete(batch.get(0), output);
+                } else {
+                    int position = 0;
+                    for (InferenceRequest request : batch) {
+                        INDArray[] split = new INDArray[output.length];
+                        for (int i = 0; i < output.length; i++)
+                            split[i] = getSubset(position, position + request.size(), output[i]).dup();
+
+                        position += request.size();
+                        complete(request, split);
+                    }
+                }
+            } catch (Exception e) {
+                for (InferenceRequest request : batch)
+                    request.getFuture().completeExceptionally(e);
+            }
+        }
+
+        protected void complete(InferenceRequest request, INDArray[] output) {
+            stats.recordLatency(System.nanoTime() - request.getCreatedNanos());
+            request.getFuture().complete(output);
+        }
+
+        protected INDArray[] merge(List<InferenceRequest> batch, int numArrays,
+                        Function<InferenceRequest, INDArray[]> field) {
+            INDArray[] result = new INDArray[numArrays];
+            for (int i = 0; i < numArrays; i++) {
+                if (field.apply(batch.get(0))[i] == null)
+                    continue;
+
+                INDArray[] toMerge = new INDArray[batch.size()];
+                for (int e = 0; e < toMerge.length; e++)
+                    toMerge[e] = field.apply(batch.get(e))[i];
+
+                result[i] = Nd4j.concat(0, toMerge);
+            }
+
+            return result;
+        }
+
+        protected INDArray getSubset(int exampleStart, int exampleEnd, INDArray from) {
+            INDArrayIndex[] indices = new INDArrayIndex[from.rank()];
+            indices[0] = NDArrayIndex.interval(exampleStart, exampleEnd);
+            for (int i = 1; i < indices.length; i++)
+                indices[i] = NDArrayIndex.all();
+
+            return from.get(indices);
+        }
+
+        @Override
+        public void run() {
+            try {
+                initReplica();
+            } catch (Throwable t) {
+                log.error("Failed to create model replica on " + getName(), t);
+                shutdown();
+                workerFailed(t);
+                return;
+            }
+
+            // request that didn't fit into previous batch
+            InferenceRequest carried = null;
+            while (!shouldStop.get()) {
+                try {
+                    InferenceRequest request = carried != null ? carried : queue.poll(100, TimeUnit.MILLISECONDS);
+                    carried = null;
+                    if (request == null)
+                        continue;
+
+                    Model update = pendingModel;
+                    if (update != null) {
+                        pendingModel = null;
+                        replicatedModel.setParams(update.params().dup());
+                    }
+
+                    if (inferenceMode == InferenceMode.SEQUENTIAL) {
+                        process(Collections.singletonList(request));
+                        continue;
+                    }
+
+                    List<InferenceRequest> batch = new ArrayList<>();
+                    batch.add(request);
+                    int numExamples = request.size();
+                    long deadline = System.nanoTime() + maxWaitNanos;
+                    while (numExamples < batchLimit) {
+                        long timeLeft = deadline - System.nanoTime();
+                        InferenceRequest next = timeLeft > 0 ? queue.poll(timeLeft, TimeUnit.NANOSECONDS)
+                                        : queue.poll();
+                        if (next == null)
+                            break;
+
+                        if (!request.isCompatible(next) || numExamples + next.size() > batchLimit) {
+                            carried = next;
+                            break;
+                        }
+
+                        batch.add(next);
+                        numExamples += next.size();
+                    }
+
+                    process(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            if (carried != null)
+                carried.getFuture().completeExceptionally(new ND4JIllegalStateException("ParallelInference was shut down"));
+        }
+    }
+}
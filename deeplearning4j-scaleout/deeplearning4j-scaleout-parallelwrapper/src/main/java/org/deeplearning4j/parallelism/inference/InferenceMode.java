@@ -0,0 +1,17 @@
+package org.deeplearning4j.parallelism.inference;
+
+/**
+ * This enum describes the way ParallelInference dispatches incoming requests to model replicas
+ */
+public enum InferenceMode {
+    /**
+     * Each request is processed on its own, by the first free replica
+     */
+    SEQUENTIAL,
+
+    /**
+     * Concurrent requests with compatible shapes are merged into a single batch,
+     * up to batchLimit examples or maxWait time, and results are split back per request
+     */
+    BATCHED,
+}
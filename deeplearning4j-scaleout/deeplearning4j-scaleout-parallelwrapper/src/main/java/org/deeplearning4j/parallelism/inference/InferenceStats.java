@@ -0,0 +1,136 @@
+package org.deeplearning4j.parallelism.inference;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free counters for ParallelInference: histogram of examples per feed-forward pass (batch fill),
+ * and histogram of per-request latencies, from enqueue till result availability.
+ *
+ * Latency buckets are powers of 2 in microseconds: bucket i holds requests with latency in [2^(i-1), 2^i) us.
+ */
+public class InferenceStats {
+    private static final int LATENCY_BUCKETS = 32;
+
+    private final int batchLimit;
+    private final AtomicLongArray batchSizes;
+    private final AtomicLongArray latencies;
+
+    public InferenceStats(int batchLimit) {
+        this.batchLimit = batchLimit;
+        // last bucket is used for passes with more than batchLimit examples, i.e. single oversized request
+        this.batchSizes = new AtomicLongArray(batchLimit + 2);
+        this.latencies = new AtomicLongArray(LATENCY_BUCKETS);
+    }
+
+    /**
+     * This method records single feed-forward pass
+     *
+     * @param numExamples number of examples processed within the pass
+     */
+    public void recordBatch(int numExamples) {
+        batchSizes.incrementAndGet(Math.min(numExamples, batchLimit + 1));
+    }
+
+    /**
+     * This method records latency of single request
+     *
+     * @param nanos time since request was enqueued, in nanoseconds
+     */
+    public void recordLatency(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(nanos, 0));
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        latencies.incrementAndGet(Math.min(bucket, LATENCY_BUCKETS - 1));
+    }
+
+    /**
+     * @return histogram of examples per pass: element i is number of passes with i examples,
+     *         last element counts passes above batchLimit
+     */
+    public long[] getBatchSizeHistogram() {
+        return toArray(batchSizes);
+    }
+
+    /**
+     * @return histogram of request latencies: element i is number of requests completed within [2^(i-1), 2^i) microseconds
+     */
+    public long[] getLatencyHistogram() {
+        return toArray(latencies);
+    }
+
+    /**
+     * @return number of feed-forward passes recorded so far
+     */
+    public long getNumberOfBatches() {
+        long total = 0;
+        for (long v : getBatchSizeHistogram())
+            total += v;
+        return total;
+    }
+
+    /**
+     * @return average ratio of examples per pass to batchLimit, in range [0, 1]
+     */
+    public double getAverageBatchFill() {
+        long[] hist = getBatchSizeHistogram();
+        long passes = 0;
+        double fill = 0.0;
+        for (int i = 0; i < hist.length; i++) {
+            passes += hist[i];
+            fill += hist[i] * Math.min(1.0, i / (double) batchLimit);
+        }
+
+        return passes == 0 ? 0.0 : fill / passes;
+    }
+
+    /**
+     * This method returns upper bound of given latency percentile, in microseconds
+     *
+     * @param percentile value in range (0, 100]
+     * @return
+     */
+    public long getLatencyPercentile(double percentile) {
+        long[] hist = getLatencyHistogram();
+        long total = 0;
+        for (long v : hist)
+            total += v;
+
+        if (total == 0)
+            return 0;
+
+        long threshold = (long) Math.ceil(total * percentile / 100.0);
+        long cumulative = 0;
+        for (int i = 0; i < hist.length; i++) {
+            cumulative += hist[i];
+            if (cumulative >= threshold)
+                return 1L << i;
+        }
+
+        return 1L << (hist.length - 1);
+    }
+
+    /**
+     * This method resets all counters
+     */
+    public void reset() {
+        for (int i = 0; i < batchSizes.length(); i++)
+            batchSizes.set(i, 0);
+
+        for (int i = 0; i < latencies.length(); i++)
+            latencies.set(i, 0);
+    }
+
+    private static long[] toArray(AtomicLongArray array) {
+        long[] result = new long[array.length()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = array.get(i);
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "InferenceStats(batches=" + getNumberOfBatches() + ", avgBatchFill=" + getAverageBatchFill()
+                        + ", p50=" + getLatencyPercentile(50) + "us, p99=" + getLatencyPercentile(99) + "us)";
+    }
+}
@@ -0,0 +1,207 @@
+package org.deeplearning4j.parallelism;
+
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.GravesLSTM;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.deeplearning4j.parallelism.inference.InferenceMode;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelInferenceTest {
+
+    private static MultiLayerNetwork getNetwork() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).weightInit(WeightInit.XAVIER)
+                        .list()
+                        .layer(0, new DenseLayer.Builder().nIn(10).nOut(20).activation(Activation.TANH).build())
+                        .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(20).nOut(5)
+                                        .activation(Activation.SOFTMAX).build())
+                        .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        return net;
+    }
+
+    @Test(timeout = 30000L)
+    public void testMultiLayerNetworkOutput() throws Exception {
+        MultiLayerNetwork net = getNetwork();
+
+        ParallelInference inference = new ParallelInference.Builder(net).workers(2).queueLimit(8).build();
+
+        List<INDArray> inputs = new ArrayList<>();
+        List<Future<INDArray[]>> futures = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            INDArray in = Nd4j.rand(3, 10);
+            inputs.add(in);
+            futures.add(inference.outputAsync(in));
+        }
+
+        for (int i = 0; i < inputs.size(); i++) {
+            INDArray expected = net.output(inputs.get(i), false);
+            assertEquals(expected, futures.get(i).get()[0]);
+        }
+
+        inference.shutdown();
+    }
+
+    @Test(timeout = 30000L)
+    public void testComputationGraphOutput() throws Exception {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .weightInit(WeightInit.XAVIER).graphBuilder().addInputs("in")
+                        .addLayer("dense", new DenseLayer.Builder().nIn(10).nOut(20).activation(Activation.TANH)
+                                        .build(), "in")
+                        .addLayer("out", new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(20).nOut(5)
+                                        .activation(Activation.SOFTMAX).build(), "dense")
+                        .setOutputs("out").build();
+
+        ComputationGraph graph = new ComputationGraph(conf);
+        graph.init();
+
+        ParallelInference inference = new ParallelInference.Builder(graph).workers(2).build();
+
+        INDArray in = Nd4j.rand(4, 10);
+        assertEquals(graph.outputSingle(in), inference.output(in));
+
+        inference.shutdown();
+    }
+
+    @Test(timeout = 30000L)
+    public void testUpdateModel() throws Exception {
+        MultiLayerNetwork net = getNetwork();
+        ParallelInference inference = new ParallelInference.Builder(net).workers(1).build();
+
+        INDArray in = Nd4j.rand(3, 10);
+        assertEquals(net.output(in, false), inference.output(in));
+
+        MultiLayerNetwork other = getNetwork();
+        other.setParams(Nd4j.rand(1, net.numParams()));
+        inference.updateModel(other);
+
+        assertEquals(other.output(in, false), inference.output(in));
+
+        inference.shutdown();
+    }
+
+    @Test(timeout = 30000L)
+    public void testBatchedOutput() throws Exception {
+        MultiLayerNetwork net = getNetwork();
+
+        ParallelInference inference = new ParallelInference.Builder(net).workers(1).queueLimit(64)
+                        .inferenceMode(InferenceMode.BATCHED).batchLimit(16).maxWait(50, TimeUnit.MILLISECONDS)
+                        .build();
+
+        List<INDArray> inputs = new ArrayList<>();
+        List<Future<INDArray[]>> futures = new ArrayList<>();
+        for (int i = 0; i < 48; i++) {
+            INDArray in = Nd4j.rand(1, 10);
+            inputs.add(in);
+            futures.add(inference.outputAsync(in));
+        }
+
+        for (int i = 0; i < inputs.size(); i++) {
+            INDArray expected = net.output(inputs.get(i), false);
+            assertEquals(expected, futures.get(i).get()[0]);
+        }
+
+        // 48 single-row requests can't be served with less than 3 passes, but should be served with less than 48
+        long passes = inference.getStats().getNumberOfBatches();
+        assertTrue(passes >= 3 && passes < 48);
+
+        inference.shutdown();
+    }
+
+    @Test(timeout = 30000L)
+    public void testBatchedOutputWithMasks() throws Exception {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).weightInit(WeightInit.XAVIER)
+                        .list()
+                        .layer(0, new GravesLSTM.Builder().nIn(3).nOut(6).activation(Activation.TANH).build())
+                        .layer(1, new RnnOutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(6).nOut(4)
+                                        .activation(Activation.SOFTMAX).build())
+                        .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        ParallelInference inference = new ParallelInference.Builder(net).workers(1)
+                        .inferenceMode(InferenceMode.BATCHED).batchLimit(8).maxWait(50, TimeUnit.MILLISECONDS)
+                        .build();
+
+        List<INDArray> inputs = new ArrayList<>();
+        List<INDArray> masks = new ArrayList<>();
+        List<Future<INDArray[]>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            INDArray in = Nd4j.rand(new int[] {1, 3, 5});
+            INDArray mask = Nd4j.ones(1, 5);
+            for (int j = 5 - (i % 3); j < 5; j++)
+                mask.putScalar(0, j, 0.0);
+
+            inputs.add(in);
+            masks.add(mask);
+            futures.add(inference.outputAsync(new INDArray[] {in}, new INDArray[] {mask}, null));
+        }
+
+        for (int i = 0; i < inputs.size(); i++) {
+            INDArray expected = net.output(inputs.get(i), false, masks.get(i), null);
+            assertEquals(expected, futures.get(i).get()[0]);
+        }
+
+        inference.shutdown();
+    }
+
+    @Test(timeout = 30000L)
+    public void testReplicaCreationFailure() throws Exception {
+        final AtomicBoolean failClone = new AtomicBoolean(false);
+        MultiLayerNetwork net = new MultiLayerNetwork(getNetwork().getLayerWiseConfigurations()) {
+            @Override
+            public INDArray params() {
+                if (failClone.get())
+                    throw new RuntimeException("Replica creation failed");
+                return super.params();
+            }
+        };
+        net.init();
+        failClone.set(true);
+
+        ParallelInference inference = new ParallelInference.Builder(net).workers(2).build();
+
+        // request may be queued before or after the workers fail: either way it has to fail, not hang
+        for (int i = 0; i < 3; i++) {
+            try {
+                inference.output(Nd4j.rand(3, 10));
+                fail("Expected exception");
+            } catch (RuntimeException e) {
+                assertTrue(hasCause(e, "Replica creation failed"));
+            }
+        }
+
+        inference.shutdown();
+    }
+
+    private static boolean hasCause(Throwable t, String message) {
+        for (; t != null; t = t.getCause()) {
+            if (message.equals(t.getMessage()))
+                return true;
+        }
+        return false;
+    }
+}
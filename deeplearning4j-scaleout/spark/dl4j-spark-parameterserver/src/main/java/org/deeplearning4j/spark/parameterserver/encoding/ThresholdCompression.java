@@ -0,0 +1,67 @@
+package org.deeplearning4j.spark.parameterserver.encoding;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.Arrays;
+
+/**
+ * Threshold encoding for sparse communication of updates (Strom, 2015).<br>
+ * Each worker accumulates its updates into a residual vector. Only elements of the residual with an absolute value of
+ * at least the threshold are communicated, and each of those is communicated as exactly +threshold or -threshold:
+ * the remainder stays in the residual, and will be communicated in a later iteration. Consequently no part of the
+ * update is ever lost - it is only delayed.<br>
+ * The encoded form of an update is an int array, with one entry per communicated element: {@code +(index+1)} for
+ * +threshold, and {@code -(index+1)} for -threshold.<br>
+ * <br>
+ * Sign convention: updates are subtracted from the parameters, i.e. params = params - update
+ */
+public class ThresholdCompression {
+
+    private ThresholdCompression() {}
+
+    /**
+     * Encode the residual, and subtract the encoded values from it (in-place)
+     *
+     * @param residual  Residual vector. Modified in-place
+     * @param threshold Threshold to use. Must be positive
+     * @return Encoded update. May be of length 0 if no elements of the residual exceed the threshold
+     */
+    public static int[] encode(double[] residual, double threshold) {
+        if (threshold <= 0.0)
+            throw new IllegalArgumentException("Threshold must be positive: got " + threshold);
+
+        int[] out = new int[16];
+        int n = 0;
+        for (int i = 0; i < residual.length; i++) {
+            double r = residual[i];
+            if (r >= threshold) {
+                residual[i] = r - threshold;
+                if (n == out.length)
+                    out = Arrays.copyOf(out, 2 * n);
+                out[n++] = i + 1;
+            } else if (r <= -threshold) {
+                residual[i] = r + threshold;
+                if (n == out.length)
+                    out = Arrays.copyOf(out, 2 * n);
+                out[n++] = -(i + 1);
+            }
+        }
+
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Apply an encoded update to the specified vector: i.e., subtract +/- threshold from each encoded element
+     *
+     * @param encoded   Encoded update, as returned by {@link #encode(double[], double)}
+     * @param threshold Threshold used when encoding
+     * @param target    Vector (usually parameters) to apply the update to. Modified in-place
+     */
+    public static void decode(int[] encoded, double threshold, INDArray target) {
+        for (int e : encoded) {
+            int idx = Math.abs(e) - 1;
+            double delta = (e > 0 ? threshold : -threshold);
+            target.putScalar(idx, target.getDouble(idx) - delta);
+        }
+    }
+}
@@ -0,0 +1,547 @@
+package org.deeplearning4j.spark.parameterserver.training;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.spark.SparkContext;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.input.PortableDataStream;
+import org.deeplearning4j.api.storage.StatsStorageRouter;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.optimize.api.IterationListener;
+import org.deeplearning4j.spark.api.Repartition;
+import org.deeplearning4j.spark.api.RepartitionStrategy;
+import org.deeplearning4j.spark.api.TrainingHook;
+import org.deeplearning4j.spark.api.TrainingMaster;
+import org.deeplearning4j.spark.api.WorkerConfiguration;
+import org.deeplearning4j.spark.api.stats.SparkTrainingStats;
+import org.deeplearning4j.spark.api.worker.*;
+import org.deeplearning4j.spark.impl.graph.SparkComputationGraph;
+import org.deeplearning4j.spark.impl.graph.dataset.DataSetToMultiDataSetFn;
+import org.deeplearning4j.spark.impl.multilayer.SparkDl4jMultiLayer;
+import org.deeplearning4j.spark.parameterserver.transport.LocalUpdatesTransport;
+import org.deeplearning4j.spark.parameterserver.transport.UpdatesTransport;
+import org.deeplearning4j.spark.util.SparkUtils;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.executioner.GridExecutioner;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.shade.jackson.annotation.JsonAutoDetect;
+import org.nd4j.shade.jackson.annotation.JsonIgnoreProperties;
+import org.nd4j.shade.jackson.annotation.PropertyAccessor;
+import org.nd4j.shade.jackson.core.JsonFactory;
+import org.nd4j.shade.jackson.core.JsonProcessingException;
+import org.nd4j.shade.jackson.databind.DeserializationFeature;
+import org.nd4j.shade.jackson.databind.MapperFeature;
+import org.nd4j.shade.jackson.databind.ObjectMapper;
+import org.nd4j.shade.jackson.databind.SerializationFeature;
+import org.nd4j.shade.jackson.dataformat.yaml.YAMLFactory;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * SharedTrainingMaster: a {@link TrainingMaster} implementation for asynchronous training with shared, compressed
+ * updates.<br>
+ * Unlike {@link org.deeplearning4j.spark.impl.paramavg.ParameterAveragingTrainingMaster}, there is no synchronization
+ * between workers every N minibatches: each worker trains on its entire partition, and shares its updates with all
+ * other workers after every minibatch. Updates are threshold-encoded (see
+ * {@link org.deeplearning4j.spark.parameterserver.encoding.ThresholdCompression}), so only a small fraction of the
+ * parameters is communicated in each iteration.<br>
+ * Updates are exchanged via an {@link UpdatesTransport}. The default, {@link LocalUpdatesTransport}, keeps the
+ * parameter server in the driver JVM, and hence can only be used in Spark local mode (such as local[*]).<br>
+ * <br>
+ * The final parameters are taken from the parameter server, after all workers are done. The updater state (if saved)
+ * and score are averaged over all workers.
+ */
+@Data
+@JsonIgnoreProperties({"stats", "listeners", "transport"})
+@EqualsAndHashCode(exclude = {"stats", "listeners", "transport"})
+@Slf4j
+public class SharedTrainingMaster implements TrainingMaster<SharedTrainingResult, SharedTrainingWorker> {
+
+    private static ObjectMapper jsonMapper;
+    private static ObjectMapper yamlMapper;
+
+    private boolean saveUpdater;
+    private Integer numWorkers;
+    private int rddDataSetNumExamples;
+    private int batchSizePerWorker;
+    private int prefetchNumBatches;
+    private double threshold;
+    private boolean collectTrainingStats;
+    private Repartition repartition;
+    private RepartitionStrategy repartitionStrategy;
+    private Collection<TrainingHook> trainingHookList;
+
+    private UpdatesTransport transport;
+    private SparkTrainingStats stats;
+    private Collection<IterationListener> listeners;
+
+    private SharedTrainingMaster() {
+        // no-arg constructor for Jackson
+        this.transport = new LocalUpdatesTransport();
+    }
+
+    private SharedTrainingMaster(Builder builder) {
+        this.saveUpdater = builder.saveUpdater;
+        this.numWorkers = builder.numWorkers;
+        this.rddDataSetNumExamples = builder.rddDataSetNumExamples;
+        this.batchSizePerWorker = builder.batchSizePerWorker;
+        this.prefetchNumBatches = builder.prefetchNumBatches;
+        this.threshold = builder.threshold;
+        this.repartition = builder.repartition;
+        this.repartitionStrategy = builder.repartitionStrategy;
+        this.trainingHookList = builder.trainingHooks;
+        this.transport = (builder.transport != null ? builder.transport : new LocalUpdatesTransport());
+    }
+
+    private static synchronized ObjectMapper getJsonMapper() {
+        if (jsonMapper == null) {
+            jsonMapper = getNewMapper(new JsonFactory());
+        }
+        return jsonMapper;
+    }
+
+    private static synchronized ObjectMapper getYamlMapper() {
+        if (yamlMapper == null) {
+            yamlMapper = getNewMapper(new YAMLFactory());
+        }
+        return yamlMapper;
+    }
+
+    private static ObjectMapper getNewMapper(JsonFactory jsonFactory) {
+        ObjectMapper om = new ObjectMapper(jsonFactory);
+        om.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        om.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        om.configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
+        om.enable(SerializationFeature.INDENT_OUTPUT);
+        om.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        om.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        return om;
+    }
+
+    @Override
+    public void removeHook(TrainingHook trainingHook) {
+        if (trainingHookList == null)
+            return;
+        trainingHookList.remove(trainingHook);
+    }
+
+    @Override
+    public void addHook(TrainingHook trainingHook) {
+        if (trainingHookList == null) {
+            trainingHookList = new ArrayList<>();
+        }
+        trainingHookList.add(trainingHook);
+    }
+
+    @Override
+    public String toJson() {
+        try {
+            return getJsonMapper().writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error producing JSON representation for SharedTrainingMaster", e);
+        }
+    }
+
+    @Override
+    public String toYaml() {
+        try {
+            return getYamlMapper().writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error producing YAML representation for SharedTrainingMaster", e);
+        }
+    }
+
+    /**
+     * Create a SharedTrainingMaster instance by deserializing a JSON string that has been serialized with
+     * {@link #toJson()}. Note that the transport is not serialized: the default transport is used
+     *
+     * @param jsonStr SharedTrainingMaster configuration serialized as JSON
+     */
+    public static SharedTrainingMaster fromJson(String jsonStr) {
+        try {
+            return getJsonMapper().readValue(jsonStr, SharedTrainingMaster.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not parse JSON", e);
+        }
+    }
+
+    /**
+     * Create a SharedTrainingMaster instance by deserializing a YAML string that has been serialized with
+     * {@link #toYaml()}. Note that the transport is not serialized: the default transport is used
+     *
+     * @param yamlStr SharedTrainingMaster configuration serialized as YAML
+     */
+    public static SharedTrainingMaster fromYaml(String yamlStr) {
+        try {
+            return getYamlMapper().readValue(yamlStr, SharedTrainingMaster.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not parse YAML", e);
+        }
+    }
+
+    @Override
+    public SharedTrainingWorker getWorkerInstance(SparkDl4jMultiLayer network) {
+        NetBroadcastTuple tuple = new NetBroadcastTuple(network.getNetwork().getLayerWiseConfigurations(), null,
+                        network.getNetwork().getUpdater().getStateViewArray());
+        Broadcast<NetBroadcastTuple> broadcast = network.getSparkContext().broadcast(tuple);
+
+        WorkerConfiguration configuration = new WorkerConfiguration(false, rddDataSetNumExamples, batchSizePerWorker,
+                        0, prefetchNumBatches, collectTrainingStats);
+        return new SharedTrainingWorker(broadcast, transport, threshold, saveUpdater, configuration, trainingHookList,
+                        listeners);
+    }
+
+    @Override
+    public SharedTrainingWorker getWorkerInstance(SparkComputationGraph graph) {
+        NetBroadcastTuple tuple = new NetBroadcastTuple(graph.getNetwork().getConfiguration(), null,
+                        graph.getNetwork().getUpdater().getStateViewArray());
+        Broadcast<NetBroadcastTuple> broadcast = graph.getSparkContext().broadcast(tuple);
+
+        WorkerConfiguration configuration = new WorkerConfiguration(true, rddDataSetNumExamples, batchSizePerWorker,
+                        0, prefetchNumBatches, collectTrainingStats);
+        return new SharedTrainingWorker(broadcast, transport, threshold, saveUpdater, configuration, trainingHookList,
+                        listeners);
+    }
+
+    @Override
+    public void executeTraining(SparkDl4jMultiLayer network, JavaRDD<DataSet> trainingData) {
+        doTraining(network, null, trainingData, new ExecuteWorkerFlatMap<>(getWorkerInstance(network)));
+    }
+
+    /**
+     * @deprecated Due to poor performance
+     */
+    @Override
+    @Deprecated
+    public void executeTraining(SparkDl4jMultiLayer network, JavaPairRDD<String, PortableDataStream> trainingData) {
+        doTraining(network, null, trainingData.values(), new ExecuteWorkerPDSFlatMap<>(getWorkerInstance(network)));
+    }
+
+    @Override
+    public void executeTrainingPaths(SparkDl4jMultiLayer network, JavaRDD<String> trainingDataPaths) {
+        doTraining(network, null, trainingDataPaths, new ExecuteWorkerPathFlatMap<>(getWorkerInstance(network)));
+    }
+
+    @Override
+    public void executeTraining(SparkComputationGraph graph, JavaRDD<DataSet> trainingData) {
+        executeTrainingMDS(graph, trainingData.map(new DataSetToMultiDataSetFn()));
+    }
+
+    /**
+     * @deprecated Due to poor performance
+     */
+    @Override
+    @Deprecated
+    public void executeTraining(SparkComputationGraph graph, JavaPairRDD<String, PortableDataStream> trainingData) {
+        doTraining(null, graph, trainingData.values(), new ExecuteWorkerPDSFlatMap<>(getWorkerInstance(graph)));
+    }
+
+    @Override
+    public void executeTrainingPaths(SparkComputationGraph graph, JavaRDD<String> trainingDataPaths) {
+        doTraining(null, graph, trainingDataPaths, new ExecuteWorkerPathFlatMap<>(getWorkerInstance(graph)));
+    }
+
+    @Override
+    public void executeTrainingPathsMDS(SparkComputationGraph graph, JavaRDD<String> trainingMultiDataSetPaths) {
+        doTraining(null, graph, trainingMultiDataSetPaths,
+                        new ExecuteWorkerPathMDSFlatMap<>(getWorkerInstance(graph)));
+    }
+
+    @Override
+    public void executeTrainingMDS(SparkComputationGraph graph, JavaRDD<MultiDataSet> trainingData) {
+        doTraining(null, graph, trainingData, new ExecuteWorkerMultiDataSetFlatMap<>(getWorkerInstance(graph)));
+    }
+
+    /**
+     * @deprecated Due to poor performance
+     */
+    @Override
+    @Deprecated
+    public void executeTrainingMDS(SparkComputationGraph graph,
+                    JavaPairRDD<String, PortableDataStream> trainingData) {
+        doTraining(null, graph, trainingData.values(), new ExecuteWorkerPDSMDSFlatMap<>(getWorkerInstance(graph)));
+    }
+
+    private <T> void doTraining(SparkDl4jMultiLayer network, SparkComputationGraph graph, JavaRDD<T> trainingData,
+                    FlatMapFunction<Iterator<T>, SharedTrainingResult> workerFunction) {
+        JavaSparkContext sc = (network != null ? network.getSparkContext() : graph.getSparkContext());
+        if (transport instanceof LocalUpdatesTransport && !sc.isLocal())
+            throw new IllegalStateException("LocalUpdatesTransport can only be used with Spark local mode. Use a "
+                            + "different UpdatesTransport for training on a cluster");
+        if (numWorkers == null)
+            numWorkers = sc.defaultParallelism();
+
+        //No synchronization between workers: each worker gets one partition, and trains on all of it
+        long totalDataSetObjectCount = trainingData.count();
+        if (totalDataSetObjectCount == 0) {
+            log.info("No training data: parameters were not updated");
+            return;
+        }
+        int objectsPerWorker = (int) Math.ceil(totalDataSetObjectCount / (double) numWorkers);
+        trainingData = SparkUtils.repartition(trainingData, repartition, repartitionStrategy, objectsPerWorker,
+                        numWorkers);
+
+        log.info("Starting shared training: {} DataSet objects, {} workers, workerMiniBatchSize={}, threshold={}",
+                        totalDataSetObjectCount, numWorkers, batchSizePerWorker, threshold);
+
+        INDArray params = (network != null ? network.getNetwork().params() : graph.getNetwork().params());
+        transport.start(params, threshold);
+        SharedTrainingResult result;
+        INDArray finalParams;
+        try {
+            result = trainingData.mapPartitions(workerFunction).reduce(new SharedTrainingResultCombineFunction());
+            finalParams = transport.getParameters();
+        } catch (Exception e) {
+            throw new RuntimeException("Error during shared training", e);
+        } finally {
+            transport.stop();
+        }
+
+        processResults(network, graph, result, finalParams);
+    }
+
+    private void processResults(SparkDl4jMultiLayer network, SparkComputationGraph graph, SharedTrainingResult result,
+                    INDArray params) {
+        if (result.getAggregationsCount() == 0) {
+            log.info("No data for any worker: parameters were not updated");
+            return;
+        }
+
+        int aggCount = result.getAggregationsCount();
+        INDArray updaterState = result.getUpdaterStateSum();
+        if (updaterState != null)
+            updaterState.divi(aggCount); //May be null if all SGD updaters, for example
+        //Average number of minibatches per worker
+        int minibatchesPerWorker = result.getMinibatchCount() / aggCount;
+
+        if (network != null) {
+            MultiLayerNetwork net = network.getNetwork();
+            net.setParameters(params);
+            if (updaterState != null)
+                net.getUpdater().setStateViewArray(null, updaterState, false);
+            network.setScore(result.getScoreSum() / aggCount);
+
+            MultiLayerConfiguration conf = net.getLayerWiseConfigurations();
+            conf.setIterationCount(conf.getIterationCount() + net.conf().getNumIterations() * minibatchesPerWorker);
+        } else {
+            ComputationGraph g = graph.getNetwork();
+            g.setParams(params);
+            if (updaterState != null)
+                g.getUpdater().setStateViewArray(updaterState);
+            graph.setScore(result.getScoreSum() / aggCount);
+
+            ComputationGraphConfiguration conf = g.getConfiguration();
+            conf.setIterationCount(conf.getIterationCount() + g.conf().getNumIterations() * minibatchesPerWorker);
+        }
+
+        if (collectTrainingStats && result.getSparkTrainingStats() != null) {
+            if (stats == null)
+                stats = result.getSparkTrainingStats();
+            else
+                stats.addOtherTrainingStats(result.getSparkTrainingStats());
+        }
+
+        if (Nd4j.getExecutioner() instanceof GridExecutioner)
+            ((GridExecutioner) Nd4j.getExecutioner()).flushQueueBlocking();
+
+        log.info("Completed shared training: {} minibatches on {} workers", result.getMinibatchCount(), aggCount);
+    }
+
+    @Override
+    public void setCollectTrainingStats(boolean collectTrainingStats) {
+        this.collectTrainingStats = collectTrainingStats;
+        if (!collectTrainingStats)
+            this.stats = null;
+    }
+
+    @Override
+    public boolean getIsCollectTrainingStats() {
+        return collectTrainingStats;
+    }
+
+    @Override
+    public SparkTrainingStats getTrainingStats() {
+        return stats;
+    }
+
+    @Override
+    public void setListeners(Collection<IterationListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    @Override
+    public void setListeners(StatsStorageRouter router, Collection<IterationListener> listeners) {
+        if (router != null)
+            log.warn("StatsStorageRouter is not supported by SharedTrainingMaster: listeners will be called on the "
+                            + "workers, but their updates will not be routed to the router");
+        this.listeners = listeners;
+    }
+
+    @Override
+    public boolean deleteTempFiles(JavaSparkContext sc) {
+        //No data is exported by this training master
+        return true;
+    }
+
+    @Override
+    public boolean deleteTempFiles(SparkContext sc) {
+        return true;
+    }
+
+
+    public static class Builder {
+        private boolean saveUpdater = true;
+        private Integer numWorkers;
+        private int rddDataSetNumExamples;
+        private int batchSizePerWorker = 16;
+        private int prefetchNumBatches = 0;
+        private double threshold = 1e-3;
+        private Repartition repartition = Repartition.Always;
+        private RepartitionStrategy repartitionStrategy = RepartitionStrategy.Balanced;
+        private UpdatesTransport transport;
+        private Collection<TrainingHook> trainingHooks;
+
+        /**
+         * Same as {@link #Builder(Integer, int)} but automatically set number of workers based on JavaSparkContext.defaultParallelism()
+         *
+         * @param rddDataSetNumExamples Number of examples in each DataSet object in the {@code RDD<DataSet>}
+         */
+        public Builder(int rddDataSetNumExamples) {
+            this(null, rddDataSetNumExamples);
+        }
+
+        /**
+         * @param numWorkers            Number of Spark execution threads in the cluster. May be null. If null: number of workers will
+         *                              be obtained from JavaSparkContext.defaultParallelism()
+         * @param rddDataSetNumExamples Number of examples in each DataSet object in the {@code RDD<DataSet>}
+         */
+        public Builder(Integer numWorkers, int rddDataSetNumExamples) {
+            if (numWorkers != null && numWorkers <= 0)
+                throw new IllegalArgumentException("Invalid number of workers: " + numWorkers + " (must be >= 1)");
+            if (rddDataSetNumExamples <= 0)
+                throw new IllegalArgumentException(
+                                "Invalid rdd data set size: " + rddDataSetNumExamples + " (must be >= 1)");
+            this.numWorkers = numWorkers;
+            this.rddDataSetNumExamples = rddDataSetNumExamples;
+        }
+
+        /**
+         * Batch size (in number of examples) per worker, for each fit(DataSet) call.
+         *
+         * @param batchSizePerWorker Size of each minibatch to use for each worker
+         */
+        public Builder batchSizePerWorker(int batchSizePerWorker) {
+            this.batchSizePerWorker = batchSizePerWorker;
+            return this;
+        }
+
+        /**
+         * Set the number of minibatches to asynchronously prefetch in the worker.
+         * <p>
+         * Default: 0 (no prefetching)
+         *
+         * @param prefetchNumBatches Number of minibatches (DataSets of size batchSizePerWorker) to fetch
+         */
+        public Builder workerPrefetchNumBatches(int prefetchNumBatches) {
+            this.prefetchNumBatches = prefetchNumBatches;
+            return this;
+        }
+
+        /**
+         * Set whether the updater (i.e., historical state for momentum, adagrad, etc) should be averaged over all
+         * workers and returned to the master at the end of training. Updater state is never shared during training.
+         * <p>
+         * Default: true
+         *
+         * @param saveUpdater If true: average and retain the updater state at the end of training
+         */
+        public Builder saveUpdater(boolean saveUpdater) {
+            this.saveUpdater = saveUpdater;
+            return this;
+        }
+
+        /**
+         * Threshold for encoding updates. Only update values with an absolute value of at least the threshold are
+         * shared in each iteration (as +/- threshold); smaller values are accumulated until they reach the threshold.
+         * Larger values mean less communication, but more delayed (stale) updates.
+         * <p>
+         * Default: 1e-3
+         *
+         * @param threshold Encoding threshold. Must be positive
+         */
+        public Builder threshold(double threshold) {
+            if (threshold <= 0.0)
+                throw new IllegalArgumentException("Invalid threshold: must be positive. Got " + threshold);
+            this.threshold = threshold;
+            return this;
+        }
+
+        /**
+         * Set if/when repartitioning should be conducted for the training data. Each worker trains on one partition.
+         * <p>
+         * Default: always repartition
+         *
+         * @param repartition Setting for repartitioning
+         */
+        public Builder repartitionData(Repartition repartition) {
+            this.repartition = repartition;
+            return this;
+        }
+
+        /**
+         * Repartitioning strategy to use. See {@link RepartitionStrategy} for details
+         *
+         * @param repartitionStrategy Repartitioning strategy to use
+         */
+        public Builder repartitionStrategy(RepartitionStrategy repartitionStrategy) {
+            this.repartitionStrategy = repartitionStrategy;
+            return this;
+        }
+
+        /**
+         * Transport used to exchange updates between workers.<br>
+         * Default: {@link LocalUpdatesTransport}, which can only be used in Spark local mode
+         *
+         * @param transport Transport to use
+         */
+        public Builder updatesTransport(UpdatesTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * Adds training hooks to the master and its workers
+         *
+         * @param trainingHooks the training hooks to add
+         */
+        public Builder trainingHooks(Collection<TrainingHook> trainingHooks) {
+            this.trainingHooks = trainingHooks;
+            return this;
+        }
+
+        /**
+         * Adds training hooks to the master and its workers
+         *
+         * @param hooks the training hooks to add
+         */
+        public Builder trainingHooks(TrainingHook... hooks) {
+            this.trainingHooks = Arrays.asList(hooks);
+            return this;
+        }
+
+        public SharedTrainingMaster build() {
+            return new SharedTrainingMaster(this);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.deeplearning4j.spark.parameterserver.training;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.deeplearning4j.spark.api.TrainingResult;
+import org.deeplearning4j.spark.api.stats.SparkTrainingStats;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.Serializable;
+
+/**
+ * The results returned by a {@link SharedTrainingWorker} to the {@link SharedTrainingMaster}.<br>
+ * Parameters are not part of the result: these are obtained from the parameter server. Results from multiple workers
+ * may be summed using {@link SharedTrainingResultCombineFunction}
+ */
+@AllArgsConstructor
+@Data
+public class SharedTrainingResult implements TrainingResult, Serializable {
+
+    private final INDArray updaterStateSum;
+    private final double scoreSum;
+    private final int minibatchCount;
+    private final int aggregationsCount;
+    private SparkTrainingStats sparkTrainingStats;
+
+    @Override
+    public void setStats(SparkTrainingStats sparkTrainingStats) {
+        this.sparkTrainingStats = sparkTrainingStats;
+    }
+}
@@ -0,0 +1,41 @@
+package org.deeplearning4j.spark.parameterserver.training;
+
+import org.apache.spark.api.java.function.Function2;
+import org.deeplearning4j.spark.api.stats.SparkTrainingStats;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+/**
+ * Function used to sum the {@link SharedTrainingResult}s of all workers
+ */
+public class SharedTrainingResultCombineFunction
+                implements Function2<SharedTrainingResult, SharedTrainingResult, SharedTrainingResult> {
+
+    @Override
+    public SharedTrainingResult call(SharedTrainingResult r1, SharedTrainingResult r2) throws Exception {
+        if (r1 == null)
+            return r2;
+        if (r2 == null)
+            return r1;
+
+        INDArray updaterStateSum;
+        if (r1.getUpdaterStateSum() == null) {
+            updaterStateSum = r2.getUpdaterStateSum();
+        } else {
+            updaterStateSum = r1.getUpdaterStateSum();
+            if (r2.getUpdaterStateSum() != null)
+                updaterStateSum.addi(r2.getUpdaterStateSum());
+        }
+
+        SparkTrainingStats stats = r1.getSparkTrainingStats();
+        if (r2.getSparkTrainingStats() != null) {
+            if (stats == null)
+                stats = r2.getSparkTrainingStats();
+            else
+                stats.addOtherTrainingStats(r2.getSparkTrainingStats());
+        }
+
+        return new SharedTrainingResult(updaterStateSum, r1.getScoreSum() + r2.getScoreSum(),
+                        r1.getMinibatchCount() + r2.getMinibatchCount(),
+                        r1.getAggregationsCount() + r2.getAggregationsCount(), stats);
+    }
+}
@@ -0,0 +1,305 @@
+package org.deeplearning4j.spark.parameterserver.training;
+
+import org.apache.spark.broadcast.Broadcast;
+import org.deeplearning4j.berkeley.Pair;
+import org.deeplearning4j.nn.api.Updater;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.graph.util.ComputationGraphUtil;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.updater.MultiLayerUpdater;
+import org.deeplearning4j.nn.updater.graph.ComputationGraphUpdater;
+import org.deeplearning4j.optimize.api.IterationListener;
+import org.deeplearning4j.spark.api.TrainingHook;
+import org.deeplearning4j.spark.api.TrainingWorker;
+import org.deeplearning4j.spark.api.WorkerConfiguration;
+import org.deeplearning4j.spark.api.stats.SparkTrainingStats;
+import org.deeplearning4j.spark.api.worker.NetBroadcastTuple;
+import org.deeplearning4j.spark.parameterserver.encoding.ThresholdCompression;
+import org.deeplearning4j.spark.parameterserver.transport.UpdatesTransport;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.executioner.GridExecutioner;
+import org.nd4j.linalg.dataset.api.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * SharedTrainingWorker: trains on the worker's data, and shares the updates with all other workers after every
+ * minibatch, via an {@link UpdatesTransport}.<br>
+ * After each fit, the difference in parameters (i.e., the update, as computed by the network's own updater) is added
+ * to a local residual vector, which is then threshold-encoded (see {@link ThresholdCompression}) and published. The
+ * network's parameters only change by the encoded updates: both this worker's own, and those of the other workers.
+ * Consequently, all workers (and the parameter server) see the same updates, though not necessarily at the same time.
+ * <br>
+ * Updater state (momentum, etc) is local to each worker.
+ */
+public class SharedTrainingWorker implements TrainingWorker<SharedTrainingResult> {
+
+    private final Broadcast<NetBroadcastTuple> broadcast;
+    private final UpdatesTransport transport;
+    private final double threshold;
+    private final boolean saveUpdater;
+    private final WorkerConfiguration configuration;
+    private Collection<TrainingHook> trainingHooks;
+    private final Collection<IterationListener> iterationListeners;
+
+    //Per-partition state. Set in getInitialModel(Graph)
+    private int workerId = -1;
+    private double[] residual;
+    private int minibatchCount;
+
+    public SharedTrainingWorker(Broadcast<NetBroadcastTuple> broadcast, UpdatesTransport transport, double threshold,
+                    boolean saveUpdater, WorkerConfiguration configuration, Collection<TrainingHook> trainingHooks,
+                    Collection<IterationListener> listeners) {
+        this.broadcast = broadcast;
+        this.transport = transport;
+        this.threshold = threshold;
+        this.saveUpdater = saveUpdater;
+        this.configuration = configuration;
+        this.trainingHooks = trainingHooks;
+        this.iterationListeners = listeners;
+    }
+
+    @Override
+    public void removeHook(TrainingHook trainingHook) {
+        if (trainingHooks == null)
+            return;
+        trainingHooks.remove(trainingHook);
+    }
+
+    @Override
+    public void addHook(TrainingHook trainingHook) {
+        if (trainingHooks == null)
+            trainingHooks = new ArrayList<>();
+        trainingHooks.add(trainingHook);
+    }
+
+    @Override
+    public MultiLayerNetwork getInitialModel() {
+        NetBroadcastTuple tuple = broadcast.getValue();
+        INDArray params = connect();
+
+        //Don't want to have shared configuration object: each may update its iteration count (for LR schedule etc) individually
+        MultiLayerNetwork net = new MultiLayerNetwork(tuple.getConfiguration().clone());
+        net.init(params, false);
+
+        if (tuple.getUpdaterState() != null) {
+            net.setUpdater(new MultiLayerUpdater(net, tuple.getUpdaterState().unsafeDuplication())); //Can't have shared updater state
+        }
+
+        if (Nd4j.getExecutioner() instanceof GridExecutioner)
+            ((GridExecutioner) Nd4j.getExecutioner()).flushQueueBlocking();
+
+        if (iterationListeners != null)
+            net.setListeners(iterationListeners);
+
+        return net;
+    }
+
+    @Override
+    public ComputationGraph getInitialModelGraph() {
+        NetBroadcastTuple tuple = broadcast.getValue();
+        INDArray params = connect();
+
+        //Don't want to have shared configuration object: each may update its iteration count (for LR schedule etc) individually
+        ComputationGraph net = new ComputationGraph(tuple.getGraphConfiguration().clone());
+        net.init(params, false);
+
+        if (tuple.getUpdaterState() != null) {
+            net.setUpdater(new ComputationGraphUpdater(net, tuple.getUpdaterState().unsafeDuplication())); //Again: can't have shared updater state
+        }
+
+        if (Nd4j.getExecutioner() instanceof GridExecutioner)
+            ((GridExecutioner) Nd4j.getExecutioner()).flushQueueBlocking();
+
+        if (iterationListeners != null)
+            net.setListeners(iterationListeners);
+
+        return net;
+    }
+
+    private INDArray connect() {
+        workerId = transport.connect();
+        INDArray params = transport.getParameters(workerId);
+        residual = new double[params.length()];
+        minibatchCount = 0;
+        return params;
+    }
+
+    /**
+     * Apply all updates published by other workers since the last call
+     */
+    private void applyRemoteUpdates(INDArray params) {
+        for (int[] encoded : transport.poll(workerId)) {
+            ThresholdCompression.decode(encoded, threshold, params);
+        }
+    }
+
+    /**
+     * Share the update from the last fit (i.e., before - params), and revert the local parameters to the state before
+     * the fit, plus the part of the update that has been shared
+     *
+     * @param before Parameters before fit. Modified in-place
+     * @param params Current network parameters. Modified in-place
+     */
+    private void shareUpdate(INDArray before, INDArray params) {
+        INDArray update = before.subi(params);
+        params.addi(update);
+
+        double[] u = update.data().asDouble();
+        for (int i = 0; i < residual.length; i++)
+            residual[i] += u[i];
+
+        int[] encoded = ThresholdCompression.encode(residual, threshold);
+        ThresholdCompression.decode(encoded, threshold, params);
+        transport.publish(workerId, encoded);
+    }
+
+    @Override
+    public SharedTrainingResult processMinibatch(DataSet dataSet, MultiLayerNetwork network, boolean isLast) {
+        if (trainingHooks != null) {
+            for (TrainingHook trainingHook : trainingHooks) {
+                trainingHook.preUpdate(dataSet, network);
+            }
+        }
+
+        applyRemoteUpdates(network.params());
+        INDArray before = network.params().dup();
+        network.fit(dataSet);
+        shareUpdate(before, network.params());
+        minibatchCount++;
+
+        if (trainingHooks != null) {
+            for (TrainingHook trainingHook : trainingHooks) {
+                trainingHook.postUpdate(dataSet, network);
+            }
+        }
+
+        if (Nd4j.getExecutioner() instanceof GridExecutioner)
+            ((GridExecutioner) Nd4j.getExecutioner()).flushQueueBlocking();
+
+        if (isLast)
+            return getFinalResult(network);
+
+        return null;
+    }
+
+    @Override
+    public SharedTrainingResult processMinibatch(DataSet dataSet, ComputationGraph graph, boolean isLast) {
+        return processMinibatch(ComputationGraphUtil.toMultiDataSet(dataSet), graph, isLast);
+    }
+
+    @Override
+    public SharedTrainingResult processMinibatch(MultiDataSet dataSet, ComputationGraph graph, boolean isLast) {
+        if (trainingHooks != null) {
+            for (TrainingHook trainingHook : trainingHooks) {
+                trainingHook.preUpdate(dataSet, graph);
+            }
+        }
+
+        applyRemoteUpdates(graph.params());
+        INDArray before = graph.params().dup();
+        graph.fit(dataSet);
+        shareUpdate(before, graph.params());
+        minibatchCount++;
+
+        if (trainingHooks != null) {
+            for (TrainingHook trainingHook : trainingHooks) {
+                trainingHook.postUpdate(dataSet, graph);
+            }
+        }
+
+        if (Nd4j.getExecutioner() instanceof GridExecutioner)
+            ((GridExecutioner) Nd4j.getExecutioner()).flushQueueBlocking();
+
+        if (isLast)
+            return getFinalResult(graph);
+
+        return null;
+    }
+
+    @Override
+    public Pair<SharedTrainingResult, SparkTrainingStats> processMinibatchWithStats(DataSet dataSet,
+                    MultiLayerNetwork network, boolean isLast) {
+        SharedTrainingResult result = processMinibatch(dataSet, network, isLast);
+        if (result == null)
+            return null;
+        return new Pair<>(result, null);
+    }
+
+    @Override
+    public Pair<SharedTrainingResult, SparkTrainingStats> processMinibatchWithStats(DataSet dataSet,
+                    ComputationGraph graph, boolean isLast) {
+        return processMinibatchWithStats(ComputationGraphUtil.toMultiDataSet(dataSet), graph, isLast);
+    }
+
+    @Override
+    public Pair<SharedTrainingResult, SparkTrainingStats> processMinibatchWithStats(MultiDataSet dataSet,
+                    ComputationGraph graph, boolean isLast) {
+        SharedTrainingResult result = processMinibatch(dataSet, graph, isLast);
+        if (result == null)
+            return null;
+        return new Pair<>(result, null);
+    }
+
+    @Override
+    public SharedTrainingResult getFinalResult(MultiLayerNetwork network) {
+        INDArray updaterState = null;
+        if (saveUpdater) {
+            Updater u = network.getUpdater();
+            if (u != null)
+                updaterState = u.getStateViewArray();
+        }
+        return finalResult(updaterState, network.score());
+    }
+
+    @Override
+    public SharedTrainingResult getFinalResult(ComputationGraph network) {
+        INDArray updaterState = null;
+        if (saveUpdater) {
+            ComputationGraphUpdater u = network.getUpdater();
+            if (u != null)
+                updaterState = u.getStateViewArray();
+        }
+        return finalResult(updaterState, network.score());
+    }
+
+    private SharedTrainingResult finalResult(INDArray updaterState, double score) {
+        if (Nd4j.getExecutioner() instanceof GridExecutioner)
+            ((GridExecutioner) Nd4j.getExecutioner()).flushQueueBlocking();
+
+        //Any remaining residual (less than the threshold, for each element) is not shared
+        if (workerId >= 0) {
+            transport.disconnect(workerId);
+            workerId = -1;
+        }
+        return new SharedTrainingResult(updaterState, score, minibatchCount, 1, null);
+    }
+
+    @Override
+    public SharedTrainingResult getFinalResultNoData() {
+        return new SharedTrainingResult(null, 0.0, 0, 0, null);
+    }
+
+    @Override
+    public Pair<SharedTrainingResult, SparkTrainingStats> getFinalResultNoDataWithStats() {
+        return new Pair<>(getFinalResultNoData(), null);
+    }
+
+    @Override
+    public Pair<SharedTrainingResult, SparkTrainingStats> getFinalResultWithStats(MultiLayerNetwork network) {
+        return new Pair<>(getFinalResult(network), null);
+    }
+
+    @Override
+    public Pair<SharedTrainingResult, SparkTrainingStats> getFinalResultWithStats(ComputationGraph graph) {
+        return new Pair<>(getFinalResult(graph), null);
+    }
+
+    @Override
+    public WorkerConfiguration getDataConfiguration() {
+        return configuration;
+    }
+}
@@ -0,0 +1,181 @@
+package org.deeplearning4j.spark.parameterserver.transport;
+
+import org.deeplearning4j.spark.parameterserver.encoding.ThresholdCompression;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An {@link UpdatesTransport} where the parameter server is an object in the current JVM. Workers find the session
+ * by its ID, hence this transport can only be used if all workers run in the same JVM as the training master: i.e.,
+ * Spark local mode (such as local[*]), for testing and single machine training.<br>
+ * <br>
+ * Published updates are kept in a log until all connected workers have polled them.
+ */
+public class LocalUpdatesTransport implements UpdatesTransport {
+
+    private static final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    private final String sessionId;
+
+    public LocalUpdatesTransport() {
+        this.sessionId = UUID.randomUUID().toString();
+    }
+
+    @Override
+    public void start(INDArray initialParameters, double threshold) {
+        if (sessions.containsKey(sessionId))
+            throw new IllegalStateException("Session " + sessionId + " has already been started");
+        sessions.put(sessionId, new Session(initialParameters.dup(), threshold));
+    }
+
+    @Override
+    public INDArray getParameters() {
+        return getSession().getParameters();
+    }
+
+    @Override
+    public void stop() {
+        sessions.remove(sessionId);
+    }
+
+    @Override
+    public int connect() {
+        return getSession().connect();
+    }
+
+    @Override
+    public INDArray getParameters(int workerId) {
+        return getSession().getParameters(workerId);
+    }
+
+    @Override
+    public void publish(int workerId, int[] encoded) {
+        getSession().publish(workerId, encoded);
+    }
+
+    @Override
+    public List<int[]> poll(int workerId) {
+        return getSession().poll(workerId);
+    }
+
+    @Override
+    public void disconnect(int workerId) {
+        getSession().disconnect(workerId);
+    }
+
+    /**
+     * @return Number of published updates not yet polled by all connected workers
+     */
+    int numLoggedUpdates() {
+        return getSession().numLoggedUpdates();
+    }
+
+    private Session getSession() {
+        Session s = sessions.get(sessionId);
+        if (s == null)
+            throw new IllegalStateException("No active session with ID " + sessionId + ": session was not started, "
+                            + "or worker is not running in the same JVM as the training master (LocalUpdatesTransport "
+                            + "can only be used with Spark local mode)");
+        return s;
+    }
+
+    private static class Session {
+        private final INDArray parameters;
+        private final double threshold;
+
+        //Log of published updates, not yet polled by all workers. logStart: position of log.get(0)
+        private final List<int[]> log = new ArrayList<>();
+        private final List<Integer> publishers = new ArrayList<>();
+        private long logStart = 0;
+        private final Map<Integer, Long> positions = new HashMap<>();
+        private int nextWorkerId = 0;
+
+        private Session(INDArray parameters, double threshold) {
+            this.parameters = parameters;
+            this.threshold = threshold;
+        }
+
+        private long logEnd() {
+            return logStart + log.size();
+        }
+
+        private synchronized INDArray getParameters() {
+            return parameters.dup();
+        }
+
+        private synchronized int connect() {
+            int id = nextWorkerId++;
+            positions.put(id, logEnd());
+            return id;
+        }
+
+        private synchronized INDArray getParameters(int workerId) {
+            checkConnected(workerId);
+            positions.put(workerId, logEnd());
+            compact();
+            return parameters.dup();
+        }
+
+        private synchronized void publish(int workerId, int[] encoded) {
+            checkConnected(workerId);
+            if (encoded.length == 0)
+                return;
+            ThresholdCompression.decode(encoded, threshold, parameters);
+            log.add(encoded);
+            publishers.add(workerId);
+        }
+
+        private synchronized List<int[]> poll(int workerId) {
+            long pos = checkConnected(workerId);
+            long end = logEnd();
+            if (pos == end)
+                return Collections.emptyList();
+
+            List<int[]> out = new ArrayList<>((int) (end - pos));
+            for (int i = (int) (pos - logStart); i < log.size(); i++) {
+                if (publishers.get(i) != workerId)
+                    out.add(log.get(i));
+            }
+            positions.put(workerId, end);
+            compact();
+            return out;
+        }
+
+        private synchronized void disconnect(int workerId) {
+            positions.remove(workerId);
+            compact();
+        }
+
+        private synchronized int numLoggedUpdates() {
+            return log.size();
+        }
+
+        private long checkConnected(int workerId) {
+            Long pos = positions.get(workerId);
+            if (pos == null)
+                throw new IllegalStateException("Worker " + workerId + " is not connected");
+            return pos;
+        }
+
+        //Remove all updates that have been polled by all connected workers
+        private void compact() {
+            long min = logEnd();
+            for (Long l : positions.values())
+                min = Math.min(min, l);
+
+            int toRemove = (int) (min - logStart);
+            if (toRemove > 0) {
+                log.subList(0, toRemove).clear();
+                publishers.subList(0, toRemove).clear();
+                logStart = min;
+            }
+        }
+    }
+}
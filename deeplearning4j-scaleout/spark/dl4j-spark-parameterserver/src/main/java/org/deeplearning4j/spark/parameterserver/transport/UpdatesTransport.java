@@ -0,0 +1,72 @@
+package org.deeplearning4j.spark.parameterserver.transport;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * UpdatesTransport: used to exchange threshold-encoded updates (see
+ * {@link org.deeplearning4j.spark.parameterserver.encoding.ThresholdCompression}) between workers, via a parameter
+ * server that keeps the current version of the parameters.<br>
+ * The same transport instance is used by the training master (start/stop and reading the final parameters) and is
+ * serialized to each worker (connect, publish/poll updates, disconnect).
+ */
+public interface UpdatesTransport extends Serializable {
+
+    /**
+     * Start a new training session. Called by the training master, before any workers connect
+     *
+     * @param initialParameters Initial parameters for the session. Not modified
+     * @param threshold         Threshold used for encoding updates
+     */
+    void start(INDArray initialParameters, double threshold);
+
+    /**
+     * @return Copy of the current parameters of the session (master side)
+     */
+    INDArray getParameters();
+
+    /**
+     * End the current session, releasing all resources. Called by the training master after all workers are done
+     */
+    void stop();
+
+    /**
+     * Connect a worker to the current session
+     *
+     * @return ID of the worker, used in all subsequent calls by the worker
+     */
+    int connect();
+
+    /**
+     * Get a copy of the current parameters for the worker. All updates published before this call are included in
+     * the returned parameters; {@link #poll(int)} returns only those updates published after this call.
+     *
+     * @param workerId Worker ID, as returned by {@link #connect()}
+     */
+    INDArray getParameters(int workerId);
+
+    /**
+     * Publish an encoded update from this worker to the parameter server and all other workers
+     *
+     * @param workerId Worker ID, as returned by {@link #connect()}
+     * @param encoded  Encoded update
+     */
+    void publish(int workerId, int[] encoded);
+
+    /**
+     * Get all updates published by other workers since the last call to this method (or to
+     * {@link #getParameters(int)}), in order of publication
+     *
+     * @param workerId Worker ID, as returned by {@link #connect()}
+     */
+    List<int[]> poll(int workerId);
+
+    /**
+     * Disconnect the worker from the session
+     *
+     * @param workerId Worker ID, as returned by {@link #connect()}
+     */
+    void disconnect(int workerId);
+}
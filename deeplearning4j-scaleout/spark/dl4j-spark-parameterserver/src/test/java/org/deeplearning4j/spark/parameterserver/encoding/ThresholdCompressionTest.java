@@ -0,0 +1,61 @@
+package org.deeplearning4j.spark.parameterserver.encoding;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ThresholdCompressionTest {
+
+    @Test
+    public void testEncodeKeepsResidual() {
+        double threshold = 1.0;
+        double[] residual = new double[] {0.5, 1.5, -2.25, -0.75, 1.0};
+
+        int[] encoded = ThresholdCompression.encode(residual, threshold);
+        assertArrayEquals(new int[] {2, -3, 5}, encoded);
+        //Values below the threshold are kept; values above it keep their remainder
+        assertArrayEquals(new double[] {0.5, 0.5, -1.25, -0.75, 0.0}, residual, 1e-12);
+
+        //Accumulate the next round's update: the residual from the first round is not lost
+        residual[0] += 0.5;
+        residual[3] -= 0.5;
+        encoded = ThresholdCompression.encode(residual, threshold);
+        assertArrayEquals(new int[] {1, -3, -4}, encoded);
+        assertArrayEquals(new double[] {0.0, 0.5, -0.25, -0.25, 0.0}, residual, 1e-12);
+
+        //Nothing at or above the threshold: empty encoding, residual unchanged
+        encoded = ThresholdCompression.encode(residual, threshold);
+        assertEquals(0, encoded.length);
+        assertArrayEquals(new double[] {0.0, 0.5, -0.25, -0.25, 0.0}, residual, 1e-12);
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        double threshold = 0.1;
+        double[] update = new double[] {0.25, -0.05, -0.3, 0.0, 0.1};
+        double[] residual = update.clone();
+
+        int[] encoded = ThresholdCompression.encode(residual, threshold);
+
+        INDArray params = Nd4j.zeros(update.length);
+        ThresholdCompression.decode(encoded, threshold, params);
+
+        //params = params - (update - residual)
+        for (int i = 0; i < update.length; i++) {
+            assertEquals(-(update[i] - residual[i]), params.getDouble(i), 1e-6);
+        }
+        assertEquals(-0.1, params.getDouble(0), 1e-6);
+        assertEquals(0.0, params.getDouble(1), 1e-6);
+        assertEquals(0.1, params.getDouble(2), 1e-6);
+        assertEquals(0.0, params.getDouble(3), 1e-6);
+        assertEquals(-0.1, params.getDouble(4), 1e-6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThreshold() {
+        ThresholdCompression.encode(new double[] {1.0}, 0.0);
+    }
+}
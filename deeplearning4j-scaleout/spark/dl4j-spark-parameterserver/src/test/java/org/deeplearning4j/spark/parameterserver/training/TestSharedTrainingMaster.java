@@ -0,0 +1,97 @@
+package org.deeplearning4j.spark.parameterserver.training;
+
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.nn.api.OptimizationAlgorithm;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.deeplearning4j.spark.impl.multilayer.SparkDl4jMultiLayer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestSharedTrainingMaster {
+
+    private transient JavaSparkContext sc;
+
+    @Before
+    public void before() {
+        SparkConf sparkConf = new SparkConf().setMaster("local[*]").setAppName("sparktest");
+        sc = new JavaSparkContext(sparkConf);
+    }
+
+    @After
+    public void after() {
+        sc.close();
+        sc = null;
+    }
+
+    private static MultiLayerConfiguration getIrisConf() {
+        return new NeuralNetConfiguration.Builder().seed(12345)
+                        .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT).iterations(1)
+                        .updater(Updater.SGD).learningRate(0.1).list()
+                        .layer(0, new DenseLayer.Builder().nIn(4).nOut(10).weightInit(WeightInit.XAVIER)
+                                        .activation(Activation.TANH).build())
+                        .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(10).nOut(3)
+                                        .weightInit(WeightInit.XAVIER).activation(Activation.SOFTMAX).build())
+                        .pretrain(false).backprop(true).build();
+    }
+
+    @Test
+    public void testIrisLocal() {
+        DataSet all = new IrisDataSetIterator(150, 150).next();
+        all.normalizeZeroMeanZeroUnitVariance();
+        all.shuffle(12345);
+        List<DataSet> list = all.asList();
+        JavaRDD<DataSet> rdd = sc.parallelize(list);
+
+        SharedTrainingMaster tm = new SharedTrainingMaster.Builder(1).batchSizePerWorker(10).threshold(1e-3).build();
+        SparkDl4jMultiLayer sparkNet = new SparkDl4jMultiLayer(sc, getIrisConf(), tm);
+
+        MultiLayerNetwork net = sparkNet.getNetwork();
+        INDArray initialParams = net.params().dup();
+        double initialScore = net.score(all);
+
+        for (int i = 0; i < 5; i++) {
+            sparkNet.fit(rdd);
+        }
+
+        INDArray finalParams = sparkNet.getNetwork().params();
+        double finalScore = sparkNet.getNetwork().score(all);
+
+        assertNotEquals(initialParams, finalParams);
+        assertTrue("Score did not decrease: " + initialScore + " -> " + finalScore, finalScore < initialScore);
+        assertTrue(sparkNet.getScore() > 0.0);
+    }
+
+    @Test
+    public void testEmptyRDD() {
+        JavaRDD<DataSet> rdd = sc.parallelize(Collections.<DataSet>emptyList());
+
+        SharedTrainingMaster tm = new SharedTrainingMaster.Builder(1).batchSizePerWorker(10).build();
+        SparkDl4jMultiLayer sparkNet = new SparkDl4jMultiLayer(sc, getIrisConf(), tm);
+        INDArray initialParams = sparkNet.getNetwork().params().dup();
+
+        sparkNet.fit(rdd);
+
+        assertEquals(initialParams, sparkNet.getNetwork().params());
+    }
+}
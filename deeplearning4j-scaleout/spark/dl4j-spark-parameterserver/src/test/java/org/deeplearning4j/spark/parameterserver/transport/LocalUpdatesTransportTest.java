@@ -0,0 +1,123 @@
+package org.deeplearning4j.spark.parameterserver.transport;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LocalUpdatesTransportTest {
+
+    @Test
+    public void testPublishPoll() {
+        LocalUpdatesTransport transport = new LocalUpdatesTransport();
+        INDArray initial = Nd4j.zeros(4);
+        transport.start(initial, 0.5);
+        try {
+            int w0 = transport.connect();
+            int w1 = transport.connect();
+
+            transport.publish(w0, new int[] {1, -3});
+            transport.publish(w1, new int[] {2});
+            transport.publish(w1, new int[0]); //Empty updates are ignored
+
+            //Updates are applied to the server parameters, not to the initial array
+            assertEquals(Nd4j.create(new double[] {-0.5, -0.5, 0.5, 0.0}), transport.getParameters());
+            assertEquals(Nd4j.zeros(4), initial);
+
+            //Workers don't receive their own updates
+            List<int[]> p0 = transport.poll(w0);
+            assertEquals(1, p0.size());
+            assertArrayEquals(new int[] {2}, p0.get(0));
+
+            List<int[]> p1 = transport.poll(w1);
+            assertEquals(1, p1.size());
+            assertArrayEquals(new int[] {1, -3}, p1.get(0));
+
+            //Nothing new since the last poll
+            assertTrue(transport.poll(w0).isEmpty());
+            assertTrue(transport.poll(w1).isEmpty());
+        } finally {
+            transport.stop();
+        }
+    }
+
+    @Test
+    public void testCompaction() {
+        LocalUpdatesTransport transport = new LocalUpdatesTransport();
+        transport.start(Nd4j.zeros(4), 0.5);
+        try {
+            int w0 = transport.connect();
+            int w1 = transport.connect();
+
+            transport.publish(w0, new int[] {1});
+            transport.publish(w0, new int[] {2});
+            assertEquals(2, transport.numLoggedUpdates());
+
+            //w1 has not yet polled: updates are retained
+            transport.poll(w0);
+            assertEquals(2, transport.numLoggedUpdates());
+
+            transport.poll(w1);
+            assertEquals(0, transport.numLoggedUpdates());
+
+            //A worker that fetches the full parameters no longer needs earlier updates
+            transport.publish(w1, new int[] {3});
+            assertEquals(1, transport.numLoggedUpdates());
+            transport.getParameters(w0);
+            assertEquals(1, transport.numLoggedUpdates());
+            transport.poll(w1);
+            assertEquals(0, transport.numLoggedUpdates());
+
+            //Disconnected workers don't hold back compaction
+            int w2 = transport.connect();
+            transport.publish(w0, new int[] {4});
+            transport.poll(w1);
+            transport.poll(w2);
+            assertEquals(1, transport.numLoggedUpdates());
+            transport.disconnect(w0);
+            assertEquals(0, transport.numLoggedUpdates());
+
+            try {
+                transport.poll(w0);
+                fail("Expected exception");
+            } catch (IllegalStateException e) {
+                //OK
+            }
+        } finally {
+            transport.stop();
+        }
+    }
+
+    @Test
+    public void testNotStarted() {
+        LocalUpdatesTransport transport = new LocalUpdatesTransport();
+        try {
+            transport.connect();
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            //OK
+        }
+
+        transport.start(Nd4j.zeros(4), 0.5);
+        try {
+            transport.start(Nd4j.zeros(4), 0.5);
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            //OK
+        }
+        transport.stop();
+
+        try {
+            transport.getParameters();
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            //OK
+        }
+    }
+}
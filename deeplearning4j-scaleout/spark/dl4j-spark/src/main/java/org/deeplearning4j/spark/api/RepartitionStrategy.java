@@ -7,12 +7,18 @@ package org.deeplearning4j.spark.api;
  * be problematic when the number of elements in a RDD is small<br>
  * Balanced: a custom repartitioning strategy that attempts to ensure that each partition ends up with the correct number
  * of elements. It has a slightly higher overhead (need to count the number of values in each partition) but should be less
- * prone to random sampling variance than the SparkDefault strategy
+ * prone to random sampling variance than the SparkDefault strategy<br>
+ * BalancedLocal: like Balanced, partitions end up with equal numbers of elements (differing by at most one). However,
+ * each element stays in its current partition where possible: only the surplus elements from partitions that are too
+ * large are shuffled to the partitions that are too small. If there are more partitions than required, partitions are
+ * first merged without a shuffle (preferring partitions on the same host). This has the same overhead as Balanced (a
+ * count of the values in each partition) but usually shuffles much less data. Note that the partitions are computed
+ * more than once, hence the RDD should be persisted (as is done during training)
  *
  *
  * @author Alex Black
  */
 public enum RepartitionStrategy {
-    SparkDefault, Balanced
+    SparkDefault, Balanced, BalancedLocal
 
 }
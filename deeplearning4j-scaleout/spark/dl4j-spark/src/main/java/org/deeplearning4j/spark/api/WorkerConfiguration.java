@@ -20,5 +20,12 @@ public class WorkerConfiguration implements Serializable {
     protected final int maxBatchesPerWorker;
     protected final int prefetchNumBatches;
     protected final boolean collectTrainingStats;
+    protected final int prefetchNumFiles; //Number of exported files to read ahead of time, in parallel. 0 = disabled
+
+    public WorkerConfiguration(boolean isGraphNetwork, int dataSetObjectSizeExamples, int batchSizePerWorker,
+                    int maxBatchesPerWorker, int prefetchNumBatches, boolean collectTrainingStats) {
+        this(isGraphNetwork, dataSetObjectSizeExamples, batchSizePerWorker, maxBatchesPerWorker, prefetchNumBatches,
+                        collectTrainingStats, 0);
+    }
 
 }
@@ -34,13 +34,15 @@ public class ExecuteWorkerPDSFlatMap<R extends TrainingResult>
 class ExecuteWorkerPDSFlatMapAdapter<R extends TrainingResult>
                 implements FlatMapFunctionAdapter<Iterator<PortableDataStream>, R> {
     private final FlatMapFunctionAdapter<Iterator<DataSet>, R> workerFlatMap;
+    private final int prefetchNumFiles;
 
     public ExecuteWorkerPDSFlatMapAdapter(TrainingWorker<R> worker) {
         this.workerFlatMap = new ExecuteWorkerFlatMapAdapter<>(worker);
+        this.prefetchNumFiles = worker.getDataConfiguration().getPrefetchNumFiles();
     }
 
     @Override
     public Iterable<R> call(Iterator<PortableDataStream> iter) throws Exception {
-        return workerFlatMap.call(new PortableDataStreamDataSetIterator(iter));
+        return workerFlatMap.call(new PortableDataStreamDataSetIterator(iter, prefetchNumFiles, 0));
     }
 }
@@ -38,6 +38,7 @@ public class ExecuteWorkerPathFlatMap<R extends TrainingResult>
 class ExecuteWorkerPathFlatMapAdapter<R extends TrainingResult> implements FlatMapFunctionAdapter<Iterator<String>, R> {
     private final FlatMapFunctionAdapter<Iterator<DataSet>, R> workerFlatMap;
     private final int maxDataSetObjects;
+    private final int prefetchNumFiles;
 
     public ExecuteWorkerPathFlatMapAdapter(TrainingWorker<R> worker) {
         this.workerFlatMap = new ExecuteWorkerFlatMapAdapter<>(worker);
@@ -47,6 +48,7 @@ class ExecuteWorkerPathFlatMapAdapter<R extends TrainingResult> implements FlatM
         //Most of the time we'll get exactly the number we want, but this isn't guaranteed all the time for all
         // splitting strategies
         WorkerConfiguration conf = worker.getDataConfiguration();
+        prefetchNumFiles = conf.getPrefetchNumFiles();
         int dataSetObjectNumExamples = conf.getDataSetObjectSizeExamples();
         int workerMinibatchSize = conf.getBatchSizePerWorker();
         int maxMinibatches = (conf.getMaxBatchesPerWorker() > 0 ? conf.getMaxBatchesPerWorker() : Integer.MAX_VALUE);
@@ -68,6 +70,6 @@ class ExecuteWorkerPathFlatMapAdapter<R extends TrainingResult> implements FlatM
             list.add(iter.next());
         }
 
-        return workerFlatMap.call(new PathSparkDataSetIterator(list.iterator()));
+        return workerFlatMap.call(new PathSparkDataSetIterator(list.iterator(), prefetchNumFiles, 0));
     }
 }
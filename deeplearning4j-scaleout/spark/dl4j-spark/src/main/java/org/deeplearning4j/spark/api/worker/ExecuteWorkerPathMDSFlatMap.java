@@ -39,6 +39,7 @@ class ExecuteWorkerPathMDSFlatMapAdapter<R extends TrainingResult>
                 implements FlatMapFunctionAdapter<Iterator<String>, R> {
     private final FlatMapFunctionAdapter<Iterator<MultiDataSet>, R> workerFlatMap;
     private final int maxDataSetObjects;
+    private final int prefetchNumFiles;
 
     public ExecuteWorkerPathMDSFlatMapAdapter(TrainingWorker<R> worker) {
         this.workerFlatMap = new ExecuteWorkerMultiDataSetFlatMapAdapter<>(worker);
@@ -48,6 +49,7 @@ class ExecuteWorkerPathMDSFlatMapAdapter<R extends TrainingResult>
         //Most of the time we'll get exactly the number we want, but this isn't guaranteed all the time for all
         // splitting strategies
         WorkerConfiguration conf = worker.getDataConfiguration();
+        prefetchNumFiles = conf.getPrefetchNumFiles();
         int dataSetObjectNumExamples = conf.getDataSetObjectSizeExamples();
         int workerMinibatchSize = conf.getBatchSizePerWorker();
         int maxMinibatches = (conf.getMaxBatchesPerWorker() > 0 ? conf.getMaxBatchesPerWorker() : Integer.MAX_VALUE);
@@ -69,6 +71,6 @@ class ExecuteWorkerPathMDSFlatMapAdapter<R extends TrainingResult>
             list.add(iter.next());
         }
 
-        return workerFlatMap.call(new PathSparkMultiDataSetIterator(list.iterator()));
+        return workerFlatMap.call(new PathSparkMultiDataSetIterator(list.iterator(), prefetchNumFiles, 0));
     }
 }
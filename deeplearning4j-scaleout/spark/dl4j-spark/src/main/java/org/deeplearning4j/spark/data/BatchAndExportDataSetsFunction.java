@@ -38,6 +38,10 @@ import java.util.*;
  * Naming convention for exported files:
  * "dataset_" + partitionIdx + JVM_UID + "_" + idx + ".bin"
  * where 'idx' is the index of the DataSet objects in this partition
+ * <p>
+ * Optionally, multiple minibatches may be packed into each exported file (see {@link DataSetExportFormat}), to reduce
+ * the number of files that need to be opened when training. In this case, 'idx' is the index of the first DataSet
+ * in the file.
  *
  * @author Alex Black
  */
@@ -47,14 +51,44 @@ public class BatchAndExportDataSetsFunction implements Function2<Integer, Iterat
     private final int minibatchSize;
     private final String exportBaseDirectory;
     private final String jvmuid;
+    private final int dataSetsPerFile;
+    private final DataSetCompression compression;
 
     /**
      * @param minibatchSize       Minibatch size to combine examples to (if necessary)
      * @param exportBaseDirectory Base directory for exporting
      */
     public BatchAndExportDataSetsFunction(int minibatchSize, String exportBaseDirectory) {
+        this(minibatchSize, exportBaseDirectory, 1, null);
+    }
+
+    /**
+     * @param minibatchSize       Minibatch size to combine examples to (if necessary)
+     * @param exportBaseDirectory Base directory for exporting
+     * @param dataSetsPerFile     Number of minibatches to pack into each exported file. If 1: each minibatch is exported
+     *                            to a separate file
+     */
+    public BatchAndExportDataSetsFunction(int minibatchSize, String exportBaseDirectory, int dataSetsPerFile) {
+        this(minibatchSize, exportBaseDirectory, dataSetsPerFile, null);
+    }
+
+    /**
+     * @param minibatchSize       Minibatch size to combine examples to (if necessary)
+     * @param exportBaseDirectory Base directory for exporting
+     * @param dataSetsPerFile     Number of minibatches to pack into each exported file. If 1: each minibatch is exported
+     *                            to a separate file
+     * @param compression         Compression settings for the exported DataSets. If null: DataSets are exported in the
+     *                            standard (uncompressed) format. See {@link CompressedDataSetFormat}
+     */
+    public BatchAndExportDataSetsFunction(int minibatchSize, String exportBaseDirectory, int dataSetsPerFile,
+                    DataSetCompression compression) {
+        if (dataSetsPerFile <= 0)
+            throw new IllegalArgumentException(
+                            "Invalid number of DataSets per file: " + dataSetsPerFile + " (must be >= 1)");
         this.minibatchSize = minibatchSize;
         this.exportBaseDirectory = exportBaseDirectory;
+        this.dataSetsPerFile = dataSetsPerFile;
+        this.compression = compression;
         String fullUID = UIDProvider.getJVMUID();
         this.jvmuid = (fullUID.length() <= 8 ? fullUID : fullUID.substring(0, 8));
     }
@@ -64,17 +98,18 @@ public class BatchAndExportDataSetsFunction implements Function2<Integer, Iterat
 
         List<String> outputPaths = new ArrayList<>();
         LinkedList<DataSet> tempList = new LinkedList<>();
+        List<DataSet> toPack = new ArrayList<>(dataSetsPerFile);
 
         int count = 0;
         while (iterator.hasNext()) {
             DataSet next = iterator.next();
             if (next.numExamples() == minibatchSize) {
-                outputPaths.add(export(next, partitionIdx, count++));
+                outputPaths.addAll(exportOrPack(next, partitionIdx, count++, toPack));
                 continue;
             }
             //DataSet must be either smaller or larger than minibatch size...
             tempList.add(next);
-            Pair<Integer, List<String>> countAndPaths = processList(tempList, partitionIdx, count, false);
+            Pair<Integer, List<String>> countAndPaths = processList(tempList, toPack, partitionIdx, count, false);
             if (countAndPaths.getSecond() != null && countAndPaths.getSecond().size() > 0) {
                 outputPaths.addAll(countAndPaths.getSecond());
             }
@@ -82,16 +117,22 @@ public class BatchAndExportDataSetsFunction implements Function2<Integer, Iterat
         }
 
         //We might have some left-over examples...
-        Pair<Integer, List<String>> countAndPaths = processList(tempList, partitionIdx, count, true);
+        Pair<Integer, List<String>> countAndPaths = processList(tempList, toPack, partitionIdx, count, true);
         if (countAndPaths.getSecond() != null && countAndPaths.getSecond().size() > 0) {
             outputPaths.addAll(countAndPaths.getSecond());
         }
+        count = countAndPaths.getFirst();
+
+        //...and some minibatches that haven't been packed into a file yet
+        if (toPack.size() > 0) {
+            outputPaths.add(exportPacked(toPack, partitionIdx, count - toPack.size()));
+        }
 
         return outputPaths.iterator();
     }
 
-    private Pair<Integer, List<String>> processList(LinkedList<DataSet> tempList, int partitionIdx, int countBefore,
-                    boolean finalExport) throws Exception {
+    private Pair<Integer, List<String>> processList(LinkedList<DataSet> tempList, List<DataSet> toPack,
+                    int partitionIdx, int countBefore, boolean finalExport) throws Exception {
         //Go through the list. If we have enough examples: remove the DataSet objects, merge and export them. Otherwise: do nothing
         int numExamples = 0;
         for (DataSet ds : tempList) {
@@ -126,22 +167,48 @@ public class BatchAndExportDataSetsFunction implements Function2<Integer, Iterat
         }
         //At this point: we should have the required number of examples in tempToMerge (unless it's a final export)
         DataSet toExport = DataSet.merge(tempToMerge);
-        exportPaths.add(export(toExport, partitionIdx, countAfter++));
+        exportPaths.addAll(exportOrPack(toExport, partitionIdx, countAfter++, toPack));
 
         return new Pair<>(countAfter, exportPaths);
     }
 
+    private List<String> exportOrPack(DataSet dataSet, int partitionIdx, int outputCount, List<DataSet> toPack)
+                    throws Exception {
+        if (dataSetsPerFile == 1)
+            return Collections.singletonList(export(dataSet, partitionIdx, outputCount));
+
+        toPack.add(dataSet);
+        if (toPack.size() < dataSetsPerFile)
+            return Collections.emptyList();
+        return Collections.singletonList(exportPacked(toPack, partitionIdx, outputCount - toPack.size() + 1));
+    }
+
     private String export(DataSet dataSet, int partitionIdx, int outputCount) throws Exception {
-        String filename = "dataset_" + partitionIdx + jvmuid + "_" + outputCount + ".bin";
+        URI uri = getExportURI(partitionIdx, outputCount);
+        FileSystem file = FileSystem.get(uri, conf);
+        try (FSDataOutputStream out = file.create(new Path(uri))) {
+            DataSetExportFormat.save(dataSet, out, compression);
+        }
 
-        URI uri = new URI(exportBaseDirectory
-                        + (exportBaseDirectory.endsWith("/") || exportBaseDirectory.endsWith("\\") ? "" : "/")
-                        + filename);
+        return uri.getPath();
+    }
+
+    private String exportPacked(List<DataSet> toPack, int partitionIdx, int firstOutputCount) throws Exception {
+        URI uri = getExportURI(partitionIdx, firstOutputCount);
         FileSystem file = FileSystem.get(uri, conf);
         try (FSDataOutputStream out = file.create(new Path(uri))) {
-            dataSet.save(out);
+            DataSetExportFormat.savePacked(toPack, out, compression);
         }
+        toPack.clear();
 
         return uri.getPath();
     }
+
+    private URI getExportURI(int partitionIdx, int outputCount) throws Exception {
+        String filename = "dataset_" + partitionIdx + jvmuid + "_" + outputCount + ".bin";
+
+        return new URI(exportBaseDirectory
+                        + (exportBaseDirectory.endsWith("/") || exportBaseDirectory.endsWith("\\") ? "" : "/")
+                        + filename);
+    }
 }
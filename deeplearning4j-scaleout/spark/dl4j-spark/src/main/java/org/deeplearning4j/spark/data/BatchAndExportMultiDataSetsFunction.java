@@ -48,12 +48,25 @@ public class BatchAndExportMultiDataSetsFunction
     private final int minibatchSize;
     private final String exportBaseDirectory;
     private final String jvmuid;
+    private final DataSetCompression compression;
 
     /**
      * @param minibatchSize       Minibatch size to combine examples to (if necessary)
      * @param exportBaseDirectory Base directory for exporting
      */
     public BatchAndExportMultiDataSetsFunction(int minibatchSize, String exportBaseDirectory) {
+        this(minibatchSize, exportBaseDirectory, null);
+    }
+
+    /**
+     * @param minibatchSize       Minibatch size to combine examples to (if necessary)
+     * @param exportBaseDirectory Base directory for exporting
+     * @param compression         Compression settings for the exported MultiDataSets. If null: MultiDataSets are
+     *                            exported in the standard (uncompressed) format. See {@link CompressedDataSetFormat}
+     */
+    public BatchAndExportMultiDataSetsFunction(int minibatchSize, String exportBaseDirectory,
+                    DataSetCompression compression) {
+        this.compression = compression;
         this.minibatchSize = minibatchSize;
         this.exportBaseDirectory = exportBaseDirectory;
         String fullUID = UIDProvider.getJVMUID();
@@ -140,7 +153,7 @@ public class BatchAndExportMultiDataSetsFunction
                         + filename);
         FileSystem file = FileSystem.get(uri, conf);
         try (FSDataOutputStream out = file.create(new Path(uri))) {
-            dataSet.save(out);
+            DataSetExportFormat.save(dataSet, out, compression);
         }
 
         return uri.getPath();
@@ -0,0 +1,584 @@
+package org.deeplearning4j.spark.data;
+
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed file format for DataSets and MultiDataSets, with a codec per array (see {@link DataSetCompression}) and
+ * a CRC32 checksum per array.<br>
+ * Layout: header {@link #HEADER}, version, type (DataSet or MultiDataSet), number of arrays in each of the 4 groups
+ * (features, labels, feature masks, label masks; -1 if the group is null), then a table of contents with one entry
+ * per array: flags, element type, shape, raw and stored lengths, offset (from the start of the file) and checksum.
+ * Array data follows the table of contents, each array aligned to {@link #ALIGNMENT} bytes. Hence any array can be
+ * located (and, if stored dense and uncompressed, used in place) from the header alone.<br>
+ * Files are usually read and written via {@link DataSetExportFormat}, which detects this format automatically.
+ */
+public class CompressedDataSetFormat {
+
+    public static final byte[] HEADER = {'D', 'L', '4', 'C'};
+    public static final int VERSION = 1;
+    public static final int ALIGNMENT = 8;
+
+    private static final byte TYPE_DATASET = 0;
+    private static final byte TYPE_MULTIDATASET = 1;
+
+    private static final byte FLAG_ABSENT = 1;
+    private static final byte FLAG_SPARSE = 2;
+    private static final byte FLAG_BINARY = 4; //Sparse, with all non-zero values equal to 1.0: values are not stored
+    private static final byte FLAG_DEFLATE = 8;
+
+    private static final byte ELEMENT_FLOAT = 0;
+    private static final byte ELEMENT_DOUBLE = 1;
+    private static final byte ELEMENT_HALF = 2;
+
+    private static final int NUM_GROUPS = 4; //Features, labels, feature masks, label masks
+    private static final int MAX_RANK = 32;
+    private static final int READ_CHUNK_BYTES = 1 << 20;
+
+    private static class Entry {
+        private byte flags;
+        private byte elementType;
+        private int[] shape;
+        private int rawLength;
+        private int storedLength;
+        private long offset;
+        private long checksum;
+        private byte[] stored;
+
+        private int headerBytes() {
+            return 1 + 1 + 4 + 4 * shape.length + 4 + 4 + 8 + 8;
+        }
+    }
+
+    private CompressedDataSetFormat() {}
+
+    /**
+     * Write a DataSet in the compressed format
+     *
+     * @param dataSet     DataSet to write
+     * @param out         Output stream to write to. Not closed by this method
+     * @param compression Compression settings
+     */
+    public static void write(DataSet dataSet, OutputStream out, DataSetCompression compression) throws IOException {
+        INDArray[][] groups = {{dataSet.getFeatureMatrix()}, {dataSet.getLabels()},
+                        {dataSet.getFeaturesMaskArray()}, {dataSet.getLabelsMaskArray()}};
+        write(TYPE_DATASET, groups, out, compression);
+    }
+
+    /**
+     * Write a MultiDataSet in the compressed format
+     *
+     * @param dataSet     MultiDataSet to write
+     * @param out         Output stream to write to. Not closed by this method
+     * @param compression Compression settings
+     */
+    public static void write(MultiDataSet dataSet, OutputStream out, DataSetCompression compression)
+                    throws IOException {
+        INDArray[][] groups = {dataSet.getFeatures(), dataSet.getLabels(), dataSet.getFeaturesMaskArrays(),
+                        dataSet.getLabelsMaskArrays()};
+        write(TYPE_MULTIDATASET, groups, out, compression);
+    }
+
+    private static void write(byte type, INDArray[][] groups, OutputStream out, DataSetCompression compression)
+                    throws IOException {
+        //Encode all arrays first: the table of contents needs the stored lengths
+        List<Entry> entries = new ArrayList<>();
+        long headerSize = HEADER.length + 4 + 1 + 4 * NUM_GROUPS;
+        for (int g = 0; g < NUM_GROUPS; g++) {
+            if (groups[g] == null)
+                continue;
+            for (INDArray arr : groups[g]) {
+                Entry e = encode(arr, g == 0 && compression.isHalfPrecisionFeatures(), compression);
+                entries.add(e);
+                headerSize += e.headerBytes();
+            }
+        }
+
+        long offset = align(headerSize);
+        for (Entry e : entries) {
+            e.offset = offset;
+            offset = align(offset + e.storedLength);
+        }
+
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out));
+        dos.write(HEADER);
+        dos.writeInt(VERSION);
+        dos.writeByte(type);
+        for (int g = 0; g < NUM_GROUPS; g++) {
+            dos.writeInt(groups[g] == null ? -1 : groups[g].length);
+        }
+        for (Entry e : entries) {
+            dos.writeByte(e.flags);
+            dos.writeByte(e.elementType);
+            dos.writeInt(e.shape.length);
+            for (int s : e.shape)
+                dos.writeInt(s);
+            dos.writeInt(e.rawLength);
+            dos.writeInt(e.storedLength);
+            dos.writeLong(e.offset);
+            dos.writeLong(e.checksum);
+        }
+
+        long position = headerSize;
+        for (Entry e : entries) {
+            if ((e.flags & FLAG_ABSENT) != 0)
+                continue;
+            dos.write(new byte[(int) (e.offset - position)]);
+            dos.write(e.stored);
+            position = e.offset + e.storedLength;
+        }
+        dos.flush();
+    }
+
+    private static Entry encode(INDArray arr, boolean halfPrecision, DataSetCompression compression) {
+        Entry e = new Entry();
+        if (arr == null) {
+            e.flags = FLAG_ABSENT;
+            e.shape = new int[0];
+            e.stored = new byte[0];
+            return e;
+        }
+
+        e.shape = arr.shape();
+        if (halfPrecision) {
+            e.elementType = ELEMENT_HALF;
+        } else {
+            e.elementType = (arr.data().dataType() == DataBuffer.Type.DOUBLE ? ELEMENT_DOUBLE : ELEMENT_FLOAT);
+        }
+        int bytesPerElement = bytesPerElement(e.elementType);
+
+        INDArray flat = arr;
+        if (arr.ordering() != 'c' || arr.offset() != 0 || arr.data().length() != arr.length()) {
+            //View or 'f' order: need a contiguous copy
+            flat = arr.dup('c');
+        }
+        double[] values = flat.data().asDouble();
+        int n = arr.length();
+
+        int nnz = 0;
+        boolean binary = true;
+        for (int i = 0; i < n; i++) {
+            if (values[i] != 0.0) {
+                nnz++;
+                if (values[i] != 1.0)
+                    binary = false;
+            }
+        }
+
+        byte[] raw;
+        if (nnz <= compression.getSparseThreshold() * n) {
+            e.flags |= FLAG_SPARSE;
+            if (binary)
+                e.flags |= FLAG_BINARY;
+
+            //Number of non-zeros, then delta encoded indices as varints, then values (unless binary)
+            ByteArrayOutputStream indices = new ByteArrayOutputStream(4 + 2 * nnz);
+            writeVarInt(indices, nnz);
+            int last = -1;
+            for (int i = 0; i < n; i++) {
+                if (values[i] != 0.0) {
+                    writeVarInt(indices, i - last);
+                    last = i;
+                }
+            }
+            ByteBuffer bb = ByteBuffer.allocate(indices.size() + (binary ? 0 : nnz * bytesPerElement));
+            bb.put(indices.toByteArray());
+            if (!binary) {
+                for (int i = 0; i < n; i++) {
+                    if (values[i] != 0.0)
+                        putValue(bb, values[i], e.elementType);
+                }
+            }
+            raw = bb.array();
+        } else {
+            ByteBuffer bb = ByteBuffer.allocate(n * bytesPerElement);
+            for (int i = 0; i < n; i++) {
+                putValue(bb, values[i], e.elementType);
+            }
+            raw = bb.array();
+        }
+
+        e.rawLength = raw.length;
+        e.stored = raw;
+        if (compression.isDeflate() && raw.length > 0) {
+            byte[] deflated = deflate(raw, compression.getDeflateLevel());
+            if (deflated.length < raw.length) {
+                e.stored = deflated;
+                e.flags |= FLAG_DEFLATE;
+            }
+        }
+        e.storedLength = e.stored.length;
+
+        CRC32 crc = new CRC32();
+        crc.update(e.stored);
+        e.checksum = crc.getValue();
+        return e;
+    }
+
+    /**
+     * Read a DataSet in the compressed format. MultiDataSets with at most one features and labels array may also be
+     * read as a DataSet
+     *
+     * @param in Input stream, positioned at the start of the header
+     */
+    public static DataSet readDataSet(InputStream in) throws IOException {
+        INDArray[][] groups = read(in);
+        if (groups[0] == null || groups[0].length != 1 || (groups[1] != null && groups[1].length > 1))
+            throw new IOException("Cannot read as DataSet: MultiDataSet has "
+                            + (groups[0] == null ? 0 : groups[0].length) + " features arrays and "
+                            + (groups[1] == null ? 0 : groups[1].length) + " labels arrays");
+        return new DataSet(groups[0][0], single(groups[1]), single(groups[2]), single(groups[3]));
+    }
+
+    /**
+     * Read a MultiDataSet in the compressed format. DataSets may also be read as a MultiDataSet
+     *
+     * @param in Input stream, positioned at the start of the header
+     */
+    public static MultiDataSet readMultiDataSet(InputStream in) throws IOException {
+        INDArray[][] groups = read(in);
+        return new org.nd4j.linalg.dataset.MultiDataSet(groups[0], groups[1], groups[2], groups[3]);
+    }
+
+    private static INDArray single(INDArray[] group) {
+        return (group == null || group.length == 0 ? null : group[0]);
+    }
+
+    private static INDArray[][] read(InputStream in) throws IOException {
+        DataInputStream dis = new DataInputStream(in);
+        byte[] header = new byte[HEADER.length];
+        dis.readFully(header);
+        if (!Arrays.equals(HEADER, header))
+            throw new IOException("Not a compressed DataSet file: invalid header");
+        int version = dis.readInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported compressed DataSet file version: " + version);
+        byte type = dis.readByte();
+
+        int[] counts = new int[NUM_GROUPS];
+        long numEntriesLong = 0;
+        for (int g = 0; g < NUM_GROUPS; g++) {
+            counts[g] = dis.readInt();
+            if (counts[g] < -1)
+                throw new IOException("Corrupt compressed DataSet file: invalid number of arrays " + counts[g]);
+            numEntriesLong += Math.max(0, counts[g]);
+        }
+        if (numEntriesLong > Integer.MAX_VALUE)
+            throw new IOException("Corrupt compressed DataSet file: invalid number of arrays " + numEntriesLong);
+        int numEntries = (int) numEntriesLong;
+        long position = HEADER.length + 4 + 1 + 4 * NUM_GROUPS;
+
+        //All lengths and offsets are validated before use: a corrupt or truncated file gives an IOException, instead of
+        //a NegativeArraySizeException or an OutOfMemoryError
+        List<Entry> entries = new ArrayList<>(Math.min(numEntries, 64));
+        for (int i = 0; i < numEntries; i++) {
+            Entry e = new Entry();
+            e.flags = dis.readByte();
+            e.elementType = dis.readByte();
+            int rank = dis.readInt();
+            if (rank < 0 || rank > MAX_RANK)
+                throw new IOException("Corrupt compressed DataSet file: invalid array rank " + rank);
+            e.shape = new int[rank];
+            for (int j = 0; j < e.shape.length; j++) {
+                e.shape[j] = dis.readInt();
+                if (e.shape[j] < 0)
+                    throw new IOException("Corrupt compressed DataSet file: invalid shape " + Arrays.toString(e.shape));
+            }
+            e.rawLength = dis.readInt();
+            e.storedLength = dis.readInt();
+            e.offset = dis.readLong();
+            e.checksum = dis.readLong();
+            if (e.rawLength < 0 || e.storedLength < 0)
+                throw new IOException("Corrupt compressed DataSet file: invalid array length " + e.rawLength + " / "
+                                + e.storedLength);
+            entries.add(e);
+            position += e.headerBytes();
+        }
+
+        INDArray[] arrays = new INDArray[numEntries];
+        for (int i = 0; i < numEntries; i++) {
+            Entry e = entries.get(i);
+            if ((e.flags & FLAG_ABSENT) != 0)
+                continue;
+            //Arrays are stored in order, each aligned: the gap is padding only
+            if (e.offset < position || e.offset - position >= ALIGNMENT)
+                throw new IOException("Corrupt compressed DataSet file: invalid offset " + e.offset);
+            dis.readFully(new byte[(int) (e.offset - position)]);
+            e.stored = readBytes(dis, e.storedLength);
+            position = e.offset + e.storedLength;
+            arrays[i] = decode(e);
+        }
+
+        INDArray[][] groups = new INDArray[NUM_GROUPS][];
+        int idx = 0;
+        for (int g = 0; g < NUM_GROUPS; g++) {
+            if (counts[g] < 0)
+                continue;
+            groups[g] = Arrays.copyOfRange(arrays, idx, idx + counts[g]);
+            idx += counts[g];
+        }
+
+        if (type == TYPE_DATASET) {
+            //Same representation as a MultiDataSet converted from a DataSet: null masks -> null mask arrays
+            for (int g = 2; g < NUM_GROUPS; g++) {
+                if (groups[g] != null && groups[g].length == 1 && groups[g][0] == null)
+                    groups[g] = null;
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Read the specified number of bytes. The length is usually read from the stream itself, hence may be corrupt:
+     * the bytes are read in chunks, so that memory use is bounded by the data actually present
+     *
+     * @throws EOFException If the stream ends before the specified number of bytes could be read
+     */
+    static byte[] readBytes(DataInputStream dis, int length) throws IOException {
+        if (length < 0)
+            throw new IOException("Invalid length: " + length);
+        if (length <= READ_CHUNK_BYTES) {
+            byte[] bytes = new byte[length];
+            dis.readFully(bytes);
+            return bytes;
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(READ_CHUNK_BYTES);
+        byte[] buffer = new byte[READ_CHUNK_BYTES];
+        int remaining = length;
+        while (remaining > 0) {
+            int count = dis.read(buffer, 0, Math.min(remaining, buffer.length));
+            if (count < 0)
+                throw new EOFException("Unexpected end of stream: expected " + length + " bytes, got "
+                                + (length - remaining));
+            baos.write(buffer, 0, count);
+            remaining -= count;
+        }
+        return baos.toByteArray();
+    }
+
+    private static INDArray decode(Entry e) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(e.stored);
+        if (crc.getValue() != e.checksum)
+            throw new IOException("Corrupt compressed DataSet file: checksum mismatch");
+
+        long length = 1;
+        for (int s : e.shape) {
+            length *= s;
+            if (length > Integer.MAX_VALUE)
+                throw new IOException("Corrupt compressed DataSet file: invalid shape " + Arrays.toString(e.shape));
+        }
+        int n = (int) length;
+        long denseLength = length * bytesPerElement(e.elementType);
+        if ((e.flags & FLAG_SPARSE) == 0 && e.rawLength != denseLength)
+            throw new IOException("Corrupt compressed DataSet file: expected " + denseLength
+                            + " bytes for array of shape " + Arrays.toString(e.shape) + ", got " + e.rawLength);
+
+        byte[] raw = ((e.flags & FLAG_DEFLATE) != 0 ? inflate(e.stored, e.rawLength) : e.stored);
+        if (raw.length != e.rawLength)
+            throw new IOException("Corrupt compressed DataSet file: expected " + e.rawLength + " bytes, got "
+                            + raw.length);
+        try {
+            return decode(e, ByteBuffer.wrap(raw), n);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            throw new IOException("Corrupt compressed DataSet file: invalid array data", ex);
+        }
+    }
+
+    private static INDArray decode(Entry e, ByteBuffer bb, int n) {
+        boolean isDouble = (e.elementType == ELEMENT_DOUBLE);
+        double[] d = (isDouble ? new double[n] : null);
+        float[] f = (isDouble ? null : new float[n]);
+
+        if ((e.flags & FLAG_SPARSE) != 0) {
+            int nnz = readVarInt(bb);
+            if (nnz < 0 || nnz > n)
+                throw new IndexOutOfBoundsException("Invalid number of non-zero values: " + nnz);
+            int[] indices = new int[nnz];
+            int last = -1;
+            for (int k = 0; k < nnz; k++) {
+                last += readVarInt(bb);
+                indices[k] = last;
+            }
+            boolean binary = (e.flags & FLAG_BINARY) != 0;
+            for (int k = 0; k < nnz; k++) {
+                if (isDouble)
+                    d[indices[k]] = (binary ? 1.0 : bb.getDouble());
+                else
+                    f[indices[k]] = (binary ? 1.0f : getFloat(bb, e.elementType));
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                if (isDouble)
+                    d[i] = bb.getDouble();
+                else
+                    f[i] = getFloat(bb, e.elementType);
+            }
+        }
+
+        return (isDouble ? Nd4j.create(d, e.shape, 'c') : Nd4j.create(f, e.shape, 'c'));
+    }
+
+    private static int bytesPerElement(byte elementType) {
+        switch (elementType) {
+            case ELEMENT_HALF:
+                return 2;
+            case ELEMENT_FLOAT:
+                return 4;
+            default:
+                return 8;
+        }
+    }
+
+    private static void putValue(ByteBuffer bb, double value, byte elementType) {
+        switch (elementType) {
+            case ELEMENT_HALF:
+                bb.putShort(toHalf((float) value));
+                break;
+            case ELEMENT_FLOAT:
+                bb.putFloat((float) value);
+                break;
+            default:
+                bb.putDouble(value);
+        }
+    }
+
+    private static float getFloat(ByteBuffer bb, byte elementType) {
+        return (elementType == ELEMENT_HALF ? fromHalf(bb.getShort()) : bb.getFloat());
+    }
+
+    /**
+     * Convert a float to IEEE 754 half precision (round half up)
+     */
+    static short toHalf(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exp = (bits >>> 23) & 0xff;
+        int mantissa = bits & 0x7fffff;
+
+        if (exp == 0xff) //NaN or infinity
+            return (short) (sign | 0x7c00 | (mantissa != 0 ? 0x200 : 0));
+
+        int halfExp = exp - 127 + 15;
+        if (halfExp >= 0x1f) //Overflow: infinity
+            return (short) (sign | 0x7c00);
+        if (halfExp <= 0) {
+            //Subnormal half (or zero)
+            if (halfExp < -10)
+                return (short) sign;
+            mantissa |= 0x800000;
+            int shift = 14 - halfExp;
+            int h = mantissa >> shift;
+            if (((mantissa >> (shift - 1)) & 1) != 0)
+                h++;
+            return (short) (sign | h);
+        }
+
+        int h = (halfExp << 10) | (mantissa >> 13);
+        if ((mantissa & 0x1000) != 0)
+            h++; //Rounding may carry into the exponent, which gives the correct result
+        return (short) (sign | h);
+    }
+
+    /**
+     * Convert an IEEE 754 half precision value to a float
+     */
+    static float fromHalf(short half) {
+        int h = half & 0xffff;
+        int sign = (h & 0x8000) << 16;
+        int exp = (h >>> 10) & 0x1f;
+        int mantissa = h & 0x3ff;
+
+        if (exp == 0) {
+            //Zero or subnormal: mantissa * 2^-24
+            float v = mantissa * 5.9604645E-8f;
+            return (sign != 0 ? -v : v);
+        }
+        if (exp == 0x1f)
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        return Float.intBitsToFloat(sign | ((exp + 112) << 23) | (mantissa << 13));
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(ByteBuffer bb) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bb.get();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static byte[] deflate(byte[] raw, int level) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(raw.length / 2 + 64);
+            byte[] buffer = new byte[65536];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                baos.write(buffer, 0, count);
+            }
+            return baos.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] stored, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            //rawLength is read from the file: grow the output as data is inflated, rather than trusting it up front
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(rawLength, READ_CHUNK_BYTES));
+            byte[] buffer = new byte[Math.max(1, Math.min(rawLength, 65536))];
+            int offset = 0;
+            while (offset < rawLength && !inflater.finished()) {
+                int count = inflater.inflate(buffer, 0, Math.min(buffer.length, rawLength - offset));
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                out.write(buffer, 0, count);
+                offset += count;
+            }
+            if (offset != rawLength)
+                throw new IOException(
+                                "Corrupt compressed DataSet file: expected " + rawLength + " bytes, got " + offset);
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed DataSet file", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static long align(long offset) {
+        long rem = offset % ALIGNMENT;
+        return rem == 0 ? offset : offset + ALIGNMENT - rem;
+    }
+}
@@ -0,0 +1,86 @@
+package org.deeplearning4j.spark.data;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.zip.Deflater;
+
+/**
+ * Settings for exporting DataSets and MultiDataSets in the compressed format ({@link CompressedDataSetFormat}).<br>
+ * The codec for each array is chosen automatically:<br>
+ * - Sparse (indices of the non-zero elements, plus their values) if at most {@link #getSparseThreshold()} of the
+ * elements are non-zero. If all non-zero values are 1.0 (for example, one-hot labels), only the indices are stored<br>
+ * - Dense otherwise<br>
+ * The result is then optionally deflate compressed, if that makes it smaller. Features may optionally be stored in half
+ * precision (16 bit floats), which is lossy.
+ */
+@Data
+public class DataSetCompression implements Serializable {
+
+    private boolean deflate = true;
+    private int deflateLevel = Deflater.BEST_SPEED;
+    private double sparseThreshold = 0.25;
+    private boolean halfPrecisionFeatures = false;
+
+    /**
+     * Default settings: deflate (fastest level), sparse storage for arrays with at most 25% non-zero elements, features
+     * stored at full precision
+     */
+    public DataSetCompression() {}
+
+    private DataSetCompression(Builder builder) {
+        this.deflate = builder.deflate;
+        this.deflateLevel = builder.deflateLevel;
+        this.sparseThreshold = builder.sparseThreshold;
+        this.halfPrecisionFeatures = builder.halfPrecisionFeatures;
+    }
+
+    public static class Builder {
+        private boolean deflate = true;
+        private int deflateLevel = Deflater.BEST_SPEED;
+        private double sparseThreshold = 0.25;
+        private boolean halfPrecisionFeatures = false;
+
+        /**
+         * Whether to deflate compress each array (if that makes it smaller). Default: true
+         */
+        public Builder deflate(boolean deflate) {
+            this.deflate = deflate;
+            return this;
+        }
+
+        /**
+         * Deflate compression level, 1 (fastest) to 9 (smallest). Default: 1
+         */
+        public Builder deflateLevel(int deflateLevel) {
+            if (deflateLevel < Deflater.BEST_SPEED || deflateLevel > Deflater.BEST_COMPRESSION)
+                throw new IllegalArgumentException("Invalid deflate level: " + deflateLevel + " (must be 1 to 9)");
+            this.deflateLevel = deflateLevel;
+            return this;
+        }
+
+        /**
+         * Arrays with at most this fraction of non-zero elements are stored in a sparse format. 0 to always store
+         * arrays as dense. Default: 0.25
+         */
+        public Builder sparseThreshold(double sparseThreshold) {
+            if (sparseThreshold < 0.0 || sparseThreshold > 1.0)
+                throw new IllegalArgumentException("Invalid sparse threshold: " + sparseThreshold + " (must be 0 to 1)");
+            this.sparseThreshold = sparseThreshold;
+            return this;
+        }
+
+        /**
+         * If true: feature arrays (not labels or masks) are stored as 16 bit floats. This halves the size of dense
+         * features, at the cost of precision (about 3 significant digits). Default: false
+         */
+        public Builder halfPrecisionFeatures(boolean halfPrecisionFeatures) {
+            this.halfPrecisionFeatures = halfPrecisionFeatures;
+            return this;
+        }
+
+        public DataSetCompression build() {
+            return new DataSetCompression(this);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.deeplearning4j.spark.data;
+
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Utilities for reading and writing exported DataSet and MultiDataSet files.<br>
+ * The following formats are supported:<br>
+ * 1. Single DataSet or MultiDataSet files, as written by {@link DataSet#save(OutputStream)} and
+ * {@link MultiDataSet#save(OutputStream)}<br>
+ * 2. Single DataSet or MultiDataSet files in the compressed format (see {@link CompressedDataSetFormat})<br>
+ * 3. Packed files, containing multiple DataSets, each in format 1 or 2. Packing many small minibatches into one file
+ * reduces the number of files that need to be opened when reading from HDFS, S3 etc.<br>
+ * <br>
+ * {@link #load(InputStream)} and {@link #loadMultiDataSet(InputStream)} detect the format automatically, hence files
+ * of any format may be used anywhere an exported DataSet path is expected.<br>
+ * Packed format: 4 byte header {@link #PACKED_HEADER}, number of DataSets (int), then for each DataSet its length in
+ * bytes (int) followed by the serialized DataSet.
+ */
+public class DataSetExportFormat {
+
+    /**
+     * Header for packed files. The first byte of a single DataSet file (as written by DataSet.save) is a bit mask with
+     * a value less than 32, hence the formats can't be confused
+     */
+    public static final byte[] PACKED_HEADER = {'D', 'L', '4', 'P'};
+
+    private DataSetExportFormat() {}
+
+    /**
+     * Write a single DataSet
+     *
+     * @param dataSet     DataSet to write
+     * @param out         Output stream to write to. May be closed by this method
+     * @param compression Compression settings. If null: the standard (uncompressed) DataSet format is used
+     */
+    public static void save(DataSet dataSet, OutputStream out, DataSetCompression compression) throws IOException {
+        if (compression == null) {
+            dataSet.save(out);
+        } else {
+            CompressedDataSetFormat.write(dataSet, out, compression);
+        }
+    }
+
+    /**
+     * Write a single MultiDataSet
+     *
+     * @param dataSet     MultiDataSet to write
+     * @param out         Output stream to write to. May be closed by this method
+     * @param compression Compression settings. If null: the standard (uncompressed) MultiDataSet format is used
+     */
+    public static void save(MultiDataSet dataSet, OutputStream out, DataSetCompression compression)
+                    throws IOException {
+        if (compression == null) {
+            dataSet.save(out);
+        } else {
+            CompressedDataSetFormat.write(dataSet, out, compression);
+        }
+    }
+
+    /**
+     * Write the specified DataSets to the output stream in the packed format, without compression
+     *
+     * @param dataSets DataSets to write
+     * @param out      Output stream to write to. Not closed by this method
+     */
+    public static void savePacked(List<DataSet> dataSets, OutputStream out) throws IOException {
+        savePacked(dataSets, out, null);
+    }
+
+    /**
+     * Write the specified DataSets to the output stream in the packed format
+     *
+     * @param dataSets    DataSets to write
+     * @param out         Output stream to write to. Not closed by this method
+     * @param compression Compression settings for each DataSet. May be null (no compression)
+     */
+    public static void savePacked(List<DataSet> dataSets, OutputStream out, DataSetCompression compression)
+                    throws IOException {
+        DataOutputStream dos = new DataOutputStream(out);
+        dos.write(PACKED_HEADER);
+        dos.writeInt(dataSets.size());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (DataSet ds : dataSets) {
+            //DataSet.save closes the stream it writes to, hence we serialize each DataSet separately
+            baos.reset();
+            save(ds, baos, compression);
+            dos.writeInt(baos.size());
+            baos.writeTo(dos);
+        }
+        dos.flush();
+    }
+
+    /**
+     * Load all DataSets from the given input stream, which may be in any of the supported formats
+     *
+     * @param in Input stream to read from
+     * @return List of DataSets in the stream: with exactly one element for single DataSet files
+     */
+    public static List<DataSet> load(InputStream in) throws IOException {
+        BufferedInputStream bis = buffered(in);
+        if (!hasHeader(bis, PACKED_HEADER)) {
+            return Collections.singletonList(loadSingle(bis));
+        }
+
+        DataInputStream dis = new DataInputStream(bis);
+        dis.readFully(new byte[PACKED_HEADER.length]);
+        int count = dis.readInt();
+        if (count < 0)
+            throw new IOException("Corrupt packed DataSet file: invalid number of DataSets " + count);
+        //Count and lengths are read from the file: don't allocate based on them before the data has been read
+        List<DataSet> out = new ArrayList<>(Math.min(count, 64));
+        for (int i = 0; i < count; i++) {
+            int length = dis.readInt();
+            if (length < 0)
+                throw new IOException("Corrupt packed DataSet file: invalid length " + length + " for DataSet " + i);
+            byte[] bytes = CompressedDataSetFormat.readBytes(dis, length);
+            out.add(loadSingle(new BufferedInputStream(new ByteArrayInputStream(bytes))));
+        }
+        return out;
+    }
+
+    /**
+     * Load a MultiDataSet from the given input stream, which may be in the standard or compressed format
+     *
+     * @param in Input stream to read from
+     */
+    public static MultiDataSet loadMultiDataSet(InputStream in) throws IOException {
+        BufferedInputStream bis = buffered(in);
+        if (hasHeader(bis, CompressedDataSetFormat.HEADER))
+            return CompressedDataSetFormat.readMultiDataSet(bis);
+
+        MultiDataSet ds = new org.nd4j.linalg.dataset.MultiDataSet();
+        ds.load(bis);
+        return ds;
+    }
+
+    private static DataSet loadSingle(BufferedInputStream bis) throws IOException {
+        if (hasHeader(bis, CompressedDataSetFormat.HEADER))
+            return CompressedDataSetFormat.readDataSet(bis);
+
+        DataSet ds = new DataSet();
+        ds.load(bis);
+        return ds;
+    }
+
+    private static BufferedInputStream buffered(InputStream in) {
+        return (in instanceof BufferedInputStream ? (BufferedInputStream) in : new BufferedInputStream(in));
+    }
+
+    private static boolean hasHeader(BufferedInputStream bis, byte[] header) throws IOException {
+        bis.mark(header.length);
+        try {
+            for (byte b : header) {
+                if (bis.read() != (b & 0xFF))
+                    return false;
+            }
+            return true;
+        } finally {
+            bis.reset();
+        }
+    }
+}
@@ -22,12 +22,23 @@ public class MultiDataSetExportFunction implements VoidFunction<Iterator<MultiDa
     private static final Configuration conf = new Configuration();
 
     private final URI outputDir;
+    private final DataSetCompression compression;
     private String uid = null;
 
     private int outputCount;
 
     public MultiDataSetExportFunction(URI outputDir) {
+        this(outputDir, null);
+    }
+
+    /**
+     * @param outputDir   Directory to export to
+     * @param compression Compression settings. If null: the standard (uncompressed) format is used.
+     *                    See {@link CompressedDataSetFormat}
+     */
+    public MultiDataSetExportFunction(URI outputDir, DataSetCompression compression) {
         this.outputDir = outputDir;
+        this.compression = compression;
     }
 
     @Override
@@ -45,7 +56,7 @@ public class MultiDataSetExportFunction implements VoidFunction<Iterator<MultiDa
             URI uri = new URI(path + (path.endsWith("/") || path.endsWith("\\") ? "" : "/") + filename);
             FileSystem file = FileSystem.get(uri, conf);
             try (FSDataOutputStream out = file.create(new Path(uri))) {
-                next.save(out);
+                DataSetExportFormat.save(next, out, compression);
             }
         }
     }
@@ -9,10 +9,13 @@ import org.nd4j.linalg.dataset.DataSet;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.List;
 
 /**
  * Simple function used to load DataSets (serialized with DataSet.save()) from a given Path (as a String)
- * to a DataSet object - i.e., {@code RDD<String>} to {@code RDD<DataSet>}
+ * to a DataSet object - i.e., {@code RDD<String>} to {@code RDD<DataSet>}.<br>
+ * Compressed files are also supported. Files containing multiple DataSets (see {@link DataSetExportFormat}) are merged
+ * into a single DataSet
  *
  * @author Alex Black
  */
@@ -31,13 +34,14 @@ public class PathToDataSetFunction implements Function<String, DataSet> {
             }
         }
 
-        DataSet ds = new DataSet();
+        List<DataSet> list;
         try (FSDataInputStream inputStream = fileSystem.open(new Path(path), BUFFER_SIZE)) {
-            ds.load(inputStream);
+            list = DataSetExportFormat.load(inputStream);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
-        return ds;
+        //Files containing multiple DataSets are merged
+        return (list.size() == 1 ? list.get(0) : DataSet.merge(list));
     }
 }
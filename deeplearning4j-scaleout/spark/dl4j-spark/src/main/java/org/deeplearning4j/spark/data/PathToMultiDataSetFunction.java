@@ -13,7 +13,8 @@ import java.net.URI;
 
 /**
  * Simple function used to load MultiDataSets (serialized with MultiDataSet.save()) from a given Path (as a String)
- * to a MultiDataSet object - i.e., {@code RDD<String>} to {@code RDD<MultiDataSet>}
+ * to a MultiDataSet object - i.e., {@code RDD<String>} to {@code RDD<MultiDataSet>}.<br>
+ * MultiDataSets in the compressed format (see {@link CompressedDataSetFormat}) are also supported
  *
  * @author Alex Black
  */
@@ -32,13 +33,10 @@ public class PathToMultiDataSetFunction implements Function<String, MultiDataSet
             }
         }
 
-        MultiDataSet ds = new org.nd4j.linalg.dataset.MultiDataSet();
         try (FSDataInputStream inputStream = fileSystem.open(new Path(path), BUFFER_SIZE)) {
-            ds.load(inputStream);
+            return DataSetExportFormat.loadMultiDataSet(inputStream);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-
-        return ds;
     }
 }
@@ -2,12 +2,16 @@ package org.deeplearning4j.spark.impl.common;
 
 import org.apache.spark.api.java.function.Function;
 import org.apache.spark.input.PortableDataStream;
+import org.deeplearning4j.spark.data.DataSetExportFormat;
 import org.nd4j.linalg.dataset.DataSet;
 
 import java.io.InputStream;
+import java.util.List;
 
 /**
- * This is a function that is used to load a {@link DataSet} object using {@link DataSet#load(InputStream)}.
+ * This is a function that is used to load a {@link DataSet} object using {@link DataSet#load(InputStream)}.<br>
+ * Compressed and packed files (see {@link DataSetExportFormat}) are also supported: DataSets in packed files are
+ * merged into a single DataSet
  *
  * @author Alex Black
  */
@@ -15,9 +19,8 @@ public class LoadSerializedDataSetFunction implements Function<PortableDataStrea
     @Override
     public DataSet call(PortableDataStream pds) throws Exception {
         try (InputStream is = pds.open()) {
-            DataSet d = new DataSet();
-            d.load(is);
-            return d;
+            List<DataSet> list = DataSetExportFormat.load(is);
+            return (list.size() == 1 ? list.get(0) : DataSet.merge(list));
         }
     }
 }
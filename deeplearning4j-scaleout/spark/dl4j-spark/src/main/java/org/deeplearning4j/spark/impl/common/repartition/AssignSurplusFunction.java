@@ -0,0 +1,74 @@
+package org.deeplearning4j.spark.impl.common.repartition;
+
+import org.apache.spark.api.java.function.Function2;
+import scala.Tuple2;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A Function2 used to assign a new partition index (integer key) to the elements in each partition that are not
+ * retained by {@link KeepLocalElementsFunction}. The retained elements are skipped; only the surplus elements are
+ * returned, and hence only these are shuffled when the result is partitioned by key
+ */
+public class AssignSurplusFunction<T> implements Function2<Integer, Iterator<T>, Iterator<Tuple2<Integer, T>>> {
+    private final int[] keepPerPartition;
+    private final int[][] surplusAssignments;
+
+    /**
+     * @param keepPerPartition   Number of elements retained in each partition (i.e., first elements to skip)
+     * @param surplusAssignments For each partition: pairs of (target partition, number of elements), in order, for the
+     *                           elements after the retained elements. Any elements not covered by the assignments
+     *                           are assigned to the last target (if any)
+     */
+    public AssignSurplusFunction(int[] keepPerPartition, int[][] surplusAssignments) {
+        this.keepPerPartition = keepPerPartition;
+        this.surplusAssignments = surplusAssignments;
+    }
+
+    @Override
+    public Iterator<Tuple2<Integer, T>> call(Integer partitionNum, final Iterator<T> iter) throws Exception {
+        final int[] assignments = surplusAssignments[partitionNum];
+        if (assignments.length == 0)
+            return Collections.<Tuple2<Integer, T>>emptyIterator();
+
+        final int skip = keepPerPartition[partitionNum];
+
+        //Lazy: elements are tagged as they are consumed, without collecting the surplus in memory
+        return new Iterator<Tuple2<Integer, T>>() {
+            private boolean skipped = false;
+            private int run = 0;
+            private int countInRun = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (!skipped) {
+                    for (int i = 0; i < skip && iter.hasNext(); i++) {
+                        iter.next();
+                    }
+                    skipped = true;
+                }
+                return iter.hasNext();
+            }
+
+            @Override
+            public Tuple2<Integer, T> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                //Should only exceed the assignments if the partition contents differ between the count and this pass
+                if (countInRun >= assignments[2 * run + 1] && 2 * (run + 1) < assignments.length) {
+                    run++;
+                    countInRun = 0;
+                }
+                countInRun++;
+                return new Tuple2<>(assignments[2 * run], iter.next());
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package org.deeplearning4j.spark.impl.common.repartition;
+
+import org.deeplearning4j.spark.util.BaseFlatMapFunction2Adaptee;
+import org.deeplearning4j.spark.util.FlatMapFunction2Adapter;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A simple function used with {@code JavaRDD.zipPartitions} to concatenate the contents of the corresponding
+ * partitions of two RDDs, without collecting either partition in memory
+ */
+public class ConcatPartitionsFunction<T> extends BaseFlatMapFunction2Adaptee<Iterator<T>, Iterator<T>, T> {
+
+    public ConcatPartitionsFunction() {
+        super(new ConcatPartitionsFunctionAdapter<T>());
+    }
+}
+
+
+class ConcatPartitionsFunctionAdapter<T> implements FlatMapFunction2Adapter<Iterator<T>, Iterator<T>, T> {
+
+    @Override
+    public Iterable<T> call(final Iterator<T> first, final Iterator<T> second) throws Exception {
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new Iterator<T>() {
+                    @Override
+                    public boolean hasNext() {
+                        return first.hasNext() || second.hasNext();
+                    }
+
+                    @Override
+                    public T next() {
+                        if (first.hasNext())
+                            return first.next();
+                        if (second.hasNext())
+                            return second.next();
+                        throw new NoSuchElementException();
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+}
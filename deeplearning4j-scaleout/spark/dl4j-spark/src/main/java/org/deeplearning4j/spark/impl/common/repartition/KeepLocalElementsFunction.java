@@ -0,0 +1,50 @@
+package org.deeplearning4j.spark.impl.common.repartition;
+
+import org.apache.spark.api.java.function.Function2;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A Function2 used to retain the first N elements in each partition, where N is specified separately for each partition.
+ * Used in {@link org.deeplearning4j.spark.api.RepartitionStrategy#BalancedLocal} repartitioning, in conjunction with
+ * {@link AssignSurplusFunction}: the retained elements stay in their current partition (and hence aren't shuffled),
+ * the remaining elements in each partition are moved elsewhere
+ */
+public class KeepLocalElementsFunction<T> implements Function2<Integer, Iterator<T>, Iterator<T>> {
+    private final int[] keepPerPartition;
+
+    /**
+     * @param keepPerPartition Number of elements to keep for each partition. Length must be equal to the number of
+     *                         partitions
+     */
+    public KeepLocalElementsFunction(int[] keepPerPartition) {
+        this.keepPerPartition = keepPerPartition;
+    }
+
+    @Override
+    public Iterator<T> call(Integer partitionNum, final Iterator<T> iter) throws Exception {
+        final int keep = keepPerPartition[partitionNum];
+        return new Iterator<T>() {
+            private int count = 0;
+
+            @Override
+            public boolean hasNext() {
+                return count < keep && iter.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                count++;
+                return iter.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -40,12 +40,14 @@ import org.deeplearning4j.spark.api.stats.SparkTrainingStats;
 import org.deeplearning4j.spark.api.worker.*;
 import org.deeplearning4j.spark.data.BatchAndExportDataSetsFunction;
 import org.deeplearning4j.spark.data.BatchAndExportMultiDataSetsFunction;
+import org.deeplearning4j.spark.data.DataSetCompression;
 import org.deeplearning4j.spark.impl.graph.SparkComputationGraph;
 import org.deeplearning4j.spark.impl.graph.dataset.DataSetToMultiDataSetFn;
 import org.deeplearning4j.spark.impl.multilayer.SparkDl4jMultiLayer;
 import org.deeplearning4j.spark.impl.paramavg.aggregator.ParameterAveragingAggregationTuple;
 import org.deeplearning4j.spark.impl.paramavg.aggregator.ParameterAveragingElementAddFunction;
 import org.deeplearning4j.spark.impl.paramavg.aggregator.ParameterAveragingElementCombineFunction;
+import org.deeplearning4j.spark.impl.paramavg.aggregator.ParameterAveragingHostAggregationFunction;
 import org.deeplearning4j.spark.impl.paramavg.stats.ParameterAveragingTrainingMasterStats;
 import org.deeplearning4j.spark.util.SparkUtils;
 import org.deeplearning4j.util.UIDProvider;
@@ -61,6 +63,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * ParameterAveragingTrainingMaster: A {@link TrainingMaster} implementation for training networks on Spark.
@@ -70,9 +73,9 @@ import java.util.*;
  */
 @Data
 @JsonIgnoreProperties({"stats", "listeners", "iterationCount", "rng", "lastExportedRDDId", "lastRDDExportPath",
-                "trainingMasterUID"})
+                "trainingMasterUID", "lastBroadcast", "pendingBroadcast", "broadcastExecutor"})
 @EqualsAndHashCode(exclude = {"stats", "listeners", "iterationCount", "rng", "lastExportedRDDId", "lastRDDExportPath",
-                "trainingMasterUID"})
+                "trainingMasterUID", "lastBroadcast", "pendingBroadcast", "broadcastExecutor"})
 @Slf4j
 public class ParameterAveragingTrainingMaster
                 implements TrainingMaster<ParameterAveragingTrainingResult, ParameterAveragingTrainingWorker> {
@@ -101,6 +104,12 @@ public class ParameterAveragingTrainingMaster
     private RDDTrainingApproach rddTrainingApproach = RDDTrainingApproach.Export;
     private String exportDirectory = null;
     private Random rng;
+    private int aggregationDepth = 1;
+    private boolean hostPreAggregation = false;
+    private boolean pipelineBroadcast = false;
+    private int prefetchNumFiles = 0;
+    private int exportDataSetsPerFile = 1;
+    private DataSetCompression exportCompression;
 
     private Collection<TrainingHook> trainingHookList;
     private int lastExportedRDDId = Integer.MIN_VALUE;
@@ -111,6 +120,11 @@ public class ParameterAveragingTrainingMaster
     private Collection<IterationListener> listeners;
     private StatsStorageRouter statsStorage;
 
+    //Parameter broadcasts: the one used for the current split, and (when pipelining) the one for the next split
+    private Broadcast<NetBroadcastTuple> lastBroadcast;
+    private PendingBroadcast pendingBroadcast;
+    private ExecutorService broadcastExecutor;
+
     private ParameterAveragingTrainingMaster() {
         // no-arg constructor for Jackson
 
@@ -134,6 +148,12 @@ public class ParameterAveragingTrainingMaster
         this.rddTrainingApproach = builder.rddTrainingApproach;
         this.exportDirectory = builder.exportDirectory;
         this.trainingHookList = builder.trainingHooks;
+        this.aggregationDepth = builder.aggregationDepth;
+        this.hostPreAggregation = builder.hostPreAggregation;
+        this.pipelineBroadcast = builder.pipelineBroadcast;
+        this.prefetchNumFiles = builder.prefetchNumFiles;
+        this.exportDataSetsPerFile = builder.exportDataSetsPerFile;
+        this.exportCompression = builder.exportCompression;
 
         if (builder.rngSeed == null) {
             this.rng = new Random();
@@ -301,38 +321,111 @@ public class ParameterAveragingTrainingMaster
 
     @Override
     public ParameterAveragingTrainingWorker getWorkerInstance(SparkDl4jMultiLayer network) {
-        NetBroadcastTuple tuple = new NetBroadcastTuple(network.getNetwork().getLayerWiseConfigurations(),
-                        network.getNetwork().params(), network.getNetwork().getUpdater().getStateViewArray());
-
-        if (collectTrainingStats)
-            stats.logBroadcastStart();
-        Broadcast<NetBroadcastTuple> broadcast = network.getSparkContext().broadcast(tuple);
-        if (collectTrainingStats)
-            stats.logBroadcastEnd();
+        Broadcast<NetBroadcastTuple> broadcast = getBroadcast(network, null);
 
         WorkerConfiguration configuration = new WorkerConfiguration(false, rddDataSetNumExamples, batchSizePerWorker,
-                        averagingFrequency, prefetchNumBatches, collectTrainingStats);
+                        maxMinibatchesPerWorker(), prefetchNumBatches, collectTrainingStats, prefetchNumFiles);
         return new ParameterAveragingTrainingWorker(broadcast, saveUpdater, configuration, trainingHookList, listeners,
                         getRouterProvider());
     }
 
     @Override
     public ParameterAveragingTrainingWorker getWorkerInstance(SparkComputationGraph graph) {
-        NetBroadcastTuple tuple = new NetBroadcastTuple(graph.getNetwork().getConfiguration(),
-                        graph.getNetwork().params(), graph.getNetwork().getUpdater().getStateViewArray());
-
-        if (collectTrainingStats)
-            stats.logBroadcastStart();
-        Broadcast<NetBroadcastTuple> broadcast = graph.getSparkContext().broadcast(tuple);
-        if (collectTrainingStats)
-            stats.logBroadcastEnd();
+        Broadcast<NetBroadcastTuple> broadcast = getBroadcast(null, graph);
 
         WorkerConfiguration configuration = new WorkerConfiguration(true, rddDataSetNumExamples, batchSizePerWorker,
-                        averagingFrequency, prefetchNumBatches, collectTrainingStats);
+                        maxMinibatchesPerWorker(), prefetchNumBatches, collectTrainingStats, prefetchNumFiles);
         return new ParameterAveragingTrainingWorker(broadcast, saveUpdater, configuration, trainingHookList, listeners,
                         getRouterProvider());
     }
 
+    private int maxMinibatchesPerWorker() {
+        if (rddTrainingApproach == RDDTrainingApproach.Export && exportDataSetsPerFile > 1) {
+            //Workers are assigned whole files: round up, so that no minibatch of an assigned file is skipped
+            int filesPerWorker = (averagingFrequency + exportDataSetsPerFile - 1) / exportDataSetsPerFile;
+            return filesPerWorker * exportDataSetsPerFile;
+        }
+        return averagingFrequency;
+    }
+
+    private Broadcast<NetBroadcastTuple> getBroadcast(SparkDl4jMultiLayer network, SparkComputationGraph graph) {
+        if (collectTrainingStats)
+            stats.logBroadcastWaitStart();
+
+        Broadcast<NetBroadcastTuple> broadcast = null;
+        PendingBroadcast pending = pendingBroadcast;
+        pendingBroadcast = null;
+        if (pending != null) {
+            if (pending.network == network && pending.graph == graph) {
+                broadcast = pending.get();
+                if (collectTrainingStats)
+                    stats.logBroadcast(pending.startTime, pending.durationMs);
+            } else {
+                //Created for a different network: can't be used
+                pending.get().unpersist(false);
+            }
+        }
+
+        if (broadcast == null) {
+            if (collectTrainingStats)
+                stats.logBroadcastStart();
+            broadcast = createBroadcast(network, graph);
+            if (collectTrainingStats)
+                stats.logBroadcastEnd();
+        }
+
+        if (collectTrainingStats)
+            stats.logBroadcastWaitEnd();
+
+        lastBroadcast = broadcast;
+        return broadcast;
+    }
+
+    private static Broadcast<NetBroadcastTuple> createBroadcast(SparkDl4jMultiLayer network,
+                    SparkComputationGraph graph) {
+        if (network != null) {
+            NetBroadcastTuple tuple = new NetBroadcastTuple(network.getNetwork().getLayerWiseConfigurations(),
+                            network.getNetwork().params(), network.getNetwork().getUpdater().getStateViewArray());
+            return network.getSparkContext().broadcast(tuple);
+        } else {
+            NetBroadcastTuple tuple = new NetBroadcastTuple(graph.getNetwork().getConfiguration(),
+                            graph.getNetwork().params(), graph.getNetwork().getUpdater().getStateViewArray());
+            return graph.getSparkContext().broadcast(tuple);
+        }
+    }
+
+    /**
+     * Start creating the parameter broadcast for the next split in the background, so that serializing the
+     * parameters overlaps with the preparation of the next split (such as balanced repartitioning, which requires
+     * a Spark job to count the partitions)
+     */
+    private void startPendingBroadcast(final SparkDl4jMultiLayer network, final SparkComputationGraph graph) {
+        if (broadcastExecutor == null) {
+            broadcastExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = Executors.defaultThreadFactory().newThread(r);
+                    t.setName("ParameterAveragingTrainingMaster broadcast thread");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+
+        final PendingBroadcast pending = new PendingBroadcast(network, graph);
+        pending.future = broadcastExecutor.submit(new Callable<Broadcast<NetBroadcastTuple>>() {
+            @Override
+            public Broadcast<NetBroadcastTuple> call() throws Exception {
+                long start = System.currentTimeMillis();
+                Broadcast<NetBroadcastTuple> broadcast = createBroadcast(network, graph);
+                pending.startTime = start;
+                pending.durationMs = System.currentTimeMillis() - start;
+                return broadcast;
+            }
+        });
+        pendingBroadcast = pending;
+    }
+
     private int numObjectsEachWorker(int numExamplesEachRddObject) {
         return batchSizePerWorker * averagingFrequency / numExamplesEachRddObject;
     }
@@ -364,7 +457,9 @@ public class ParameterAveragingTrainingMaster
         } else {
             //Export data if required (or, use cached export)
             JavaRDD<String> paths = exportIfRequired(network.getSparkContext(), trainingData);
-            executeTrainingPathsHelper(network, paths, batchSizePerWorker); //Originally (pre-export): had rddDataSetNumExamples per DataSet. Now we have batchSizePerWorker per exported DataSet
+            //Originally (pre-export): had rddDataSetNumExamples per DataSet. Now we have batchSizePerWorker per exported DataSet,
+            // and exportDataSetsPerFile DataSets per exported file
+            executeTrainingPathsHelper(network, paths, batchSizePerWorker * exportDataSetsPerFile);
         }
     }
 
@@ -855,8 +950,7 @@ public class ParameterAveragingTrainingMaster
 
         if (collectTrainingStats)
             stats.logAggregateStartTime();
-        ParameterAveragingAggregationTuple tuple = results.aggregate(null, new ParameterAveragingElementAddFunction(),
-                        new ParameterAveragingElementCombineFunction());
+        ParameterAveragingAggregationTuple tuple = aggregateResults(results);
         INDArray params = tuple.getParametersSum();
         int aggCount = tuple.getAggregationsCount();
         SparkTrainingStats aggregatedStats = tuple.getSparkTrainingStats();
@@ -891,6 +985,11 @@ public class ParameterAveragingTrainingMaster
             log.info("Skipping imbalanced split with no data for all executors");
         }
 
+        //Workers for this split are done: executors no longer need the old parameters
+        if (lastBroadcast != null) {
+            lastBroadcast.unpersist(false);
+            lastBroadcast = null;
+        }
 
 
         if (collectTrainingStats) {
@@ -934,9 +1033,34 @@ public class ParameterAveragingTrainingMaster
                 conf.setIterationCount(conf.getIterationCount() + numUpdates);
             }
         }
+
+        //Broadcast includes the configuration (iteration count), hence this must be the last step for the split
+        if (pipelineBroadcast && splitNum < totalSplits)
+            startPendingBroadcast(network, graph);
     }
 
 
+    private ParameterAveragingAggregationTuple aggregateResults(JavaRDD<ParameterAveragingTrainingResult> results) {
+        if (!hostPreAggregation) {
+            if (aggregationDepth > 1)
+                return results.treeAggregate(null, new ParameterAveragingElementAddFunction(),
+                                new ParameterAveragingElementCombineFunction(), aggregationDepth);
+            return results.aggregate(null, new ParameterAveragingElementAddFunction(),
+                            new ParameterAveragingElementCombineFunction());
+        }
+
+        //Sum the results on each executor, then for each host, and only then aggregate the per-host sums
+        int nPartitions = results.partitions().size();
+        JavaRDD<ParameterAveragingAggregationTuple> hostSums = JavaPairRDD
+                        .fromJavaRDD(results.mapPartitions(new ParameterAveragingHostAggregationFunction()))
+                        .reduceByKey(new ParameterAveragingElementCombineFunction(), nPartitions).values();
+        if (aggregationDepth > 1)
+            return hostSums.treeAggregate(null, new ParameterAveragingElementCombineFunction(),
+                            new ParameterAveragingElementCombineFunction(), aggregationDepth);
+        return hostSums.aggregate(null, new ParameterAveragingElementCombineFunction(),
+                        new ParameterAveragingElementCombineFunction());
+    }
+
     private JavaRDD<String> exportIfRequired(JavaSparkContext sc, JavaRDD<DataSet> trainingData) {
         ExportSupport.assertExportSupported(sc);
         if (collectTrainingStats)
@@ -1011,8 +1135,9 @@ public class ParameterAveragingTrainingMaster
         String pathsDir = baseDir + "paths/";
 
         log.info("Initiating RDD<DataSet> export at {}", baseDir);
-        JavaRDD<String> paths = trainingData
-                        .mapPartitionsWithIndex(new BatchAndExportDataSetsFunction(batchSizePerWorker, dataDir), true);
+        JavaRDD<String> paths = trainingData.mapPartitionsWithIndex(
+                        new BatchAndExportDataSetsFunction(batchSizePerWorker, dataDir, exportDataSetsPerFile,
+                                        exportCompression), true);
         paths.saveAsTextFile(pathsDir);
         log.info("RDD<DataSet> export complete at {}", baseDir);
 
@@ -1028,7 +1153,7 @@ public class ParameterAveragingTrainingMaster
 
         log.info("Initiating RDD<MultiDataSet> export at {}", baseDir);
         JavaRDD<String> paths = trainingData.mapPartitionsWithIndex(
-                        new BatchAndExportMultiDataSetsFunction(batchSizePerWorker, dataDir), true);
+                        new BatchAndExportMultiDataSetsFunction(batchSizePerWorker, dataDir, exportCompression), true);
         paths.saveAsTextFile(pathsDir);
         log.info("RDD<MultiDataSet> export complete at {}", baseDir);
 
@@ -1080,6 +1205,33 @@ public class ParameterAveragingTrainingMaster
         return new VanillaStatsStorageRouterProvider();
     }
 
+    /**
+     * Parameter broadcast being created asynchronously for the next split
+     */
+    private static class PendingBroadcast {
+        private final SparkDl4jMultiLayer network;
+        private final SparkComputationGraph graph;
+        private Future<Broadcast<NetBroadcastTuple>> future;
+        private volatile long startTime;
+        private volatile long durationMs;
+
+        private PendingBroadcast(SparkDl4jMultiLayer network, SparkComputationGraph graph) {
+            this.network = network;
+            this.graph = graph;
+        }
+
+        private Broadcast<NetBroadcastTuple> get() {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error creating parameter broadcast", e.getCause());
+            }
+        }
+    }
+
 
     public static class Builder {
         private boolean saveUpdater;
@@ -1096,6 +1248,12 @@ public class ParameterAveragingTrainingMaster
         private String exportDirectory = null;
         private Long rngSeed;
         private Collection<TrainingHook> trainingHooks;
+        private int aggregationDepth = 1;
+        private boolean hostPreAggregation = false;
+        private boolean pipelineBroadcast = false;
+        private int prefetchNumFiles = 0;
+        private int exportDataSetsPerFile = 1;
+        private DataSetCompression exportCompression;
 
 
         /**
@@ -1202,6 +1360,22 @@ public class ParameterAveragingTrainingMaster
             return this;
         }
 
+        /**
+         * Set the number of exported files (i.e., when training via paths, or with {@link RDDTrainingApproach#Export})
+         * that each worker should read ahead of time. Files are read in parallel on a small thread pool, hence this
+         * hides the latency of opening and reading each file from remote storage such as HDFS or S3.
+         * <p>
+         * Default: 0 (files are read when required, on the training thread)
+         *
+         * @param prefetchNumFiles Number of files to read ahead of time
+         */
+        public Builder workerPrefetchNumFiles(int prefetchNumFiles) {
+            if (prefetchNumFiles < 0)
+                throw new IllegalArgumentException("Invalid input: number of files to prefetch must be >= 0");
+            this.prefetchNumFiles = prefetchNumFiles;
+            return this;
+        }
+
         /**
          * Set whether the updater (i.e., historical state for momentum, adagrad, etc should be saved).
          * <b>NOTE</b>: This can <b>double</b> (or more) the amount of network traffic in each direction, but might
@@ -1232,7 +1406,11 @@ public class ParameterAveragingTrainingMaster
         /**
          * Used in conjunction with {@link #repartionData(Repartition)} (which defines <i>when</i> repartitioning should be
          * conducted), repartitionStrategy defines <i>how</i> the repartitioning should be done. See {@link RepartitionStrategy}
-         * for details
+         * for details.<br>
+         * Note that with {@link RDDTrainingApproach#Export} (and when fitting from paths), it is the paths of the exported
+         * files that are repartitioned, not the DataSets themselves. {@link RepartitionStrategy#BalancedLocal} shuffles
+         * only the surplus objects from each partition, which can substantially reduce the amount of data shuffled for
+         * each split
          *
          * @param repartitionStrategy Repartitioning strategy to use
          */
@@ -1312,6 +1490,89 @@ public class ParameterAveragingTrainingMaster
             return this;
         }
 
+        /**
+         * Depth of the aggregation tree used to sum the worker parameters (and updater state) after each split.<br>
+         * With the default of 1, the driver receives and sums one parameter vector from every partition. With a depth
+         * of 2 or more, Spark's treeAggregate is used: partial sums are combined on the executors in multiple levels,
+         * so the driver only receives a small number of partial sums. This is useful for large networks and/or
+         * a large number of workers, where network traffic to the driver (and memory on the driver) would be the
+         * bottleneck.<br>
+         * <p>
+         * Default: 1 (no tree aggregation)
+         *
+         * @param aggregationDepth Depth of the aggregation tree. Must be >= 1
+         */
+        public Builder aggregationDepth(int aggregationDepth) {
+            if (aggregationDepth <= 0)
+                throw new IllegalArgumentException("Invalid input: aggregation depth must be >= 1");
+            this.aggregationDepth = aggregationDepth;
+            return this;
+        }
+
+        /**
+         * If true: parameters (and updater state) are first summed for all partitions on each host, before any further
+         * aggregation. Consequently, the remaining aggregation (see {@link #aggregationDepth(int)}) is done over one
+         * partial sum per host, instead of one per partition. This adds a (small) shuffle step to each averaging
+         * round, and is most useful when there are many workers per host.<br>
+         * <p>
+         * Default: false
+         *
+         * @param hostPreAggregation Whether to pre-aggregate results per host
+         */
+        public Builder hostPreAggregation(boolean hostPreAggregation) {
+            this.hostPreAggregation = hostPreAggregation;
+            return this;
+        }
+
+        /**
+         * If true: after the results for one split have been averaged, the parameter broadcast for the next split is
+         * created asynchronously, overlapping with the preparation (for example, repartitioning) of the next split.
+         * Time spent by the driver waiting for broadcasts is recorded in the training stats either way.<br>
+         * <p>
+         * Default: false
+         *
+         * @param pipelineBroadcast Whether to create the parameter broadcast for the next split asynchronously
+         */
+        public Builder pipelineBroadcast(boolean pipelineBroadcast) {
+            this.pipelineBroadcast = pipelineBroadcast;
+            return this;
+        }
+
+        /**
+         * Number of minibatches to pack into each file, when exporting an {@code RDD<DataSet>} (see
+         * {@link RDDTrainingApproach#Export}). Fewer, larger files reduce the per-file overhead of opening files on
+         * HDFS, S3 etc. Note however that each worker is assigned whole files, and trains on every minibatch in them:
+         * hence if this value does not divide {@link #averagingFrequency(int)}, the number of minibatches each worker
+         * trains on per averaging round will differ from the averaging frequency. For example, with an averaging
+         * frequency of 5 and 2 minibatches per file, each worker is assigned 2 files (4 minibatches); with an averaging
+         * frequency of 1 and 3 minibatches per file, each worker is assigned 1 file (3 minibatches).
+         * <p>
+         * Default: 1 (one minibatch per file)
+         *
+         * @param exportDataSetsPerFile Number of minibatches per exported file. Must be >= 1
+         */
+        public Builder exportDataSetsPerFile(int exportDataSetsPerFile) {
+            if (exportDataSetsPerFile <= 0)
+                throw new IllegalArgumentException("Invalid input: number of DataSets per file must be >= 1");
+            this.exportDataSetsPerFile = exportDataSetsPerFile;
+            return this;
+        }
+
+        /**
+         * Compression to use when exporting an {@code RDD<DataSet>} or {@code RDD<MultiDataSet>} (see
+         * {@link RDDTrainingApproach#Export}). Compressed files are usually much smaller (especially with sparse
+         * features or one-hot labels), at the cost of some CPU time for export and loading. See
+         * {@link DataSetCompression} for the available options.
+         * <p>
+         * Default: null (no compression)
+         *
+         * @param exportCompression Compression settings, or null for no compression
+         */
+        public Builder exportCompression(DataSetCompression exportCompression) {
+            this.exportCompression = exportCompression;
+            return this;
+        }
+
         public ParameterAveragingTrainingMaster build() {
             return new ParameterAveragingTrainingMaster(this);
         }
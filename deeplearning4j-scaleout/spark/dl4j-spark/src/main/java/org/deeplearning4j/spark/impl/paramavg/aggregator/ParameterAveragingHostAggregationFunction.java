@@ -0,0 +1,55 @@
+package org.deeplearning4j.spark.impl.paramavg.aggregator;
+
+import org.datavec.spark.functions.FlatMapFunctionAdapter;
+import org.datavec.spark.transform.BaseFlatMapFunctionAdaptee;
+import org.deeplearning4j.spark.impl.paramavg.ParameterAveragingTrainingResult;
+import scala.Tuple2;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Function used for host-level pre-aggregation in parameter averaging: sums all results in a partition (on the
+ * executor), and keys the partial sum by the executor's host name. A subsequent reduceByKey can then combine all
+ * partial sums for a host, so that only one parameter/updater vector per host needs to be aggregated further.
+ */
+public class ParameterAveragingHostAggregationFunction extends
+                BaseFlatMapFunctionAdaptee<Iterator<ParameterAveragingTrainingResult>, Tuple2<String, ParameterAveragingAggregationTuple>> {
+
+    public ParameterAveragingHostAggregationFunction() {
+        super(new ParameterAveragingHostAggregationFunctionAdapter());
+    }
+}
+
+
+/**
+ * Function used for host-level pre-aggregation in parameter averaging
+ */
+class ParameterAveragingHostAggregationFunctionAdapter implements
+                FlatMapFunctionAdapter<Iterator<ParameterAveragingTrainingResult>, Tuple2<String, ParameterAveragingAggregationTuple>> {
+
+    @Override
+    public Iterable<Tuple2<String, ParameterAveragingAggregationTuple>> call(
+                    Iterator<ParameterAveragingTrainingResult> iter) throws Exception {
+        ParameterAveragingElementAddFunction addFunction = new ParameterAveragingElementAddFunction();
+        ParameterAveragingAggregationTuple tuple = null;
+        while (iter.hasNext()) {
+            tuple = addFunction.call(tuple, iter.next());
+        }
+
+        if (tuple == null)
+            return Collections.emptyList();
+        return Collections.singletonList(new Tuple2<>(getHostName(), tuple));
+    }
+
+    private static String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            //Results are still correct in this case, just with less pre-aggregation
+            return "unknown";
+        }
+    }
+}
@@ -30,6 +30,7 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
     public static final String FILENAME_AGGREGATE_TIME = "parameterAveragingMasterAggregateTimesMs.txt";
     public static final String FILENAME_PROCESS_PARAMS_TIME = "parameterAveragingMasterProcessParamsUpdaterTimesMs.txt";
     public static final String FILENAME_REPARTITION_STATS = "parameterAveragingMasterRepartitionTimesMs.txt";
+    public static final String FILENAME_BROADCAST_WAIT_TIME = "parameterAveragingMasterBroadcastWaitTimesMs.txt";
 
     public static final String PARAMETER_AVERAGING_MASTER_EXPORT_RDD_TIMES_MS = "parameterAveragingMasterExportTimesMs";
     public static final String PARAMETER_AVERAGING_MASTER_COUNT_RDD_TIMES_MS =
@@ -46,6 +47,8 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
                     "ParameterAveragingMasterProcessParamsUpdaterTimesMs";
     public static final String PARAMETER_AVERAGING_MASTER_REPARTITION_TIMES_MS =
                     "ParameterAveragingMasterRepartitionTimesMs";
+    public static final String PARAMETER_AVERAGING_MASTER_BROADCAST_WAIT_TIMES_MS =
+                    "ParameterAveragingMasterBroadcastWaitTimesMs";
 
     private static Set<String> columnNames = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
                     PARAMETER_AVERAGING_MASTER_EXPORT_RDD_TIMES_MS, PARAMETER_AVERAGING_MASTER_COUNT_RDD_TIMES_MS,
@@ -53,7 +56,8 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
                     PARAMETER_AVERAGING_MASTER_SPLIT_TIMES_MS, PARAMETER_AVERAGING_MASTER_MAP_PARTITIONS_TIMES_MS,
                     PARAMETER_AVERAGING_MASTER_AGGREGATE_TIMES_MS,
                     PARAMETER_AVERAGING_MASTER_PROCESS_PARAMS_UPDATER_TIMES_MS,
-                    PARAMETER_AVERAGING_MASTER_REPARTITION_TIMES_MS)));
+                    PARAMETER_AVERAGING_MASTER_REPARTITION_TIMES_MS,
+                    PARAMETER_AVERAGING_MASTER_BROADCAST_WAIT_TIMES_MS)));
 
     private SparkTrainingStats workerStats;
     private List<EventStats> parameterAveragingMasterExportTimesMs;
@@ -65,6 +69,7 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
     private List<EventStats> paramaterAveragingMasterAggregateTimesMs;
     private List<EventStats> parameterAveragingMasterProcessParamsUpdaterTimesMs;
     private List<EventStats> parameterAveragingMasterRepartitionTimesMs;
+    private List<EventStats> parameterAveragingMasterBroadcastWaitTimesMs;
 
 
     public ParameterAveragingTrainingMasterStats(SparkTrainingStats workerStats,
@@ -77,6 +82,24 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
                     List<EventStats> parameterAveragingMasterAggregateTimesMs,
                     List<EventStats> parameterAveragingMasterProcessParamsUpdaterTimesMs,
                     List<EventStats> parameterAveragingMasterRepartitionTimesMs) {
+        this(workerStats, parameterAveragingMasterExportTimesMs, parameterAveragingMasterCountRddSizeTimesMs,
+                        parameterAveragingMasterBroadcastCreateTimeMs, parameterAveragingMasterFitTimeMs,
+                        parameterAveragingMasterSplitTimeMs, parameterAveragingMasterMapPartitionsTimesMs,
+                        parameterAveragingMasterAggregateTimesMs, parameterAveragingMasterProcessParamsUpdaterTimesMs,
+                        parameterAveragingMasterRepartitionTimesMs, new ArrayList<EventStats>());
+    }
+
+    public ParameterAveragingTrainingMasterStats(SparkTrainingStats workerStats,
+                    List<EventStats> parameterAveragingMasterExportTimesMs,
+                    List<EventStats> parameterAveragingMasterCountRddSizeTimesMs,
+                    List<EventStats> parameterAveragingMasterBroadcastCreateTimeMs,
+                    List<EventStats> parameterAveragingMasterFitTimeMs,
+                    List<EventStats> parameterAveragingMasterSplitTimeMs,
+                    List<EventStats> parameterAveragingMasterMapPartitionsTimesMs,
+                    List<EventStats> parameterAveragingMasterAggregateTimesMs,
+                    List<EventStats> parameterAveragingMasterProcessParamsUpdaterTimesMs,
+                    List<EventStats> parameterAveragingMasterRepartitionTimesMs,
+                    List<EventStats> parameterAveragingMasterBroadcastWaitTimesMs) {
         this.workerStats = workerStats;
         this.parameterAveragingMasterExportTimesMs = parameterAveragingMasterExportTimesMs;
         this.parameterAveragingMasterCountRddSizeTimesMs = parameterAveragingMasterCountRddSizeTimesMs;
@@ -87,6 +110,7 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
         this.paramaterAveragingMasterAggregateTimesMs = parameterAveragingMasterAggregateTimesMs;
         this.parameterAveragingMasterProcessParamsUpdaterTimesMs = parameterAveragingMasterProcessParamsUpdaterTimesMs;
         this.parameterAveragingMasterRepartitionTimesMs = parameterAveragingMasterRepartitionTimesMs;
+        this.parameterAveragingMasterBroadcastWaitTimesMs = parameterAveragingMasterBroadcastWaitTimesMs;
     }
 
 
@@ -119,6 +143,8 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
                 return parameterAveragingMasterProcessParamsUpdaterTimesMs;
             case PARAMETER_AVERAGING_MASTER_REPARTITION_TIMES_MS:
                 return parameterAveragingMasterRepartitionTimesMs;
+            case PARAMETER_AVERAGING_MASTER_BROADCAST_WAIT_TIMES_MS:
+                return parameterAveragingMasterBroadcastWaitTimesMs;
             default:
                 if (workerStats != null)
                     return workerStats.getValue(key);
@@ -147,6 +173,8 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
                 return "ProcessParams";
             case PARAMETER_AVERAGING_MASTER_REPARTITION_TIMES_MS:
                 return "Repartition";
+            case PARAMETER_AVERAGING_MASTER_BROADCAST_WAIT_TIMES_MS:
+                return "BroadcastWait";
             default:
                 if (workerStats != null)
                     return workerStats.getShortNameForKey(key);
@@ -167,6 +195,7 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
             case PARAMETER_AVERAGING_MASTER_AGGREGATE_TIMES_MS:
             case PARAMETER_AVERAGING_MASTER_PROCESS_PARAMS_UPDATER_TIMES_MS:
             case PARAMETER_AVERAGING_MASTER_REPARTITION_TIMES_MS:
+            case PARAMETER_AVERAGING_MASTER_BROADCAST_WAIT_TIMES_MS:
                 return true;
             default:
                 if (workerStats != null)
@@ -203,6 +232,13 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
             if (o.parameterAveragingMasterRepartitionTimesMs != null)
                 parameterAveragingMasterRepartitionTimesMs.addAll(o.parameterAveragingMasterRepartitionTimesMs);
         }
+        if (parameterAveragingMasterBroadcastWaitTimesMs == null) {
+            if (o.parameterAveragingMasterBroadcastWaitTimesMs != null)
+                parameterAveragingMasterBroadcastWaitTimesMs = o.parameterAveragingMasterBroadcastWaitTimesMs;
+        } else {
+            if (o.parameterAveragingMasterBroadcastWaitTimesMs != null)
+                parameterAveragingMasterBroadcastWaitTimesMs.addAll(o.parameterAveragingMasterBroadcastWaitTimesMs);
+        }
     }
 
     @Override
@@ -233,6 +269,12 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
         else
             sb.append(StatsUtils.getDurationAsString(parameterAveragingMasterBroadcastCreateTimesMs, ",")).append("\n");
 
+        sb.append(String.format(f, PARAMETER_AVERAGING_MASTER_BROADCAST_WAIT_TIMES_MS));
+        if (parameterAveragingMasterBroadcastWaitTimesMs == null)
+            sb.append("-\n");
+        else
+            sb.append(StatsUtils.getDurationAsString(parameterAveragingMasterBroadcastWaitTimesMs, ",")).append("\n");
+
         sb.append(String.format(f, PARAMETER_AVERAGING_MASTER_REPARTITION_TIMES_MS));
         if (parameterAveragingMasterRepartitionTimesMs == null)
             sb.append("-\n");
@@ -292,6 +334,12 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
         String broadcastTimePath = FilenameUtils.concat(outputPath, FILENAME_BROADCAST_CREATE);
         StatsUtils.exportStats(parameterAveragingMasterBroadcastCreateTimesMs, broadcastTimePath, d, sc);
 
+        //broadcast wait time:
+        if (parameterAveragingMasterBroadcastWaitTimesMs != null) {
+            String broadcastWaitPath = FilenameUtils.concat(outputPath, FILENAME_BROADCAST_WAIT_TIME);
+            StatsUtils.exportStats(parameterAveragingMasterBroadcastWaitTimesMs, broadcastWaitPath, d, sc);
+        }
+
         //repartition
         String repartitionTime = FilenameUtils.concat(outputPath, FILENAME_REPARTITION_STATS);
         StatsUtils.exportStats(parameterAveragingMasterRepartitionTimesMs, repartitionTime, d, sc);
@@ -337,6 +385,7 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
         private long lastMapPartitionsStartTime;
         private long lastAggregateStartTime;
         private long lastProcessParamsUpdaterStartTime;
+        private long lastBroadcastWaitStartTime;
 
         private SparkTrainingStats workerStats;
 
@@ -349,6 +398,7 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
         private List<EventStats> mapPartitions = new ArrayList<>();
         private List<EventStats> aggregateTimes = new ArrayList<>();
         private List<EventStats> processParamsUpdaterTimes = new ArrayList<>();
+        private List<EventStats> broadcastWaitTimes = new ArrayList<>();
 
         private final TimeSource timeSource = TimeSourceProvider.getInstance();
 
@@ -382,6 +432,26 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
             broadcastTimes.add(new BaseEventStats(lastBroadcastStartTime, now - lastBroadcastStartTime));
         }
 
+        /**
+         * Log a broadcast that was created asynchronously (i.e., start and end times measured by another thread)
+         */
+        public void logBroadcast(long startTime, long durationMs) {
+            broadcastTimes.add(new BaseEventStats(startTime, durationMs));
+        }
+
+        /**
+         * Log the start of the period the driver is blocked waiting for the parameter broadcast of a split. Without
+         * pipelined broadcasts, this is the same as the broadcast creation time
+         */
+        public void logBroadcastWaitStart() {
+            this.lastBroadcastWaitStartTime = timeSource.currentTimeMillis();
+        }
+
+        public void logBroadcastWaitEnd() {
+            long now = timeSource.currentTimeMillis();
+            broadcastWaitTimes.add(new BaseEventStats(lastBroadcastWaitStartTime, now - lastBroadcastWaitStartTime));
+        }
+
         public void logRepartitionStart() {
             lastRepartitionStartTime = timeSource.currentTimeMillis();
         }
@@ -448,7 +518,7 @@ public class ParameterAveragingTrainingMasterStats implements SparkTrainingStats
         public ParameterAveragingTrainingMasterStats build() {
             return new ParameterAveragingTrainingMasterStats(workerStats, exportTimes, countTimes, broadcastTimes,
                             fitTimes, splitTimes, mapPartitions, aggregateTimes, processParamsUpdaterTimes,
-                            repartitionTimes);
+                            repartitionTimes, broadcastWaitTimes);
         }
 
     }
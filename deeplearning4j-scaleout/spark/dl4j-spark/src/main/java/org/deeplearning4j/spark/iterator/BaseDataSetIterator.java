@@ -1,20 +1,27 @@
 package org.deeplearning4j.spark.iterator;
 
-import org.apache.spark.input.PortableDataStream;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
 /**
+ * Base class for iterators that load DataSets from a sequence of sources (paths, streams etc). Each source may
+ * contain one or more DataSets.<br>
+ * If {@code prefetchNumFiles > 0}, up to that many sources are loaded ahead of time, in parallel, using a
+ * {@link PrefetchingLoader}. Otherwise sources are loaded when required, on the calling thread.
+ *
  * Created by huitseeker on 2/15/17.
  */
 public abstract class BaseDataSetIterator<T> implements DataSetIterator {
+    /**
+     * Default maximum number of loader threads, when prefetching is enabled
+     */
+    public static final int DEFAULT_MAX_LOADER_THREADS = 4;
+
     protected Collection<T> dataSetStreams;
     protected DataSetPreProcessor preprocessor;
     protected Iterator<T> iter;
@@ -23,6 +30,73 @@ public abstract class BaseDataSetIterator<T> implements DataSetIterator {
     protected int batch = -1;
     protected DataSet preloadedDataSet;
     protected int cursor = 0;
+    protected int prefetchNumFiles = 0;
+    protected int numLoaderThreads = 0;
+    private PrefetchingLoader<T, List<DataSet>> loader;
+    private Iterator<DataSet> currentSource;
+
+    /**
+     * Enable prefetching of sources
+     *
+     * @param prefetchNumFiles Number of sources to load ahead of time. 0 to disable prefetching
+     * @param numLoaderThreads Number of threads to use for loading. If <= 0: use
+     *                         min(prefetchNumFiles, {@link #DEFAULT_MAX_LOADER_THREADS}) threads
+     */
+    protected void setPrefetch(int prefetchNumFiles, int numLoaderThreads) {
+        if (prefetchNumFiles < 0)
+            throw new IllegalArgumentException("Invalid number of files to prefetch: " + prefetchNumFiles);
+        this.prefetchNumFiles = prefetchNumFiles;
+        this.numLoaderThreads = (numLoaderThreads > 0 ? numLoaderThreads
+                        : Math.max(1, Math.min(prefetchNumFiles, DEFAULT_MAX_LOADER_THREADS)));
+    }
+
+    @Override
+    public DataSet next() {
+        DataSet ds;
+        if (preloadedDataSet != null) {
+            ds = preloadedDataSet;
+            preloadedDataSet = null;
+        } else {
+            ds = nextDataSet();
+        }
+
+        totalOutcomes = ds.getLabels() == null ? 0 : ds.getLabels().size(1); //May be null for layerwise pretraining
+        inputColumns = ds.getFeatureMatrix().size(1);
+        batch = ds.numExamples();
+
+        if (preprocessor != null)
+            preprocessor.preProcess(ds);
+        return ds;
+    }
+
+    /**
+     * Get the next DataSet from the current source, loading (or waiting for) the next source if required
+     */
+    protected DataSet nextDataSet() {
+        while (currentSource == null || !currentSource.hasNext()) {
+            List<DataSet> loaded;
+            if (prefetchNumFiles > 0) {
+                loaded = getLoader().next();
+            } else {
+                loaded = load(iter.next());
+            }
+            currentSource = loaded.iterator();
+        }
+        cursor++;
+        return currentSource.next();
+    }
+
+    private PrefetchingLoader<T, List<DataSet>> getLoader() {
+        if (loader == null) {
+            loader = new PrefetchingLoader<>(iter, new PrefetchingLoader.Loader<T, List<DataSet>>() {
+                @Override
+                public List<DataSet> load(T source) {
+                    return BaseDataSetIterator.this.load(source);
+                }
+            }, prefetchNumFiles, numLoaderThreads);
+        }
+        return loader;
+    }
 
     @Override
     public DataSet next(int num) {
@@ -60,6 +134,12 @@ public abstract class BaseDataSetIterator<T> implements DataSetIterator {
     public void reset() {
         if (dataSetStreams == null)
             throw new IllegalStateException("Cannot reset iterator constructed with an iterator");
+        if (loader != null) {
+            loader.shutdown();
+            loader = null;
+        }
+        currentSource = null;
+        preloadedDataSet = null;
         iter = dataSetStreams.iterator();
         cursor = 0;
     }
@@ -98,7 +178,9 @@ public abstract class BaseDataSetIterator<T> implements DataSetIterator {
 
     @Override
     public boolean hasNext() {
-        return iter.hasNext();
+        if (preloadedDataSet != null || (currentSource != null && currentSource.hasNext()))
+            return true;
+        return prefetchNumFiles > 0 ? getLoader().hasNext() : iter.hasNext();
     }
 
     @Override
@@ -107,11 +189,18 @@ public abstract class BaseDataSetIterator<T> implements DataSetIterator {
     }
 
     private void preloadDataSet() {
-        preloadedDataSet = load(iter.next());
-        totalOutcomes = preloadedDataSet.getLabels().size(1);
+        preloadedDataSet = nextDataSet();
+        totalOutcomes = preloadedDataSet.getLabels() == null ? 0 : preloadedDataSet.getLabels().size(1);
         inputColumns = preloadedDataSet.getFeatureMatrix().size(1);
+        batch = preloadedDataSet.numExamples();
     }
 
-
-    protected abstract DataSet load(T ds);
+    /**
+     * Load all DataSets from the given source. When prefetching is enabled, this may be called concurrently from
+     * multiple threads
+     *
+     * @param source Source to load from
+     * @return DataSets in the source
+     */
+    protected abstract List<DataSet> load(T source);
 }
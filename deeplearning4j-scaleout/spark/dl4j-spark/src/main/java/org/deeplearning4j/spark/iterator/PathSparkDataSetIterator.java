@@ -4,9 +4,8 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.deeplearning4j.spark.data.DataSetExportFormat;
 import org.nd4j.linalg.dataset.DataSet;
-import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
-import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -17,7 +16,9 @@ import java.util.List;
 
 /**
  * A DataSetIterator that loads serialized DataSet objects (saved with {@link DataSet#save(OutputStream)}) from
- * a String that represents the path (for example, on HDFS)
+ * a String that represents the path (for example, on HDFS). Compressed files, and files containing multiple DataSets
+ * (see {@link DataSetExportFormat}) are also supported.<br>
+ * Optionally, up to {@code prefetchNumFiles} files may be read ahead of time, in parallel.
  *
  * @author Alex Black
  */
@@ -27,13 +28,33 @@ public class PathSparkDataSetIterator extends BaseDataSetIterator<String> {
     private FileSystem fileSystem;
 
     public PathSparkDataSetIterator(Iterator<String> iter) {
+        this(iter, 0, 0);
+    }
+
+    /**
+     * @param iter             Paths to load from
+     * @param prefetchNumFiles Number of files to read ahead of time, in parallel. 0 to disable prefetching
+     * @param numLoaderThreads Number of threads to use for reading. If <= 0: use a default value
+     */
+    public PathSparkDataSetIterator(Iterator<String> iter, int prefetchNumFiles, int numLoaderThreads) {
         this.dataSetStreams = null;
         this.iter = iter;
+        setPrefetch(prefetchNumFiles, numLoaderThreads);
     }
 
     public PathSparkDataSetIterator(Collection<String> dataSetStreams) {
+        this(dataSetStreams, 0, 0);
+    }
+
+    /**
+     * @param dataSetStreams   Paths to load from
+     * @param prefetchNumFiles Number of files to read ahead of time, in parallel. 0 to disable prefetching
+     * @param numLoaderThreads Number of threads to use for reading. If <= 0: use a default value
+     */
+    public PathSparkDataSetIterator(Collection<String> dataSetStreams, int prefetchNumFiles, int numLoaderThreads) {
         this.dataSetStreams = dataSetStreams;
         iter = dataSetStreams.iterator();
+        setPrefetch(prefetchNumFiles, numLoaderThreads);
     }
 
     @Override
@@ -41,26 +62,7 @@ public class PathSparkDataSetIterator extends BaseDataSetIterator<String> {
         throw new UnsupportedOperationException("Total examples unknown for PathSparkDataSetIterator");
     }
 
-    @Override
-    public DataSet next() {
-        DataSet ds;
-        if (preloadedDataSet != null) {
-            ds = preloadedDataSet;
-            preloadedDataSet = null;
-        } else {
-            ds = load(iter.next());
-        }
-
-        totalOutcomes = ds.getLabels() == null ? 0 : ds.getLabels().size(1); //May be null for layerwise pretraining
-        inputColumns = ds.getFeatureMatrix().size(1);
-        batch = ds.numExamples();
-
-        if (preprocessor != null)
-            preprocessor.preProcess(ds);
-        return ds;
-    }
-
-    protected synchronized DataSet load(String path) {
+    private synchronized FileSystem getFileSystem(String path) {
         if (fileSystem == null) {
             try {
                 fileSystem = FileSystem.get(new URI(path), new Configuration());
@@ -68,15 +70,15 @@ public class PathSparkDataSetIterator extends BaseDataSetIterator<String> {
                 throw new RuntimeException(e);
             }
         }
+        return fileSystem;
+    }
 
-        DataSet ds = new DataSet();
-        try (FSDataInputStream inputStream = fileSystem.open(new Path(path), BUFFER_SIZE)) {
-            ds.load(inputStream);
+    @Override
+    protected List<DataSet> load(String path) {
+        try (FSDataInputStream inputStream = getFileSystem(path).open(new Path(path), BUFFER_SIZE)) {
+            return DataSetExportFormat.load(inputStream);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-
-        cursor++;
-        return ds;
     }
 }
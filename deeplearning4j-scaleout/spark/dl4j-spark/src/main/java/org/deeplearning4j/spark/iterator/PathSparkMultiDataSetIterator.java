@@ -4,6 +4,7 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.deeplearning4j.spark.data.DataSetExportFormat;
 import org.nd4j.linalg.dataset.api.MultiDataSet;
 import org.nd4j.linalg.dataset.api.MultiDataSetPreProcessor;
 import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
@@ -16,7 +17,8 @@ import java.util.Iterator;
 
 /**
  * A DataSetIterator that loads serialized DataSet objects (saved with {@link MultiDataSet#save(OutputStream)}) from
- * a String that represents the path (for example, on HDFS)
+ * a String that represents the path (for example, on HDFS).<br>
+ * Optionally, up to {@code prefetchNumFiles} files may be read ahead of time, in parallel.
  *
  * @author Alex Black
  */
@@ -28,15 +30,44 @@ public class PathSparkMultiDataSetIterator implements MultiDataSetIterator {
     private MultiDataSetPreProcessor preprocessor;
     private Iterator<String> iter;
     private FileSystem fileSystem;
+    private final int prefetchNumFiles;
+    private final int numLoaderThreads;
+    private PrefetchingLoader<String, MultiDataSet> loader;
 
     public PathSparkMultiDataSetIterator(Iterator<String> iter) {
-        this.dataSetStreams = null;
+        this(iter, 0, 0);
+    }
+
+    /**
+     * @param iter             Paths to load from
+     * @param prefetchNumFiles Number of files to read ahead of time, in parallel. 0 to disable prefetching
+     * @param numLoaderThreads Number of threads to use for reading. If <= 0: use a default value
+     */
+    public PathSparkMultiDataSetIterator(Iterator<String> iter, int prefetchNumFiles, int numLoaderThreads) {
+        this(null, iter, prefetchNumFiles, numLoaderThreads);
+    }
+
+    private PathSparkMultiDataSetIterator(Collection<String> dataSetStreams, Iterator<String> iter,
+                    int prefetchNumFiles, int numLoaderThreads) {
+        this.dataSetStreams = dataSetStreams;
         this.iter = iter;
+        this.prefetchNumFiles = prefetchNumFiles;
+        this.numLoaderThreads = (numLoaderThreads > 0 ? numLoaderThreads : Math.max(1,
+                        Math.min(prefetchNumFiles, BaseDataSetIterator.DEFAULT_MAX_LOADER_THREADS)));
     }
 
     public PathSparkMultiDataSetIterator(Collection<String> dataSetStreams) {
-        this.dataSetStreams = dataSetStreams;
-        iter = dataSetStreams.iterator();
+        this(dataSetStreams, 0, 0);
+    }
+
+    /**
+     * @param dataSetStreams   Paths to load from
+     * @param prefetchNumFiles Number of files to read ahead of time, in parallel. 0 to disable prefetching
+     * @param numLoaderThreads Number of threads to use for reading. If <= 0: use a default value
+     */
+    public PathSparkMultiDataSetIterator(Collection<String> dataSetStreams, int prefetchNumFiles,
+                    int numLoaderThreads) {
+        this(dataSetStreams, dataSetStreams.iterator(), prefetchNumFiles, numLoaderThreads);
     }
 
     @Override
@@ -58,6 +89,10 @@ public class PathSparkMultiDataSetIterator implements MultiDataSetIterator {
     public void reset() {
         if (dataSetStreams == null)
             throw new IllegalStateException("Cannot reset iterator constructed with an iterator");
+        if (loader != null) {
+            loader.shutdown();
+            loader = null;
+        }
         iter = dataSetStreams.iterator();
     }
 
@@ -68,12 +103,12 @@ public class PathSparkMultiDataSetIterator implements MultiDataSetIterator {
 
     @Override
     public boolean hasNext() {
-        return iter.hasNext();
+        return prefetchNumFiles > 0 ? getLoader().hasNext() : iter.hasNext();
     }
 
     @Override
     public MultiDataSet next() {
-        MultiDataSet ds = load(iter.next());
+        MultiDataSet ds = (prefetchNumFiles > 0 ? getLoader().next() : load(iter.next()));
 
         if (preprocessor != null)
             preprocessor.preProcess(ds);
@@ -86,7 +121,19 @@ public class PathSparkMultiDataSetIterator implements MultiDataSetIterator {
     }
 
 
-    private synchronized MultiDataSet load(String path) {
+    private PrefetchingLoader<String, MultiDataSet> getLoader() {
+        if (loader == null) {
+            loader = new PrefetchingLoader<>(iter, new PrefetchingLoader.Loader<String, MultiDataSet>() {
+                @Override
+                public MultiDataSet load(String path) {
+                    return PathSparkMultiDataSetIterator.this.load(path);
+                }
+            }, prefetchNumFiles, numLoaderThreads);
+        }
+        return loader;
+    }
+
+    private synchronized FileSystem getFileSystem(String path) {
         if (fileSystem == null) {
             try {
                 fileSystem = FileSystem.get(new URI(path), new Configuration());
@@ -94,14 +141,14 @@ public class PathSparkMultiDataSetIterator implements MultiDataSetIterator {
                 throw new RuntimeException(e);
             }
         }
+        return fileSystem;
+    }
 
-        MultiDataSet ds = new org.nd4j.linalg.dataset.MultiDataSet();
-        try (FSDataInputStream inputStream = fileSystem.open(new Path(path), BUFFER_SIZE)) {
-            ds.load(inputStream);
+    private MultiDataSet load(String path) {
+        try (FSDataInputStream inputStream = getFileSystem(path).open(new Path(path), BUFFER_SIZE)) {
+            return DataSetExportFormat.loadMultiDataSet(inputStream);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-
-        return ds;
     }
 }
@@ -1,9 +1,8 @@
 package org.deeplearning4j.spark.iterator;
 
 import org.apache.spark.input.PortableDataStream;
+import org.deeplearning4j.spark.data.DataSetExportFormat;
 import org.nd4j.linalg.dataset.DataSet;
-import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
-import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 
 import java.io.InputStream;
 import java.io.IOException;
@@ -14,20 +13,44 @@ import java.util.List;
 
 /**
  * A DataSetIterator that loads serialized DataSet objects (saved with {@link DataSet#save(OutputStream)}) from
- * a {@link PortableDataStream}, usually obtained from SparkContext.binaryFiles()
+ * a {@link PortableDataStream}, usually obtained from SparkContext.binaryFiles(). Compressed streams, and streams
+ * containing multiple DataSets (see {@link DataSetExportFormat}) are also supported.<br>
+ * Optionally, up to {@code prefetchNumFiles} streams may be read ahead of time, in parallel.
  *
  * @author Alex Black
  */
 public class PortableDataStreamDataSetIterator extends BaseDataSetIterator<PortableDataStream> {
 
     public PortableDataStreamDataSetIterator(Iterator<PortableDataStream> iter) {
+        this(iter, 0, 0);
+    }
+
+    /**
+     * @param iter             Streams to load from
+     * @param prefetchNumFiles Number of streams to read ahead of time, in parallel. 0 to disable prefetching
+     * @param numLoaderThreads Number of threads to use for reading. If <= 0: use a default value
+     */
+    public PortableDataStreamDataSetIterator(Iterator<PortableDataStream> iter, int prefetchNumFiles,
+                    int numLoaderThreads) {
         this.dataSetStreams = null;
         this.iter = iter;
+        setPrefetch(prefetchNumFiles, numLoaderThreads);
     }
 
     public PortableDataStreamDataSetIterator(Collection<PortableDataStream> dataSetStreams) {
+        this(dataSetStreams, 0, 0);
+    }
+
+    /**
+     * @param dataSetStreams   Streams to load from
+     * @param prefetchNumFiles Number of streams to read ahead of time, in parallel. 0 to disable prefetching
+     * @param numLoaderThreads Number of threads to use for reading. If <= 0: use a default value
+     */
+    public PortableDataStreamDataSetIterator(Collection<PortableDataStream> dataSetStreams, int prefetchNumFiles,
+                    int numLoaderThreads) {
         this.dataSetStreams = dataSetStreams;
         iter = dataSetStreams.iterator();
+        setPrefetch(prefetchNumFiles, numLoaderThreads);
     }
 
     @Override
@@ -36,33 +59,12 @@ public class PortableDataStreamDataSetIterator extends BaseDataSetIterator<Porta
     }
 
     @Override
-    public DataSet next() {
-        DataSet ds;
-        if (preloadedDataSet != null) {
-            ds = preloadedDataSet;
-            preloadedDataSet = null;
-        } else {
-            ds = load(iter.next());
-        }
-
-        totalOutcomes = ds.getLabels().size(1);
-        inputColumns = ds.getFeatureMatrix().size(1);
-        batch = ds.numExamples();
-
-        if (preprocessor != null)
-            preprocessor.preProcess(ds);
-        return ds;
-    }
-
-    protected DataSet load(PortableDataStream pds) {
-        DataSet ds = new DataSet();
+    protected List<DataSet> load(PortableDataStream pds) {
         try (InputStream is = pds.open()) {
-            ds.load(is);
+            return DataSetExportFormat.load(is);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        cursor++;
-        return ds;
     }
 
 }
@@ -1,6 +1,7 @@
 package org.deeplearning4j.spark.iterator;
 
 import org.apache.spark.input.PortableDataStream;
+import org.deeplearning4j.spark.data.DataSetExportFormat;
 import org.nd4j.linalg.dataset.api.MultiDataSet;
 import org.nd4j.linalg.dataset.api.MultiDataSetPreProcessor;
 import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
@@ -67,10 +68,10 @@ public class PortableDataStreamMultiDataSetIterator implements MultiDataSetItera
 
     @Override
     public MultiDataSet next() {
-        MultiDataSet ds = new org.nd4j.linalg.dataset.MultiDataSet();
+        MultiDataSet ds;
         PortableDataStream pds = iter.next();
         try (InputStream is = pds.open()) {
-            ds.load(is);
+            ds = DataSetExportFormat.loadMultiDataSet(is);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,125 @@
+package org.deeplearning4j.spark.iterator;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An iterator that loads objects (such as serialized DataSets) from a sequence of sources (such as paths), reading
+ * ahead up to {@code prefetchSize} sources in parallel on a small thread pool. At most {@code prefetchSize} sources
+ * are being loaded, or loaded but not yet returned, at any time.<br>
+ * Objects are returned in the same order as the sources. The source iterator itself is only ever used from the thread
+ * that calls {@link #hasNext()} and {@link #next()}.
+ *
+ * @param <T> Type of the sources
+ * @param <R> Type of the loaded objects
+ */
+public class PrefetchingLoader<T, R> implements Iterator<R> {
+
+    /**
+     * Loads an object from a source. Called concurrently from multiple threads
+     */
+    public interface Loader<T, R> {
+        R load(T source) throws Exception;
+    }
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private final Iterator<T> sources;
+    private final Loader<T, R> loader;
+    private final int prefetchSize;
+    private final ThreadPoolExecutor executor;
+    private final LinkedList<Future<R>> pending = new LinkedList<>();
+
+    /**
+     * @param sources      Sources to load from
+     * @param loader       Loader, to load each source
+     * @param prefetchSize Maximum number of sources to load ahead of the consumer. Must be >= 1
+     * @param numThreads   Number of threads to use for loading. Must be >= 1
+     */
+    public PrefetchingLoader(Iterator<T> sources, Loader<T, R> loader, int prefetchSize, int numThreads) {
+        if (prefetchSize <= 0)
+            throw new IllegalArgumentException("Invalid prefetch size: " + prefetchSize + " (must be >= 1)");
+        if (numThreads <= 0)
+            throw new IllegalArgumentException("Invalid number of threads: " + numThreads + " (must be >= 1)");
+        this.sources = sources;
+        this.loader = loader;
+        this.prefetchSize = prefetchSize;
+
+        //Daemon threads that time out when idle: the iterator may be abandoned before all sources have been loaded
+        this.executor = new ThreadPoolExecutor(numThreads, numThreads, 10, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                            @Override
+                            public Thread newThread(Runnable r) {
+                                Thread t = new Thread(r, "PrefetchingLoader-" + threadCount.getAndIncrement());
+                                t.setDaemon(true);
+                                return t;
+                            }
+                        });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        fill();
+    }
+
+    private void fill() {
+        while (pending.size() < prefetchSize && sources.hasNext()) {
+            final T source = sources.next();
+            pending.add(executor.submit(new Callable<R>() {
+                @Override
+                public R call() throws Exception {
+                    return loader.load(source);
+                }
+            }));
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        fill();
+        return !pending.isEmpty();
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        Future<R> future = pending.removeFirst();
+
+        R out;
+        try {
+            out = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            shutdown();
+            throw new RuntimeException("Interrupted while waiting for data to be loaded", e);
+        } catch (ExecutionException e) {
+            shutdown();
+            throw new RuntimeException("Error loading data", e.getCause());
+        }
+
+        //Only start loading the next source once this one has been handed to the consumer: otherwise up to
+        // prefetchSize + 1 sources could be loading or loaded at once
+        fill();
+        if (pending.isEmpty())
+            executor.shutdown();
+        return out;
+    }
+
+    /**
+     * Stop loading: cancel any pending loads and shut down the thread pool
+     */
+    public void shutdown() {
+        for (Future<R> f : pending)
+            f.cancel(true);
+        pending.clear();
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,12 @@
+package org.deeplearning4j.spark.util;
+
+import java.io.Serializable;
+
+/**
+ * Two-argument equivalent of {@link org.datavec.spark.functions.FlatMapFunctionAdapter}, used with
+ * {@link BaseFlatMapFunction2Adaptee} to hide incompatibilities between Spark 1.x and Spark 2.x
+ */
+public interface FlatMapFunction2Adapter<T1, T2, R> extends Serializable {
+
+    Iterable<R> call(T1 t1, T2 t2) throws Exception;
+}
@@ -20,7 +20,10 @@ import org.deeplearning4j.spark.impl.common.CountPartitionsFunction;
 import org.deeplearning4j.spark.impl.common.SplitPartitionsFunction;
 import org.deeplearning4j.spark.impl.common.SplitPartitionsFunction2;
 import org.deeplearning4j.spark.impl.common.repartition.AssignIndexFunction;
+import org.deeplearning4j.spark.impl.common.repartition.AssignSurplusFunction;
 import org.deeplearning4j.spark.impl.common.repartition.BalancedPartitioner;
+import org.deeplearning4j.spark.impl.common.repartition.ConcatPartitionsFunction;
+import org.deeplearning4j.spark.impl.common.repartition.KeepLocalElementsFunction;
 import org.deeplearning4j.spark.impl.common.repartition.MapTupleToPairFlatMap;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
@@ -33,6 +36,7 @@ import java.lang.reflect.Array;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
@@ -241,6 +245,8 @@ public class SparkUtils {
                 return rdd.repartition(numPartitions);
             case Balanced:
                 return repartitionBalanceIfRequired(rdd, repartition, objectsPerPartition, numPartitions);
+            case BalancedLocal:
+                return repartitionBalanceLocalIfRequired(rdd, repartition, numPartitions);
             default:
                 throw new RuntimeException("Unknown repartition strategy: " + repartitionStrategy);
         }
@@ -326,6 +332,123 @@ public class SparkUtils {
         }
     }
 
+    /**
+     * Repartition a RDD (given the {@link Repartition} setting) such that we have exactly {@code numPartitions} partitions,
+     * with the number of objects in each differing by at most one. Unlike
+     * {@link #repartitionBalanceIfRequired(JavaRDD, Repartition, int, int)}, objects stay in their current partition where
+     * possible: only the surplus objects from partitions that are too large are shuffled.
+     * See {@link RepartitionStrategy#BalancedLocal}
+     *
+     * @param rdd           RDD to repartition
+     * @param repartition   Repartitioning setting
+     * @param numPartitions Number of partitions to have
+     * @param <T>           Type of RDD
+     * @return Repartitioned RDD, or the original RDD if no repartitioning was performed
+     */
+    public static <T> JavaRDD<T> repartitionBalanceLocalIfRequired(JavaRDD<T> rdd, Repartition repartition,
+                    int numPartitions) {
+        int origNumPartitions = rdd.partitions().size();
+        switch (repartition) {
+            case Never:
+                return rdd;
+            case NumPartitionsWorkersDiffers:
+                if (origNumPartitions == numPartitions)
+                    return rdd;
+            case Always:
+                //Too many partitions: merge them first, without a shuffle. Spark's coalesce groups partitions by their
+                // preferred locations, so no data needs to move between hosts for this step
+                JavaRDD<T> base = (origNumPartitions > numPartitions ? rdd.coalesce(numPartitions, false) : rdd);
+                int basePartitions = base.partitions().size();
+
+                //Count each partition. The counts are used both to decide which objects stay, and where the others go
+                List<Tuple2<Integer, Integer>> partitionCounts =
+                                base.mapPartitionsWithIndex(new CountPartitionsFunction<T>(), true).collect();
+                int[] countPerPartition = new int[basePartitions];
+                int totalObjects = 0;
+                for (Tuple2<Integer, Integer> t2 : partitionCounts) {
+                    countPerPartition[t2._1()] = t2._2();
+                    totalObjects += t2._2();
+                }
+
+                //Target size of each partition: 'remainder' partitions get one more object than the others. These
+                // larger targets go to partitions that already have more objects than required, to reduce the moves
+                int objectsPerPartition = totalObjects / numPartitions;
+                int remainder = totalObjects % numPartitions;
+                int[] targetPerPartition = new int[numPartitions];
+                for (int i = 0; i < numPartitions; i++) {
+                    targetPerPartition[i] = objectsPerPartition;
+                    if (remainder > 0 && i < basePartitions && countPerPartition[i] > objectsPerPartition) {
+                        targetPerPartition[i]++;
+                        remainder--;
+                    }
+                }
+                for (int i = 0; i < numPartitions && remainder > 0; i++) {
+                    if (targetPerPartition[i] == objectsPerPartition) {
+                        targetPerPartition[i]++;
+                        remainder--;
+                    }
+                }
+
+                //Each partition keeps as many of its own objects as it can
+                int[] keepPerPartition = new int[basePartitions];
+                int[] deficitPerPartition = new int[numPartitions];
+                boolean anySurplus = false;
+                for (int i = 0; i < numPartitions; i++) {
+                    int count = (i < basePartitions ? countPerPartition[i] : 0);
+                    int keep = Math.min(count, targetPerPartition[i]);
+                    if (i < basePartitions)
+                        keepPerPartition[i] = keep;
+                    deficitPerPartition[i] = targetPerPartition[i] - keep;
+                    anySurplus |= (count > keep);
+                }
+
+                if (basePartitions == numPartitions && !anySurplus) {
+                    //Already balanced (after merging partitions, if required)
+                    return base;
+                }
+
+                //The surplus objects from each partition fill the remaining space in the other partitions, in order.
+                // Stored as (target partition, number of objects) pairs for each partition
+                int[][] surplusAssignments = new int[basePartitions][0];
+                int deficitIdx = 0;
+                for (int i = 0; i < basePartitions; i++) {
+                    int surplus = countPerPartition[i] - keepPerPartition[i];
+                    List<Integer> assignments = new ArrayList<>();
+                    while (surplus > 0) {
+                        while (deficitPerPartition[deficitIdx] == 0)
+                            deficitIdx++;
+                        int n = Math.min(surplus, deficitPerPartition[deficitIdx]);
+                        assignments.add(deficitIdx);
+                        assignments.add(n);
+                        deficitPerPartition[deficitIdx] -= n;
+                        surplus -= n;
+                    }
+                    surplusAssignments[i] = new int[assignments.size()];
+                    for (int j = 0; j < surplusAssignments[i].length; j++) {
+                        surplusAssignments[i][j] = assignments.get(j);
+                    }
+                }
+
+                JavaRDD<T> kept = base.mapPartitionsWithIndex(new KeepLocalElementsFunction<T>(keepPerPartition), true);
+                if (basePartitions < numPartitions) {
+                    //Too few partitions: the new (empty) partitions are filled entirely from the surplus of the others
+                    JavaSparkContext sc = JavaSparkContext.fromSparkContext(rdd.context());
+                    kept = kept.union(sc.parallelize(Collections.<T>emptyList(), numPartitions - basePartitions));
+                }
+
+                //Only the surplus objects are shuffled; they are then appended to the kept objects in each partition
+                JavaRDD<Tuple2<Integer, T>> surplusIndexed = base.mapPartitionsWithIndex(
+                                new AssignSurplusFunction<T>(keepPerPartition, surplusAssignments), true);
+                JavaPairRDD<Integer, T> surplusPairs = surplusIndexed
+                                .mapPartitionsToPair(new MapTupleToPairFlatMap<Integer, T>(), true)
+                                .partitionBy(new IntPartitioner(numPartitions));
+
+                return kept.zipPartitions(surplusPairs.values(), new ConcatPartitionsFunction<T>());
+            default:
+                throw new RuntimeException("Unknown setting for repartition: " + repartition);
+        }
+    }
+
     /**
      * Random split the specified RDD into a number of RDDs, where each has {@code numObjectsPerSplit} in them.
      * <p>
@@ -0,0 +1,25 @@
+package org.deeplearning4j.spark.util;
+
+import org.apache.spark.api.java.function.FlatMapFunction2;
+
+import java.util.Iterator;
+
+/**
+ * FlatMapFunction2 adapter to hide incompatibilities between Spark 1.x and Spark 2.x
+ *
+ * This class should be used instead of direct referral to FlatMapFunction2
+ *
+ */
+public class BaseFlatMapFunction2Adaptee<T1, T2, R> implements FlatMapFunction2<T1, T2, R> {
+
+    protected final FlatMapFunction2Adapter<T1, T2, R> adapter;
+
+    public BaseFlatMapFunction2Adaptee(FlatMapFunction2Adapter<T1, T2, R> adapter) {
+        this.adapter = adapter;
+    }
+
+    @Override
+    public Iterable<R> call(T1 t1, T2 t2) throws Exception {
+        return adapter.call(t1, t2);
+    }
+}
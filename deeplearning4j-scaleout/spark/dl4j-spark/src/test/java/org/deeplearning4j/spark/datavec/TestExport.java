@@ -22,19 +22,27 @@ import org.apache.spark.api.java.JavaRDD;
 import org.deeplearning4j.spark.BaseSparkTest;
 import org.deeplearning4j.spark.data.BatchAndExportDataSetsFunction;
 import org.deeplearning4j.spark.data.BatchAndExportMultiDataSetsFunction;
+import org.deeplearning4j.spark.data.DataSetCompression;
+import org.deeplearning4j.spark.data.DataSetExportFormat;
+import org.deeplearning4j.spark.iterator.PathSparkDataSetIterator;
 import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.api.MultiDataSet;
 import org.nd4j.linalg.factory.Nd4j;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.*;
 
 /**
  * Created by Alex on 29/08/2016.
@@ -99,6 +107,186 @@ public class TestExport extends BaseSparkTest {
         FileUtils.deleteDirectory(f);
     }
 
+    @Test
+    public void testBatchAndExportDataSetsFunctionPacked() throws Exception {
+        String baseDir = System.getProperty("java.io.tmpdir");
+        baseDir = FilenameUtils.concat(baseDir, "dl4j_spark_testBatchAndExportPacked/");
+        baseDir = baseDir.replaceAll("\\\\", "/");
+        File f = new File(baseDir);
+        if (f.exists())
+            FileUtils.deleteDirectory(f);
+        f.mkdir();
+        f.deleteOnExit();
+        int minibatchSize = 5;
+        int dataSetsPerFile = 8;
+        int nIn = 4;
+        int nOut = 3;
+
+        List<DataSet> dataSets = new ArrayList<>();
+        dataSets.add(new DataSet(Nd4j.create(10, nIn), Nd4j.create(10, nOut))); //Larger than minibatch size -> tests splitting
+        for (int i = 0; i < 98; i++) {
+            if (i % 2 == 0) {
+                dataSets.add(new DataSet(Nd4j.create(5, nIn), Nd4j.create(5, nOut)));
+            } else {
+                dataSets.add(new DataSet(Nd4j.create(1, nIn), Nd4j.create(1, nOut)));
+                dataSets.add(new DataSet(Nd4j.create(1, nIn), Nd4j.create(1, nOut)));
+                dataSets.add(new DataSet(Nd4j.create(3, nIn), Nd4j.create(3, nOut)));
+            }
+        }
+
+        Collections.shuffle(dataSets, new Random(12345));
+
+        JavaRDD<DataSet> rdd = sc.parallelize(dataSets);
+        rdd = rdd.repartition(1);
+
+        JavaRDD<String> pathsRdd = rdd.mapPartitionsWithIndex(
+                        new BatchAndExportDataSetsFunction(minibatchSize, "file:///" + baseDir, dataSetsPerFile), true);
+
+        List<String> paths = pathsRdd.collect();
+        assertEquals(13, paths.size()); //100 minibatches: 12 files with 8, plus one with 4
+
+        //Load with and without prefetching: should get all 100 minibatches, in the same order
+        for (int prefetch : new int[] {0, 3}) {
+            PathSparkDataSetIterator iter = new PathSparkDataSetIterator(paths, prefetch, 2);
+            for (int epoch = 0; epoch < 2; epoch++) {
+                int count = 0;
+                while (iter.hasNext()) {
+                    DataSet ds = iter.next();
+                    assertEquals(minibatchSize, ds.numExamples());
+                    count++;
+                }
+                assertEquals(100, count);
+                iter.reset();
+            }
+        }
+
+        FileUtils.deleteDirectory(f);
+    }
+
+    @Test
+    public void testCompressedFormat() throws Exception {
+        int nIn = 20;
+        int nOut = 5;
+        int minibatch = 8;
+        Nd4j.getRandom().setSeed(12345);
+
+        //Dense features ('f' order, to test non-contiguous input), one-hot labels, masks
+        INDArray features = Nd4j.rand('f', new int[] {minibatch, nIn});
+        INDArray labels = Nd4j.zeros(minibatch, nOut);
+        for (int i = 0; i < minibatch; i++) {
+            labels.putScalar(i, i % nOut, 1.0);
+        }
+        INDArray labelsMask = Nd4j.ones(minibatch, 1);
+        labelsMask.putScalar(0, 0, 0.0);
+        DataSet ds = new DataSet(features, labels, null, labelsMask);
+
+        for (boolean deflate : new boolean[] {false, true}) {
+            DataSetCompression c = new DataSetCompression.Builder().deflate(deflate).build();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            DataSetExportFormat.save(ds, baos, c);
+            byte[] bytes = baos.toByteArray();
+
+            List<DataSet> loaded = DataSetExportFormat.load(new ByteArrayInputStream(bytes));
+            assertEquals(1, loaded.size());
+            assertEquals(ds, loaded.get(0));
+            assertNull(loaded.get(0).getFeaturesMaskArray());
+
+            //Corrupt the last byte (part of the feature/labels/mask data): should fail the checksum
+            bytes[bytes.length - 1]++;
+            try {
+                DataSetExportFormat.load(new ByteArrayInputStream(bytes));
+                fail("Expected exception");
+            } catch (IOException e) {
+                //OK
+            }
+        }
+
+        //Mostly-zero arrays should be much smaller than in the standard format
+        ByteArrayOutputStream standard = new ByteArrayOutputStream();
+        new DataSet(Nd4j.zeros(100, 1000), Nd4j.zeros(100, 1000)).save(standard);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        DataSetExportFormat.save(new DataSet(Nd4j.zeros(100, 1000), Nd4j.zeros(100, 1000)), compressed,
+                        new DataSetCompression());
+        assertTrue(compressed.size() < standard.size() / 100);
+
+        //Half precision features: approximately equal
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataSetExportFormat.save(ds, baos, new DataSetCompression.Builder().halfPrecisionFeatures(true).build());
+        DataSet half = DataSetExportFormat.load(new ByteArrayInputStream(baos.toByteArray())).get(0);
+        assertTrue(features.equalsWithEps(half.getFeatureMatrix(), 1e-3));
+        assertEquals(labels, half.getLabels());
+
+        //MultiDataSet, with some null masks
+        MultiDataSet mds = new org.nd4j.linalg.dataset.MultiDataSet(
+                        new INDArray[] {features, Nd4j.rand(minibatch, 3)}, new INDArray[] {labels},
+                        new INDArray[] {null, Nd4j.ones(minibatch, 1)}, null);
+        baos = new ByteArrayOutputStream();
+        DataSetExportFormat.save(mds, baos, new DataSetCompression());
+        MultiDataSet mdsLoaded = DataSetExportFormat.loadMultiDataSet(new ByteArrayInputStream(baos.toByteArray()));
+        assertEquals(2, mdsLoaded.numFeatureArrays());
+        assertEquals(features, mdsLoaded.getFeatures(0));
+        assertEquals(mds.getFeatures(1), mdsLoaded.getFeatures(1));
+        assertEquals(labels, mdsLoaded.getLabels(0));
+        assertNull(mdsLoaded.getFeaturesMaskArray(0));
+        assertEquals(mds.getFeaturesMaskArray(1), mdsLoaded.getFeaturesMaskArray(1));
+        assertNull(mdsLoaded.getLabelsMaskArrays());
+
+        //Packed and compressed
+        baos = new ByteArrayOutputStream();
+        DataSetExportFormat.savePacked(Arrays.asList(ds, ds, ds), baos, new DataSetCompression());
+        List<DataSet> packed = DataSetExportFormat.load(new ByteArrayInputStream(baos.toByteArray()));
+        assertEquals(3, packed.size());
+        for (DataSet d : packed) {
+            assertEquals(ds, d);
+        }
+    }
+
+    @Test
+    public void testCorruptLengths() throws Exception {
+        DataSet ds = new DataSet(Nd4j.rand(4, 3), Nd4j.rand(4, 2));
+
+        //Packed file: count at offset 4, first DataSet length at offset 8
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataSetExportFormat.savePacked(Arrays.asList(ds, ds), baos);
+        byte[] packed = baos.toByteArray();
+        assertLoadFails(withInt(packed, 4, -1));
+        assertLoadFails(withInt(packed, 8, -1));
+        assertLoadFails(withInt(packed, 8, Integer.MAX_VALUE));
+        assertLoadFails(Arrays.copyOf(packed, packed.length - 10));
+
+        //Compressed file: header (25 bytes), then first entry: flags, element type, rank, shape (2 ints), raw length,
+        //stored length, offset
+        baos = new ByteArrayOutputStream();
+        DataSetExportFormat.save(ds, baos, new DataSetCompression.Builder().sparseThreshold(0.0).build());
+        byte[] compressed = baos.toByteArray();
+        assertEquals(ds, DataSetExportFormat.load(new ByteArrayInputStream(compressed)).get(0));
+        assertLoadFails(withInt(compressed, 13, -2)); //Number of labels arrays
+        assertLoadFails(withInt(compressed, 27, -1)); //Rank
+        assertLoadFails(withInt(compressed, 27, Integer.MAX_VALUE));
+        assertLoadFails(withInt(compressed, 31, -4)); //Shape
+        assertLoadFails(withInt(compressed, 39, Integer.MAX_VALUE)); //Raw length
+        assertLoadFails(withInt(compressed, 43, -1)); //Stored length
+        assertLoadFails(withInt(compressed, 43, Integer.MAX_VALUE));
+        assertLoadFails(withInt(compressed, 47, Integer.MAX_VALUE)); //Offset: high and low bits
+        assertLoadFails(withInt(compressed, 51, 0));
+        assertLoadFails(Arrays.copyOf(compressed, compressed.length - 10));
+    }
+
+    private static byte[] withInt(byte[] bytes, int position, int value) {
+        byte[] out = bytes.clone();
+        ByteBuffer.wrap(out).putInt(position, value);
+        return out;
+    }
+
+    private static void assertLoadFails(byte[] bytes) {
+        try {
+            DataSetExportFormat.load(new ByteArrayInputStream(bytes));
+            fail("Expected exception");
+        } catch (IOException e) {
+            //OK
+        }
+    }
+
     @Test
     public void testBatchAndExportMultiDataSetsFunction() throws Exception {
         String baseDir = System.getProperty("java.io.tmpdir");
@@ -2,6 +2,7 @@ package org.deeplearning4j.spark.impl.paramavg;
 
 import org.apache.spark.storage.StorageLevel;
 import org.deeplearning4j.spark.api.TrainingMaster;
+import org.deeplearning4j.spark.data.DataSetCompression;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -16,6 +17,10 @@ public class TestJsonYaml {
         TrainingMaster tm = new ParameterAveragingTrainingMaster.Builder(2).batchSizePerWorker(32)
                         .exportDirectory("hdfs://SomeDirectory/").saveUpdater(false).averagingFrequency(3)
                         .storageLevel(StorageLevel.MEMORY_ONLY_SER_2()).storageLevelStreams(StorageLevel.DISK_ONLY())
+                        .aggregationDepth(2).hostPreAggregation(true).pipelineBroadcast(true)
+                        .workerPrefetchNumFiles(4).exportDataSetsPerFile(8)
+                        .exportCompression(new DataSetCompression.Builder().halfPrecisionFeatures(true)
+                                        .sparseThreshold(0.1).build())
                         .build();
 
         String json = tm.toJson();
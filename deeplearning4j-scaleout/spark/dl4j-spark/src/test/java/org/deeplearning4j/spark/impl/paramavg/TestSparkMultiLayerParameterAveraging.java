@@ -538,6 +538,52 @@ public class TestSparkMultiLayerParameterAveraging extends BaseSparkTest {
     }
 
 
+    @Test
+    public void testExportDataSetsPerFileExceedsAveragingFrequency() throws Exception {
+        int batchSizePerExecutor = 10;
+        int averagingFrequency = 1;
+        int dataSetsPerFile = 3;
+        int numMinibatches = numExecutors() * dataSetsPerFile * 2;
+
+        //One minibatch per DataSet object: each exported file contains exactly dataSetsPerFile minibatches
+        List<DataSet> list = new ArrayList<>();
+        DataSetIterator iter = new MnistDataSetIterator(batchSizePerExecutor, numMinibatches * batchSizePerExecutor,
+                        false);
+        while (iter.hasNext()) {
+            list.add(iter.next());
+        }
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().updater(Updater.RMSPROP)
+                        .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT).iterations(1).list()
+                        .layer(0, new org.deeplearning4j.nn.conf.layers.DenseLayer.Builder().nIn(28 * 28).nOut(50)
+                                        .activation(Activation.TANH).build())
+                        .layer(1, new org.deeplearning4j.nn.conf.layers.OutputLayer.Builder(
+                                        LossFunctions.LossFunction.MCXENT).nIn(50).nOut(10)
+                                                        .activation(Activation.SOFTMAX).build())
+                        .pretrain(false).backprop(true).build();
+
+        SparkDl4jMultiLayer sparkNet = new SparkDl4jMultiLayer(sc, conf,
+                        new ParameterAveragingTrainingMaster.Builder(numExecutors(), batchSizePerExecutor)
+                                        .batchSizePerWorker(batchSizePerExecutor).averagingFrequency(averagingFrequency)
+                                        .exportDataSetsPerFile(dataSetsPerFile).repartionData(Repartition.Always)
+                                        .build());
+        sparkNet.setCollectTrainingStats(true);
+
+        sparkNet.fit(sc.parallelize(list));
+
+        //Every minibatch of every exported file should have been fitted, not just averagingFrequency of each file
+        SparkTrainingStats stats = sparkNet.getSparkTrainingStats();
+        List<EventStats> fitStats = stats.getValue("ParameterAveragingWorkerFitTimesMs");
+        assertEquals(numMinibatches, fitStats.size());
+        int totalExamples = 0;
+        for (EventStats es : fitStats) {
+            totalExamples += ((ExampleCountEventStats) es).getTotalExampleCount();
+        }
+        assertEquals(numMinibatches * batchSizePerExecutor, totalExamples);
+
+        sparkNet.getTrainingMaster().deleteTempFiles(sc);
+    }
+
     @Test
     public void testFitViaStringPathsCompGraph() throws Exception {
 
@@ -700,6 +746,66 @@ public class TestSparkMultiLayerParameterAveraging extends BaseSparkTest {
         assertNotEquals(p1, p3);
     }
 
+    @Test
+    public void testTreeAggregation() throws Exception {
+        //Tree aggregation, host pre-aggregation and pipelined broadcasts should give the same result as the default
+        // aggregation (up to floating point differences due to summation order)
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).updater(Updater.RMSPROP)
+                        .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT).iterations(1)
+                        .weightInit(WeightInit.XAVIER).list()
+                        .layer(0, new org.deeplearning4j.nn.conf.layers.DenseLayer.Builder().nIn(4).nOut(4)
+                                        .activation(Activation.TANH).build())
+                        .layer(1, new org.deeplearning4j.nn.conf.layers.OutputLayer.Builder(
+                                        LossFunctions.LossFunction.MCXENT).nIn(4).nOut(3).activation(Activation.SOFTMAX)
+                                                        .build())
+                        .pretrain(false).backprop(true).build();
+
+        Nd4j.getRandom().setSeed(12345);
+        MultiLayerNetwork n1 = new MultiLayerNetwork(conf);
+        n1.init();
+
+        Nd4j.getRandom().setSeed(12345);
+        MultiLayerNetwork n2 = new MultiLayerNetwork(conf);
+        n2.init();
+
+        SparkDl4jMultiLayer sparkNet1 = new SparkDl4jMultiLayer(sc, n1,
+                        new ParameterAveragingTrainingMaster.Builder(1).batchSizePerWorker(5).averagingFrequency(1)
+                                        .repartionData(Repartition.Always).rngSeed(12345).build());
+
+        Thread.sleep(100); //Training master IDs are only unique if they are created at least 1 ms apart...
+
+        ParameterAveragingTrainingMaster tm2 = new ParameterAveragingTrainingMaster.Builder(1).batchSizePerWorker(5)
+                        .averagingFrequency(1).repartionData(Repartition.Always).rngSeed(12345).aggregationDepth(2)
+                        .hostPreAggregation(true).pipelineBroadcast(true).build();
+        SparkDl4jMultiLayer sparkNet2 = new SparkDl4jMultiLayer(sc, n2, tm2);
+        sparkNet2.setCollectTrainingStats(true);
+
+        List<DataSet> data = new ArrayList<>();
+        DataSetIterator iter = new IrisDataSetIterator(1, 150);
+        while (iter.hasNext())
+            data.add(iter.next());
+
+        JavaRDD<DataSet> rdd = sc.parallelize(data);
+
+        sparkNet1.fit(rdd);
+        sparkNet2.fit(rdd);
+
+        INDArray p1 = sparkNet1.getNetwork().params();
+        INDArray p2 = sparkNet2.getNetwork().params();
+
+        sparkNet1.getTrainingMaster().deleteTempFiles(sc);
+        sparkNet2.getTrainingMaster().deleteTempFiles(sc);
+
+        assertTrue(p1.equalsWithEps(p2, 1e-4));
+        assertEquals(sparkNet1.getNetwork().getLayerWiseConfigurations().getIterationCount(),
+                        sparkNet2.getNetwork().getLayerWiseConfigurations().getIterationCount());
+
+        SparkTrainingStats stats = sparkNet2.getSparkTrainingStats();
+        List<EventStats> broadcastWait = stats.getValue("ParameterAveragingMasterBroadcastWaitTimesMs");
+        List<EventStats> aggregate = stats.getValue("ParameterAveragingMasterAggregateTimesMs");
+        assertEquals(aggregate.size(), broadcastWait.size());
+    }
+
 
     @Test
     public void testIterationCounts() throws Exception {
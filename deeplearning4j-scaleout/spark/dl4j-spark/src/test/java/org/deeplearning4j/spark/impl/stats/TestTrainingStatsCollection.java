@@ -133,6 +133,12 @@ public class TestTrainingStatsCollection {
             assertNonNullFields(broadcastCreateTime);
             assertExpectedNumberMachineIdsJvmIdsThreadIds(broadcastCreateTime, 1, 1, 1); //only 1 thread for master
 
+            List<EventStats> broadcastWaitTime = masterStats.getParameterAveragingMasterBroadcastWaitTimesMs();
+            assertEquals(numberOfAveragings, broadcastWaitTime.size());
+            assertDurationGreaterEqZero(broadcastWaitTime);
+            assertNonNullFields(broadcastWaitTime);
+            assertExpectedNumberMachineIdsJvmIdsThreadIds(broadcastWaitTime, 1, 1, 1); //only 1 thread for master
+
             List<EventStats> fitTimes = masterStats.getParameterAveragingMasterFitTimesMs();
             assertEquals(1, fitTimes.size()); //i.e., number of times fit(JavaRDD<DataSet>) was called
             assertDurationGreaterZero(fitTimes);
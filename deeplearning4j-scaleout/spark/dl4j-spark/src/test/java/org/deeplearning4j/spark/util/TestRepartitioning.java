@@ -9,11 +9,13 @@ import org.junit.Test;
 import scala.Tuple2;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 
 import static junit.framework.TestCase.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by Alex on 03/07/2016.
@@ -97,4 +99,65 @@ public class TestRepartitioning extends BaseSparkTest {
             assertEquals(expNumPartitionsWithMore, actNumPartitionsWithMore);
         }
     }
+
+    @Test
+    public void testRepartitioningBalancedLocal() {
+        //Skewed partitions: sizes 40, 5, 15, 0 -> 15 each
+        int[] sizes = {40, 5, 15, 0};
+        JavaRDD<String> rdd = null;
+        List<List<String>> original = new ArrayList<>();
+        int count = 0;
+        for (int size : sizes) {
+            List<String> list = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                list.add(String.valueOf(count++));
+            }
+            original.add(list);
+            JavaRDD<String> part = sc.parallelize(list, 1);
+            rdd = (rdd == null ? part : rdd.union(part));
+        }
+        assertEquals(4, rdd.partitions().size());
+
+        JavaRDD<String> rdd2 = SparkUtils.repartition(rdd, Repartition.Always, RepartitionStrategy.BalancedLocal, 15, 4);
+        assertEquals(4, rdd2.partitions().size());
+        List<String>[] partitions = rdd2.collectPartitions(new int[] {0, 1, 2, 3});
+        List<String> all = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(15, partitions[i].size());
+            all.addAll(partitions[i]);
+        }
+        assertEquals(60, new HashSet<>(all).size());
+
+        //Only the surplus should have moved
+        assertEquals(original.get(0).subList(0, 15), partitions[0]);
+        assertEquals(original.get(1), partitions[1].subList(0, 5));
+        assertEquals(original.get(2), partitions[2]);
+
+        //Already balanced: no repartitioning required
+        JavaRDD<String> rdd3 = SparkUtils.repartition(rdd2, Repartition.Always, RepartitionStrategy.BalancedLocal, 15, 4);
+        assertTrue(rdd2 == rdd3);
+
+        //More partitions than required, and fewer than required
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 1003; i++) {
+            list.add(String.valueOf(i));
+        }
+        for (int[] p : new int[][] {{200, 10}, {2, 7}}) {
+            JavaRDD<String> in = sc.parallelize(list, p[0]);
+            JavaRDD<String> out = SparkUtils.repartition(in, Repartition.Always, RepartitionStrategy.BalancedLocal,
+                            1003 / p[1], p[1]);
+            List<Tuple2<Integer, Integer>> partitionCounts =
+                            out.mapPartitionsWithIndex(new CountPartitionsFunction<String>(), true).collect();
+            assertEquals(p[1], partitionCounts.size());
+            int numWithMore = 0;
+            for (Tuple2<Integer, Integer> t2 : partitionCounts) {
+                int partitionSize = t2._2();
+                assertTrue(partitionSize == 1003 / p[1] || partitionSize == 1003 / p[1] + 1);
+                if (partitionSize > 1003 / p[1])
+                    numWithMore++;
+            }
+            assertEquals(1003 % p[1], numWithMore);
+            assertEquals(1003, new HashSet<>(out.collect()).size());
+        }
+    }
 }
@@ -3,6 +3,7 @@ package org.deeplearning4j.ui.module.remote;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.extern.slf4j.Slf4j;
 import org.deeplearning4j.api.storage.*;
+import org.deeplearning4j.api.storage.impl.RemoteUIStatsStorageRouter;
 import org.deeplearning4j.ui.api.FunctionType;
 import org.deeplearning4j.ui.api.HttpMethod;
 import org.deeplearning4j.ui.api.Route;
@@ -14,8 +15,11 @@ import play.mvc.Result;
 import play.mvc.Results;
 
 import javax.xml.bind.DatatypeConverter;
+import java.io.*;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
 
 import static play.mvc.Http.Context.Implicit.request;
 
@@ -24,7 +28,9 @@ import static play.mvc.Http.Context.Implicit.request;
  * Used to receive UI updates remotely.
  * Used in conjunction with {@link org.deeplearning4j.api.storage.impl.RemoteUIStatsStorageRouter}, which posts to the UI.
  * UI information is then deserialized and routed to the specified StatsStorageRouter, which may (or may not)
- * be attached to the UI
+ * be attached to the UI<br>
+ * Records are received either one per request as JSON (/remoteReceive), or in batches in the binary bulk format
+ * described in {@link RemoteUIStatsStorageRouter#BULK_PATH} (/remoteReceive/bulk)
  *
  * @author Alex Black
  */
@@ -57,7 +63,9 @@ public class RemoteReceiverModule implements UIModule {
     @Override
     public List<Route> getRoutes() {
         Route r = new Route("/remoteReceive", HttpMethod.POST, FunctionType.Supplier, this::receiveData);
-        return Collections.singletonList(r);
+        Route r2 = new Route("/remoteReceive/" + RemoteUIStatsStorageRouter.BULK_PATH, HttpMethod.POST,
+                        FunctionType.Supplier, this::receiveBulkData);
+        return Arrays.asList(r, r2);
     }
 
     @Override
@@ -76,7 +84,8 @@ public class RemoteReceiverModule implements UIModule {
         //No op
     }
 
-    private Result receiveData() {
+    //Returns the error result, or null if the receiver is enabled
+    private Result checkEnabled() {
         if (!enabled.get()) {
             return Results.forbidden(
                             "UI server remote listening is currently disabled. Use UIServer.getInstance().enableRemoteListener()");
@@ -86,6 +95,14 @@ public class RemoteReceiverModule implements UIModule {
             return Results.internalServerError(
                             "UI Server remote listener: no StatsStorage instance is set/available to store results");
         }
+        return null;
+    }
+
+    private Result receiveData() {
+        Result error = checkEnabled();
+        if (error != null) {
+            return error;
+        }
 
         JsonNode jn = request().body().asJson();
         JsonNode type = jn.get("type");
@@ -128,7 +145,148 @@ public class RemoteReceiverModule implements UIModule {
         return Results.ok("Receiver got data: ");
     }
 
+    private Result receiveBulkData() {
+        Result error = checkEnabled();
+        if (error != null) {
+            return error;
+        }
+
+        Http.RawBuffer raw = request().body().asRaw();
+        byte[] body = null;
+        if (raw != null) {
+            body = raw.asBytes();
+            if (body == null) {
+                //Larger than the in-memory buffer: buffered to disk by Play
+                try {
+                    body = Files.readAllBytes(raw.asFile().toPath());
+                } catch (IOException e) {
+                    log.warn("Error reading remote UI bulk data", e);
+                    return Results.internalServerError("Error reading data");
+                }
+            }
+        }
+        if (body == null || body.length < 2) {
+            log.warn("Received incorrectly formatted bulk data from remote listener (no content)");
+            return Results.badRequest("Received incorrectly formatted data");
+        }
+        if (body[0] != RemoteUIStatsStorageRouter.BULK_FORMAT_VERSION) {
+            log.warn("Received bulk data with unsupported format version {} from remote listener", body[0]);
+            return Results.badRequest("Unsupported format version: " + body[0]);
+        }
+
+        List<StorageMetaData> metaData = new ArrayList<>();
+        List<Persistable> staticInfo = new ArrayList<>();
+        List<Persistable> updates = new ArrayList<>();
+        try {
+            InputStream is = new ByteArrayInputStream(body, 2, body.length - 2);
+            boolean compressed = (body[1] == RemoteUIStatsStorageRouter.BULK_COMPRESSION_GZIP);
+            if (compressed) {
+                is = new GZIPInputStream(is);
+            } else if (body[1] != RemoteUIStatsStorageRouter.BULK_COMPRESSION_NONE) {
+                log.warn("Received bulk data with unsupported compression {} from remote listener", body[1]);
+                return Results.badRequest("Unsupported compression: " + body[1]);
+            }
+
+            try (DataInputStream dis = new DataInputStream(is)) {
+                int n = dis.readInt();
+                if (n < 0) {
+                    throw new IOException("Invalid number of records: " + n);
+                }
+                for (int i = 0; i < n; i++) {
+                    String type = dis.readUTF();
+                    String dc = dis.readUTF();
+                    byte[] bytes = readRecord(dis, compressed);
+
+                    switch (type.toLowerCase()) {
+                        case "metadata":
+                            StorageMetaData meta = getMetaData(dc, bytes);
+                            if (meta != null) {
+                                metaData.add(meta);
+                            }
+                            break;
+                        case "staticinfo":
+                            Persistable p = getPersistable(dc, bytes);
+                            if (p != null) {
+                                staticInfo.add(p);
+                            }
+                            break;
+                        case "update":
+                            Persistable u = getPersistable(dc, bytes);
+                            if (u != null) {
+                                updates.add(u);
+                            }
+                            break;
+                        default:
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Received incorrectly formatted bulk data from remote listener", e);
+            return Results.badRequest("Received incorrectly formatted data");
+        }
+
+        //Metadata and static info first, as for a single worker they are posted before any updates
+        if (!metaData.isEmpty()) {
+            statsStorage.putStorageMetaData(metaData);
+        }
+        if (!staticInfo.isEmpty()) {
+            statsStorage.putStaticInfo(staticInfo);
+        }
+        if (!updates.isEmpty()) {
+            statsStorage.putUpdate(updates);
+        }
+
+        return Results.ok("Receiver got data: " + (metaData.size() + staticInfo.size() + updates.size()) + " records");
+    }
+
+    /**
+     * Read the length-prefixed content of one bulk record. Lengths come from the request, hence are checked before
+     * allocating: a corrupt or malicious length results in an IOException (bad request) instead of an
+     * OutOfMemoryError or NegativeArraySizeException
+     */
+    private static byte[] readRecord(DataInputStream dis, boolean compressed) throws IOException {
+        int length = dis.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid record length: " + length);
+        }
+        if (!compressed) {
+            //Uncompressed: available() is exactly the remaining number of bytes in the request body
+            int available = dis.available();
+            if (length > available) {
+                throw new IOException("Record length " + length + " exceeds remaining data (" + available + " bytes)");
+            }
+            byte[] bytes = new byte[length];
+            dis.readFully(bytes);
+            return bytes;
+        }
+
+        //Decompressed size is not known up front: read in chunks, so that memory is bounded by the actual data
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(Math.min(length, 8192));
+        byte[] buffer = new byte[8192];
+        int remaining = length;
+        while (remaining > 0) {
+            int read = dis.read(buffer, 0, Math.min(remaining, buffer.length));
+            if (read < 0) {
+                throw new EOFException("Record truncated: expected " + length + " bytes, got " + (length - remaining));
+            }
+            baos.write(buffer, 0, read);
+            remaining -= read;
+        }
+        return baos.toByteArray();
+    }
+
     private StorageMetaData getMetaData(String dataClass, String content) {
+        byte[] bytes;
+        try {
+            bytes = DatatypeConverter.parseBase64Binary(content);
+        } catch (Exception e) {
+            log.warn("Skipping invalid remote UI data: exception encountered when deserializing data", e);
+            return null;
+        }
+        return getMetaData(dataClass, bytes);
+    }
+
+    private StorageMetaData getMetaData(String dataClass, byte[] bytes) {
 
         StorageMetaData meta;
         try {
@@ -146,7 +304,6 @@ public class RemoteReceiverModule implements UIModule {
         }
 
         try {
-            byte[] bytes = DatatypeConverter.parseBase64Binary(content);
             meta.decode(bytes);
         } catch (Exception e) {
             log.warn("Skipping invalid remote UI data: exception encountered when deserializing data", e);
@@ -157,6 +314,17 @@ public class RemoteReceiverModule implements UIModule {
     }
 
     private Persistable getPersistable(String dataClass, String content) {
+        byte[] bytes;
+        try {
+            bytes = DatatypeConverter.parseBase64Binary(content);
+        } catch (Exception e) {
+            log.warn("Skipping invalid remote data: exception encountered when deserializing data", e);
+            return null;
+        }
+        return getPersistable(dataClass, bytes);
+    }
+
+    private Persistable getPersistable(String dataClass, byte[] bytes) {
         Persistable p;
         try {
             Class<?> c = Class.forName(dataClass);
@@ -173,7 +341,6 @@ public class RemoteReceiverModule implements UIModule {
         }
 
         try {
-            byte[] bytes = DatatypeConverter.parseBase64Binary(content);
             p.decode(bytes);
         } catch (Exception e) {
             log.warn("Skipping invalid remote data: exception encountered when deserializing data", e);
@@ -27,6 +27,8 @@ import org.deeplearning4j.ui.stats.api.Histogram;
 import org.deeplearning4j.ui.stats.api.StatsInitializationReport;
 import org.deeplearning4j.ui.stats.api.StatsReport;
 import org.deeplearning4j.ui.stats.api.StatsType;
+import org.deeplearning4j.ui.storage.timeseries.StatsTimeSeries;
+import org.deeplearning4j.ui.storage.timeseries.TimeSeriesStatsStorage;
 import org.deeplearning4j.ui.views.html.training.TrainingHelp;
 import org.deeplearning4j.ui.views.html.training.TrainingModel;
 import org.deeplearning4j.ui.views.html.training.TrainingOverview;
@@ -68,6 +70,16 @@ public class TrainModule implements UIModule {
     private Map<String, AtomicInteger> workerIdxCount = Collections.synchronizedMap(new HashMap<>()); //Key: session ID
     private Map<String, Map<Integer, String>> workerIdxToName = Collections.synchronizedMap(new HashMap<>()); //Key: session ID
     private Map<String, Long> lastUpdateForSession = Collections.synchronizedMap(new HashMap<>());
+    //Time series for storages that don't maintain them. Key: session ID, worker ID. Least recently used entries are
+    // evicted once there are more than MAX_CACHED_TIME_SERIES; evicted series are rebuilt from the storage if required
+    private static final int MAX_CACHED_TIME_SERIES = 32;
+    private final Map<Pair<String, String>, StatsTimeSeries> timeSeriesCache =
+                    new LinkedHashMap<Pair<String, String>, StatsTimeSeries>(16, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<Pair<String, String>, StatsTimeSeries> eldest) {
+                            return size() > MAX_CACHED_TIME_SERIES;
+                        }
+                    };
 
     public TrainModule() {
         String maxChartPointsProp = System.getProperty(CHART_MAX_POINTS_PROPERTY);
@@ -163,6 +175,7 @@ public class TrainModule implements UIModule {
         for (String s : knownSessionIDs.keySet()) {
             if (knownSessionIDs.get(s) == statsStorage) {
                 knownSessionIDs.remove(s);
+                removeCachedTimeSeries(s);
             }
         }
     }
@@ -323,6 +336,60 @@ public class TrainModule implements UIModule {
         return Double.isFinite(d) ? d : NAN_REPLACEMENT_VALUE;
     }
 
+    private static List<Double> toFixedList(double[] values) {
+        List<Double> list = new ArrayList<>(values.length);
+        for (double d : values) {
+            list.add(fixNaN(d));
+        }
+        return list;
+    }
+
+    private static boolean needToHandleLegacyIterCounts(List<Integer> iterationCounts) {
+        for (int i = 1; i < iterationCounts.size(); i++) {
+            if (iterationCounts.get(i) <= iterationCounts.get(i - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the aggregated time series for the specified session and worker. Storages implementing
+     * {@link TimeSeriesStatsStorage} maintain the series themselves; for other storages, the series is kept here and
+     * only the updates after the last timestamp already included are read from the storage.
+     */
+    private StatsTimeSeries getTimeSeries(StatsStorage ss, String sessionID, String workerID) {
+        if (ss instanceof TimeSeriesStatsStorage) {
+            return ((TimeSeriesStatsStorage) ss).getTimeSeries(sessionID, StatsListener.TYPE_ID, workerID);
+        }
+
+        Pair<String, String> key = new Pair<>(sessionID, workerID);
+        StatsTimeSeries series;
+        synchronized (timeSeriesCache) {
+            series = timeSeriesCache.get(key);
+            if (series == null) {
+                series = new StatsTimeSeries();
+                timeSeriesCache.put(key, series);
+            }
+        }
+        List<Persistable> newUpdates =
+                        ss.getAllUpdatesAfter(sessionID, StatsListener.TYPE_ID, workerID, series.getLastTimestamp());
+        for (Persistable p : newUpdates) {
+            series.add(p);
+        }
+        return (series.getNumUpdates() == 0 ? null : series);
+    }
+
+    private void removeCachedTimeSeries(String sessionID) {
+        synchronized (timeSeriesCache) {
+            Iterator<Pair<String, String>> iter = timeSeriesCache.keySet().iterator();
+            while (iter.hasNext()) {
+                if (sessionID.equals(iter.next().getFirst()))
+                    iter.remove();
+            }
+        }
+    }
+
     private static void cleanLegacyIterationCounts(List<Integer> iterationCounts) {
         if (iterationCounts.size() > 0) {
             boolean allEqual = true;
@@ -357,7 +424,6 @@ public class TrainModule implements UIModule {
         I18N i18N = I18NProvider.getInstance();
 
         boolean noData = currentSessionID == null;
-        //First pass (optimize later): query all data...
 
         StatsStorage ss = (noData ? null : knownSessionIDs.get(currentSessionID));
 
@@ -375,10 +441,9 @@ public class TrainModule implements UIModule {
         result.put("scores", scores);
         result.put("scoresIter", scoresIterCount);
 
-        //Get scores info
-        List<Persistable> updates =
-                        (noData ? null : ss.getAllUpdatesAfter(currentSessionID, StatsListener.TYPE_ID, wid, 0));
-        if (updates == null || updates.size() == 0) {
+        //Get scores info: aggregated time series, rather than all updates
+        StatsTimeSeries series = (noData ? null : getTimeSeries(ss, currentSessionID, wid));
+        if (series == null || series.getNumUpdates() == 0) {
             noData = true;
         }
 
@@ -394,136 +459,74 @@ public class TrainModule implements UIModule {
         result.put("stdevGradients", stdevGradients);
         result.put("stdevUpdates", stdevUpdates);
 
+        StatsReport last = null;
         if (!noData) {
-            Persistable u = updates.get(0);
-            if (u instanceof StatsReport) {
-                StatsReport sp = (StatsReport) u;
-                Map<String, Double> map = sp.getMeanMagnitudes(StatsType.Parameters);
-                if (map != null) {
-                    for (String s : map.keySet()) {
-                        if (!s.toLowerCase().endsWith("w"))
-                            continue; //TODO: more robust "weights only" approach...
-                        updateRatios.put(s, new ArrayList<>());
+            String paramMMPrefix = StatsTimeSeries.meanMagnitudeKey(StatsType.Parameters, "");
+            String gradStdevPrefix = StatsTimeSeries.stdevKey(StatsType.Gradients, "");
+            String updateStdevPrefix = StatsTimeSeries.stdevKey(StatsType.Updates, "");
+            String actStdevPrefix = StatsTimeSeries.stdevKey(StatsType.Activations, "");
+
+            List<String> metrics = new ArrayList<>();
+            metrics.add(StatsTimeSeries.SCORE);
+            for (String m : series.getMetricNames()) {
+                if (m.startsWith(paramMMPrefix) || m.startsWith(gradStdevPrefix) || m.startsWith(updateStdevPrefix)) {
+                    if (!m.toLowerCase().endsWith("w"))
+                        continue; //TODO: more robust "weights only" approach...
+                    metrics.add(m);
+                    if (m.startsWith(paramMMPrefix)) {
+                        metrics.add(StatsTimeSeries.meanMagnitudeKey(StatsType.Updates,
+                                        m.substring(paramMMPrefix.length())));
                     }
+                } else if (m.startsWith(actStdevPrefix)) {
+                    metrics.add(m);
                 }
+            }
 
-                Map<String, Double> stdGrad = sp.getStdev(StatsType.Gradients);
-                if (stdGrad != null) {
-                    for (String s : stdGrad.keySet()) {
-                        if (!s.toLowerCase().endsWith("w"))
-                            continue; //TODO: more robust "weights only" approach...
-                        stdevGradients.put(s, new ArrayList<>());
-                    }
+            StatsTimeSeries.Buckets buckets = series.query(Long.MIN_VALUE, maxChartPoints, metrics);
+            Map<String, double[]> means = buckets.getMean();
+            for (int iter : buckets.getIterations()) {
+                scoresIterCount.add(iter);
+            }
+            double[] scoreMeans = means.get(StatsTimeSeries.SCORE);
+            if (scoreMeans != null) {
+                for (double d : scoreMeans) {
+                    scores.add(fixNaN(d));
                 }
+            }
 
-                Map<String, Double> stdUpdate = sp.getStdev(StatsType.Updates);
-                if (stdUpdate != null) {
-                    for (String s : stdUpdate.keySet()) {
-                        if (!s.toLowerCase().endsWith("w"))
-                            continue; //TODO: more robust "weights only" approach...
-                        stdevUpdates.put(s, new ArrayList<>());
+            for (Map.Entry<String, double[]> e : means.entrySet()) {
+                String key = e.getKey();
+                if (key.startsWith(paramMMPrefix)) {
+                    //Update ratios: mean magnitudes(updates) / mean magnitudes (parameters)
+                    String param = key.substring(paramMMPrefix.length());
+                    double[] updateMM = means.get(StatsTimeSeries.meanMagnitudeKey(StatsType.Updates, param));
+                    if (updateMM == null)
+                        continue;
+                    double[] paramMM = e.getValue();
+                    List<Double> ratioHistory = new ArrayList<>(paramMM.length);
+                    for (int i = 0; i < paramMM.length; i++) {
+                        ratioHistory.add(fixNaN(updateMM[i] / paramMM[i]));
                     }
+                    updateRatios.put(param, ratioHistory);
+                } else if (key.startsWith(gradStdevPrefix)) {
+                    stdevGradients.put(key.substring(gradStdevPrefix.length()), toFixedList(e.getValue()));
+                } else if (key.startsWith(updateStdevPrefix)) {
+                    stdevUpdates.put(key.substring(updateStdevPrefix.length()), toFixedList(e.getValue()));
+                } else if (key.startsWith(actStdevPrefix)) {
+                    stdevActivations.put(key.substring(actStdevPrefix.length()), toFixedList(e.getValue()));
                 }
+            }
 
-
-                Map<String, Double> stdAct = sp.getStdev(StatsType.Activations);
-                if (stdAct != null) {
-                    for (String s : stdAct.keySet()) {
-                        stdevActivations.put(s, new ArrayList<>());
-                    }
-                }
+            Persistable p = ss.getLatestUpdate(currentSessionID, StatsListener.TYPE_ID, wid);
+            if (p instanceof StatsReport) {
+                last = (StatsReport) p;
             }
         }
 
-        StatsReport last = null;
-        int lastIterCount = -1;
         //Legacy issue - Spark training - iteration counts are used to be reset... which means: could go 0,1,2,0,1,2, etc...
         //Or, it could equally go 4,8,4,8,... or 5,5,5,5 - depending on the collection and averaging frequencies
         //Now, it should use the proper iteration counts
-        boolean needToHandleLegacyIterCounts = false;
-        if (!noData) {
-            double lastScore;
-
-            int totalUpdates = updates.size();
-            int subsamplingFrequency = 1;
-            if (totalUpdates > maxChartPoints) {
-                subsamplingFrequency = totalUpdates / maxChartPoints;
-            }
-
-            int pCount = -1;
-            int lastUpdateIdx = updates.size() - 1;
-            for (Persistable u : updates) {
-                pCount++;
-                if (!(u instanceof StatsReport))
-                    continue;
-
-                last = (StatsReport) u;
-                int iterCount = last.getIterationCount();
-
-                if (iterCount <= lastIterCount) {
-                    needToHandleLegacyIterCounts = true;
-                }
-                lastIterCount = iterCount;
-
-                if (pCount > 0 && subsamplingFrequency > 1 && pCount % subsamplingFrequency != 0) {
-                    //Skip this - subsample the data
-                    if (pCount != lastUpdateIdx)
-                        continue; //Always keep the most recent value
-                }
-
-                scoresIterCount.add(iterCount);
-                lastScore = last.getScore();
-                if (Double.isFinite(lastScore)) {
-                    scores.add(lastScore);
-                } else {
-                    scores.add(NAN_REPLACEMENT_VALUE);
-                }
-
-
-                //Update ratios: mean magnitudes(updates) / mean magnitudes (parameters)
-                Map<String, Double> updateMM = last.getMeanMagnitudes(StatsType.Updates);
-                Map<String, Double> paramMM = last.getMeanMagnitudes(StatsType.Parameters);
-                if (updateMM != null && paramMM != null && updateMM.size() > 0 && paramMM.size() > 0) {
-                    for (String s : updateRatios.keySet()) {
-                        List<Double> ratioHistory = updateRatios.get(s);
-                        double currUpdate = updateMM.getOrDefault(s, 0.0);
-                        double currParam = paramMM.getOrDefault(s, 0.0);
-                        double ratio = currUpdate / currParam;
-                        if (Double.isFinite(ratio)) {
-                            ratioHistory.add(ratio);
-                        } else {
-                            ratioHistory.add(NAN_REPLACEMENT_VALUE);
-                        }
-                    }
-                }
-
-                //Standard deviations: gradients, updates, activations
-                Map<String, Double> stdGrad = last.getStdev(StatsType.Gradients);
-                Map<String, Double> stdUpd = last.getStdev(StatsType.Updates);
-                Map<String, Double> stdAct = last.getStdev(StatsType.Activations);
-
-                if (stdGrad != null) {
-                    for (String s : stdevGradients.keySet()) {
-                        double d = stdGrad.getOrDefault(s, 0.0);
-                        stdevGradients.get(s).add(fixNaN(d));
-                    }
-                }
-                if (stdUpd != null) {
-                    for (String s : stdevUpdates.keySet()) {
-                        double d = stdUpd.getOrDefault(s, 0.0);
-                        stdevUpdates.get(s).add(fixNaN(d));
-                    }
-                }
-                if (stdAct != null) {
-                    for (String s : stdevActivations.keySet()) {
-                        double d = stdAct.getOrDefault(s,0.0);
-                        stdevActivations.get(s).add(fixNaN(d));
-                    }
-                }
-            }
-        }
-
-        if (needToHandleLegacyIterCounts) {
+        if (needToHandleLegacyIterCounts(scoresIterCount)) {
             cleanLegacyIterationCounts(scoresIterCount);
         }
 
@@ -659,7 +662,6 @@ public class TrainModule implements UIModule {
         //Model info for layer
 
         boolean noData = currentSessionID == null;
-        //First pass (optimize later): query all data...
 
         StatsStorage ss = (noData ? null : knownSessionIDs.get(currentSessionID));
 
@@ -688,67 +690,25 @@ public class TrainModule implements UIModule {
 
         result.put("layerInfo", layerInfoTable);
 
-        //First: get all data, and subsample it if necessary, to avoid returning too many points...
-        List<Persistable> updates =
-                        (noData ? null : ss.getAllUpdatesAfter(currentSessionID, StatsListener.TYPE_ID, wid, 0));
+        //Aggregated time series, with at most maxChartPoints buckets: no need to read back every update
+        StatsTimeSeries series = (noData ? null : getTimeSeries(ss, currentSessionID, wid));
+        StatsTimeSeries.Buckets buckets = null;
         List<Integer> iterationCounts = null;
-        boolean needToHandleLegacyIterCounts = false;
-        if (updates != null && updates.size() > maxChartPoints) {
-            int subsamplingFrequency = updates.size() / maxChartPoints;
-            List<Persistable> subsampled = new ArrayList<>();
-            iterationCounts = new ArrayList<>();
-            int pCount = -1;
-            int lastUpdateIdx = updates.size() - 1;
-
-            int lastIterCount = -1;
-            for (Persistable p : updates) {
-                if (!(p instanceof StatsReport))
-                    continue;;
-                StatsReport sr = (StatsReport) p;
-                pCount++;
-
-                int iterCount = sr.getIterationCount();
-                if (iterCount <= lastIterCount) {
-                    needToHandleLegacyIterCounts = true;
-                }
-                lastIterCount = iterCount;
-
-
-                if (pCount > 0 && subsamplingFrequency > 1 && pCount % subsamplingFrequency != 0) {
-                    //Skip this to subsample the data
-                    if (pCount != lastUpdateIdx)
-                        continue; //Always keep the most recent value
-                }
-
-                subsampled.add(p);
-                iterationCounts.add(iterCount);
+        if (series != null) {
+            buckets = series.query(Long.MIN_VALUE, maxChartPoints, null);
+            iterationCounts = new ArrayList<>(buckets.size());
+            for (int iter : buckets.getIterations()) {
+                iterationCounts.add(iter);
             }
-            updates = subsampled;
-        } else if (updates != null) {
-            int offset = 0;
-            iterationCounts = new ArrayList<>(updates.size());
-            int lastIterCount = -1;
-            for (Persistable p : updates) {
-                if (!(p instanceof StatsReport))
-                    continue;;
-                StatsReport sr = (StatsReport) p;
-                int iterCount = sr.getIterationCount();
 
-                if (iterCount <= lastIterCount) {
-                    needToHandleLegacyIterCounts = true;
-                }
-
-                iterationCounts.add(iterCount);
+            //Legacy issue - Spark training - iteration counts are used to be reset... which means: could go 0,1,2,0,1,2, etc...
+            //Or, it could equally go 4,8,4,8,... or 5,5,5,5 - depending on the collection and averaging frequencies
+            //Now, it should use the proper iteration counts
+            if (needToHandleLegacyIterCounts(iterationCounts)) {
+                cleanLegacyIterationCounts(iterationCounts);
             }
         }
 
-        //Legacy issue - Spark training - iteration counts are used to be reset... which means: could go 0,1,2,0,1,2, etc...
-        //Or, it could equally go 4,8,4,8,... or 5,5,5,5 - depending on the collection and averaging frequencies
-        //Now, it should use the proper iteration counts
-        if (needToHandleLegacyIterCounts) {
-            cleanLegacyIterationCounts(iterationCounts);
-        }
-
         //Get mean magnitudes line chart
         ModelType mt;
         if (conf.getFirst() != null)
@@ -757,7 +717,7 @@ public class TrainModule implements UIModule {
             mt = ModelType.CG;
         else
             mt = ModelType.Layer;
-        MeanMagnitudes mm = getLayerMeanMagnitudes(layerIdx, gi, updates, iterationCounts, mt);
+        MeanMagnitudes mm = getLayerMeanMagnitudes(layerIdx, gi, buckets, iterationCounts, mt);
         Map<String, Object> mmRatioMap = new HashMap<>();
         mmRatioMap.put("layerParamNames", mm.getRatios().keySet());
         mmRatioMap.put("iterCounts", mm.getIterations());
@@ -767,7 +727,7 @@ public class TrainModule implements UIModule {
         result.put("meanMag", mmRatioMap);
 
         //Get activations line chart for layer
-        Triple<int[], float[], float[]> activationsData = getLayerActivations(layerIdx, gi, updates, iterationCounts);
+        Triple<int[], float[], float[]> activationsData = getLayerActivations(layerIdx, gi, buckets, iterationCounts);
         Map<String, Object> activationMap = new HashMap<>();
         activationMap.put("iterCount", activationsData.getFirst());
         activationMap.put("mean", activationsData.getSecond());
@@ -775,11 +735,11 @@ public class TrainModule implements UIModule {
         result.put("activations", activationMap);
 
         //Get learning rate vs. time chart for layer
-        Map<String, Object> lrs = getLayerLearningRates(layerIdx, gi, updates, iterationCounts, mt);
+        Map<String, Object> lrs = getLayerLearningRates(layerIdx, gi, buckets, iterationCounts, mt);
         result.put("learningRates", lrs);
 
         //Parameters histogram data
-        Persistable lastUpdate = (updates != null && updates.size() > 0 ? updates.get(updates.size() - 1) : null);
+        Persistable lastUpdate = (noData ? null : ss.getLatestUpdate(currentSessionID, StatsListener.TYPE_ID, wid));
         Map<String, Object> paramHistograms = getHistograms(layerIdx, gi, StatsType.Parameters, lastUpdate);
         result.put("paramHist", paramHistograms);
 
@@ -976,7 +936,7 @@ public class TrainModule implements UIModule {
     //TODO float precision for smaller transfers?
     //First: iteration. Second: ratios, by parameter
     private MeanMagnitudes getLayerMeanMagnitudes(int layerIdx, TrainModuleUtils.GraphInfo gi,
-                    List<Persistable> updates, List<Integer> iterationCounts, ModelType modelType) {
+                    StatsTimeSeries.Buckets buckets, List<Integer> iterationCounts, ModelType modelType) {
         if (gi == null) {
             return new MeanMagnitudes(Collections.emptyList(), Collections.emptyMap(), Collections.emptyMap(),
                             Collections.emptyMap());
@@ -998,71 +958,47 @@ public class TrainModule implements UIModule {
         Map<String, List<Double>> outParamMM = new HashMap<>();
         Map<String, List<Double>> outUpdateMM = new HashMap<>();
 
-        if (updates != null) {
-            int pCount = -1;
-            for (Persistable u : updates) {
-                pCount++;
-                if (!(u instanceof StatsReport))
-                    continue;
-                StatsReport sp = (StatsReport) u;
-                if (iterationCounts != null) {
-                    iterCounts.add(iterationCounts.get(pCount));
-                } else {
-                    int iterCount = sp.getIterationCount();
-                    iterCounts.add(iterCount);
-                }
-
-
-                //Info we want, for each parameter in this layer: mean magnitudes for parameters, updates AND the ratio of these
-                Map<String, Double> paramMM = sp.getMeanMagnitudes(StatsType.Parameters);
-                Map<String, Double> updateMM = sp.getMeanMagnitudes(StatsType.Updates);
-                for (String s : paramMM.keySet()) {
-                    String prefix;
-                    if (modelType == ModelType.Layer) {
-                        prefix = layerName;
-                    } else {
-                        prefix = layerName + "_";
-                    }
+        if (buckets != null) {
+            iterCounts.addAll(iterationCounts);
 
-                    if (s.startsWith(prefix)) {
-                        //Relevant parameter for this layer...
-                        String layerParam = s.substring(prefix.length());
-                        double pmm = paramMM.getOrDefault(s, 0.0);
-                        double umm = updateMM.getOrDefault(s, 0.0);
-                        if (!Double.isFinite(pmm)) {
-                            pmm = NAN_REPLACEMENT_VALUE;
-                        }
-                        if (!Double.isFinite(umm)) {
-                            umm = NAN_REPLACEMENT_VALUE;
-                        }
-                        double ratio;
-                        if (umm == 0.0 && pmm == 0.0) {
-                            ratio = 0.0; //To avoid NaN from 0/0
-                        } else {
-                            ratio = umm / pmm;
-                        }
-                        List<Double> list = ratioValues.get(layerParam);
-                        if (list == null) {
-                            list = new ArrayList<>();
-                            ratioValues.put(layerParam, list);
-                        }
-                        list.add(ratio);
+            String prefix;
+            if (modelType == ModelType.Layer) {
+                prefix = layerName;
+            } else {
+                prefix = layerName + "_";
+            }
 
-                        List<Double> pmmList = outParamMM.get(layerParam);
-                        if (pmmList == null) {
-                            pmmList = new ArrayList<>();
-                            outParamMM.put(layerParam, pmmList);
-                        }
-                        pmmList.add(pmm);
+            //Info we want, for each parameter in this layer: mean magnitudes for parameters, updates AND the ratio of these
+            String paramMMPrefix = StatsTimeSeries.meanMagnitudeKey(StatsType.Parameters, prefix);
+            Map<String, double[]> means = buckets.getMean();
+            for (Map.Entry<String, double[]> e : means.entrySet()) {
+                if (!e.getKey().startsWith(paramMMPrefix))
+                    continue;
 
-                        List<Double> ummList = outUpdateMM.get(layerParam);
-                        if (ummList == null) {
-                            ummList = new ArrayList<>();
-                            outUpdateMM.put(layerParam, ummList);
-                        }
-                        ummList.add(umm);
+                //Relevant parameter for this layer...
+                String layerParam = e.getKey().substring(paramMMPrefix.length());
+                double[] paramMM = e.getValue();
+                double[] updateMM = means.get(StatsTimeSeries.meanMagnitudeKey(StatsType.Updates, prefix + layerParam));
+
+                List<Double> ratioList = new ArrayList<>(paramMM.length);
+                List<Double> pmmList = new ArrayList<>(paramMM.length);
+                List<Double> ummList = new ArrayList<>(paramMM.length);
+                for (int i = 0; i < paramMM.length; i++) {
+                    double pmm = fixNaN(paramMM[i]);
+                    double umm = (updateMM == null ? 0.0 : fixNaN(updateMM[i]));
+                    double ratio;
+                    if (umm == 0.0 && pmm == 0.0) {
+                        ratio = 0.0; //To avoid NaN from 0/0
+                    } else {
+                        ratio = umm / pmm;
                     }
+                    ratioList.add(ratio);
+                    pmmList.add(pmm);
+                    ummList.add(umm);
                 }
+                ratioValues.put(layerParam, ratioList);
+                outParamMM.put(layerParam, pmmList);
+                outUpdateMM.put(layerParam, ummList);
             }
         }
 
@@ -1072,8 +1008,8 @@ public class TrainModule implements UIModule {
     private static Triple<int[], float[], float[]> EMPTY_TRIPLE = new Triple<>(new int[0], new float[0], new float[0]);
 
     private Triple<int[], float[], float[]> getLayerActivations(int index, TrainModuleUtils.GraphInfo gi,
-                    List<Persistable> updates, List<Integer> iterationCounts) {
-        if (gi == null) {
+                    StatsTimeSeries.Buckets buckets, List<Integer> iterationCounts) {
+        if (gi == null || buckets == null) {
             return EMPTY_TRIPLE;
         }
 
@@ -1087,97 +1023,58 @@ public class TrainModule implements UIModule {
         }
         String layerName = origNames.get(index);
 
-        int size = (updates == null ? 0 : updates.size());
+        double[] means = buckets.getMean().get(StatsTimeSeries.meanKey(StatsType.Activations, layerName));
+        double[] stdevs = buckets.getMean().get(StatsTimeSeries.stdevKey(StatsType.Activations, layerName));
+        if (means == null || stdevs == null) {
+            return EMPTY_TRIPLE;
+        }
+
+        int size = buckets.size();
         int[] iterCounts = new int[size];
         float[] mean = new float[size];
         float[] stdev = new float[size];
-        int used = 0;
-        if (updates != null) {
-            int uCount = -1;
-            for (Persistable u : updates) {
-                uCount++;
-                if (!(u instanceof StatsReport))
-                    continue;
-                StatsReport sp = (StatsReport) u;
-                if (iterationCounts == null) {
-                    iterCounts[used] = sp.getIterationCount();
-                } else {
-                    iterCounts[used] = iterationCounts.get(uCount);
-                }
-
-                Map<String, Double> means = sp.getMean(StatsType.Activations);
-                Map<String, Double> stdevs = sp.getStdev(StatsType.Activations);
-
-                //TODO PROPER VALIDATION ETC, ERROR HANDLING
-                if (means != null && means.containsKey(layerName)) {
-                    mean[used] = means.get(layerName).floatValue();
-                    stdev[used] = stdevs.get(layerName).floatValue();
-                    if (!Float.isFinite(mean[used])) {
-                        mean[used] = (float) NAN_REPLACEMENT_VALUE;
-                    }
-                    if (!Float.isFinite(stdev[used])) {
-                        stdev[used] = (float) NAN_REPLACEMENT_VALUE;
-                    }
-                    used++;
-                }
-            }
-        }
-
-        if (used != iterCounts.length) {
-            iterCounts = Arrays.copyOf(iterCounts, used);
-            mean = Arrays.copyOf(mean, used);
-            stdev = Arrays.copyOf(stdev, used);
+        for (int i = 0; i < size; i++) {
+            iterCounts[i] = iterationCounts.get(i);
+            mean[i] = (float) fixNaN(means[i]);
+            stdev[i] = (float) fixNaN(stdevs[i]);
         }
 
         return new Triple<>(iterCounts, mean, stdev);
     }
 
     private Map<String, Object> getLayerLearningRates(int layerIdx, TrainModuleUtils.GraphInfo gi,
-                    List<Persistable> updates, List<Integer> iterationCounts, ModelType modelType) {
+                    StatsTimeSeries.Buckets buckets, List<Integer> iterationCounts, ModelType modelType) {
         if (gi == null) {
             return Collections.emptyMap();
         }
         String layerName = gi.getOriginalVertexName().get(layerIdx);
 
-        int size = (updates == null ? 0 : updates.size());
+        int size = (buckets == null ? 0 : buckets.size());
         int[] iterCounts = new int[size];
         Map<String, float[]> byName = new HashMap<>();
-        int used = 0;
-        if (updates != null) {
-            int uCount = -1;
-            for (Persistable u : updates) {
-                uCount++;
-                if (!(u instanceof StatsReport))
-                    continue;
-                StatsReport sp = (StatsReport) u;
-                if (iterationCounts == null) {
-                    iterCounts[used] = sp.getIterationCount();
-                } else {
-                    iterCounts[used] = iterationCounts.get(uCount);
-                }
-
-                //TODO PROPER VALIDATION ETC, ERROR HANDLING
-                Map<String, Double> lrs = sp.getLearningRates();
-
-                String prefix;
-                if (modelType == ModelType.Layer) {
-                    prefix = layerName;
-                } else {
-                    prefix = layerName + "_";
-                }
+        if (buckets != null) {
+            for (int i = 0; i < size; i++) {
+                iterCounts[i] = iterationCounts.get(i);
+            }
 
-                for (String p : lrs.keySet()) {
+            String prefix;
+            if (modelType == ModelType.Layer) {
+                prefix = layerName;
+            } else {
+                prefix = layerName + "_";
+            }
 
-                    if (p.startsWith(prefix)) {
-                        String layerParamName = p.substring(Math.min(p.length(), prefix.length()));
-                        if (!byName.containsKey(layerParamName)) {
-                            byName.put(layerParamName, new float[size]);
-                        }
-                        float[] lrThisParam = byName.get(layerParamName);
-                        lrThisParam[used] = lrs.get(p).floatValue();
-                    }
+            String lrPrefix = StatsTimeSeries.learningRateKey(prefix);
+            for (Map.Entry<String, double[]> e : buckets.getMean().entrySet()) {
+                if (!e.getKey().startsWith(lrPrefix))
+                    continue;
+                String layerParamName = e.getKey().substring(lrPrefix.length());
+                double[] lrs = e.getValue();
+                float[] lrThisParam = new float[size];
+                for (int i = 0; i < size; i++) {
+                    lrThisParam[i] = (float) fixNaN(lrs[i]);
                 }
-                used++;
+                byName.put(layerParamName, lrThisParam);
             }
         }
 
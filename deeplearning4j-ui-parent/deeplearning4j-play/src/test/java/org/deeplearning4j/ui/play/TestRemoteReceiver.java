@@ -1,11 +1,15 @@
 package org.deeplearning4j.ui.play;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 import org.deeplearning4j.api.storage.Persistable;
 import org.deeplearning4j.api.storage.StatsStorage;
 import org.deeplearning4j.api.storage.StatsStorageRouter;
 import org.deeplearning4j.api.storage.StorageMetaData;
 import org.deeplearning4j.api.storage.impl.CollectionStatsStorageRouter;
 import org.deeplearning4j.api.storage.impl.RemoteUIStatsStorageRouter;
+import org.deeplearning4j.api.storage.impl.RemoteUIStatsStorageRouter.OverflowPolicy;
 import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
 import org.deeplearning4j.nn.api.OptimizationAlgorithm;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
@@ -26,17 +30,21 @@ import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 
 /**
  * Created by Alex on 10/11/2016.
  */
-@Ignore
 public class TestRemoteReceiver {
 
     @Test
@@ -98,6 +106,156 @@ public class TestRemoteReceiver {
     }
 
 
+    @Test
+    @Ignore
+    public void testRemoteBulk() throws Exception {
+
+        List<Persistable> updates = new ArrayList<>();
+        List<Persistable> staticInfo = new ArrayList<>();
+        List<StorageMetaData> metaData = new ArrayList<>();
+        CollectionStatsStorageRouter collectionRouter = new CollectionStatsStorageRouter(metaData, staticInfo, updates);
+
+        UIServer s = UIServer.getInstance();
+        s.enableRemoteListener(collectionRouter, false);
+
+        RemoteUIStatsStorageRouter remoteRouter = new RemoteUIStatsStorageRouter.Builder("http://localhost:9000")
+                        .maxBatchSize(10).maxQueueSize(1000).compress(true).build();
+
+        StorageMetaData smd = new SbeStorageMetaData(123, "sid", "typeid", "wid", "initTypeClass", "updaterTypeClass");
+        SbeStatsInitializationReport init = new SbeStatsInitializationReport();
+        init.reportIDs("sid", "tid", "wid", 3145253452L);
+        init.reportHardwareInfo(1, 2, 3, 4, null, null, "2344253");
+        remoteRouter.putStorageMetaData(smd);
+        remoteRouter.putStaticInfo(init);
+
+        List<Persistable> expUpdates = new ArrayList<>();
+        for (int i = 0; i < 95; i++) {
+            SbeStatsReport update = new SbeStatsReport();
+            update.reportIterationCount(i);
+            update.reportIDs("sid", "tid", "wid", 123456 + i);
+            update.reportPerformance(10, 20, 30, 40, 50);
+            expUpdates.add(update);
+        }
+        remoteRouter.putUpdate(expUpdates);
+
+        Thread.sleep(2000);
+
+        assertEquals(Collections.singletonList(smd), metaData);
+        assertEquals(Collections.singletonList(init), staticInfo);
+        assertEquals(expUpdates, updates);
+        assertEquals(0, remoteRouter.getDroppedCount());
+        assertEquals(0, remoteRouter.getQueueSize());
+    }
+
+
+    @Test(timeout = 60000L)
+    public void testRemoteQueueOverflow() throws Exception {
+        for (OverflowPolicy policy : OverflowPolicy.values()) {
+            //Remote UI that holds the first request until released, then fails it. All later requests succeed
+            final CountDownLatch release = new CountDownLatch(1);
+            final AtomicInteger requestCount = new AtomicInteger();
+            final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/remoteReceive/bulk", new HttpHandler() {
+                @Override
+                public void handle(HttpExchange exchange) throws IOException {
+                    DataInputStream in = new DataInputStream(exchange.getRequestBody());
+                    in.readByte(); //Format version
+                    in.readByte(); //Compression: none
+                    int n = in.readInt();
+                    List<Integer> iterations = new ArrayList<>();
+                    for (int i = 0; i < n; i++) {
+                        in.readUTF();
+                        in.readUTF();
+                        byte[] bytes = new byte[in.readInt()];
+                        in.readFully(bytes);
+                        SbeStatsReport report = new SbeStatsReport();
+                        report.decode(bytes);
+                        iterations.add(report.getIterationCount());
+                    }
+
+                    int code = 200;
+                    if (requestCount.getAndIncrement() == 0) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        code = 500;
+                    } else {
+                        received.addAll(iterations);
+                    }
+                    exchange.sendResponseHeaders(code, -1);
+                    exchange.close();
+                }
+            });
+            server.start();
+
+            try {
+                RemoteUIStatsStorageRouter router = new RemoteUIStatsStorageRouter.Builder(
+                                "http://localhost:" + server.getAddress().getPort()).maxQueueSize(3).maxBatchSize(1)
+                                                .compress(false).overflowPolicy(policy).maxRetryCount(-1)
+                                                .retryDelayMS(100).retryBackoffFactor(1.0).build();
+
+                //First update: taken by the posting thread, and held by the remote UI
+                router.putUpdate(getUpdate("w0", 0));
+                while (requestCount.get() == 0) {
+                    Thread.sleep(10);
+                }
+                assertEquals(0, router.getQueueSize());
+
+                router.putUpdate(getUpdate("w0", 1));
+                router.putUpdate(getUpdate("w1", 2));
+                router.putUpdate(getUpdate("w0", 3));
+                assertEquals(3, router.getQueueSize());
+                assertEquals(0, router.getDroppedCount());
+
+                //Queue full
+                router.putUpdate(getUpdate("w1", 4));
+                assertEquals(3, router.getQueueSize());
+                assertEquals(1, router.getDroppedCount());
+
+                //First request fails: its update is queued again, and the queue is trimmed according to the policy
+                release.countDown();
+                while (received.size() < 3) {
+                    Thread.sleep(10);
+                }
+                Thread.sleep(200);
+
+                List<Integer> expected;
+                switch (policy) {
+                    case DROP_NEWEST:
+                        //4 dropped on put; 3 dropped on requeue
+                        expected = Arrays.asList(0, 1, 2);
+                        break;
+                    case DROP_OLDEST:
+                        //1 dropped on put; 0 dropped on requeue
+                        expected = Arrays.asList(2, 3, 4);
+                        break;
+                    case COALESCE:
+                        //2 replaced by 4 (worker w1) on put; 0 replaced by 3 (worker w0) on requeue
+                        expected = Arrays.asList(1, 3, 4);
+                        break;
+                    default:
+                        throw new RuntimeException();
+                }
+                assertEquals(policy.toString(), expected, received);
+                assertEquals(2, router.getDroppedCount());
+                assertEquals(0, router.getQueueSize());
+            } finally {
+                server.stop(0);
+            }
+        }
+    }
+
+    private static SbeStatsReport getUpdate(String workerID, int iteration) {
+        SbeStatsReport update = new SbeStatsReport();
+        update.reportIterationCount(iteration);
+        update.reportIDs("sid", "tid", workerID, 123456 + iteration);
+        update.reportPerformance(10, 20, 30, 40, 50);
+        return update;
+    }
+
     @Test
     @Ignore
     public void testRemoteFull() throws Exception {
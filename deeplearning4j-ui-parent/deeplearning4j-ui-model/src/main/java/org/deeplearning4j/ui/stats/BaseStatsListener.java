@@ -16,6 +16,7 @@ import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.ui.stats.api.*;
 import org.deeplearning4j.ui.stats.impl.DefaultStatsInitializationConfiguration;
 import org.deeplearning4j.ui.stats.impl.DefaultStatsUpdateConfiguration;
+import org.deeplearning4j.ui.stats.sketch.StreamingHistogram;
 import org.deeplearning4j.util.UIDProvider;
 import org.nd4j.linalg.api.buffer.util.DataTypeUtil;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -35,7 +36,11 @@ import java.util.*;
 /**
  * BaseStatsListener: a general purpose listener for collecting and reporting system and model information.
  *
- * Serves as a base for different ways of storing the collected data
+ * Serves as a base for different ways of storing the collected data<br>
+ * <br>
+ * Histograms and summary stats of parameters, gradients, updates and activations are the expensive part of each
+ * report. Their cost can be limited with the {@link StatsUpdateConfiguration}: per stats type frequencies, an element
+ * sample size for large arrays, and a maximum fraction of training time (overhead budget) to spend on them.
  *
  * @author Alex Black
  */
@@ -43,10 +48,6 @@ import java.util.*;
 public abstract class BaseStatsListener implements RoutingIterationListener {
     public static final String TYPE_ID = "StatsListener";
 
-    private enum StatType {
-        Mean, Stdev, MeanMagnitude
-    }
-
     private StatsStorageRouter router;
     private final StatsInitializationConfiguration initConfig;
     private StatsUpdateConfiguration updateConfig;
@@ -58,6 +59,7 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
 
     private Map<String, INDArray> activationsMap;
     private Map<String, INDArray> gradientsPreUpdateMap = new HashMap<>();
+    private transient Random sampleRng;
 
     //NOTE: may have multiple models, due to multiple pretrain layers all using the same StatsListener
     private List<ModelInfo> modelInfos = new ArrayList<>();
@@ -75,6 +77,14 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
 
         private int iterCount = 0;
 
+        //Histograms and summary stats: number of reports that included them, next iteration they are due (budget)
+        private int statsReportCount = 0;
+        private int nextStatsIteration = 0;
+        //Time spent copying gradients for the next report, and (smoothed) time per iteration outside this listener
+        private long captureNanos = 0;
+        private long lastIterationEndNanos = -1;
+        private double iterationNanos = -1;
+
         private ModelInfo(Model model) {
             this.model = model;
         }
@@ -231,8 +241,9 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
 
     @Override
     public void onForwardPass(Model model, List<INDArray> activations) {
-        int iterCount = getModelInfo(model).iterCount;
-        if (storeActivations() && (iterCount == 0 || iterCount % updateConfig.reportingFrequency() == 0)) {
+        ModelInfo modelInfo = getModelInfo(model);
+        int iterCount = modelInfo.iterCount;
+        if (storeActivations(modelInfo) && (iterCount == 0 || iterCount % updateConfig.reportingFrequency() == 0)) {
             //Assumption: we have input, layer 0, layer 1, ...
             activationsMap = new HashMap<>();
             int count = 0;
@@ -246,8 +257,9 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
 
     @Override
     public void onForwardPass(Model model, Map<String, INDArray> activations) {
-        int iterCount = getModelInfo(model).iterCount;
-        if (storeActivations() && updateConfig.reportingFrequency() > 0
+        ModelInfo modelInfo = getModelInfo(model);
+        int iterCount = modelInfo.iterCount;
+        if (storeActivations(modelInfo) && updateConfig.reportingFrequency() > 0
                         && (iterCount == 0 || iterCount % updateConfig.reportingFrequency() == 0)) {
             activationsMap = activations;
         }
@@ -255,27 +267,42 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
 
     @Override
     public void onGradientCalculation(Model model) {
-        int iterCount = getModelInfo(model).iterCount;
-        if (storeGradients() && updateConfig.reportingFrequency() > 0
+        ModelInfo modelInfo = getModelInfo(model);
+        int iterCount = modelInfo.iterCount;
+        if (storeGradients(modelInfo) && updateConfig.reportingFrequency() > 0
                         && (iterCount == 0 || iterCount % updateConfig.reportingFrequency() == 0)) {
+            long start = System.nanoTime();
             Gradient g = model.gradient();
             gradientsPreUpdateMap.clear();
             for (Map.Entry<String, INDArray> entry : g.gradientForVariable().entrySet()) {
                 gradientsPreUpdateMap.put(entry.getKey(), entry.getValue().dup()); //Need to clone: will be modified (updated) in-place soon...
             }
+            modelInfo.captureNanos += System.nanoTime() - start;
         }
     }
 
-    private boolean storeActivations() {
-        return updateConfig.collectMean(StatsType.Activations) || updateConfig.collectStdev(StatsType.Activations)
-                        || updateConfig.collectMeanMagnitudes(StatsType.Activations)
-                        || updateConfig.collectHistograms(StatsType.Activations);
+    private boolean storeActivations(ModelInfo modelInfo) {
+        return histogramsDue(modelInfo, StatsType.Activations) || summaryStatsDue(modelInfo, StatsType.Activations);
+    }
+
+    private boolean storeGradients(ModelInfo modelInfo) {
+        return histogramsDue(modelInfo, StatsType.Gradients) || summaryStatsDue(modelInfo, StatsType.Gradients);
+    }
+
+    //Whether the overhead budget allows histograms and summary stats for the current iteration of the model
+    private static boolean statsDue(ModelInfo modelInfo) {
+        return modelInfo.iterCount >= modelInfo.nextStatsIteration;
     }
 
-    private boolean storeGradients() {
-        return updateConfig.collectMean(StatsType.Gradients) || updateConfig.collectStdev(StatsType.Gradients)
-                        || updateConfig.collectMeanMagnitudes(StatsType.Gradients)
-                        || updateConfig.collectHistograms(StatsType.Gradients);
+    private boolean histogramsDue(ModelInfo modelInfo, StatsType type) {
+        return updateConfig.collectHistograms(type) && statsDue(modelInfo)
+                        && modelInfo.statsReportCount % updateConfig.histogramFrequency(type) == 0;
+    }
+
+    private boolean summaryStatsDue(ModelInfo modelInfo, StatsType type) {
+        return (updateConfig.collectMean(type) || updateConfig.collectStdev(type)
+                        || updateConfig.collectMeanMagnitudes(type)) && statsDue(modelInfo)
+                        && modelInfo.statsReportCount % updateConfig.summaryStatsFrequency(type) == 0;
     }
 
     @Override
@@ -285,9 +312,26 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
 
     @Override
     public void iterationDone(Model model, int iteration) {
+        ModelInfo modelInfo = getModelInfo(model);
+
+        //Time per iteration spent outside this method: used for the overhead budget
+        long startNanos = System.nanoTime();
+        if (modelInfo.lastIterationEndNanos >= 0) {
+            long nanos = startNanos - modelInfo.lastIterationEndNanos;
+            modelInfo.iterationNanos =
+                            (modelInfo.iterationNanos < 0 ? nanos : 0.9 * modelInfo.iterationNanos + 0.1 * nanos);
+        }
+
+        try {
+            doIterationDone(model, iteration, modelInfo);
+        } finally {
+            modelInfo.lastIterationEndNanos = System.nanoTime();
+        }
+    }
+
+    private void doIterationDone(Model model, int iteration, ModelInfo modelInfo) {
         StatsUpdateConfiguration config = updateConfig;
 
-        ModelInfo modelInfo = getModelInfo(model);
         boolean backpropParamsOnly = backpropParamsOnly(model);
 
         long currentTime = getTime();
@@ -305,6 +349,7 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
             return;
         }
 
+        long reportStartNanos = System.nanoTime();
         StatsReport report = getNewStatsReport();
         report.reportIDs(getSessionID(model), TYPE_ID, workerID, System.currentTimeMillis()); //TODO support NTP time
 
@@ -433,105 +478,54 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
         }
 
 
-        //--- Histograms ---
-
-        if (config.collectHistograms(StatsType.Parameters)) {
-            Map<String, Histogram> paramHistograms = getHistograms(model.paramTable(backpropParamsOnly),
-                            config.numHistogramBins(StatsType.Parameters));
-            report.reportHistograms(StatsType.Parameters, paramHistograms);
-        }
-
-        if (config.collectHistograms(StatsType.Gradients)) {
-            Map<String, Histogram> gradientHistograms =
-                            getHistograms(gradientsPreUpdateMap, config.numHistogramBins(StatsType.Gradients));
-            report.reportHistograms(StatsType.Gradients, gradientHistograms);
-        }
-
-        if (config.collectHistograms(StatsType.Updates)) {
-            Map<String, Histogram> updateHistograms = getHistograms(model.gradient().gradientForVariable(),
-                            config.numHistogramBins(StatsType.Updates));
-            report.reportHistograms(StatsType.Updates, updateHistograms);
-        }
-
-        if (config.collectHistograms(StatsType.Activations)) {
-            Map<String, Histogram> activationHistograms =
-                            getHistograms(activationsMap, config.numHistogramBins(StatsType.Activations));
-            report.reportHistograms(StatsType.Activations, activationHistograms);
-        }
-
-
-        //--- Summary Stats: Mean, Variance, Mean Magnitudes ---
-
-        if (config.collectMean(StatsType.Parameters)) {
-            Map<String, Double> meanParams = calculateSummaryStats(model.paramTable(backpropParamsOnly), StatType.Mean);
-            report.reportMean(StatsType.Parameters, meanParams);
-        }
-
-        if (config.collectMean(StatsType.Gradients)) {
-            Map<String, Double> meanGradients = calculateSummaryStats(gradientsPreUpdateMap, StatType.Mean);
-            report.reportMean(StatsType.Gradients, meanGradients);
-        }
-
-        if (config.collectMean(StatsType.Updates)) {
-            Map<String, Double> meanUpdates =
-                            calculateSummaryStats(model.gradient().gradientForVariable(), StatType.Mean);
-            report.reportMean(StatsType.Updates, meanUpdates);
-        }
-
-        if (config.collectMean(StatsType.Activations)) {
-            Map<String, Double> meanActivations = calculateSummaryStats(activationsMap, StatType.Mean);
-            report.reportMean(StatsType.Activations, meanActivations);
-        }
-
-
-        if (config.collectStdev(StatsType.Parameters)) {
-            Map<String, Double> stdevParams =
-                            calculateSummaryStats(model.paramTable(backpropParamsOnly), StatType.Stdev);
-            report.reportStdev(StatsType.Parameters, stdevParams);
-        }
-
-        if (config.collectStdev(StatsType.Gradients)) {
-            Map<String, Double> stdevGradient = calculateSummaryStats(gradientsPreUpdateMap, StatType.Stdev);
-            report.reportStdev(StatsType.Gradients, stdevGradient);
-        }
-
-        if (config.collectStdev(StatsType.Updates)) {
-            Map<String, Double> stdevUpdates =
-                            calculateSummaryStats(model.gradient().gradientForVariable(), StatType.Stdev);
-            report.reportStdev(StatsType.Updates, stdevUpdates);
-        }
-
-        if (config.collectStdev(StatsType.Activations)) {
-            Map<String, Double> stdevActivations = calculateSummaryStats(activationsMap, StatType.Stdev);
-            report.reportStdev(StatsType.Activations, stdevActivations);
-        }
-
-
-        if (config.collectMeanMagnitudes(StatsType.Parameters)) {
-            Map<String, Double> meanMagParams =
-                            calculateSummaryStats(model.paramTable(backpropParamsOnly), StatType.MeanMagnitude);
-            report.reportMeanMagnitudes(StatsType.Parameters, meanMagParams);
-        }
-
-        if (config.collectMeanMagnitudes(StatsType.Gradients)) {
-            Map<String, Double> meanMagGradients = calculateSummaryStats(gradientsPreUpdateMap, StatType.MeanMagnitude);
-            report.reportMeanMagnitudes(StatsType.Gradients, meanMagGradients);
-        }
-
-        if (config.collectMeanMagnitudes(StatsType.Updates)) {
-            Map<String, Double> meanMagUpdates =
-                            calculateSummaryStats(model.gradient().gradientForVariable(), StatType.MeanMagnitude);
-            report.reportMeanMagnitudes(StatsType.Updates, meanMagUpdates);
-        }
-
-        if (config.collectMeanMagnitudes(StatsType.Activations)) {
-            Map<String, Double> meanMagActivations = calculateSummaryStats(activationsMap, StatType.MeanMagnitude);
-            report.reportMeanMagnitudes(StatsType.Activations, meanMagActivations);
+        //--- Histograms and Summary Stats: Mean, Variance, Mean Magnitudes ---
+
+        long captureNanos = modelInfo.captureNanos;
+        modelInfo.captureNanos = 0;
+        if (statsDue(modelInfo)) {
+            long statsStartNanos = System.nanoTime();
+            for (StatsType type : StatsType.values()) {
+                boolean histograms = histogramsDue(modelInfo, type);
+                boolean summaryStats = summaryStatsDue(modelInfo, type);
+                if (!histograms && !summaryStats)
+                    continue;
+
+                Map<String, INDArray> source;
+                switch (type) {
+                    case Parameters:
+                        source = model.paramTable(backpropParamsOnly);
+                        break;
+                    case Gradients:
+                        source = gradientsPreUpdateMap;
+                        break;
+                    case Updates:
+                        source = model.gradient().gradientForVariable();
+                        break;
+                    case Activations:
+                        source = activationsMap;
+                        break;
+                    default:
+                        throw new RuntimeException(); //Should never happen
+                }
+                collectStats(report, config, type, source, histograms, summaryStats);
+            }
+            modelInfo.statsReportCount++;
+
+            double maxOverhead = config.maxOverheadFraction();
+            if (maxOverhead > 0 && modelInfo.iterationNanos > 0) {
+                //Skip histograms and summary stats until enough training time has passed for this cost to be
+                // within the overhead budget
+                long statsNanos = System.nanoTime() - statsStartNanos + captureNanos;
+                long iterations = (long) Math.ceil(statsNanos / (maxOverhead * modelInfo.iterationNanos));
+                long next = iteration + Math.max(1, iterations) - 1;
+                modelInfo.nextStatsIteration = (int) Math.min(Integer.MAX_VALUE, next);
+            }
         }
 
 
-        long endTime = getTime();
-        report.reportStatsCollectionDurationMS((int) (endTime - currentTime)); //Amount of time required to alculate all histograms, means etc.
+        //Amount of time required to calculate all histograms, means etc. (including copying the gradients)
+        long durationNanos = System.nanoTime() - reportStartNanos + captureNanos;
+        report.reportStatsCollectionDurationMS((int) (durationNanos / 1000000));
         modelInfo.lastReportTime = currentTime;
         modelInfo.lastReportIteration = iteration;
         report.reportIterationCount(iteration);
@@ -704,59 +698,100 @@ public abstract class BaseStatsListener implements RoutingIterationListener {
         return model instanceof MultiLayerNetwork || model instanceof ComputationGraph;
     }
 
-    private static Map<String, Double> calculateSummaryStats(Map<String, INDArray> source, StatType statType) {
-        Map<String, Double> out = new LinkedHashMap<>();
-
-        if (source == null)
-            return out;
-
-        for (Map.Entry<String, INDArray> entry : source.entrySet()) {
-            String name = entry.getKey();
-            double value;
-            switch (statType) {
-                case Mean:
-                    value = entry.getValue().meanNumber().doubleValue();
-                    break;
-                case Stdev:
-                    value = entry.getValue().stdNumber().doubleValue();
-                    break;
-                case MeanMagnitude:
-                    value = entry.getValue().norm1Number().doubleValue() / entry.getValue().length();
-                    break;
-                default:
-                    throw new RuntimeException(); //Should never happen
+    private void collectStats(StatsReport report, StatsUpdateConfiguration config, StatsType type,
+                    Map<String, INDArray> source, boolean histograms, boolean summaryStats) {
+        Map<String, Histogram> histogramMap = new LinkedHashMap<>();
+        Map<String, Double> mean = new LinkedHashMap<>();
+        Map<String, Double> stdev = new LinkedHashMap<>();
+        Map<String, Double> meanMagnitude = new LinkedHashMap<>();
+        boolean collectMean = summaryStats && config.collectMean(type);
+        boolean collectStdev = summaryStats && config.collectStdev(type);
+        boolean collectMeanMagnitude = summaryStats && config.collectMeanMagnitudes(type);
+        int nBins = config.numHistogramBins(type);
+        int sampleSize = config.sampleSize();
+
+        if (source != null) {
+            for (Map.Entry<String, INDArray> entry : source.entrySet()) {
+                String name = entry.getKey();
+                INDArray arr = entry.getValue();
+
+                if (sampleSize > 0 && arr.length() > sampleSize) {
+                    //Estimate from a random sample of the elements
+                    double[] sample = sample(arr, sampleSize);
+                    if (histograms) {
+                        StreamingHistogram sketch = new StreamingHistogram();
+                        sketch.addAll(sample);
+                        histogramMap.put(name, sketch.toHistogram(nBins, arr.length() / (double) sample.length));
+                    }
+                    if (summaryStats) {
+                        double sum = 0.0;
+                        double sumAbs = 0.0;
+                        for (double d : sample) {
+                            sum += d;
+                            sumAbs += Math.abs(d);
+                        }
+                        double m = sum / sample.length;
+                        double sumSqDiff = 0.0;
+                        for (double d : sample) {
+                            sumSqDiff += (d - m) * (d - m);
+                        }
+                        if (collectMean)
+                            mean.put(name, m);
+                        if (collectStdev)
+                            stdev.put(name, sample.length > 1 ? Math.sqrt(sumSqDiff / (sample.length - 1)) : 0.0);
+                        if (collectMeanMagnitude)
+                            meanMagnitude.put(name, sumAbs / sample.length);
+                    }
+                } else {
+                    if (histograms)
+                        histogramMap.put(name, getHistogram(arr, nBins));
+                    if (collectMean)
+                        mean.put(name, arr.meanNumber().doubleValue());
+                    if (collectStdev)
+                        stdev.put(name, arr.stdNumber().doubleValue());
+                    if (collectMeanMagnitude)
+                        meanMagnitude.put(name, arr.norm1Number().doubleValue() / arr.length());
+                }
             }
-            out.put(name, value);
         }
-        return out;
-    }
-
-    private static Map<String, Histogram> getHistograms(Map<String, INDArray> map, int nBins) {
-        Map<String, Histogram> out = new LinkedHashMap<>();
 
-        if (map == null)
-            return out;
+        if (histograms)
+            report.reportHistograms(type, histogramMap);
+        if (collectMean)
+            report.reportMean(type, mean);
+        if (collectStdev)
+            report.reportStdev(type, stdev);
+        if (collectMeanMagnitude)
+            report.reportMeanMagnitudes(type, meanMagnitude);
+    }
 
-        for (Map.Entry<String, INDArray> entry : map.entrySet()) {
+    //Random sample of the elements, with replacement
+    private double[] sample(INDArray arr, int sampleSize) {
+        if (sampleRng == null)
+            sampleRng = new Random();
+        int length = arr.length();
+        double[] out = new double[sampleSize];
+        for (int i = 0; i < sampleSize; i++) {
+            out[i] = arr.getDouble(sampleRng.nextInt(length));
+        }
+        return out;
+    }
 
-            org.nd4j.linalg.api.ops.impl.transforms.Histogram hOp =
-                            new org.nd4j.linalg.api.ops.impl.transforms.Histogram(entry.getValue(), nBins);
-            Nd4j.getExecutioner().exec(hOp);
+    private static Histogram getHistogram(INDArray arr, int nBins) {
+        org.nd4j.linalg.api.ops.impl.transforms.Histogram hOp =
+                        new org.nd4j.linalg.api.ops.impl.transforms.Histogram(arr, nBins);
+        Nd4j.getExecutioner().exec(hOp);
 
-            INDArray bins = hOp.z();
-            int[] count = new int[nBins];
-            for (int i = 0; i < bins.length(); i++) {
-                count[i] = (int) bins.getDouble(i);
-            }
-
-            double min = entry.getValue().minNumber().doubleValue();
-            double max = entry.getValue().maxNumber().doubleValue();
+        INDArray bins = hOp.z();
+        int[] count = new int[nBins];
+        for (int i = 0; i < bins.length(); i++) {
+            count[i] = (int) bins.getDouble(i);
+        }
 
-            Histogram h = new Histogram(min, max, nBins, count);
+        double min = arr.minNumber().doubleValue();
+        double max = arr.maxNumber().doubleValue();
 
-            out.put(entry.getKey(), h);
-        }
-        return out;
+        return new Histogram(min, max, nBins, count);
     }
 
     @Override
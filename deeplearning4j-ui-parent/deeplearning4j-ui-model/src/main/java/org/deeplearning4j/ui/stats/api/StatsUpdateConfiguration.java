@@ -86,4 +86,36 @@ public interface StatsUpdateConfiguration extends Serializable {
      */
     boolean collectMeanMagnitudes(StatsType type);
 
+    //--- Sampling and overhead ---
+
+    /**
+     * Histograms of the given type (if collected at all) are collected on every n-th report: 1 for every report,
+     * 2 for every second report, etc.
+     *
+     * @param type Stats type: Parameters, Updates, Activations
+     */
+    int histogramFrequency(StatsType type);
+
+    /**
+     * Summary stats (mean, standard deviation, mean magnitudes) of the given type (if collected at all) are collected
+     * on every n-th report: 1 for every report, 2 for every second report, etc.
+     *
+     * @param type Stats type: Parameters, Updates, Activations
+     */
+    int summaryStatsFrequency(StatsType type);
+
+    /**
+     * Maximum number of elements of each parameter, gradient, update or activations array to use for histograms and
+     * summary stats. Stats for larger arrays are estimated from a random sample of this size, using
+     * {@link org.deeplearning4j.ui.stats.sketch.StreamingHistogram} sketches for histograms. 0: always use all elements
+     */
+    int sampleSize();
+
+    /**
+     * Maximum fraction of the training time to spend on histograms and summary stats: for example, 0.02 for 2%.
+     * If calculating them takes longer than that, they are calculated less often (score, performance and memory stats
+     * are still reported with the configured reporting frequency). 0: no limit
+     */
+    double maxOverheadFraction();
+
 }
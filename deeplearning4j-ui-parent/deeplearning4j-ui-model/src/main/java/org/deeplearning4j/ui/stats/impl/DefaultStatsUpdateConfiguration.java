@@ -33,6 +33,16 @@ public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration
     private boolean collectMeanMagnitudesGradients = true;
     private boolean collectMeanMagnitudesUpdates = true;
     private boolean collectMeanMagnitudesActivations = true;
+    private int histogramFrequencyParameters = 1;
+    private int histogramFrequencyGradients = 1;
+    private int histogramFrequencyUpdates = 1;
+    private int histogramFrequencyActivations = 1;
+    private int summaryStatsFrequencyParameters = 1;
+    private int summaryStatsFrequencyGradients = 1;
+    private int summaryStatsFrequencyUpdates = 1;
+    private int summaryStatsFrequencyActivations = 1;
+    private int sampleSize = 0;
+    private double maxOverheadFraction = 0.0;
 
     private DefaultStatsUpdateConfiguration(Builder b) {
         this.reportingFrequency = b.reportingFrequency;
@@ -57,6 +67,16 @@ public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration
         this.collectMeanMagnitudesGradients = b.collectMeanMagnitudesGradients;
         this.collectMeanMagnitudesUpdates = b.collectMeanMagnitudesUpdates;
         this.collectMeanMagnitudesActivations = b.collectMeanMagnitudesActivations;
+        this.histogramFrequencyParameters = b.histogramFrequencyParameters;
+        this.histogramFrequencyGradients = b.histogramFrequencyGradients;
+        this.histogramFrequencyUpdates = b.histogramFrequencyUpdates;
+        this.histogramFrequencyActivations = b.histogramFrequencyActivations;
+        this.summaryStatsFrequencyParameters = b.summaryStatsFrequencyParameters;
+        this.summaryStatsFrequencyGradients = b.summaryStatsFrequencyGradients;
+        this.summaryStatsFrequencyUpdates = b.summaryStatsFrequencyUpdates;
+        this.summaryStatsFrequencyActivations = b.summaryStatsFrequencyActivations;
+        this.sampleSize = b.sampleSize;
+        this.maxOverheadFraction = b.maxOverheadFraction;
     }
 
     @Override
@@ -149,6 +169,46 @@ public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration
         return false;
     }
 
+    @Override
+    public int histogramFrequency(StatsType type) {
+        switch (type) {
+            case Parameters:
+                return histogramFrequencyParameters;
+            case Gradients:
+                return histogramFrequencyGradients;
+            case Updates:
+                return histogramFrequencyUpdates;
+            case Activations:
+                return histogramFrequencyActivations;
+        }
+        return 1;
+    }
+
+    @Override
+    public int summaryStatsFrequency(StatsType type) {
+        switch (type) {
+            case Parameters:
+                return summaryStatsFrequencyParameters;
+            case Gradients:
+                return summaryStatsFrequencyGradients;
+            case Updates:
+                return summaryStatsFrequencyUpdates;
+            case Activations:
+                return summaryStatsFrequencyActivations;
+        }
+        return 1;
+    }
+
+    @Override
+    public int sampleSize() {
+        return sampleSize;
+    }
+
+    @Override
+    public double maxOverheadFraction() {
+        return maxOverheadFraction;
+    }
+
     public static class Builder {
         private int reportingFrequency = 1;
         private boolean collectPerformanceStats = true;
@@ -172,6 +232,16 @@ public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration
         private boolean collectMeanMagnitudesGradients = true;
         private boolean collectMeanMagnitudesUpdates = true;
         private boolean collectMeanMagnitudesActivations = true;
+        private int histogramFrequencyParameters = 1;
+        private int histogramFrequencyGradients = 1;
+        private int histogramFrequencyUpdates = 1;
+        private int histogramFrequencyActivations = 1;
+        private int summaryStatsFrequencyParameters = 1;
+        private int summaryStatsFrequencyGradients = 1;
+        private int summaryStatsFrequencyUpdates = 1;
+        private int summaryStatsFrequencyActivations = 1;
+        private int sampleSize = 0;
+        private double maxOverheadFraction = 0.0;
 
         public Builder reportingFrequency(int reportingFrequency) {
             this.reportingFrequency = reportingFrequency;
@@ -283,6 +353,98 @@ public class DefaultStatsUpdateConfiguration implements StatsUpdateConfiguration
             return this;
         }
 
+        /**
+         * Collect histograms on every n-th report, for all stats types. See
+         * {@link StatsUpdateConfiguration#histogramFrequency(StatsType)}
+         */
+        public Builder histogramFrequency(int histogramFrequency) {
+            for (StatsType type : StatsType.values()) {
+                histogramFrequency(type, histogramFrequency);
+            }
+            return this;
+        }
+
+        /**
+         * Collect histograms of the given type on every n-th report. See
+         * {@link StatsUpdateConfiguration#histogramFrequency(StatsType)}
+         */
+        public Builder histogramFrequency(StatsType type, int histogramFrequency) {
+            if (histogramFrequency < 1)
+                throw new IllegalArgumentException("Histogram frequency must be positive: got " + histogramFrequency);
+            switch (type) {
+                case Parameters:
+                    this.histogramFrequencyParameters = histogramFrequency;
+                    break;
+                case Gradients:
+                    this.histogramFrequencyGradients = histogramFrequency;
+                    break;
+                case Updates:
+                    this.histogramFrequencyUpdates = histogramFrequency;
+                    break;
+                case Activations:
+                    this.histogramFrequencyActivations = histogramFrequency;
+                    break;
+            }
+            return this;
+        }
+
+        /**
+         * Collect summary stats on every n-th report, for all stats types. See
+         * {@link StatsUpdateConfiguration#summaryStatsFrequency(StatsType)}
+         */
+        public Builder summaryStatsFrequency(int summaryStatsFrequency) {
+            for (StatsType type : StatsType.values()) {
+                summaryStatsFrequency(type, summaryStatsFrequency);
+            }
+            return this;
+        }
+
+        /**
+         * Collect summary stats of the given type on every n-th report. See
+         * {@link StatsUpdateConfiguration#summaryStatsFrequency(StatsType)}
+         */
+        public Builder summaryStatsFrequency(StatsType type, int summaryStatsFrequency) {
+            if (summaryStatsFrequency < 1)
+                throw new IllegalArgumentException(
+                                "Summary stats frequency must be positive: got " + summaryStatsFrequency);
+            switch (type) {
+                case Parameters:
+                    this.summaryStatsFrequencyParameters = summaryStatsFrequency;
+                    break;
+                case Gradients:
+                    this.summaryStatsFrequencyGradients = summaryStatsFrequency;
+                    break;
+                case Updates:
+                    this.summaryStatsFrequencyUpdates = summaryStatsFrequency;
+                    break;
+                case Activations:
+                    this.summaryStatsFrequencyActivations = summaryStatsFrequency;
+                    break;
+            }
+            return this;
+        }
+
+        /**
+         * See {@link StatsUpdateConfiguration#sampleSize()}. Default: 0 (use all elements)
+         */
+        public Builder sampleSize(int sampleSize) {
+            if (sampleSize < 0)
+                throw new IllegalArgumentException("Sample size must be non-negative: got " + sampleSize);
+            this.sampleSize = sampleSize;
+            return this;
+        }
+
+        /**
+         * See {@link StatsUpdateConfiguration#maxOverheadFraction()}. Default: 0 (no limit)
+         */
+        public Builder maxOverheadFraction(double maxOverheadFraction) {
+            if (maxOverheadFraction < 0.0 || maxOverheadFraction >= 1.0)
+                throw new IllegalArgumentException(
+                                "Max overhead fraction must be in [0, 1): got " + maxOverheadFraction);
+            this.maxOverheadFraction = maxOverheadFraction;
+            return this;
+        }
+
         public DefaultStatsUpdateConfiguration build() {
             return new DefaultStatsUpdateConfiguration(this);
         }
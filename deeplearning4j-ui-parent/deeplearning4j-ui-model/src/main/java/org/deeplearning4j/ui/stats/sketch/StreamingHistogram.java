@@ -0,0 +1,217 @@
+package org.deeplearning4j.ui.stats.sketch;
+
+import org.deeplearning4j.ui.stats.api.Histogram;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A fixed size, mergeable streaming histogram sketch (Ben-Haim and Tom-Tov, "A Streaming Parallel Decision Tree
+ * Algorithm", 2010).<br>
+ * The sketch keeps at most maxCentroids (position, weight) centroids: when a new value would exceed that number, the
+ * two closest centroids are merged into their weighted average. The exact min, max and total weight are also kept.
+ * Sketches can be merged (for example, sketches of different arrays or from different workers), and are used to
+ * approximate quantiles and fixed-bin {@link Histogram}s, without keeping the values themselves.
+ */
+public class StreamingHistogram implements Serializable {
+    public static final int DEFAULT_MAX_CENTROIDS = 64;
+
+    private final int maxCentroids;
+    //Sorted by position; one spare slot for the centroid being added
+    private final double[] positions;
+    private final double[] weights;
+    private int size;
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public StreamingHistogram() {
+        this(DEFAULT_MAX_CENTROIDS);
+    }
+
+    /**
+     * @param maxCentroids Maximum number of centroids. More centroids: more accurate, but slower updates
+     */
+    public StreamingHistogram(int maxCentroids) {
+        if (maxCentroids < 2)
+            throw new IllegalArgumentException("Max centroids must be at least 2: got " + maxCentroids);
+        this.maxCentroids = maxCentroids;
+        this.positions = new double[maxCentroids + 1];
+        this.weights = new double[maxCentroids + 1];
+    }
+
+    /**
+     * Add a value, with weight 1. NaN values are ignored
+     */
+    public void add(double value) {
+        add(value, 1.0);
+    }
+
+    /**
+     * Add all values, with weight 1 each. NaN values are ignored
+     */
+    public void addAll(double[] values) {
+        for (double d : values) {
+            add(d, 1.0);
+        }
+    }
+
+    /**
+     * Add a value with the specified (positive) weight. NaN values are ignored
+     */
+    public void add(double value, double weight) {
+        if (Double.isNaN(value) || weight <= 0.0)
+            return;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        totalWeight += weight;
+
+        int idx = Arrays.binarySearch(positions, 0, size, value);
+        if (idx >= 0) {
+            weights[idx] += weight;
+            return;
+        }
+        idx = -(idx + 1);
+        System.arraycopy(positions, idx, positions, idx + 1, size - idx);
+        System.arraycopy(weights, idx, weights, idx + 1, size - idx);
+        positions[idx] = value;
+        weights[idx] = weight;
+        size++;
+
+        if (size > maxCentroids) {
+            mergeClosest();
+        }
+    }
+
+    private void mergeClosest() {
+        int best = 0;
+        double bestGap = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < size - 1; i++) {
+            double gap = positions[i + 1] - positions[i];
+            if (gap < bestGap) {
+                bestGap = gap;
+                best = i;
+            }
+        }
+        double w = weights[best] + weights[best + 1];
+        positions[best] = (positions[best] * weights[best] + positions[best + 1] * weights[best + 1]) / w;
+        weights[best] = w;
+        System.arraycopy(positions, best + 2, positions, best + 1, size - best - 2);
+        System.arraycopy(weights, best + 2, weights, best + 1, size - best - 2);
+        size--;
+    }
+
+    /**
+     * Merge the other sketch into this one. The other sketch is not modified
+     */
+    public void merge(StreamingHistogram other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.positions[i], other.weights[i]);
+        }
+        //Centroids are averages: the exact extremes are only known from the other sketch's min/max
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Approximate number (total weight) of values less than or equal to x
+     */
+    public double cdf(double x) {
+        if (size == 0 || x < min)
+            return 0.0;
+        if (x >= max)
+            return totalWeight;
+
+        //Cumulative weight is interpolated linearly between (min, 0), the centroid midpoints, and (max, total)
+        double prevPos = min;
+        double prevCum = 0.0;
+        double cum = 0.0;
+        for (int i = 0; i < size; i++) {
+            double mid = cum + weights[i] / 2.0;
+            if (x < positions[i]) {
+                return interpolate(x, prevPos, prevCum, positions[i], mid);
+            }
+            prevPos = positions[i];
+            prevCum = mid;
+            cum += weights[i];
+        }
+        return interpolate(x, prevPos, prevCum, max, totalWeight);
+    }
+
+    /**
+     * Approximate q-quantile of the values added so far
+     *
+     * @param q Quantile, 0.0 to 1.0
+     * @return Approximate quantile, or NaN if no values have been added
+     */
+    public double quantile(double q) {
+        if (q < 0.0 || q > 1.0)
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: got " + q);
+        if (size == 0)
+            return Double.NaN;
+        double target = q * totalWeight;
+
+        double prevPos = min;
+        double prevCum = 0.0;
+        double cum = 0.0;
+        for (int i = 0; i < size; i++) {
+            double mid = cum + weights[i] / 2.0;
+            if (target <= mid) {
+                return interpolate(target, prevCum, prevPos, mid, positions[i]);
+            }
+            prevPos = positions[i];
+            prevCum = mid;
+            cum += weights[i];
+        }
+        return interpolate(target, prevCum, prevPos, totalWeight, max);
+    }
+
+    private static double interpolate(double x, double x0, double y0, double x1, double y1) {
+        if (x1 <= x0)
+            return y1;
+        return y0 + (y1 - y0) * (x - x0) / (x1 - x0);
+    }
+
+    /**
+     * Convert the sketch to an equal width histogram between the min and max values
+     *
+     * @param nBins Number of bins
+     * @param scale Multiplier for the bin counts: for example, (total number of values) / (number of sampled values)
+     *              when the sketch was built from a random sample
+     */
+    public Histogram toHistogram(int nBins, double scale) {
+        int[] counts = new int[nBins];
+        if (size == 0) {
+            return new Histogram(0.0, 0.0, nBins, counts);
+        }
+        double step = (max - min) / nBins;
+        //Rounding the cumulative counts: bin counts add up to the (scaled) total
+        long prev = 0;
+        for (int i = 0; i < nBins; i++) {
+            double cum = (i == nBins - 1 ? totalWeight : cdf(min + (i + 1) * step));
+            long next = Math.round(cum * scale);
+            counts[i] = (int) (next - prev);
+            prev = next;
+        }
+        return new Histogram(min, max, nBins, counts);
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * @return Current number of centroids
+     */
+    public int size() {
+        return size;
+    }
+}
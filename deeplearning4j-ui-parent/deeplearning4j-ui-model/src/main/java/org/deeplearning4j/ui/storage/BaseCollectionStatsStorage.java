@@ -3,6 +3,9 @@ package org.deeplearning4j.ui.storage;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.deeplearning4j.api.storage.*;
+import org.deeplearning4j.ui.stats.api.StatsReport;
+import org.deeplearning4j.ui.storage.timeseries.StatsTimeSeries;
+import org.deeplearning4j.ui.storage.timeseries.TimeSeriesStatsStorage;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
@@ -14,13 +17,15 @@ import java.util.concurrent.ConcurrentHashMap;
  *
  * @author Alex Black
  */
-public abstract class BaseCollectionStatsStorage implements StatsStorage {
+public abstract class BaseCollectionStatsStorage implements TimeSeriesStatsStorage {
 
     protected Set<String> sessionIDs;
     protected Map<SessionTypeId, StorageMetaData> storageMetaData;
     protected Map<SessionTypeWorkerId, Persistable> staticInfo;
 
     protected Map<SessionTypeWorkerId, Map<Long, Persistable>> updates = new ConcurrentHashMap<>();
+    //Not persisted: rebuilt from the stored updates on first use
+    protected Map<SessionTypeWorkerId, StatsTimeSeries> timeSeries = new ConcurrentHashMap<>();
 
     protected List<StatsStorageListener> listeners = new ArrayList<>();
 
@@ -304,6 +309,54 @@ public abstract class BaseCollectionStatsStorage implements StatsStorage {
         return list;
     }
 
+    @Override
+    public StatsTimeSeries getTimeSeries(String sessionID, String typeID, String workerID) {
+        SessionTypeWorkerId id = new SessionTypeWorkerId(sessionID, typeID, workerID);
+        StatsTimeSeries series = timeSeries.get(id);
+        if (series != null)
+            return series;
+
+        synchronized (timeSeries) {
+            series = timeSeries.get(id);
+            if (series == null) {
+                if (getUpdateMap(sessionID, typeID, workerID, false) == null)
+                    return null;
+                series = new StatsTimeSeries();
+                for (Persistable p : getAllUpdatesAfter(sessionID, typeID, workerID, Long.MIN_VALUE)) {
+                    series.add(p);
+                }
+                timeSeries.put(id, series);
+            }
+        }
+        return series;
+    }
+
+    /**
+     * Add a stored update to its time series. Should be called after the update has been added to the update map.
+     */
+    protected void updateTimeSeries(Persistable update) {
+        StatsTimeSeries series = getTimeSeries(update.getSessionID(), update.getTypeID(), update.getWorkerID());
+        if (series == null)
+            return;
+
+        //No-op if the update was already included when the series was created
+        if (!series.add(update) && update instanceof StatsReport
+                        && update.getTimeStamp() < series.getLastTimestamp()) {
+            //Out of order (for example, a delayed remote post): the series can only be extended at the end, hence
+            //rebuild it from the stored updates, which include this one and are sorted by timestamp
+            SessionTypeWorkerId id = new SessionTypeWorkerId(update.getSessionID(), update.getTypeID(),
+                            update.getWorkerID());
+            synchronized (timeSeries) {
+                StatsTimeSeries rebuilt = new StatsTimeSeries();
+                for (Persistable p : getAllUpdatesAfter(update.getSessionID(), update.getTypeID(),
+                                update.getWorkerID(), Long.MIN_VALUE)) {
+                    rebuilt.add(p);
+                }
+                timeSeries.put(id, rebuilt);
+            }
+        }
+    }
+
     @Override
     public StorageMetaData getStorageMetaData(String sessionID, String typeID) {
         return this.storageMetaData.get(new SessionTypeId(sessionID, typeID));
@@ -141,6 +141,7 @@ public class MapDBStatsStorage extends BaseCollectionStatsStorage {
                         getUpdateMap(update.getSessionID(), update.getTypeID(), update.getWorkerID(), true);
         updateMap.put(update.getTimeStamp(), update);
         db.commit(); //For write ahead log: need to ensure that we persist all data to disk...
+        updateTimeSeries(update);
 
         StatsStorageEvent sse = null;
         if (listeners.size() > 0)
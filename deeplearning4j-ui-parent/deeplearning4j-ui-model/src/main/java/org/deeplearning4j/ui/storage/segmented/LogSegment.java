@@ -0,0 +1,249 @@
+package org.deeplearning4j.ui.storage.segmented;
+
+import org.deeplearning4j.ui.storage.BaseCollectionStatsStorage.SessionTypeWorkerId;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * One memory-mapped segment file of a {@link SegmentedLogStatsStorage} worker log.<br>
+ * Layout: header (magic, version, flags, first/last sequence number, session/type/worker IDs), then records of
+ * [int payload length][int class index][long timestamp][payload], then zeros up to the mapped capacity.
+ * The payload length of a record is written last, so a record with a non-zero length is complete.<br>
+ * Appends are done by a single writer at a time; readers only access records before {@link #getEnd()}.
+ */
+class LogSegment {
+    static final int RECORD_HEADER_BYTES = 16;
+
+    private static final byte[] MAGIC = "DL4JSLOG".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final byte FLAG_COMPACTED = 1;
+
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int dataStart;
+    private final long firstSeq;
+    private final long lastSeq;
+    private final boolean compacted;
+    private final SessionTypeWorkerId id;
+    private volatile int end;
+    private volatile int count;
+
+    private LogSegment(File file, MappedByteBuffer buffer, int dataStart, long firstSeq, long lastSeq,
+                    boolean compacted, SessionTypeWorkerId id) {
+        this.file = file;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity();
+        this.dataStart = dataStart;
+        this.firstSeq = firstSeq;
+        this.lastSeq = lastSeq;
+        this.compacted = compacted;
+        this.id = id;
+        this.end = dataStart;
+    }
+
+    /**
+     * Create a new, empty segment file
+     *
+     * @param minDataBytes Minimum number of bytes available for records
+     */
+    static LogSegment create(File file, long seq, SessionTypeWorkerId id, int segmentSize, int minDataBytes)
+                    throws IOException {
+        byte[] header = header(seq, seq, false, id);
+        long capacity = Math.max(segmentSize, (long) header.length + minDataBytes);
+        if (capacity > Integer.MAX_VALUE)
+            throw new IOException("Record too large for a log segment: " + minDataBytes + " bytes");
+
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(capacity);
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+        buffer.put(header);
+        return new LogSegment(file, buffer, header.length, seq, seq, false, id);
+    }
+
+    /**
+     * Open an existing segment file, finding the end of the complete records
+     */
+    static LogSegment open(File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        }
+
+        ByteBuffer bb = buffer.duplicate();
+        byte[] magic = new byte[MAGIC.length];
+        bb.get(magic);
+        if (!Arrays.equals(MAGIC, magic))
+            throw new IOException("Not a stats log segment: " + file);
+        int version = bb.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported stats log segment version " + version + ": " + file);
+        boolean compacted = (bb.get() & FLAG_COMPACTED) != 0;
+        long firstSeq = bb.getLong();
+        long lastSeq = bb.getLong();
+        SessionTypeWorkerId id = new SessionTypeWorkerId(readString(bb), readString(bb), readString(bb));
+
+        LogSegment segment = new LogSegment(file, buffer, bb.position(), firstSeq, lastSeq, compacted, id);
+        int offset = segment.dataStart;
+        int count = 0;
+        while (offset + RECORD_HEADER_BYTES <= segment.capacity) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || (long) offset + RECORD_HEADER_BYTES + length > segment.capacity)
+                break; //End of records, or incomplete record
+            offset += RECORD_HEADER_BYTES + length;
+            count++;
+        }
+        segment.end = offset;
+        segment.count = count;
+
+        //Clear any partially written record, so that it can't be mistaken for a complete one after later appends
+        if (!compacted) {
+            for (int i = offset; i < segment.capacity; i++) {
+                if (buffer.get(i) != 0)
+                    buffer.put(i, (byte) 0);
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * Segment header. Compacted segments are written with plain IO: this header, then the records copied with
+     * {@link #record(int)}
+     */
+    static byte[] header(long firstSeq, long lastSeq, boolean compacted, SessionTypeWorkerId id) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        dos.write(MAGIC);
+        dos.writeInt(VERSION);
+        dos.writeByte(compacted ? FLAG_COMPACTED : 0);
+        dos.writeLong(firstSeq);
+        dos.writeLong(lastSeq);
+        writeString(dos, id.getSessionID());
+        writeString(dos, id.getTypeID());
+        writeString(dos, id.getWorkerID());
+        dos.flush();
+        return baos.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream dos, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        dos.writeInt(bytes.length);
+        dos.write(bytes);
+    }
+
+    private static String readString(ByteBuffer bb) {
+        byte[] bytes = new byte[bb.getInt()];
+        bb.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return true if the record fits in the remaining space of this segment
+     */
+    boolean fits(int payloadLength) {
+        return (long) end + RECORD_HEADER_BYTES + payloadLength <= capacity;
+    }
+
+    /**
+     * Append a record. Must only be called by one thread at a time, after checking {@link #fits(int)}
+     *
+     * @return offset of the record
+     */
+    int append(int classIdx, long timestamp, byte[] payload) {
+        int offset = end;
+        ByteBuffer bb = buffer.duplicate();
+        bb.position(offset + 4);
+        bb.putInt(classIdx);
+        bb.putLong(timestamp);
+        bb.put(payload);
+        buffer.putInt(offset, payload.length); //Length last: marks the record as complete
+        count++;
+        end = offset + RECORD_HEADER_BYTES + payload.length;
+        return offset;
+    }
+
+    int recordLength(int offset) {
+        return buffer.getInt(offset);
+    }
+
+    int recordClass(int offset) {
+        return buffer.getInt(offset + 4);
+    }
+
+    long recordTimestamp(int offset) {
+        return buffer.getLong(offset + 8);
+    }
+
+    /**
+     * Offset of the record after the one at the specified offset, or -1 if there is no (complete) record after it
+     */
+    int next(int offset) {
+        int next = offset + RECORD_HEADER_BYTES + recordLength(offset);
+        return next < end ? next : -1;
+    }
+
+    /**
+     * Offset of the first record, or -1 if the segment is empty
+     */
+    int first() {
+        return dataStart < end ? dataStart : -1;
+    }
+
+    byte[] payload(int offset) {
+        byte[] bytes = new byte[recordLength(offset)];
+        ByteBuffer bb = buffer.duplicate();
+        bb.position(offset + RECORD_HEADER_BYTES);
+        bb.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Whole record (header and payload), as stored
+     */
+    byte[] record(int offset) {
+        byte[] bytes = new byte[RECORD_HEADER_BYTES + recordLength(offset)];
+        ByteBuffer bb = buffer.duplicate();
+        bb.position(offset);
+        bb.get(bytes);
+        return bytes;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    long getFirstSeq() {
+        return firstSeq;
+    }
+
+    long getLastSeq() {
+        return lastSeq;
+    }
+
+    boolean isCompacted() {
+        return compacted;
+    }
+
+    SessionTypeWorkerId getId() {
+        return id;
+    }
+
+    int getEnd() {
+        return end;
+    }
+
+    int getCount() {
+        return count;
+    }
+}
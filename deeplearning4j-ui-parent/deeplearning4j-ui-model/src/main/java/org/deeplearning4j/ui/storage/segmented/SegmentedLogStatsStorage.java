@@ -0,0 +1,938 @@
+package org.deeplearning4j.ui.storage.segmented;
+
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.api.storage.*;
+import org.deeplearning4j.ui.storage.BaseCollectionStatsStorage;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link StatsStorage} implementation for high update rates (for example, many workers reporting through a
+ * remote router), based on append-only logs of encoded {@link Persistable} records.<br>
+ * <br>
+ * Each session/type/worker has its own log, in its own sub directory: a sequence of memory-mapped segment files that
+ * updates are appended to. Appends for different workers never contend on a shared lock, and nothing is synced
+ * to disk on each update. Each log has a sparse in-memory index (one entry every {@link Builder#indexInterval(int)}
+ * records: timestamp and position), so that lookups by timestamp only scan a few record headers, and only the
+ * requested records are decoded.<br>
+ * Static info and storage metadata are rare and small: they are appended to a separate metadata log, and kept in
+ * memory.<br>
+ * <br>
+ * Old segments can be compacted in the background (or by calling {@link #compact()}): all but the most recent
+ * segments of each log are merged into a single segment, keeping only one of every
+ * {@link Builder#downsampleFactor(int)} updates. Compacted segments are not compacted again.<br>
+ * <br>
+ * Note that unlike map based storages, updates with the same timestamp don't replace each other: all of them are
+ * kept, and lookups by timestamp return the most recent one.
+ */
+@Slf4j
+public class SegmentedLogStatsStorage extends BaseCollectionStatsStorage {
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+    public static final int DEFAULT_INDEX_INTERVAL = 32;
+    public static final long DEFAULT_COMPACTION_INTERVAL_MS = 60000L;
+    public static final int DEFAULT_FULL_RESOLUTION_SEGMENTS = 4;
+    public static final int DEFAULT_DOWNSAMPLE_FACTOR = 4;
+
+    private static final String META_FILE = "meta.log";
+    private static final String WORKER_DIR_PREFIX = "w";
+    private static final String SEGMENT_EXTENSION = ".seg";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(\\d+)\\.seg");
+    private static final Pattern COMPACTED_NAME = Pattern.compile("c(\\d+)-(\\d+)\\.seg");
+
+    private static final byte META_CLASS = 0;
+    private static final byte META_STATIC_INFO = 1;
+    private static final byte META_STORAGE_METADATA = 2;
+
+    private final File directory;
+    private final int segmentSize;
+    private final int indexInterval;
+    private final int fullResolutionSegments;
+    private final int downsampleFactor;
+
+    private final Map<String, Integer> classToIndex = new ConcurrentHashMap<>();
+    private final Map<Integer, String> indexToClass = new ConcurrentHashMap<>();
+    private final Map<SessionTypeWorkerId, WorkerLog> logs = new ConcurrentHashMap<>();
+    private final AtomicInteger workerDirCounter = new AtomicInteger();
+    private final Object metaLock = new Object();
+    private final DataOutputStream metaOut;
+    private final ScheduledExecutorService compactionExecutor;
+    private volatile boolean isClosed = false;
+
+    public SegmentedLogStatsStorage(File directory) {
+        this(new Builder(directory));
+    }
+
+    private SegmentedLogStatsStorage(Builder builder) {
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.indexInterval = builder.indexInterval;
+        this.fullResolutionSegments = builder.fullResolutionSegments;
+        this.downsampleFactor = builder.downsampleFactor;
+
+        sessionIDs = Collections.synchronizedSet(new HashSet<String>());
+        storageMetaData = new ConcurrentHashMap<>();
+        staticInfo = new ConcurrentHashMap<>();
+
+        if (!directory.exists() && !directory.mkdirs())
+            throw new RuntimeException("Could not create stats storage directory: " + directory);
+        if (!directory.isDirectory())
+            throw new IllegalArgumentException("Not a directory: " + directory);
+
+        try {
+            File metaFile = new File(directory, META_FILE);
+            if (metaFile.exists()) {
+                long validLength = readMetaLog(metaFile);
+                if (validLength < metaFile.length()) {
+                    //Incomplete last record (for example, after a crash): discard it, so that new records are
+                    // appended after the last complete one
+                    log.warn("Discarding {} bytes of incomplete records at the end of {}",
+                                    metaFile.length() - validLength, metaFile);
+                    try (RandomAccessFile raf = new RandomAccessFile(metaFile, "rw")) {
+                        raf.getChannel().truncate(validLength);
+                    }
+                }
+            }
+            metaOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(metaFile, true)));
+
+            File[] dirs = directory.listFiles();
+            if (dirs != null) {
+                for (File d : dirs) {
+                    if (!d.isDirectory() || !d.getName().startsWith(WORKER_DIR_PREFIX))
+                        continue;
+                    try {
+                        int n = Integer.parseInt(d.getName().substring(WORKER_DIR_PREFIX.length()));
+                        workerDirCounter.set(Math.max(workerDirCounter.get(), n + 1));
+                    } catch (NumberFormatException e) {
+                        continue;
+                    }
+                    WorkerLog wl = WorkerLog.open(this, d);
+                    if (wl != null) {
+                        logs.put(wl.id, wl);
+                        updates.put(wl.id, new WorkerLogMap(wl));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening stats storage directory: " + directory, e);
+        }
+
+        if (builder.compactionIntervalMs > 0) {
+            compactionExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "SegmentedLogStatsStorage-compaction");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            compactionExecutor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        compact();
+                    } catch (Throwable t) {
+                        log.warn("Error compacting stats storage {}", SegmentedLogStatsStorage.this.directory, t);
+                    }
+                }
+            }, builder.compactionIntervalMs, builder.compactionIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            compactionExecutor = null;
+        }
+    }
+
+    // ----- Metadata log: class names, static info, storage metadata -----
+
+    /**
+     * Read the metadata log
+     *
+     * @return Length of the log up to the end of the last complete record
+     */
+    private long readMetaLog(File metaFile) throws IOException {
+        long fileLength = metaFile.length();
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(metaFile)))) {
+            while (validLength < fileLength) {
+                byte kind;
+                int classIdx;
+                byte[] bytes;
+                try {
+                    kind = in.readByte();
+                    classIdx = in.readInt();
+                    int length = in.readInt();
+                    if (length < 0 || length > fileLength - validLength - 9)
+                        break; //Incomplete last record
+                    bytes = new byte[length];
+                    in.readFully(bytes);
+                } catch (EOFException e) {
+                    break; //Incomplete last record
+                }
+
+                if (kind == META_CLASS) {
+                    String className = new String(bytes, StandardCharsets.UTF_8);
+                    classToIndex.put(className, classIdx);
+                    indexToClass.put(classIdx, className);
+                } else if (kind == META_STATIC_INFO) {
+                    Persistable p = decode(classIdx, bytes);
+                    sessionIDs.add(p.getSessionID());
+                    staticInfo.put(new SessionTypeWorkerId(p.getSessionID(), p.getTypeID(), p.getWorkerID()), p);
+                } else if (kind == META_STORAGE_METADATA) {
+                    StorageMetaData m = (StorageMetaData) decode(classIdx, bytes);
+                    storageMetaData.put(new SessionTypeId(m.getSessionID(), m.getTypeID()), m);
+                } else {
+                    break; //Partially written last record
+                }
+                validLength += 9 + bytes.length;
+            }
+        }
+        return validLength;
+    }
+
+    private void writeMeta(byte kind, int classIdx, byte[] bytes) {
+        synchronized (metaLock) {
+            try {
+                metaOut.writeByte(kind);
+                metaOut.writeInt(classIdx);
+                metaOut.writeInt(bytes.length);
+                metaOut.write(bytes);
+                metaOut.flush();
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing to stats storage metadata log", e);
+            }
+        }
+    }
+
+    private int getIntForClass(Class<?> c) {
+        String name = c.getName();
+        Integer idx = classToIndex.get(name);
+        if (idx != null)
+            return idx;
+        synchronized (metaLock) {
+            idx = classToIndex.get(name);
+            if (idx == null) {
+                idx = indexToClass.size();
+                //Written before any record that uses it
+                writeMeta(META_CLASS, idx, name.getBytes(StandardCharsets.UTF_8));
+                indexToClass.put(idx, name);
+                classToIndex.put(name, idx);
+            }
+            return idx;
+        }
+    }
+
+    private Persistable decode(int classIdx, byte[] bytes) {
+        String className = indexToClass.get(classIdx);
+        if (className == null)
+            throw new RuntimeException("Unknown class index: " + classIdx); //Should never happen
+        Persistable p;
+        try {
+            p = (Persistable) Class.forName(className).newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        p.decode(bytes);
+        return p;
+    }
+
+    // ----- Update logs -----
+
+    @Override
+    protected Map<Long, Persistable> getUpdateMap(String sessionID, String typeID, String workerID,
+                    boolean createIfRequired) {
+        WorkerLog wl = getLog(sessionID, typeID, workerID, createIfRequired);
+        return wl == null ? null : updates.get(wl.id);
+    }
+
+    private WorkerLog getLog(String sessionID, String typeID, String workerID, boolean createIfRequired) {
+        SessionTypeWorkerId id = new SessionTypeWorkerId(sessionID, typeID, workerID);
+        WorkerLog wl = logs.get(id);
+        if (wl != null || !createIfRequired)
+            return wl;
+
+        synchronized (logs) {
+            wl = logs.get(id);
+            if (wl == null) {
+                File dir = new File(directory, WORKER_DIR_PREFIX + workerDirCounter.getAndIncrement());
+                if (!dir.mkdirs())
+                    throw new RuntimeException("Could not create directory: " + dir);
+                wl = new WorkerLog(this, id, dir);
+                logs.put(id, wl);
+                updates.put(id, new WorkerLogMap(wl));
+            }
+            return wl;
+        }
+    }
+
+    /**
+     * Compact the old segments of all logs: all sealed segments except the most recent ones are merged into a single
+     * segment, keeping one of every downsampleFactor updates. Called periodically in the background, unless
+     * compaction was disabled in the builder.
+     */
+    public synchronized void compact() throws IOException {
+        if (isClosed)
+            return;
+        for (WorkerLog wl : logs.values()) {
+            wl.compact();
+        }
+    }
+
+    @Override
+    public Persistable getLatestUpdate(String sessionID, String typeID, String workerID) {
+        WorkerLog wl = getLog(sessionID, typeID, workerID, false);
+        return wl == null ? null : wl.getLatest();
+    }
+
+    @Override
+    public Persistable getUpdate(String sessionID, String typeID, String workerID, long timestamp) {
+        WorkerLog wl = getLog(sessionID, typeID, workerID, false);
+        return wl == null ? null : wl.get(timestamp);
+    }
+
+    @Override
+    public List<Persistable> getAllUpdatesAfter(String sessionID, String typeID, String workerID, long timestamp) {
+        WorkerLog wl = getLog(sessionID, typeID, workerID, false);
+        List<Persistable> list = new ArrayList<>();
+        if (wl != null) {
+            wl.getAllAfter(timestamp, list);
+        }
+        return list;
+    }
+
+    @Override
+    public List<Persistable> getAllUpdatesAfter(String sessionID, String typeID, long timestamp) {
+        List<Persistable> list = new ArrayList<>();
+        for (SessionTypeWorkerId stw : staticInfo.keySet()) {
+            if (stw.getSessionID().equals(sessionID) && stw.getTypeID().equals(typeID)) {
+                WorkerLog wl = logs.get(stw);
+                if (wl != null) {
+                    wl.getAllAfter(timestamp, list);
+                }
+            }
+        }
+
+        //Sort by time stamp
+        Collections.sort(list, new Comparator<Persistable>() {
+            @Override
+            public int compare(Persistable o1, Persistable o2) {
+                return Long.compare(o1.getTimeStamp(), o2.getTimeStamp());
+            }
+        });
+        return list;
+    }
+
+    // ----- Store new info -----
+
+    @Override
+    public void putStaticInfo(Persistable staticInfo) {
+        List<StatsStorageEvent> sses = checkStorageEvents(staticInfo);
+        if (!sessionIDs.contains(staticInfo.getSessionID())) {
+            sessionIDs.add(staticInfo.getSessionID());
+        }
+        SessionTypeWorkerId id = new SessionTypeWorkerId(staticInfo.getSessionID(), staticInfo.getTypeID(),
+                        staticInfo.getWorkerID());
+
+        writeMeta(META_STATIC_INFO, getIntForClass(staticInfo.getClass()), staticInfo.encode());
+        this.staticInfo.put(id, staticInfo);
+        StatsStorageEvent sse = null;
+        if (listeners.size() > 0)
+            sse = new StatsStorageEvent(this, StatsStorageListener.EventType.PostStaticInfo, staticInfo.getSessionID(),
+                            staticInfo.getTypeID(), staticInfo.getWorkerID(), staticInfo.getTimeStamp());
+        for (StatsStorageListener l : listeners) {
+            l.notify(sse);
+        }
+
+        notifyListeners(sses);
+    }
+
+    @Override
+    public void putUpdate(Persistable update) {
+        List<StatsStorageEvent> sses = checkStorageEvents(update);
+        WorkerLog wl = getLog(update.getSessionID(), update.getTypeID(), update.getWorkerID(), true);
+        try {
+            wl.append(getIntForClass(update.getClass()), update.getTimeStamp(), update.encode());
+        } catch (IOException e) {
+            throw new RuntimeException("Error appending update to stats storage log", e);
+        }
+        updateTimeSeries(update);
+
+        StatsStorageEvent sse = null;
+        if (listeners.size() > 0)
+            sse = new StatsStorageEvent(this, StatsStorageListener.EventType.PostUpdate, update.getSessionID(),
+                            update.getTypeID(), update.getWorkerID(), update.getTimeStamp());
+        for (StatsStorageListener l : listeners) {
+            l.notify(sse);
+        }
+
+        notifyListeners(sses);
+    }
+
+    @Override
+    public void putStorageMetaData(StorageMetaData storageMetaData) {
+        List<StatsStorageEvent> sses = checkStorageEvents(storageMetaData);
+        SessionTypeId id = new SessionTypeId(storageMetaData.getSessionID(), storageMetaData.getTypeID());
+        writeMeta(META_STORAGE_METADATA, getIntForClass(storageMetaData.getClass()), storageMetaData.encode());
+        this.storageMetaData.put(id, storageMetaData);
+
+        StatsStorageEvent sse = null;
+        if (listeners.size() > 0)
+            sse = new StatsStorageEvent(this, StatsStorageListener.EventType.PostMetaData,
+                            storageMetaData.getSessionID(), storageMetaData.getTypeID(), storageMetaData.getWorkerID(),
+                            storageMetaData.getTimeStamp());
+        for (StatsStorageListener l : listeners) {
+            l.notify(sse);
+        }
+
+        notifyListeners(sses);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (isClosed)
+            return;
+        if (compactionExecutor != null) {
+            compactionExecutor.shutdown();
+            try {
+                compactionExecutor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            for (WorkerLog wl : logs.values()) {
+                wl.force();
+            }
+            synchronized (metaLock) {
+                metaOut.close();
+            }
+            isClosed = true;
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return isClosed;
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentedLogStatsStorage(" + directory.getPath() + ")";
+    }
+
+    /**
+     * Immutable snapshot of the state of a worker log. Index arrays are shared between snapshots, but entries below
+     * indexSize are never modified
+     */
+    private static class LogView {
+        private final LogSegment[] segments;
+        private final long[] indexTimestamps;
+        private final LogSegment[] indexSegments;
+        private final int[] indexOffsets;
+        private final int indexSize;
+        private final int count;
+        private final LogSegment lastSegment;
+        private final int lastOffset;
+        private final long lastTimestamp;
+        //False if any update was appended with a timestamp before the previous one: the index can't be used then
+        private final boolean ordered;
+
+        private LogView(LogSegment[] segments, long[] indexTimestamps, LogSegment[] indexSegments, int[] indexOffsets,
+                        int indexSize, int count, LogSegment lastSegment, int lastOffset, long lastTimestamp,
+                        boolean ordered) {
+            this.segments = segments;
+            this.indexTimestamps = indexTimestamps;
+            this.indexSegments = indexSegments;
+            this.indexOffsets = indexOffsets;
+            this.indexSize = indexSize;
+            this.count = count;
+            this.lastSegment = lastSegment;
+            this.lastOffset = lastOffset;
+            this.lastTimestamp = lastTimestamp;
+            this.ordered = ordered;
+        }
+    }
+
+    /**
+     * The log of one session/type/worker. Appends and compaction are synchronized on the log (i.e., per worker);
+     * reads are lock free, using the current {@link LogView}
+     */
+    private static class WorkerLog {
+        private final SegmentedLogStatsStorage storage;
+        private final SessionTypeWorkerId id;
+        private final File dir;
+        private volatile LogView view;
+
+        //Writer state, guarded by this
+        private long nextSeq;
+        private long[] indexTimestamps = new long[16];
+        private LogSegment[] indexSegments = new LogSegment[16];
+        private int[] indexOffsets = new int[16];
+        private int indexSize;
+        private int sinceLastIndexEntry;
+
+        private WorkerLog(SegmentedLogStatsStorage storage, SessionTypeWorkerId id, File dir) {
+            this.storage = storage;
+            this.id = id;
+            this.dir = dir;
+            this.view = new LogView(new LogSegment[0], indexTimestamps, indexSegments, indexOffsets, 0, 0, null, -1,
+                            Long.MIN_VALUE, true);
+        }
+
+        /**
+         * Open an existing log directory, cleaning up after any interrupted compaction
+         *
+         * @return the log, or null if the directory doesn't contain any segments
+         */
+        private static WorkerLog open(SegmentedLogStatsStorage storage, File dir) throws IOException {
+            File[] files = dir.listFiles();
+            if (files == null)
+                return null;
+
+            List<long[]> compactedRanges = new ArrayList<>();
+            for (File f : files) {
+                if (f.getName().endsWith(TEMP_EXTENSION)) {
+                    //Interrupted compaction: originals are still there
+                    if (!f.delete())
+                        log.warn("Could not delete incomplete file {}", f);
+                    continue;
+                }
+                Matcher m = COMPACTED_NAME.matcher(f.getName());
+                if (m.matches()) {
+                    compactedRanges.add(new long[] {Long.parseLong(m.group(1)), Long.parseLong(m.group(2))});
+                }
+            }
+
+            List<LogSegment> segments = new ArrayList<>();
+            for (File f : files) {
+                if (!f.exists())
+                    continue;
+                Matcher m = SEGMENT_NAME.matcher(f.getName());
+                if (m.matches()) {
+                    long seq = Long.parseLong(m.group(1));
+                    boolean superseded = false;
+                    for (long[] range : compactedRanges) {
+                        superseded |= (seq >= range[0] && seq <= range[1]);
+                    }
+                    if (superseded) {
+                        //Compaction completed, but the originals weren't all deleted
+                        if (!f.delete())
+                            log.warn("Could not delete compacted segment {}", f);
+                        continue;
+                    }
+                } else if (!COMPACTED_NAME.matcher(f.getName()).matches()) {
+                    continue;
+                }
+                segments.add(LogSegment.open(f));
+            }
+            if (segments.isEmpty())
+                return null;
+
+            Collections.sort(segments, new Comparator<LogSegment>() {
+                @Override
+                public int compare(LogSegment o1, LogSegment o2) {
+                    return Long.compare(o1.getFirstSeq(), o2.getFirstSeq());
+                }
+            });
+
+            WorkerLog wl = new WorkerLog(storage, segments.get(0).getId(), dir);
+            synchronized (wl) {
+                LogSegment last = null;
+                int lastOffset = -1;
+                long lastTimestamp = Long.MIN_VALUE;
+                boolean ordered = true;
+                int count = 0;
+                for (LogSegment s : segments) {
+                    for (int offset = s.first(); offset >= 0; offset = s.next(offset)) {
+                        long ts = s.recordTimestamp(offset);
+                        wl.index(ts, s, offset);
+                        ordered &= (ts >= lastTimestamp);
+                        lastTimestamp = ts;
+                        last = s;
+                        lastOffset = offset;
+                        count++;
+                    }
+                    wl.nextSeq = Math.max(wl.nextSeq, s.getLastSeq() + 1);
+                }
+                wl.view = new LogView(segments.toArray(new LogSegment[segments.size()]), wl.indexTimestamps,
+                                wl.indexSegments, wl.indexOffsets, wl.indexSize, count, last, lastOffset,
+                                lastTimestamp, ordered);
+            }
+            return wl;
+        }
+
+        //Add an index entry, if this record is due one. Guarded by this
+        private void index(long timestamp, LogSegment segment, int offset) {
+            if (indexSize > 0 && ++sinceLastIndexEntry < storage.indexInterval)
+                return;
+            sinceLastIndexEntry = 0;
+            if (indexSize == indexTimestamps.length) {
+                int newLength = 2 * indexTimestamps.length;
+                indexTimestamps = Arrays.copyOf(indexTimestamps, newLength);
+                indexSegments = Arrays.copyOf(indexSegments, newLength);
+                indexOffsets = Arrays.copyOf(indexOffsets, newLength);
+            }
+            indexTimestamps[indexSize] = timestamp;
+            indexSegments[indexSize] = segment;
+            indexOffsets[indexSize] = offset;
+            indexSize++;
+        }
+
+        private synchronized void append(int classIdx, long timestamp, byte[] payload) throws IOException {
+            LogView v = view;
+            LogSegment[] segments = v.segments;
+            LogSegment segment = (segments.length == 0 ? null : segments[segments.length - 1]);
+            if (segment == null || !segment.fits(payload.length)) {
+                File f = new File(dir, nextSeq + SEGMENT_EXTENSION);
+                segment = LogSegment.create(f, nextSeq, id, storage.segmentSize,
+                                LogSegment.RECORD_HEADER_BYTES + payload.length);
+                nextSeq++;
+                segments = Arrays.copyOf(segments, segments.length + 1);
+                segments[segments.length - 1] = segment;
+            }
+
+            int offset = segment.append(classIdx, timestamp, payload);
+            index(timestamp, segment, offset);
+            view = new LogView(segments, indexTimestamps, indexSegments, indexOffsets, indexSize, v.count + 1, segment,
+                            offset, timestamp, v.ordered && timestamp >= v.lastTimestamp);
+        }
+
+        private Persistable decode(LogSegment segment, int offset) {
+            return storage.decode(segment.recordClass(offset), segment.payload(offset));
+        }
+
+        private Persistable getLatest() {
+            LogView v = view;
+            if (v.lastSegment == null)
+                return null;
+            return decode(v.lastSegment, v.lastOffset);
+        }
+
+        /**
+         * Index of the segment to start scanning from, and offset in it, for records with timestamp after (or equal
+         * to, if inclusive) the specified timestamp
+         */
+        private static int[] seek(LogView v, long timestamp, boolean inclusive) {
+            int lo = 0;
+            int hi = v.indexSize - 1;
+            int found = -1;
+            if (v.ordered) {
+                //Last entry with timestamp < t (inclusive) or <= t (exclusive)
+                while (lo <= hi) {
+                    int mid = (lo + hi) >>> 1;
+                    long ts = v.indexTimestamps[mid];
+                    if (ts < timestamp || (!inclusive && ts == timestamp)) {
+                        found = mid;
+                        lo = mid + 1;
+                    } else {
+                        hi = mid - 1;
+                    }
+                }
+            }
+            if (found < 0) {
+                return new int[] {0, v.segments.length == 0 ? -1 : v.segments[0].first()};
+            }
+            LogSegment s = v.indexSegments[found];
+            for (int i = 0; i < v.segments.length; i++) {
+                if (v.segments[i] == s)
+                    return new int[] {i, v.indexOffsets[found]};
+            }
+            throw new IllegalStateException("Index entry for unknown segment"); //Should never happen
+        }
+
+        private Persistable get(long timestamp) {
+            LogView v = view;
+            int[] pos = seek(v, timestamp, true);
+            LogSegment foundSegment = null;
+            int foundOffset = -1;
+            for (int s = pos[0]; s < v.segments.length; s++) {
+                LogSegment segment = v.segments[s];
+                int offset = (s == pos[0] ? pos[1] : segment.first());
+                for (; offset >= 0; offset = segment.next(offset)) {
+                    long ts = segment.recordTimestamp(offset);
+                    if (ts == timestamp) {
+                        foundSegment = segment;
+                        foundOffset = offset;
+                    } else if (ts > timestamp && v.ordered) {
+                        s = v.segments.length;
+                        break;
+                    }
+                }
+            }
+            return foundSegment == null ? null : decode(foundSegment, foundOffset);
+        }
+
+        private void getAllAfter(long timestamp, List<Persistable> out) {
+            LogView v = view;
+            int[] pos = seek(v, timestamp, false);
+            for (int s = pos[0]; s < v.segments.length; s++) {
+                LogSegment segment = v.segments[s];
+                int offset = (s == pos[0] ? pos[1] : segment.first());
+                for (; offset >= 0; offset = segment.next(offset)) {
+                    if (segment.recordTimestamp(offset) > timestamp) {
+                        out.add(decode(segment, offset));
+                    }
+                }
+            }
+        }
+
+        private void force() {
+            for (LogSegment s : view.segments) {
+                s.force();
+            }
+        }
+
+        /**
+         * Merge the old, not yet compacted segments into a single downsampled segment
+         */
+        private void compact() throws IOException {
+            LogSegment[] segments = view.segments;
+            int first = 0;
+            while (first < segments.length && segments[first].isCompacted())
+                first++;
+            //The last segment is still being appended to
+            int last = segments.length - 1 - storage.fullResolutionSegments;
+            if (last <= first)
+                return;
+
+            long firstSeq = segments[first].getFirstSeq();
+            long lastSeq = segments[last - 1].getLastSeq();
+            String name = "c" + firstSeq + "-" + lastSeq + SEGMENT_EXTENSION;
+            File tmp = new File(dir, name + TEMP_EXTENSION);
+            File target = new File(dir, name);
+
+            //Copy the records to keep, without decoding them
+            try (FileOutputStream fos = new FileOutputStream(tmp)) {
+                OutputStream os = new BufferedOutputStream(fos);
+                os.write(LogSegment.header(firstSeq, lastSeq, true, id));
+                long ordinal = 0;
+                for (int s = first; s < last; s++) {
+                    for (int offset = segments[s].first(); offset >= 0; offset = segments[s].next(offset)) {
+                        if (ordinal++ % storage.downsampleFactor == 0) {
+                            os.write(segments[s].record(offset));
+                        }
+                    }
+                }
+                os.flush();
+                fos.getChannel().force(true);
+            }
+            if (!tmp.renameTo(target))
+                throw new IOException("Could not rename " + tmp + " to " + target);
+            LogSegment compacted = LogSegment.open(target);
+
+            synchronized (this) {
+                LogView v = view;
+                //Only segments after the compacted ones may have been added in the meantime
+                List<LogSegment> newSegments = new ArrayList<>();
+                newSegments.addAll(Arrays.asList(v.segments).subList(0, first));
+                newSegments.add(compacted);
+                newSegments.addAll(Arrays.asList(v.segments).subList(last, v.segments.length));
+
+                //Rebuild the index up to the new segment; keep the entries for the later segments
+                Set<LogSegment> retained = new HashSet<>(Arrays.asList(v.segments).subList(last, v.segments.length));
+                long[] oldTimestamps = indexTimestamps;
+                LogSegment[] oldSegments = indexSegments;
+                int[] oldOffsets = indexOffsets;
+                int oldSize = indexSize;
+                int oldSinceLast = sinceLastIndexEntry;
+
+                indexTimestamps = new long[Math.max(16, oldTimestamps.length)];
+                indexSegments = new LogSegment[indexTimestamps.length];
+                indexOffsets = new int[indexTimestamps.length];
+                indexSize = 0;
+                sinceLastIndexEntry = 0;
+                int count = 0;
+                for (int s = 0; s <= first; s++) {
+                    LogSegment segment = newSegments.get(s);
+                    for (int offset = segment.first(); offset >= 0; offset = segment.next(offset)) {
+                        index(segment.recordTimestamp(offset), segment, offset);
+                    }
+                    count += segment.getCount();
+                }
+                for (int i = 0; i < oldSize; i++) {
+                    if (retained.contains(oldSegments[i])) {
+                        sinceLastIndexEntry = storage.indexInterval;
+                        index(oldTimestamps[i], oldSegments[i], oldOffsets[i]);
+                    }
+                }
+                sinceLastIndexEntry = oldSinceLast;
+                for (int s = last; s < v.segments.length; s++) {
+                    count += v.segments[s].getCount();
+                }
+
+                view = new LogView(newSegments.toArray(new LogSegment[newSegments.size()]), indexTimestamps,
+                                indexSegments, indexOffsets, indexSize, count, v.lastSegment, v.lastOffset,
+                                v.lastTimestamp, v.ordered);
+            }
+
+            //Readers holding an older view still have the old segments mapped
+            for (int s = first; s < last; s++) {
+                if (!segments[s].getFile().delete()) {
+                    log.warn("Could not delete compacted segment {}; will be deleted when reopened",
+                                    segments[s].getFile());
+                }
+            }
+        }
+    }
+
+    /**
+     * Read only map view of a worker log, as used by {@link BaseCollectionStatsStorage}. Entries are decoded lazily
+     */
+    private static class WorkerLogMap extends AbstractMap<Long, Persistable> {
+        private final WorkerLog log;
+
+        private WorkerLogMap(WorkerLog log) {
+            this.log = log;
+        }
+
+        @Override
+        public int size() {
+            return log.view.count;
+        }
+
+        @Override
+        public Persistable get(Object key) {
+            if (!(key instanceof Long))
+                return null;
+            return log.get((Long) key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<Long, Persistable>> entrySet() {
+            final LogView v = log.view;
+            return new AbstractSet<Entry<Long, Persistable>>() {
+                @Override
+                public int size() {
+                    return v.count;
+                }
+
+                @Override
+                public Iterator<Entry<Long, Persistable>> iterator() {
+                    return new Iterator<Entry<Long, Persistable>>() {
+                        private int segmentIdx = 0;
+                        private int offset = (v.segments.length == 0 ? -1 : v.segments[0].first());
+                        private int returned = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            while (offset < 0 && segmentIdx < v.segments.length - 1) {
+                                segmentIdx++;
+                                offset = v.segments[segmentIdx].first();
+                            }
+                            return offset >= 0 && returned < v.count;
+                        }
+
+                        @Override
+                        public Entry<Long, Persistable> next() {
+                            if (!hasNext())
+                                throw new NoSuchElementException();
+                            final LogSegment segment = v.segments[segmentIdx];
+                            final int recordOffset = offset;
+                            offset = segment.next(offset);
+                            returned++;
+                            return new Entry<Long, Persistable>() {
+                                @Override
+                                public Long getKey() {
+                                    return segment.recordTimestamp(recordOffset);
+                                }
+
+                                @Override
+                                public Persistable getValue() {
+                                    return log.decode(segment, recordOffset);
+                                }
+
+                                @Override
+                                public Persistable setValue(Persistable value) {
+                                    throw new UnsupportedOperationException("Stats log is append only");
+                                }
+                            };
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException("Stats log is append only");
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    public static class Builder {
+        private File directory;
+        private int segmentSize = DEFAULT_SEGMENT_SIZE;
+        private int indexInterval = DEFAULT_INDEX_INTERVAL;
+        private long compactionIntervalMs = DEFAULT_COMPACTION_INTERVAL_MS;
+        private int fullResolutionSegments = DEFAULT_FULL_RESOLUTION_SEGMENTS;
+        private int downsampleFactor = DEFAULT_DOWNSAMPLE_FACTOR;
+
+        /**
+         * @param directory Directory for the log files. Created if it doesn't exist
+         */
+        public Builder(File directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Size of each mapped segment file, in bytes. Default: 16MB
+         */
+        public Builder segmentSize(int segmentSize) {
+            if (segmentSize < 1024)
+                throw new IllegalArgumentException("Segment size should be at least 1024 bytes");
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Number of records between sparse index entries. Default: 32
+         */
+        public Builder indexInterval(int indexInterval) {
+            if (indexInterval < 1)
+                throw new IllegalArgumentException("Index interval should be positive");
+            this.indexInterval = indexInterval;
+            return this;
+        }
+
+        /**
+         * Interval between background compactions, in milliseconds. 0 to disable background compaction
+         * ({@link SegmentedLogStatsStorage#compact()} can still be called). Default: 60 seconds
+         */
+        public Builder compactionIntervalMs(long compactionIntervalMs) {
+            this.compactionIntervalMs = compactionIntervalMs;
+            return this;
+        }
+
+        /**
+         * Number of the most recent full segments of each log that are never compacted. Default: 4
+         */
+        public Builder fullResolutionSegments(int fullResolutionSegments) {
+            if (fullResolutionSegments < 0)
+                throw new IllegalArgumentException("Number of full resolution segments should be non-negative");
+            this.fullResolutionSegments = fullResolutionSegments;
+            return this;
+        }
+
+        /**
+         * Compaction keeps one of every downsampleFactor updates. 1: keep all updates. Default: 4
+         */
+        public Builder downsampleFactor(int downsampleFactor) {
+            if (downsampleFactor < 1)
+                throw new IllegalArgumentException("Downsample factor should be positive");
+            this.downsampleFactor = downsampleFactor;
+            return this;
+        }
+
+        public SegmentedLogStatsStorage build() {
+            return new SegmentedLogStatsStorage(this);
+        }
+    }
+}
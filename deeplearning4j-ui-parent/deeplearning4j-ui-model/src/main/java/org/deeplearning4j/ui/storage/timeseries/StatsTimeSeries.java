@@ -0,0 +1,464 @@
+package org.deeplearning4j.ui.storage.timeseries;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.api.storage.Persistable;
+import org.deeplearning4j.ui.stats.api.StatsReport;
+import org.deeplearning4j.ui.stats.api.StatsType;
+
+import java.util.*;
+
+/**
+ * Aggregated time series of the scalar values in the {@link StatsReport}s of one session/type/worker, as used by the
+ * training UI charts: score, learning rates, mean magnitudes of parameters and updates, standard deviations of
+ * gradients/updates/activations and mean activations.<br>
+ * Each value is kept as min/max/mean per bucket of consecutive updates, at several resolutions: resolution i has
+ * buckets of resolutionFactor^i updates and keeps the most recent buckets only, while the coarsest resolution always
+ * covers the whole history (adjacent buckets are merged when it's full). Updates are folded in one at a time, so a
+ * query doesn't need to decode any of the stored reports, and its cost depends only on the number of buckets
+ * returned.<br>
+ * Updates must be added in timestamp order. An update with the same timestamp as the last added update is considered
+ * a duplicate (stats storages key updates by timestamp), and ignored. Updates older than the last added update can't
+ * be inserted: they are ignored too, but counted (see {@link #getNumOutOfOrder()}) and logged. Storages rebuild the
+ * series from their (sorted) updates in that case.
+ */
+@Slf4j
+public class StatsTimeSeries {
+    public static final int DEFAULT_BUCKETS_PER_RESOLUTION = 512;
+    public static final int DEFAULT_RESOLUTION_FACTOR = 8;
+    public static final int DEFAULT_NUM_RESOLUTIONS = 4;
+
+    public static final String SCORE = "score";
+
+    private static final String LEARNING_RATE_PREFIX = "learningRate/";
+    private static final String MEAN_MAGNITUDE = "meanMagnitude";
+    private static final String STDEV = "stdev";
+    private static final String MEAN = "mean";
+    private static final int INITIAL_BUCKETS = 16;
+
+    private final int bucketsPerResolution;
+    private final Resolution[] resolutions;
+    private final Map<String, Integer> metricIndices = new HashMap<>();
+    private final List<String> metricNames = new ArrayList<>();
+    private long lastTimestamp = Long.MIN_VALUE;
+    private long numUpdates;
+    private long numOutOfOrder;
+
+    public StatsTimeSeries() {
+        this(DEFAULT_BUCKETS_PER_RESOLUTION, DEFAULT_RESOLUTION_FACTOR, DEFAULT_NUM_RESOLUTIONS);
+    }
+
+    /**
+     * @param bucketsPerResolution Max number of buckets kept for each resolution. Must be even
+     * @param resolutionFactor     Ratio between the bucket sizes of consecutive resolutions
+     * @param numResolutions       Number of resolutions
+     */
+    public StatsTimeSeries(int bucketsPerResolution, int resolutionFactor, int numResolutions) {
+        if (bucketsPerResolution < 2 || bucketsPerResolution % 2 != 0)
+            throw new IllegalArgumentException("Number of buckets per resolution should be even and positive");
+        if (resolutionFactor < 2 || numResolutions < 1)
+            throw new IllegalArgumentException("Invalid resolutions: factor " + resolutionFactor + ", number "
+                            + numResolutions);
+        this.bucketsPerResolution = bucketsPerResolution;
+        this.resolutions = new Resolution[numResolutions];
+        int width = 1;
+        for (int i = 0; i < numResolutions; i++) {
+            resolutions[i] = new Resolution(width, i == numResolutions - 1);
+            width *= resolutionFactor;
+        }
+    }
+
+    public static String learningRateKey(String paramName) {
+        return LEARNING_RATE_PREFIX + paramName;
+    }
+
+    public static String meanMagnitudeKey(StatsType statsType, String name) {
+        return keyPrefix(MEAN_MAGNITUDE, statsType) + name;
+    }
+
+    public static String stdevKey(StatsType statsType, String name) {
+        return keyPrefix(STDEV, statsType) + name;
+    }
+
+    public static String meanKey(StatsType statsType, String name) {
+        return keyPrefix(MEAN, statsType) + name;
+    }
+
+    private static String keyPrefix(String stat, StatsType statsType) {
+        return stat + "/" + statsType + "/";
+    }
+
+    /**
+     * Timestamp of the last update added, or Long.MIN_VALUE if no updates were added yet
+     */
+    public synchronized long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public synchronized long getNumUpdates() {
+        return numUpdates;
+    }
+
+    /**
+     * Number of updates ignored because they were older than the last update added at that point
+     */
+    public synchronized long getNumOutOfOrder() {
+        return numOutOfOrder;
+    }
+
+    /**
+     * Names of all the metrics seen so far, in the order they were first seen
+     */
+    public synchronized List<String> getMetricNames() {
+        return new ArrayList<>(metricNames);
+    }
+
+    /**
+     * Add the values of the specified update, if it is a {@link StatsReport}
+     *
+     * @return true if the update was added, false if it was ignored (not a StatsReport, or not newer than the last
+     * update added)
+     */
+    public boolean add(Persistable update) {
+        if (!(update instanceof StatsReport))
+            return false;
+        StatsReport report = (StatsReport) update;
+
+        Map<String, Double> values = new LinkedHashMap<>();
+        values.put(SCORE, report.getScore());
+        putAll(values, LEARNING_RATE_PREFIX, report.getLearningRates());
+        putAll(values, keyPrefix(MEAN_MAGNITUDE, StatsType.Parameters),
+                        report.getMeanMagnitudes(StatsType.Parameters));
+        putAll(values, keyPrefix(MEAN_MAGNITUDE, StatsType.Updates), report.getMeanMagnitudes(StatsType.Updates));
+        putAll(values, keyPrefix(STDEV, StatsType.Gradients), report.getStdev(StatsType.Gradients));
+        putAll(values, keyPrefix(STDEV, StatsType.Updates), report.getStdev(StatsType.Updates));
+        putAll(values, keyPrefix(STDEV, StatsType.Activations), report.getStdev(StatsType.Activations));
+        putAll(values, keyPrefix(MEAN, StatsType.Activations), report.getMean(StatsType.Activations));
+
+        return add(report.getTimeStamp(), report.getIterationCount(), values);
+    }
+
+    private static void putAll(Map<String, Double> values, String keyPrefix, Map<String, Double> source) {
+        if (source == null)
+            return;
+        for (Map.Entry<String, Double> e : source.entrySet()) {
+            values.put(keyPrefix + e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Add the values of one update
+     *
+     * @param timestamp Timestamp of the update
+     * @param iteration Iteration count of the update
+     * @param values    Values by metric name. Non-finite values are ignored.
+     * @return true if the update was added, false if it was ignored (not newer than the last update added)
+     */
+    public synchronized boolean add(long timestamp, int iteration, Map<String, Double> values) {
+        if (timestamp == lastTimestamp)
+            return false; //Duplicate of the last update
+        if (timestamp < lastTimestamp) {
+            if (numOutOfOrder++ == 0) {
+                log.warn("Ignoring out of order stats update with timestamp {} (last added: {}). Further out of order "
+                                + "updates are logged at debug level", timestamp, lastTimestamp);
+            } else {
+                log.debug("Ignoring out of order stats update with timestamp {} (last added: {}), {} so far",
+                                timestamp, lastTimestamp, numOutOfOrder);
+            }
+            return false;
+        }
+
+        int[] indices = new int[values.size()];
+        double[] vals = new double[values.size()];
+        int n = 0;
+        for (Map.Entry<String, Double> e : values.entrySet()) {
+            Double d = e.getValue();
+            if (d == null || Double.isNaN(d) || Double.isInfinite(d))
+                continue;
+            indices[n] = metricIndex(e.getKey());
+            vals[n++] = d;
+        }
+
+        for (Resolution r : resolutions) {
+            r.add(timestamp, iteration, indices, vals, n);
+        }
+        lastTimestamp = timestamp;
+        numUpdates++;
+        return true;
+    }
+
+    private int metricIndex(String name) {
+        Integer idx = metricIndices.get(name);
+        if (idx == null) {
+            idx = metricNames.size();
+            metricIndices.put(name, idx);
+            metricNames.add(name);
+            for (Resolution r : resolutions) {
+                r.addMetric();
+            }
+        }
+        return idx;
+    }
+
+    /**
+     * Get the aggregated values of all updates after the specified timestamp, using the finest resolution that
+     * covers them in at most maxPoints buckets. If even the coarsest resolution has too many buckets, consecutive
+     * buckets are merged.
+     *
+     * @param fromTimestamp Exclusive: only buckets with updates after this timestamp are returned. Use Long.MIN_VALUE
+     *                      for the whole history
+     * @param maxPoints     Max number of buckets to return
+     * @param metrics       Names of the metrics to return. If null: all metrics
+     */
+    public synchronized Buckets query(long fromTimestamp, int maxPoints, Collection<String> metrics) {
+        if (maxPoints < 1)
+            throw new IllegalArgumentException("Max points should be positive: got " + maxPoints);
+
+        Resolution chosen = null;
+        int first = 0;
+        for (Resolution r : resolutions) {
+            if (r.droppedUntil > fromTimestamp)
+                continue; //Some of the requested updates have been dropped at this resolution
+            chosen = r;
+            first = r.firstBucketAfter(fromTimestamp);
+            if (r.size - first <= maxPoints)
+                break;
+        }
+
+        int available = chosen.size - first;
+        int group = Math.max(1, (available + maxPoints - 1) / maxPoints);
+        int numOut = (available + group - 1) / group;
+
+        long[] timestamps = new long[numOut];
+        int[] iterations = new int[numOut];
+        int[] counts = new int[numOut];
+        for (int i = 0; i < numOut; i++) {
+            int from = first + i * group;
+            int to = Math.min(from + group, chosen.size);
+            for (int b = from; b < to; b++) {
+                counts[i] += chosen.count[b];
+            }
+            timestamps[i] = chosen.lastTimestamp[to - 1];
+            iterations[i] = chosen.lastIteration[to - 1];
+        }
+
+        Map<String, double[]> min = new LinkedHashMap<>();
+        Map<String, double[]> max = new LinkedHashMap<>();
+        Map<String, double[]> mean = new LinkedHashMap<>();
+        Collection<String> names = (metrics == null ? metricNames : metrics);
+        for (String name : names) {
+            Integer m = metricIndices.get(name);
+            if (m == null)
+                continue;
+            double[] outMin = new double[numOut];
+            double[] outMax = new double[numOut];
+            double[] outMean = new double[numOut];
+            for (int i = 0; i < numOut; i++) {
+                int from = first + i * group;
+                int to = Math.min(from + group, chosen.size);
+                double bMin = Double.NaN;
+                double bMax = Double.NaN;
+                double sum = 0.0;
+                long n = 0;
+                for (int b = from; b < to; b++) {
+                    int c = chosen.n[m][b];
+                    if (c == 0)
+                        continue;
+                    if (n == 0) {
+                        bMin = chosen.min[m][b];
+                        bMax = chosen.max[m][b];
+                    } else {
+                        bMin = Math.min(bMin, chosen.min[m][b]);
+                        bMax = Math.max(bMax, chosen.max[m][b]);
+                    }
+                    sum += chosen.sum[m][b];
+                    n += c;
+                }
+                outMin[i] = bMin;
+                outMax[i] = bMax;
+                outMean[i] = (n == 0 ? Double.NaN : sum / n);
+            }
+            min.put(name, outMin);
+            max.put(name, outMax);
+            mean.put(name, outMean);
+        }
+
+        return new Buckets(chosen.width * group, timestamps, iterations, counts, min, max, mean);
+    }
+
+    /**
+     * Result of a time series query. Arrays are indexed by bucket, oldest first; min/max/mean are NaN for buckets
+     * without any value for that metric
+     */
+    @AllArgsConstructor
+    @Data
+    public static class Buckets {
+        /** Number of updates per bucket (the most recent bucket may be partial) */
+        private final int updatesPerBucket;
+        /** Timestamp of the last update in each bucket */
+        private final long[] timestamps;
+        /** Iteration count of the last update in each bucket */
+        private final int[] iterations;
+        /** Number of updates in each bucket */
+        private final int[] counts;
+        private final Map<String, double[]> min;
+        private final Map<String, double[]> max;
+        private final Map<String, double[]> mean;
+
+        public int size() {
+            return timestamps.length;
+        }
+    }
+
+    /**
+     * Buckets of a fixed number of updates, stored as parallel arrays. When full, a resolution either drops its oldest
+     * half or, for the coarsest resolution, merges adjacent pairs of buckets and doubles the bucket size.
+     */
+    private class Resolution {
+        private int width;
+        private final boolean fullHistory;
+        private int size;
+        //Timestamp of the last update of the dropped buckets: updates up to this timestamp aren't available here
+        private long droppedUntil = Long.MIN_VALUE;
+
+        private long[] lastTimestamp = new long[0];
+        private int[] lastIteration = new int[0];
+        private int[] count = new int[0];
+        //By metric, then by bucket
+        private double[][] min = new double[0][];
+        private double[][] max = new double[0][];
+        private double[][] sum = new double[0][];
+        private int[][] n = new int[0][];
+
+        private Resolution(int width, boolean fullHistory) {
+            this.width = width;
+            this.fullHistory = fullHistory;
+        }
+
+        private void addMetric() {
+            int m = min.length;
+            min = Arrays.copyOf(min, m + 1);
+            max = Arrays.copyOf(max, m + 1);
+            sum = Arrays.copyOf(sum, m + 1);
+            n = Arrays.copyOf(n, m + 1);
+            min[m] = new double[count.length];
+            max[m] = new double[count.length];
+            sum[m] = new double[count.length];
+            n[m] = new int[count.length];
+        }
+
+        private void add(long timestamp, int iteration, int[] indices, double[] values, int numValues) {
+            if (size == 0 || count[size - 1] >= width) {
+                openBucket();
+            }
+            int b = size - 1;
+            count[b]++;
+            lastTimestamp[b] = timestamp;
+            lastIteration[b] = iteration;
+            for (int i = 0; i < numValues; i++) {
+                int m = indices[i];
+                double v = values[i];
+                if (n[m][b] == 0) {
+                    min[m][b] = v;
+                    max[m][b] = v;
+                    sum[m][b] = v;
+                } else {
+                    min[m][b] = Math.min(min[m][b], v);
+                    max[m][b] = Math.max(max[m][b], v);
+                    sum[m][b] += v;
+                }
+                n[m][b]++;
+            }
+        }
+
+        private void openBucket() {
+            if (size == bucketsPerResolution) {
+                if (fullHistory) {
+                    mergePairs();
+                } else {
+                    dropOldestHalf();
+                }
+            } else if (size == count.length) {
+                grow(Math.min(bucketsPerResolution, Math.max(INITIAL_BUCKETS, 2 * count.length)));
+            }
+            int b = size++;
+            count[b] = 0;
+            for (int m = 0; m < n.length; m++) {
+                n[m][b] = 0;
+            }
+        }
+
+        private void grow(int newLength) {
+            lastTimestamp = Arrays.copyOf(lastTimestamp, newLength);
+            lastIteration = Arrays.copyOf(lastIteration, newLength);
+            count = Arrays.copyOf(count, newLength);
+            for (int m = 0; m < n.length; m++) {
+                min[m] = Arrays.copyOf(min[m], newLength);
+                max[m] = Arrays.copyOf(max[m], newLength);
+                sum[m] = Arrays.copyOf(sum[m], newLength);
+                n[m] = Arrays.copyOf(n[m], newLength);
+            }
+        }
+
+        private void dropOldestHalf() {
+            int drop = size / 2;
+            droppedUntil = lastTimestamp[drop - 1];
+            int keep = size - drop;
+            System.arraycopy(lastTimestamp, drop, lastTimestamp, 0, keep);
+            System.arraycopy(lastIteration, drop, lastIteration, 0, keep);
+            System.arraycopy(count, drop, count, 0, keep);
+            for (int m = 0; m < n.length; m++) {
+                System.arraycopy(min[m], drop, min[m], 0, keep);
+                System.arraycopy(max[m], drop, max[m], 0, keep);
+                System.arraycopy(sum[m], drop, sum[m], 0, keep);
+                System.arraycopy(n[m], drop, n[m], 0, keep);
+            }
+            size = keep;
+        }
+
+        private void mergePairs() {
+            int merged = size / 2;
+            for (int i = 0; i < merged; i++) {
+                int a = 2 * i;
+                int b = a + 1;
+                count[i] = count[a] + count[b];
+                lastTimestamp[i] = lastTimestamp[b];
+                lastIteration[i] = lastIteration[b];
+                for (int m = 0; m < n.length; m++) {
+                    int na = n[m][a];
+                    int nb = n[m][b];
+                    if (na == 0) {
+                        min[m][i] = min[m][b];
+                        max[m][i] = max[m][b];
+                    } else if (nb == 0) {
+                        min[m][i] = min[m][a];
+                        max[m][i] = max[m][a];
+                    } else {
+                        min[m][i] = Math.min(min[m][a], min[m][b]);
+                        max[m][i] = Math.max(max[m][a], max[m][b]);
+                    }
+                    sum[m][i] = sum[m][a] + sum[m][b];
+                    n[m][i] = na + nb;
+                }
+            }
+            size = merged;
+            width *= 2;
+        }
+
+        private int firstBucketAfter(long timestamp) {
+            //Last timestamps are increasing: binary search for the first bucket with lastTimestamp > timestamp
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (lastTimestamp[mid] > timestamp) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.deeplearning4j.ui.storage.timeseries;
+
+import org.deeplearning4j.api.storage.StatsStorage;
+
+/**
+ * A {@link StatsStorage} that maintains aggregated {@link StatsTimeSeries} as updates are stored, so that charts
+ * covering a whole session can be produced without reading back every stored update.
+ */
+public interface TimeSeriesStatsStorage extends StatsStorage {
+
+    /**
+     * Get the aggregated time series for the updates of the specified session, type and worker. The returned series
+     * is kept up to date as new updates are stored.
+     *
+     * @return The time series, or null if there are no updates for that session/type/worker
+     */
+    StatsTimeSeries getTimeSeries(String sessionID, String typeID, String workerID);
+}
@@ -8,6 +8,11 @@ import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.api.storage.Persistable;
 import org.deeplearning4j.api.storage.StatsStorage;
+import org.deeplearning4j.ui.stats.api.Histogram;
+import org.deeplearning4j.ui.stats.api.StatsReport;
+import org.deeplearning4j.ui.stats.api.StatsType;
+import org.deeplearning4j.ui.stats.api.SummaryType;
+import org.deeplearning4j.ui.stats.impl.DefaultStatsUpdateConfiguration;
 import org.deeplearning4j.ui.storage.mapdb.MapDBStatsStorage;
 import org.junit.Test;
 import org.nd4j.linalg.dataset.DataSet;
@@ -15,8 +20,7 @@ import org.nd4j.linalg.lossfunctions.LossFunctions;
 
 import java.util.List;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.*;
 
 /**
  * Created by Alex on 07/10/2016.
@@ -76,4 +80,123 @@ public class TestStatsListener {
 
     }
 
+    @Test
+    public void testListenerSampledStats() {
+        DataSet ds = new IrisDataSetIterator(150, 150).next();
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().iterations(1)
+                        .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT).list()
+                        .layer(0, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(4).nOut(3).build())
+                        .pretrain(false).backprop(true).build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        StatsStorage ss = new MapDBStatsStorage(); //in-memory
+
+        //Weights have 12 elements: sampled. Histograms every second report, summary stats every report
+        DefaultStatsUpdateConfiguration updateConfig = new DefaultStatsUpdateConfiguration.Builder().sampleSize(4)
+                        .histogramFrequency(2).build();
+        net.setListeners(new StatsListener(ss, null, updateConfig, null, null));
+
+        for (int i = 0; i < 4; i++) {
+            net.fit(ds);
+        }
+
+        String sessionID = ss.listSessionIDs().get(0);
+        String typeID = ss.listTypeIDsForSession(sessionID).get(0);
+        String workerID = ss.listWorkerIDsForSession(sessionID).get(0);
+        List<Persistable> updates = ss.getAllUpdatesAfter(sessionID, typeID, workerID, 0);
+        assertEquals(4, updates.size());
+
+        for (int i = 0; i < updates.size(); i++) {
+            StatsReport report = (StatsReport) updates.get(i);
+            assertTrue(report.hasScore());
+            assertTrue(report.hasSummaryStats(StatsType.Parameters, SummaryType.Mean));
+            assertTrue(report.hasSummaryStats(StatsType.Parameters, SummaryType.Stdev));
+            assertTrue(report.getStatsCollectionDurationMs() >= 0);
+            assertEquals(i % 2 == 0, report.hasHistograms(StatsType.Parameters));
+
+            if (i % 2 == 0) {
+                Histogram h = report.getHistograms(StatsType.Parameters).get("0_W");
+                int total = 0;
+                for (int c : h.getBinCounts()) {
+                    total += c;
+                }
+                assertEquals(12, total); //Sample counts scaled to the array length
+                assertTrue(h.getMin() <= h.getMax());
+            }
+        }
+    }
+
+    @Test
+    public void testListenerOverheadBudget() {
+        DataSet ds = new IrisDataSetIterator(150, 150).next();
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().iterations(1)
+                        .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT).list()
+                        .layer(0, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(4).nOut(3).build())
+                        .pretrain(false).backprop(true).build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        StatsStorage ss = new MapDBStatsStorage(); //in-memory
+
+        //Tiny overhead budget: once the iteration time is known, collecting stats costs far more than the budget
+        // allows, hence histograms and summary stats should be skipped for the remaining iterations
+        DefaultStatsUpdateConfiguration updateConfig =
+                        new DefaultStatsUpdateConfiguration.Builder().maxOverheadFraction(1e-9).build();
+        net.setListeners(new StatsListener(ss, null, updateConfig, null, null));
+
+        int nIter = 10;
+        for (int i = 0; i < nIter; i++) {
+            net.fit(ds);
+        }
+
+        String sessionID = ss.listSessionIDs().get(0);
+        String typeID = ss.listTypeIDsForSession(sessionID).get(0);
+        String workerID = ss.listWorkerIDsForSession(sessionID).get(0);
+        List<Persistable> updates = ss.getAllUpdatesAfter(sessionID, typeID, workerID, 0);
+        assertEquals(nIter, updates.size());
+
+        int withStats = 0;
+        for (int i = 0; i < updates.size(); i++) {
+            StatsReport report = (StatsReport) updates.get(i);
+            assertTrue(report.hasScore());
+            boolean hasStats = report.hasHistograms(StatsType.Parameters)
+                            || report.hasSummaryStats(StatsType.Parameters, SummaryType.Mean);
+            if (hasStats)
+                withStats++;
+            if (i >= 2)
+                assertFalse("Stats collected at report " + i, hasStats);
+        }
+        assertTrue(withStats >= 1);
+    }
+
+    @Test
+    public void testListenerSampleSizeOne() {
+        DataSet ds = new IrisDataSetIterator(150, 150).next();
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().iterations(1)
+                        .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT).list()
+                        .layer(0, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(4).nOut(3).build())
+                        .pretrain(false).backprop(true).build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        StatsStorage ss = new MapDBStatsStorage(); //in-memory
+        DefaultStatsUpdateConfiguration updateConfig = new DefaultStatsUpdateConfiguration.Builder().sampleSize(1).build();
+        net.setListeners(new StatsListener(ss, null, updateConfig, null, null));
+        net.fit(ds);
+
+        String sessionID = ss.listSessionIDs().get(0);
+        String typeID = ss.listTypeIDsForSession(sessionID).get(0);
+        String workerID = ss.listWorkerIDsForSession(sessionID).get(0);
+        StatsReport report = (StatsReport) ss.getAllUpdatesAfter(sessionID, typeID, workerID, 0).get(0);
+        Double stdev = report.getStdev(StatsType.Parameters).get("0_W"); //Sampled: 1 of 12 elements
+        assertNotNull(stdev);
+        assertFalse(Double.isNaN(stdev));
+    }
 }
@@ -0,0 +1,70 @@
+package org.deeplearning4j.ui.stats;
+
+import org.deeplearning4j.ui.stats.api.Histogram;
+import org.deeplearning4j.ui.stats.sketch.StreamingHistogram;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TestStreamingHistogram {
+
+    @Test
+    public void testQuantilesAndHistogram() {
+        StreamingHistogram sketch = new StreamingHistogram(32);
+        int n = 100000;
+        for (int i = 0; i < n; i++) {
+            sketch.add(i / (double) n);
+        }
+        assertEquals(32, sketch.size());
+        assertEquals(n, sketch.getTotalWeight(), 0.0);
+        assertEquals(0.0, sketch.getMin(), 0.0);
+        assertEquals((n - 1) / (double) n, sketch.getMax(), 0.0);
+
+        for (double q : new double[] {0.01, 0.1, 0.5, 0.9, 0.99}) {
+            assertEquals(q, sketch.quantile(q), 0.02);
+            assertEquals(q * n, sketch.cdf(q), 0.02 * n);
+        }
+
+        Histogram h = sketch.toHistogram(10, 1.0);
+        assertEquals(10, h.getNBins());
+        int total = 0;
+        for (int c : h.getBinCounts()) {
+            assertEquals(n / 10, c, n / 50);
+            total += c;
+        }
+        assertEquals(n, total);
+    }
+
+    @Test
+    public void testMerge() {
+        Random r = new Random(12345);
+        StreamingHistogram all = new StreamingHistogram();
+        StreamingHistogram first = new StreamingHistogram();
+        StreamingHistogram second = new StreamingHistogram();
+        for (int i = 0; i < 10000; i++) {
+            double d = r.nextGaussian();
+            all.add(d);
+            if (i % 2 == 0) {
+                first.add(d);
+            } else {
+                second.add(d + 10);
+            }
+        }
+        first.merge(second);
+
+        assertEquals(10000, first.getTotalWeight(), 0.0);
+        assertTrue(first.size() <= StreamingHistogram.DEFAULT_MAX_CENTROIDS);
+        //Bimodal: half of the values around 0, half around 10
+        assertEquals(5.0, first.quantile(0.5), 4.0);
+        assertEquals(0.0, first.quantile(0.25), 0.3);
+        assertEquals(10.0, first.quantile(0.75), 0.3);
+        assertEquals(0.0, all.quantile(0.5), 0.1);
+
+        //Ignores NaN
+        all.add(Double.NaN);
+        assertEquals(10000, all.getTotalWeight(), 0.0);
+        assertTrue(Double.isNaN(new StreamingHistogram().quantile(0.5)));
+    }
+}
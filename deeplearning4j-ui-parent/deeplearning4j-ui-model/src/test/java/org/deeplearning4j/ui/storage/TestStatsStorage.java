@@ -13,10 +13,13 @@ import org.deeplearning4j.ui.stats.impl.SbeStatsReport;
 import org.deeplearning4j.ui.stats.impl.java.JavaStatsInitializationReport;
 import org.deeplearning4j.ui.stats.impl.java.JavaStatsReport;
 import org.deeplearning4j.ui.storage.mapdb.MapDBStatsStorage;
+import org.deeplearning4j.ui.storage.segmented.SegmentedLogStatsStorage;
 import org.deeplearning4j.ui.storage.sqlite.J7FileStatsStorage;
 import org.junit.Test;
 
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.Collections;
@@ -161,20 +164,24 @@ public class TestStatsStorage {
     public void testFileStatsStore() throws IOException {
 
         for (boolean useJ7Storage : new boolean[] {false, true}) {
-            for (int i = 0; i < 2; i++) {
+            for (int i = 0; i < 3; i++) {
                 File f;
                 if (i == 0) {
                     f = Files.createTempFile("TestMapDbStatsStore", ".db").toFile();
-                } else {
+                } else if (i == 1) {
                     f = Files.createTempFile("TestSqliteStatsStore", ".db").toFile();
+                } else {
+                    f = Files.createTempFile("TestSegmentedLogStatsStore", "").toFile();
                 }
 
                 f.delete(); //Don't want file to exist...
                 StatsStorage ss;
                 if (i == 0) {
                     ss = new MapDBStatsStorage.Builder().file(f).build();
-                } else {
+                } else if (i == 1) {
                     ss = new J7FileStatsStorage(f);
+                } else {
+                    ss = new SegmentedLogStatsStorage.Builder(f).compactionIntervalMs(0).build();
                 }
 
 
@@ -280,8 +287,10 @@ public class TestStatsStorage {
 
                 if (i == 0) {
                     ss = new MapDBStatsStorage.Builder().file(f).build();
-                } else {
+                } else if (i == 1) {
                     ss = new J7FileStatsStorage(f);
+                } else {
+                    ss = new SegmentedLogStatsStorage(f);
                 }
 
 
@@ -306,6 +315,74 @@ public class TestStatsStorage {
         }
     }
 
+    @Test
+    public void testSegmentedLogCompaction() throws IOException {
+        File dir = Files.createTempDirectory("TestSegmentedLogCompaction").toFile();
+        SegmentedLogStatsStorage ss = new SegmentedLogStatsStorage.Builder(dir).segmentSize(1024).indexInterval(4)
+                        .compactionIntervalMs(0).fullResolutionSegments(1).downsampleFactor(2).build();
+
+        ss.putStaticInfo(getInitReport(0, 0, 0, false));
+        int n = 200;
+        for (int i = 0; i < n; i++) {
+            ss.putUpdate(getReport(0, 0, 0, 1000 + i, false));
+        }
+        assertEquals(n, ss.getNumUpdateRecordsFor("sid0", "tid0", "wid0"));
+        assertEquals(getReport(0, 0, 0, 1000 + 50, false), ss.getUpdate("sid0", "tid0", "wid0", 1000 + 50));
+        assertEquals(10, ss.getAllUpdatesAfter("sid0", "tid0", "wid0", 1000 + n - 11).size());
+
+        ss.compact();
+        int afterCompaction = ss.getNumUpdateRecordsFor("sid0", "tid0", "wid0");
+        assertTrue(afterCompaction < n && afterCompaction > n / 2);
+
+        //Recent updates are all kept; older ones are downsampled
+        assertEquals(getReport(0, 0, 0, 1000 + n - 1, false), ss.getLatestUpdate("sid0", "tid0", "wid0"));
+        assertEquals(getReport(0, 0, 0, 1000 + n - 1, false), ss.getUpdate("sid0", "tid0", "wid0", 1000 + n - 1));
+        assertEquals(getReport(0, 0, 0, 1000, false), ss.getUpdate("sid0", "tid0", "wid0", 1000));
+        assertNull(ss.getUpdate("sid0", "tid0", "wid0", 1001));
+        List<Persistable> all = ss.getAllUpdatesAfter("sid0", "tid0", "wid0", 0);
+        assertEquals(afterCompaction, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i).getTimeStamp() > all.get(i - 1).getTimeStamp());
+        }
+
+        //Appends after compaction, then reopen
+        ss.putUpdate(getReport(0, 0, 0, 1000 + n, false));
+        ss.close();
+        ss = new SegmentedLogStatsStorage(dir);
+        assertEquals(afterCompaction + 1, ss.getNumUpdateRecordsFor("sid0", "tid0", "wid0"));
+        assertEquals(getInitReport(0, 0, 0, false), ss.getStaticInfo("sid0", "tid0", "wid0"));
+        assertEquals(getReport(0, 0, 0, 1000 + n, false), ss.getLatestUpdate("sid0", "tid0", "wid0"));
+        assertEquals(getReport(0, 0, 0, 1000, false), ss.getUpdate("sid0", "tid0", "wid0", 1000));
+        ss.close();
+    }
+
+    @Test
+    public void testSegmentedLogTornMetadataRecord() throws IOException {
+        File dir = Files.createTempDirectory("TestSegmentedLogTornMeta").toFile();
+        SegmentedLogStatsStorage ss = new SegmentedLogStatsStorage.Builder(dir).compactionIntervalMs(0).build();
+        ss.putStaticInfo(getInitReport(0, 0, 0, false));
+        ss.close();
+
+        //Simulate a crash part way through writing a record: header, but only part of the content
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(new File(dir, "meta.log"), true))) {
+            out.writeByte(1);
+            out.writeInt(0);
+            out.writeInt(100);
+            out.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+        }
+
+        ss = new SegmentedLogStatsStorage.Builder(dir).compactionIntervalMs(0).build();
+        assertEquals(getInitReport(0, 0, 0, false), ss.getStaticInfo("sid0", "tid0", "wid0"));
+        //New class (Java report): class record and static info record are written after the torn record
+        ss.putStaticInfo(getInitReport(1, 0, 0, true));
+        ss.close();
+
+        ss = new SegmentedLogStatsStorage.Builder(dir).compactionIntervalMs(0).build();
+        assertEquals(getInitReport(0, 0, 0, false), ss.getStaticInfo("sid0", "tid0", "wid0"));
+        assertEquals(getInitReport(1, 0, 0, true), ss.getStaticInfo("sid1", "tid0", "wid0"));
+        ss.close();
+    }
+
     private static StatsInitializationReport getInitReport(int idNumber, int tid, int wid, boolean useJ7Storage) {
         StatsInitializationReport rep;
         if (useJ7Storage) {
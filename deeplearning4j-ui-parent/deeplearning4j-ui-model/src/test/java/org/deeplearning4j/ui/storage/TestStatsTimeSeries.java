@@ -0,0 +1,145 @@
+package org.deeplearning4j.ui.storage;
+
+import org.deeplearning4j.ui.stats.api.StatsReport;
+import org.deeplearning4j.ui.stats.impl.SbeStatsReport;
+import org.deeplearning4j.ui.storage.mapdb.MapDBStatsStorage;
+import org.deeplearning4j.ui.storage.timeseries.StatsTimeSeries;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestStatsTimeSeries {
+
+    private static Map<String, Double> values(double score) {
+        Map<String, Double> map = new HashMap<>();
+        map.put(StatsTimeSeries.SCORE, score);
+        return map;
+    }
+
+    @Test
+    public void testAggregationAndResolutions() {
+        StatsTimeSeries series = new StatsTimeSeries(8, 4, 3);
+        int n = 1000;
+        for (int i = 0; i < n; i++) {
+            assertTrue(series.add(1000 + i, i, values(i)));
+        }
+        assertEquals(n, series.getNumUpdates());
+        assertEquals(1000 + n - 1, series.getLastTimestamp());
+
+        //Out of order updates are ignored, but counted; duplicates of the last update are ignored
+        assertFalse(series.add(1000, 0, values(-1)));
+        assertFalse(series.add(1000 + n - 1, n - 1, values(-1)));
+        assertEquals(n, series.getNumUpdates());
+        assertEquals(1, series.getNumOutOfOrder());
+
+        //Whole history: only the coarsest resolution covers it
+        StatsTimeSeries.Buckets all = series.query(Long.MIN_VALUE, 8, null);
+        assertTrue(all.size() > 0 && all.size() <= 8);
+        double[] min = all.getMin().get(StatsTimeSeries.SCORE);
+        double[] max = all.getMax().get(StatsTimeSeries.SCORE);
+        double[] mean = all.getMean().get(StatsTimeSeries.SCORE);
+        assertEquals(0.0, min[0], 0.0);
+        assertEquals(n - 1, max[all.size() - 1], 0.0);
+        assertEquals(n - 1, all.getIterations()[all.size() - 1]);
+        assertEquals(1000 + n - 1, all.getTimestamps()[all.size() - 1]);
+
+        long count = 0;
+        double sum = 0.0;
+        for (int i = 0; i < all.size(); i++) {
+            count += all.getCounts()[i];
+            sum += mean[i] * all.getCounts()[i];
+            assertTrue(min[i] <= mean[i] && mean[i] <= max[i]);
+            if (i > 0)
+                assertTrue(all.getTimestamps()[i] > all.getTimestamps()[i - 1]);
+        }
+        assertEquals(n, count);
+        assertEquals((n - 1) / 2.0, sum / n, 1e-9);
+
+        //Recent updates only: the finest resolution still has them
+        StatsTimeSeries.Buckets recent = series.query(1000 + 995, 8, null);
+        assertEquals(1, recent.getUpdatesPerBucket());
+        assertEquals(4, recent.size());
+        assertArrayEquals(new double[] {996, 997, 998, 999}, recent.getMean().get(StatsTimeSeries.SCORE), 0.0);
+        assertArrayEquals(new int[] {996, 997, 998, 999}, recent.getIterations());
+
+        //Fewer points than buckets: buckets are merged on query
+        StatsTimeSeries.Buckets merged = series.query(Long.MIN_VALUE, 2, Collections.singletonList("unknown"));
+        assertTrue(merged.size() <= 2);
+        assertTrue(merged.getMean().isEmpty());
+    }
+
+    @Test
+    public void testMissingAndNonFiniteValues() {
+        StatsTimeSeries series = new StatsTimeSeries();
+        series.add(1, 1, values(Double.NaN));
+        Map<String, Double> m = values(2.0);
+        m.put("other", 5.0);
+        series.add(2, 2, m);
+
+        StatsTimeSeries.Buckets b = series.query(Long.MIN_VALUE, 10, null);
+        assertEquals(2, b.size());
+        assertTrue(Double.isNaN(b.getMean().get(StatsTimeSeries.SCORE)[0]));
+        assertEquals(2.0, b.getMean().get(StatsTimeSeries.SCORE)[1], 0.0);
+        assertTrue(Double.isNaN(b.getMean().get("other")[0]));
+        assertEquals(5.0, b.getMean().get("other")[1], 0.0);
+    }
+
+    private static StatsReport getReport(long time, int iter) {
+        StatsReport rep = new SbeStatsReport();
+        rep.reportIDs("sid", "tid", "wid", time);
+        rep.reportIterationCount(iter);
+        rep.reportScore(iter * 2.0);
+        rep.reportPerformance(1000, 1001, 1002, 1003.0, 1004.0);
+        Map<String, Double> lrs = new HashMap<>();
+        lrs.put("0_W", 0.1);
+        rep.reportLearningRates(lrs);
+        return rep;
+    }
+
+    @Test
+    public void testStatsStorageTimeSeries() throws Exception {
+        File f = Files.createTempFile("TestStatsTimeSeries", ".db").toFile();
+        f.delete();
+        MapDBStatsStorage ss = new MapDBStatsStorage.Builder().file(f).build();
+        assertNull(ss.getTimeSeries("sid", "tid", "wid"));
+
+        for (int i = 0; i < 10; i++) {
+            ss.putUpdate(getReport(1000 + i, i));
+        }
+        StatsTimeSeries series = ss.getTimeSeries("sid", "tid", "wid");
+        assertEquals(10, series.getNumUpdates());
+
+        //Kept up to date on put
+        ss.putUpdate(getReport(2000, 10));
+        assertEquals(11, series.getNumUpdates());
+        StatsTimeSeries.Buckets b = series.query(1009, 100, null);
+        assertEquals(1, b.size());
+        assertEquals(20.0, b.getMean().get(StatsTimeSeries.SCORE)[0], 0.0);
+        assertEquals(0.1, b.getMean().get(StatsTimeSeries.learningRateKey("0_W"))[0], 1e-9);
+
+        //Out of order update: series is rebuilt in timestamp order, instead of dropping the update
+        ss.putUpdate(getReport(1500, 11));
+        series = ss.getTimeSeries("sid", "tid", "wid");
+        assertEquals(12, series.getNumUpdates());
+        assertEquals(2000, series.getLastTimestamp());
+        b = series.query(1009, 100, null);
+        assertEquals(2, b.size());
+        assertEquals(1500, b.getTimestamps()[0]);
+        assertEquals(22.0, b.getMean().get(StatsTimeSeries.SCORE)[0], 0.0);
+        ss.close();
+
+        //Rebuilt from the stored updates after reopening
+        ss = new MapDBStatsStorage.Builder().file(f).build();
+        series = ss.getTimeSeries("sid", "tid", "wid");
+        assertEquals(12, series.getNumUpdates());
+        assertEquals(2000, series.getLastTimestamp());
+        ss.close();
+        f.delete();
+    }
+}